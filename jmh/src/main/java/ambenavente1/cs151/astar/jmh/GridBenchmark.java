@@ -0,0 +1,81 @@
+package ambenavente1.cs151.astar.jmh;
+
+import ambenavente1.cs151.astar.CompactGrid;
+import ambenavente1.cs151.astar.Grid;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The time it takes to build a {@link Grid} and a {@link CompactGrid} of
+ * each size.  With the allocation profiler, the bytes allocated per
+ * operation are about what each grid takes in memory.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class GridBenchmark {
+
+    /**
+     * The sizes a node grid is built at.  Past 2048x2048 the nodes don't
+     * fit in a normal heap.
+     */
+    @State(Scope.Benchmark)
+    public static class NodeGridSize {
+
+        /**
+         * The width and height of the grid
+         */
+        @Param({ "64", "128", "256", "512", "1024", "2048" })
+        public int size;
+    }
+
+    /**
+     * The sizes a compact grid is built at
+     */
+    @State(Scope.Benchmark)
+    public static class CompactGridSize {
+
+        /**
+         * The width and height of the grid
+         */
+        @Param({ "64", "128", "256", "512", "1024", "2048", "4096" })
+        public int size;
+    }
+
+    /**
+     * Builds a grid of nodes
+     *
+     * @param state The size to build at
+     * @return The grid
+     */
+    @Benchmark
+    public Grid buildGrid(NodeGridSize state) {
+        return new Grid(state.size, state.size);
+    }
+
+    /**
+     * Builds a compact grid
+     *
+     * @param state The size to build at
+     * @return The grid
+     */
+    @Benchmark
+    public CompactGrid buildCompactGrid(CompactGridSize state) {
+        return new CompactGrid(state.size, state.size);
+    }
+}
@@ -0,0 +1,158 @@
+package ambenavente1.cs151.astar.jmh;
+
+import ambenavente1.cs151.astar.AStar;
+import ambenavente1.cs151.astar.CompactGrid;
+import ambenavente1.cs151.astar.MovingAi;
+import ambenavente1.cs151.astar.MovingAiScenario;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Point;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Path queries on maps in the Moving AI <code>.map</code> format.  The map
+ * is given with <code>-p mapFile=path/to/file.map</code>, and if a
+ * <code>.map.scen</code> file sits next to it the queries are the
+ * scenarios in it; otherwise they are random.  Without a file, a generated
+ * map of rooms is written out in the format and read back, so the reader's
+ * maps are what gets measured.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class MovingAiBenchmark {
+
+    /**
+     * The number of random queries run when there are no scenarios
+     */
+    private static final int QUERIES = 64;
+
+    /**
+     * The width and height of the map generated when no file is given
+     */
+    private static final int GENERATED_SIZE = 512;
+
+    /**
+     * The map file to search, or empty to generate one
+     */
+    @Param({ "" })
+    public String mapFile;
+
+    /**
+     * The search reused for every query
+     */
+    private AStar aStar;
+
+    /**
+     * The start of each query
+     */
+    private Point[] starts;
+
+    /**
+     * The goal of each query
+     */
+    private Point[] ends;
+
+    /**
+     * The query the next call runs
+     */
+    private int next;
+
+    /**
+     * Reads the map and its queries
+     *
+     * @throws IOException If the files can't be read or written
+     */
+    @Setup
+    public void setUp() throws IOException {
+        File file;
+        if (mapFile.isEmpty()) {
+            file = File.createTempFile("rooms", ".map");
+            file.deleteOnExit();
+            BenchmarkMaps.writeMovingAiMap(BenchmarkMaps.generate(
+                    new CompactGrid(GENERATED_SIZE, GENERATED_SIZE), "rooms", 7),
+                    file);
+        } else {
+            file = new File(mapFile);
+        }
+
+        CompactGrid map = MovingAi.readMap(file);
+        aStar = new AStar(map);
+
+        File scenarioFile = new File(file.getPath() + ".scen");
+        if (scenarioFile.isFile()) {
+            List<MovingAiScenario> scenarios = MovingAi.readScenarios(scenarioFile);
+            starts = new Point[scenarios.size()];
+            ends   = new Point[scenarios.size()];
+            for (int i = 0; i < scenarios.size(); i++) {
+                starts[i] = scenarios.get(i).getStart();
+                ends[i]   = scenarios.get(i).getEnd();
+            }
+        } else {
+            starts = new Point[QUERIES];
+            ends   = new Point[QUERIES];
+            Random random = new Random(23);
+            for (int i = 0; i < QUERIES; i++) {
+                starts[i] = BenchmarkMaps.randomWalkable(map, random);
+                ends[i]   = BenchmarkMaps.randomWalkable(map, random);
+            }
+        }
+
+        if (starts.length == 0) {
+            throw new IOException(scenarioFile + " has no scenarios");
+        }
+    }
+
+    /**
+     * Runs the next query
+     *
+     * @return The path, so it isn't optimized away
+     */
+    private List<Point> query() {
+        int i = next;
+        next = i + 1 < starts.length ? i + 1 : 0;
+        return aStar.calculatePath(starts[i], ends[i]);
+    }
+
+    /**
+     * Measures the queries run per second
+     *
+     * @return The path found
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public List<Point> throughput() {
+        return query();
+    }
+
+    /**
+     * Samples the time each query takes, for its percentiles
+     *
+     * @return The path found
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<Point> latency() {
+        return query();
+    }
+}
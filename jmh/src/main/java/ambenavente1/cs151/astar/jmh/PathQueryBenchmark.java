@@ -0,0 +1,202 @@
+package ambenavente1.cs151.astar.jmh;
+
+import ambenavente1.cs151.astar.AStar;
+import ambenavente1.cs151.astar.AbstractGridMap;
+import ambenavente1.cs151.astar.CompactGrid;
+import ambenavente1.cs151.astar.Grid;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Point;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Path queries on every family of {@link BenchmarkMaps}, on both a
+ * {@link CompactGrid} from 64x64 up to 4096x4096 and a {@link Grid} of
+ * nodes up to 2048x2048.  Each map gets a fixed set of random queries
+ * between walkable cells, and every call runs the next one, so the whole
+ * set is averaged over.  The same search is measured twice: once for
+ * throughput and once sampled for the latency percentiles.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class PathQueryBenchmark {
+
+    /**
+     * The number of queries run on each map, which is a power of two
+     */
+    private static final int QUERIES = 64;
+
+    /**
+     * A map and the queries run on it
+     */
+    @State(Scope.Thread)
+    public abstract static class Queries {
+
+        /**
+         * The family of map to search, one of {@link BenchmarkMaps#FAMILIES}
+         */
+        @Param({ "open", "random10", "random25", "random40", "maze", "rooms" })
+        public String family;
+
+        /**
+         * The search reused for every query, like a game would
+         */
+        private AStar aStar;
+
+        /**
+         * The start of each query
+         */
+        private Point[] starts;
+
+        /**
+         * The goal of each query
+         */
+        private Point[] ends;
+
+        /**
+         * The query the next call runs
+         */
+        private int next;
+
+        /**
+         * Makes an empty map to generate the family on
+         *
+         * @return The map, with every cell walkable
+         */
+        protected abstract AbstractGridMap newMap();
+
+        /**
+         * Generates the map and picks the queries
+         */
+        @Setup
+        public void setUp() {
+            AbstractGridMap map = newMap();
+            BenchmarkMaps.generate(map, family, map.getWidth());
+            aStar = new AStar(map);
+
+            starts = new Point[QUERIES];
+            ends   = new Point[QUERIES];
+            Random random = new Random(23);
+            for (int i = 0; i < QUERIES; i++) {
+                starts[i] = BenchmarkMaps.randomWalkable(map, random);
+                ends[i]   = BenchmarkMaps.randomWalkable(map, random);
+            }
+        }
+
+        /**
+         * Runs the next query
+         *
+         * @return The path, so it isn't optimized away
+         */
+        List<Point> query() {
+            int i = next;
+            next = (i + 1) & (QUERIES - 1);
+            return aStar.calculatePath(starts[i], ends[i]);
+        }
+    }
+
+    /**
+     * Queries on a grid of nodes.  Past 2048x2048 the nodes don't fit in a
+     * normal heap.
+     */
+    public static class GridQueries extends Queries {
+
+        /**
+         * The width and height of the map
+         */
+        @Param({ "64", "128", "256", "512", "1024", "2048" })
+        public int size;
+
+        @Override
+        protected AbstractGridMap newMap() {
+            return new Grid(size, size);
+        }
+    }
+
+    /**
+     * Queries on a compact grid
+     */
+    public static class CompactGridQueries extends Queries {
+
+        /**
+         * The width and height of the map
+         */
+        @Param({ "64", "128", "256", "512", "1024", "2048", "4096" })
+        public int size;
+
+        @Override
+        protected AbstractGridMap newMap() {
+            return new CompactGrid(size, size);
+        }
+    }
+
+    /**
+     * Measures the queries run per second on a grid of nodes
+     *
+     * @param queries The map and its queries
+     * @return The path found
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public List<Point> gridThroughput(GridQueries queries) {
+        return queries.query();
+    }
+
+    /**
+     * Samples the time each query takes on a grid of nodes, for its
+     * percentiles
+     *
+     * @param queries The map and its queries
+     * @return The path found
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<Point> gridLatency(GridQueries queries) {
+        return queries.query();
+    }
+
+    /**
+     * Measures the queries run per second on a compact grid
+     *
+     * @param queries The map and its queries
+     * @return The path found
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public List<Point> compactThroughput(CompactGridQueries queries) {
+        return queries.query();
+    }
+
+    /**
+     * Samples the time each query takes on a compact grid, for its
+     * percentiles
+     *
+     * @param queries The map and its queries
+     * @return The path found
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<Point> compactLatency(CompactGridQueries queries) {
+        return queries.query();
+    }
+}
@@ -0,0 +1,149 @@
+package ambenavente1.cs151.astar.jmh;
+
+import ambenavente1.cs151.astar.AStar;
+import ambenavente1.cs151.astar.AbstractGridMap;
+import ambenavente1.cs151.astar.CompactGrid;
+import ambenavente1.cs151.astar.Grid;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Point;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What a query costs before it searches anything.  Each query goes one
+ * step across an open map, so nearly all of its time is spent getting
+ * ready to search.  Searches used to reset every node of the grid first,
+ * which grew with the map; now each cell is stamped with the id of the
+ * search that last reached it and starting a search only takes a new id,
+ * so the time should be the same for every size.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class QuerySetupBenchmark {
+
+    /**
+     * An open map and a query between two cells next to each other in the
+     * middle of it
+     */
+    @State(Scope.Thread)
+    public abstract static class OneStep {
+
+        /**
+         * The search reused for every query, like a game would
+         */
+        private AStar aStar;
+
+        /**
+         * The start of the query
+         */
+        private Point start;
+
+        /**
+         * The goal of the query, one step right of the start
+         */
+        private Point end;
+
+        /**
+         * Makes the open map to search
+         *
+         * @return The map, with every cell walkable
+         */
+        protected abstract AbstractGridMap newMap();
+
+        /**
+         * Makes the map and runs the query once, so anything built on the
+         * first search isn't measured
+         */
+        @Setup
+        public void setUp() {
+            AbstractGridMap map = newMap();
+            aStar = new AStar(map);
+            start = new Point(map.getWidth() / 2, map.getHeight() / 2);
+            end   = new Point(start.x + 1, start.y);
+            query();
+        }
+
+        /**
+         * Runs the query
+         *
+         * @return The path, so it isn't optimized away
+         */
+        List<Point> query() {
+            return aStar.calculatePath(start, end);
+        }
+    }
+
+    /**
+     * A grid of nodes.  Past 2048x2048 the nodes don't fit in a normal
+     * heap.
+     */
+    public static class GridStep extends OneStep {
+
+        /**
+         * The width and height of the map
+         */
+        @Param({ "64", "256", "1024", "2048" })
+        public int size;
+
+        @Override
+        protected AbstractGridMap newMap() {
+            return new Grid(size, size);
+        }
+    }
+
+    /**
+     * A compact grid
+     */
+    public static class CompactGridStep extends OneStep {
+
+        /**
+         * The width and height of the map
+         */
+        @Param({ "64", "256", "1024", "4096" })
+        public int size;
+
+        @Override
+        protected AbstractGridMap newMap() {
+            return new CompactGrid(size, size);
+        }
+    }
+
+    /**
+     * Runs a one-step query on a grid of nodes
+     *
+     * @param state The map and the query
+     * @return The path found
+     */
+    @Benchmark
+    public List<Point> grid(GridStep state) {
+        return state.query();
+    }
+
+    /**
+     * Runs a one-step query on a compact grid
+     *
+     * @param state The map and the query
+     * @return The path found
+     */
+    @Benchmark
+    public List<Point> compactGrid(CompactGridStep state) {
+        return state.query();
+    }
+}
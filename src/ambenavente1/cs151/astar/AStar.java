@@ -3,10 +3,18 @@ package ambenavente1.cs151.astar;
 import java.awt.Point;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * This class is used to find the shortest path to a point using the
  * A* algorithm.
+ * <p></p>
+ * The search keeps its per-cell data in this object, not in the map, so any
+ * number of AStar objects can search the same map from different threads as
+ * long as nobody edits the map at the same time.  A single AStar object must
+ * not be used by two threads at once; see {@link PathService} for running
+ * many queries in parallel, or {@link #calculatePaths(List)} for answering a
+ * whole batch of queries at once.
  *
  * @author Anthony Benavente
  * @version 2/24/14
@@ -14,19 +22,61 @@ import java.util.List;
 public class AStar {
 
     /**
-     * The grid that contains data of walkable nodes or not and the costs
+     * The path of a query that found nothing.  It has no cells that could
+     * be changed, so every such query shares it.
+     */
+    static final int[] NO_PATH = new int[0];
+
+    /**
+     * The grid that contains data of walkable nodes or not and the costs.
+     * This is null when searching a map that isn't made of nodes.
      */
     private Grid grid;
 
     /**
-     * List of nodes that need to be visited
+     * The map being searched.  This is the same object as the grid when the
+     * grid is set.
+     */
+    private GridMap map;
+
+    /**
+     * List of cells that need to be visited
+     */
+    private OpenList openList;
+
+    /**
+     * The per-cell data of the search, reused from one search to the next
+     */
+    private SearchState state;
+
+    /**
+     * The algorithm used to find paths
+     */
+    private Algorithm algorithm;
+
+    /**
+     * The number of threads used to answer a batch of queries
      */
-    private List<Node> openList;
+    private int parallelism;
 
     /**
-     * List of nodes that have already been visited
+     * The pool batches of queries run on, with one thread for each of the
+     * parallelism.  It is created by the first batch that needs more than
+     * one thread.
      */
-    private List<Node> closedList;
+    private ForkJoinPool forkJoinPool;
+
+    /**
+     * The search states used by the workers answering a batch of queries,
+     * which keeps one for each thread of the pool
+     */
+    private SearchStatePool statePool;
+
+    /**
+     * Where the totals of every search are recorded, or null to not record
+     * them
+     */
+    private SearchMetrics metrics;
 
     /**
      * Creates a default AStar object with an empty grid
@@ -42,18 +92,33 @@ public class AStar {
      * @param grid The grid of nodes needed to find the shortest path
      */
     public AStar(Grid grid) {
-        this.grid = grid;
-        resetLists();
+        this((GridMap) grid);
     }
 
+    /**
+     * Create an AStar object that searches any kind of map, such as a
+     * {@link CompactGrid}
+     *
+     * @param map The map to find the shortest path on
+     */
+    public AStar(GridMap map) {
+        this(map, new HeapOpenList());
+    }
 
     /**
-     * Resets the lists and the grid
+     * Create an AStar object that uses a specific kind of open list.  This is
+     * mostly useful to compare the speed of different frontiers.
+     *
+     * @param map      The map to find the shortest path on
+     * @param openList The open list used to pick the next cell to visit
      */
-    private void resetLists() {
-        openList = new ArrayList<Node>();
-        closedList = new ArrayList<Node>();
-        grid.reset();
+    public AStar(GridMap map, OpenList openList) {
+        this.openList = openList;
+        this.state = new SearchState(openList);
+        this.algorithm = Algorithm.A_STAR;
+        this.parallelism = Runtime.getRuntime().availableProcessors();
+        this.statePool = new SearchStatePool(parallelism);
+        setMap(map);
     }
 
     /**
@@ -65,115 +130,513 @@ public class AStar {
      * @param startPoint The starting point; where the search begins
      * @param endPoint   The ending point; the goal to where the search will
      *                   end
-     * @return A list of points that lead up from the startPoint to the
-     * endPoint
+     * @return A new list of points that lead up from the startPoint to the
+     * endPoint.  {@link #findPath(int, int, int, int)} gives the same path
+     * without creating a point for each cell.
      */
     public List<Point> calculatePath(Point startPoint, Point endPoint) {
-        resetLists();
+        return findPath(startPoint.x, startPoint.y,
+                        endPoint.x, endPoint.y).toPointList();
+    }
 
-        Node start = grid.getNode(startPoint);
-        Node end   = grid.getNode(endPoint);
+    /**
+     * Calculates the shortest path between two cells and keeps it as a
+     * compact {@link Path}
+     *
+     * @param startX The x coordinate of the cell the search begins at
+     * @param startY The y coordinate of the cell the search begins at
+     * @param endX   The x coordinate of the goal cell
+     * @param endY   The y coordinate of the goal cell
+     * @return The path from the start to the end, which is empty if the end
+     * can't be reached
+     */
+    public Path findPath(int startX, int startY, int endX, int endY) {
+        return new Path(map.getWidth(), startY * map.getWidth() + startX,
+                        calculateCellPath(startX, startY, endX, endY));
+    }
 
-        start.setInOpenList(true);
-        start.setDistanceToGoal(heuristic(startPoint, endPoint));
-        start.setDistanceTraveled(0);
-        openList.add(start);
+    /**
+     * Calculates the shortest path between two cells with a different
+     * algorithm than this object's, just for this query
+     *
+     * @param startX    The x coordinate of the cell the search begins at
+     * @param startY    The y coordinate of the cell the search begins at
+     * @param endX      The x coordinate of the goal cell
+     * @param endY      The y coordinate of the goal cell
+     * @param algorithm The algorithm to search with
+     * @return The path from the start to the end, which is empty if the end
+     * can't be reached
+     */
+    public Path findPath(int startX, int startY, int endX, int endY,
+                         Algorithm algorithm) {
+        return new Path(map.getWidth(), startY * map.getWidth() + startX,
+                        calculateCellPath(startX, startY, endX, endY, algorithm));
+    }
 
-        while (openList.size() > 0) {
-            Node current = getBestNode();
+    /**
+     * Calculates the shortest path between two cells, giving up once the
+     * search has expanded a number of cells or run for a while.  A search
+     * that gives up returns a partial path to the cell that looked closest
+     * to the goal.
+     *
+     * @param startX      The x coordinate of the cell the search begins at
+     * @param startY      The y coordinate of the cell the search begins at
+     * @param endX        The x coordinate of the goal cell
+     * @param endY        The y coordinate of the goal cell
+     * @param maxExpanded The most cells to expand
+     * @param maxNanos    The most time to search for in nanoseconds
+     * @return The path from the start to the end, a partial path if the
+     * search gave up first, or an empty path if the end can't be reached.
+     * A path reached the goal if its last cell is the goal.
+     * @see #startSearch(int, int, int, int)
+     */
+    public Path findPath(int startX, int startY, int endX, int endY,
+                         int maxExpanded, long maxNanos) {
+        long begin = System.nanoTime();
+        PathSearch search = new PathSearch(map, state, null,
+                                           startX, startY, endX, endY, 1);
+        search.run(maxExpanded, maxNanos);
+        Path path = search.getPath();
+        record(begin, path.length());
+        return path;
+    }
+
+    /**
+     * Starts a search that can be run a little at a time, such as a few
+     * cells every game tick
+     *
+     * @param startX The x coordinate of the cell the search begins at
+     * @param startY The y coordinate of the cell the search begins at
+     * @param endX   The x coordinate of the goal cell
+     * @param endY   The y coordinate of the goal cell
+     * @return The search, which hasn't expanded any cells yet
+     */
+    public PathSearch startSearch(int startX, int startY, int endX, int endY) {
+        return startSearch(startX, startY, endX, endY, 1);
+    }
 
-            if (current.equals(end)) {
-                return getFinalPath(start, end);
+    /**
+     * Starts an anytime search that can be run a little at a time.  It
+     * finds a path that costs at most the weight times the cheapest one
+     * quickly and then keeps lowering the weight to improve it.
+     *
+     * @param startX The x coordinate of the cell the search begins at
+     * @param startY The y coordinate of the cell the search begins at
+     * @param endX   The x coordinate of the goal cell
+     * @param endY   The y coordinate of the goal cell
+     * @param weight How much the distance estimate is scaled up by at
+     *               first, which must be at least 1
+     * @return The search, which hasn't expanded any cells yet.  It has its
+     * own arrays, so it can be run while this object answers other
+     * queries; dispose it once it isn't needed anymore.
+     */
+    public PathSearch startSearch(int startX, int startY, int endX, int endY,
+                                  float weight) {
+        SearchState searchState = statePool.borrow();
+        searchState.counting = metrics != null;
+        return new PathSearch(map, searchState, statePool,
+                              startX, startY, endX, endY, weight);
+    }
+
+    /**
+     * Calculates the shortest path for every request in a batch.  The
+     * requests are spread over a fork-join pool with {@link #getParallelism()}
+     * threads and each worker reuses one set of search arrays for all of the
+     * requests it answers.
+     *
+     * @param requests The start and end points of each query
+     * @return A new list of points for the path of each request, in the
+     * same order as the requests
+     */
+    public List<List<Point>> calculatePaths(List<PathRequest> requests) {
+        int[][] cellPaths = calculateCellPaths(requests);
+        List<List<Point>> paths = new ArrayList<List<Point>>(cellPaths.length);
+        int width = map.getWidth();
+
+        for (int i = 0; i < cellPaths.length; i++) {
+            PathRequest request = requests.get(i);
+            int start = request.getStartY() * width + request.getStartX();
+            paths.add(new Path(width, start, cellPaths[i]).toPointList());
+        }
+
+        return paths;
+    }
+
+    /**
+     * Calculates the shortest path for every request in a batch without
+     * creating point objects
+     *
+     * @param requests The start and end points of each query
+     * @return The cell indices of each request's path, in the same order as
+     * the requests
+     * @see #calculatePaths(List)
+     */
+    public int[][] calculateCellPaths(List<PathRequest> requests) {
+        int[][] paths = new int[requests.size()][];
+
+        if (parallelism == 1 || requests.size() < 2) {
+            for (int i = 0; i < paths.length; i++) {
+                PathRequest request = requests.get(i);
+                paths[i] = calculateCellPath(request.getStartX(),
+                                             request.getStartY(),
+                                             request.getEndX(),
+                                             request.getEndY());
             }
+            return paths;
+        }
 
-            for (Node neighbor : current.getNeighbors()) {
-                if (neighbor != null && neighbor.isWalkable()) {
-                    double heuristic = heuristic(neighbor.getPos(), endPoint);
-                    double distanceTraveled = current.getDistanceTraveled() + heuristic;
-
-                    if (!neighbor.isInOpenList() &&
-                        !neighbor.isInClosedList()) {
-                        neighbor.setDistanceTraveled(distanceTraveled + heuristic);
-                        neighbor.setDistanceTraveled(distanceTraveled);
-                        neighbor.setParent(current);
-                        neighbor.setInOpenList(true);
-                        openList.add(neighbor);
-                    } else if (neighbor.isInClosedList() || neighbor.isInOpenList()) {
-                        if (neighbor.getDistanceTraveled() > distanceTraveled) {
-                            neighbor.setDistanceTraveled(distanceTraveled);
-                            neighbor.setDistanceToGoal(distanceTraveled + heuristic);
-                            neighbor.setParent(current);
-                        }
-                    }
-                }
+        if (forkJoinPool == null) {
+            forkJoinPool = new ForkJoinPool(parallelism);
+        }
+
+        // Several pieces per thread so that fast pieces can be stolen from
+        int grain = Math.max(1, requests.size() / (parallelism * 4));
+        forkJoinPool.invoke(new PathBatch(map, statePool, algorithm, metrics,
+                                          requests, paths, 0, paths.length,
+                                          grain));
+
+        return paths;
+    }
+
+    /**
+     * Calculates the cheapest path between two cells without creating any
+     * node or point objects.  Moving into a cell costs that cell's
+     * {@link GridMap#getCost(int, int) cost}.  Per-cell data is kept in flat arrays that are
+     * reused from one search to the next.
+     *
+     * @param startX The x coordinate of the cell the search begins at
+     * @param startY The y coordinate of the cell the search begins at
+     * @param endX   The x coordinate of the goal cell
+     * @param endY   The y coordinate of the goal cell
+     * @return The index (<em>y * width + x</em>) of each cell on the path
+     * from the one after the start up to the end, or an empty array if the
+     * end can't be reached
+     */
+    public int[] calculateCellPath(int startX, int startY, int endX, int endY) {
+        return calculateCellPath(startX, startY, endX, endY, algorithm);
+    }
+
+    /**
+     * Calculates the cheapest path between two cells with a different
+     * algorithm than this object's, just for this query
+     *
+     * @param startX    The x coordinate of the cell the search begins at
+     * @param startY    The y coordinate of the cell the search begins at
+     * @param endX      The x coordinate of the goal cell
+     * @param endY      The y coordinate of the goal cell
+     * @param algorithm The algorithm to search with
+     * @return The index of each cell on the path from the one after the start
+     * up to the end, or an empty array if the end can't be reached
+     * @see #calculateCellPath(int, int, int, int)
+     */
+    public int[] calculateCellPath(int startX, int startY, int endX, int endY,
+                                   Algorithm algorithm) {
+        int[] path = calculateCellPath(map, state, algorithm,
+                                       startX, startY, endX, endY);
+        if (metrics != null) {
+            metrics.record(state);
+        }
+        return path;
+    }
+
+    /**
+     * Calculates the cheapest path between two cells into an array the
+     * caller owns.  Once the search arrays and the open list have grown to
+     * fit the map, an A* search this way doesn't allocate anything, so it
+     * can run every frame without making garbage.  Other algorithms build
+     * their path first and copy it.
+     *
+     * @param startX The x coordinate of the cell the search begins at
+     * @param startY The y coordinate of the cell the search begins at
+     * @param endX   The x coordinate of the goal cell
+     * @param endY   The y coordinate of the goal cell
+     * @param path   The array the index of each cell on the path is written
+     *               to, from the one after the start up to the end
+     * @return The number of cells on the path, or -1 if the end can't be
+     * reached.  If the path is longer than the array, nothing is written,
+     * and the query has to be asked again with a longer array.
+     */
+    public int calculateCellPath(int startX, int startY, int endX, int endY,
+                                 int[] path) {
+        long begin = System.nanoTime();
+        int start = startY * map.getWidth() + startX;
+        int length;
+
+        if (algorithm == Algorithm.A_STAR ||
+            (algorithm == Algorithm.JUMP_POINT_SEARCH && !canJump(map))) {
+            int end = -1;
+            if (isUnreachable(map, startX, startY, endX, endY)) {
+                state.begin(0);
+            } else {
+                end = search(map, state, startX, startY, endX, endY);
+            }
+            length = end < 0 ? -1 : state.writePath(start, end, path);
+            state.time = System.nanoTime() - begin;
+            state.pathLength = Math.max(length, 0);
+        } else {
+            int[] cells = calculateCellPath(map, state, algorithm,
+                                            startX, startY, endX, endY);
+            length = cells.length == 0 && (startX != endX || startY != endY) ?
+                     -1 : cells.length;
+            if (length > 0 && length <= path.length) {
+                System.arraycopy(cells, 0, path, 0, length);
             }
+        }
 
-            openList.remove(current);
-            current.setInClosedList(true);
+        if (metrics != null) {
+            metrics.record(state);
         }
-        return new ArrayList<Point>();
+        return length;
     }
 
     /**
-     * Gets the final path by collapsing nodes into the closedList
+     * Calculates the shortest path from a point to whichever of several
+     * goals is cheapest to reach, with a single search instead of one per
+     * goal
      *
-     * @param start The starting point of the search
-     * @param end   The ending point of the search
-     * @return A list of points that were collapsed starting with the end
-     * node and following the parents
+     * @param startPoint The starting point; where the search begins
+     * @param goals      The points that could be the end of the path
+     * @return A new list of points that lead up from the startPoint to the
+     * nearest goal, which is empty if the start is a goal or no goal can be
+     * reached; {@link #findNearest(int, int, List)} tells the two apart
+     * @see #findNearest(int, int, List)
      */
-    private List<Point> getFinalPath(Node start, Node end) {
-        closedList.add(end);
+    public List<Point> calculatePathToNearest(Point startPoint,
+                                              List<Point> goals) {
+        Path path = findNearest(startPoint.x, startPoint.y, goals);
+        return path != null ? path.toPointList() : new ArrayList<Point>();
+    }
 
-        Node parent = end.getParent();
+    /**
+     * Calculates the cheapest path from a cell to whichever of several goals
+     * is cheapest to reach, with a single search instead of one per goal.
+     * With a few goals the search estimates the distance to the closest
+     * one; with more than that it searches outward evenly until it reaches
+     * the first goal.
+     *
+     * @param startX The x coordinate of the cell the search begins at
+     * @param startY The y coordinate of the cell the search begins at
+     * @param goals  The cells that could be the end of the path
+     * @return The path to the nearest goal, whose last cell is the goal it
+     * reaches.  It is empty if the start is itself a goal.  If no goal can
+     * be reached, this is null.
+     */
+    public Path findNearest(int startX, int startY, List<Point> goals) {
+        long begin = System.nanoTime();
+        int[] path = MultiGoalSearch.findNearest(map, state, startX, startY,
+                                                 goals);
+        if (path == null) {
+            record(begin, 0);
+            return null;
+        }
+        record(begin, path.length);
+        return new Path(map.getWidth(), startY * map.getWidth() + startX, path);
+    }
+
+    /**
+     * Calculates the cost of the cheapest path from a cell to each of
+     * several goals with a single search that stops once every goal has
+     * been reached
+     *
+     * @param startX The x coordinate of the cell the search begins at
+     * @param startY The y coordinate of the cell the search begins at
+     * @param goals  The cells to find the distance to
+     * @return The cost of reaching each goal, in the same order as the goals,
+     * or infinity for goals that can't be reached
+     */
+    public float[] calculateDistances(int startX, int startY,
+                                      List<Point> goals) {
+        return calculateDistances(startX, startY, goals, goals.size());
+    }
+
+    /**
+     * Calculates the cost of the cheapest path from a cell to the closest
+     * few of several goals.  The search reaches goals in the order of their
+     * cost, so it stops as soon as it has reached the given number of them.
+     *
+     * @param startX The x coordinate of the cell the search begins at
+     * @param startY The y coordinate of the cell the search begins at
+     * @param goals  The cells to find the distance to
+     * @param limit  How many of the closest goals to find.  Goals on the
+     *               same cell count as one.
+     * @return The cost of reaching each goal, in the same order as the goals,
+     * or infinity for goals that can't be reached or aren't among the
+     * closest
+     */
+    public float[] calculateDistances(int startX, int startY,
+                                      List<Point> goals, int limit) {
+        long begin = System.nanoTime();
+        float[] distances = MultiGoalSearch.findDistances(map, state,
+                                                          startX, startY,
+                                                          goals, limit);
+        record(begin, 0);
+        return distances;
+    }
 
-        while (parent != start) {
-            closedList.add(parent);
-            parent = parent.getParent();
+    /**
+     * Records the time and path length of a search that didn't go through
+     * {@link #calculateCellPath(GridMap, SearchState, Algorithm, int, int, int, int)}
+     *
+     * @param begin      When the search started, from {@link System#nanoTime()}
+     * @param pathLength The number of cells on the path found
+     */
+    private void record(long begin, int pathLength) {
+        state.time = System.nanoTime() - begin;
+        state.pathLength = pathLength;
+        if (metrics != null) {
+            metrics.record(state);
         }
+    }
 
-        List<Point> finalPath = new ArrayList<Point>();
+    /**
+     * Calculates the shortest path between two cells of a map using the given
+     * search state.  Nothing but the search state is written to, so this can
+     * run on many threads at once as long as each one has its own state.
+     * The counts and wall time of the search are left in the state.
+     * <p></p>
+     * On an {@link AbstractGridMap}, a goal that is a wall or is in another
+     * connected region than the start is answered at once from the map's
+     * region labels instead of searching every cell the start can reach.
+     *
+     * @param map       The map to search
+     * @param state     The per-cell data of the search
+     * @param algorithm The algorithm to search with.  Jump point search
+     *                  falls back to A* on maps with varied costs or 4-way
+     *                  movement.
+     * @param startX The x coordinate of the cell the search begins at
+     * @param startY The y coordinate of the cell the search begins at
+     * @param endX   The x coordinate of the goal cell
+     * @param endY   The y coordinate of the goal cell
+     * @return The index of each cell on the path from the one after the start
+     * up to the end, or an empty array if the end can't be reached
+     */
+    static int[] calculateCellPath(GridMap map, SearchState state,
+                                   Algorithm algorithm,
+                                   int startX, int startY, int endX, int endY) {
+        long begin = System.nanoTime();
+        int[] path;
 
-        for (int i = closedList.size() - 1; i >= 0; i--) {
-            finalPath.add(new Point(closedList.get(i).getX(),
-                                    closedList.get(i).getY()));
+        if (isUnreachable(map, startX, startY, endX, endY)) {
+            // Nothing is searched, so only the counts are cleared
+            state.begin(0);
+            path = NO_PATH;
+        } else if (algorithm == Algorithm.JUMP_POINT_SEARCH && canJump(map)) {
+            path = JumpPointSearch.calculateCellPath(map, state,
+                                                     startX, startY, endX, endY);
+        } else if (algorithm == Algorithm.BIDIRECTIONAL_A_STAR) {
+            path = BidirectionalSearch.calculateCellPath(map, state,
+                                                         startX, startY, endX, endY);
+        } else {
+            int end = search(map, state, startX, startY, endX, endY);
+            path = end < 0 ? NO_PATH :
+                   state.buildPath(startY * map.getWidth() + startX, end);
         }
 
-        return finalPath;
+        state.time = System.nanoTime() - begin;
+        state.pathLength = path.length;
+        return path;
     }
 
     /**
-     * The heuristic function used to estimate the distance from Point, a, to
-     * Point, end
+     * Checks the region labels of a map to see if the goal can't be reached
+     * from the start
      *
-     * @param a The point to estimate the distance from
-     * @param end The point to estimate the distance to
-     * @return An estimate of the distance between a and end using the
-     * Manhattan distance formula <em>(abs(a.x - end.x) + abs(a.y - end.y)</em>
+     * @param map    The map to search
+     * @param startX The x coordinate of the cell the search begins at
+     * @param startY The y coordinate of the cell the search begins at
+     * @param endX   The x coordinate of the goal cell
+     * @param endY   The y coordinate of the goal cell
+     * @return If there is no path, or false if the map can't tell
      */
-    private double heuristic(Point a, Point end) {
-        return (Math.abs(a.x - end.x)) +
-                (Math.abs(a.y - end.y));
+    static boolean isUnreachable(GridMap map, int startX, int startY,
+                                 int endX, int endY) {
+        if (!(map instanceof AbstractGridMap) ||
+            (startX == endX && startY == endY)) {
+            return false;
+        }
+
+        AbstractGridMap grid = (AbstractGridMap) map;
+        if (!grid.isWalkable(endX, endY)) {
+            return true;
+        }
+
+        // A path may step out of a wall it starts in, so only a walkable
+        // start is known to be stuck in its region
+        return grid.isWalkable(startX, startY) &&
+               !grid.isConnected(startX, startY, endX, endY);
     }
 
     /**
-     * Gets the best node in the open list based on its cost value
-     * (distanceToGoal)
+     * Runs A* between two cells of a map
      *
-     * @return The best node that probably leads to the shortest path
+     * @param map    The map to search
+     * @param state  The per-cell data of the search
+     * @param startX The x coordinate of the cell the search begins at
+     * @param startY The y coordinate of the cell the search begins at
+     * @param endX   The x coordinate of the goal cell
+     * @param endY   The y coordinate of the goal cell
+     * @return The index of the goal cell, whose parents lead back to the
+     * start, or -1 if the end can't be reached
      */
-    private Node getBestNode() {
-        double minCost = Double.MAX_VALUE;
-        Node bestNode  = null;
+    private static int search(GridMap map, SearchState state,
+                                int startX, int startY, int endX, int endY) {
+        int width  = map.getWidth();
+        int height = map.getHeight();
+        int start  = startY * width + startX;
+        int end    = endY * width + endX;
+        Connectivity connectivity = map.getConnectivity();
 
-        for (Node node : openList) {
-            if (node.getDistanceToGoal() < minCost) {
-                minCost = node.getDistanceToGoal();
-                bestNode = node;
+        // Scaling by the cheapest cell keeps the estimate from ever being
+        // more than the real cost, so the path found is the cheapest one.
+        // Ties are broken by the open list, not by the estimate.
+        float estimate = map.getMinCost();
+
+        state.begin(width * height);
+        state.open(start, -1, 0,
+                   estimate * connectivity.distance(startX, startY, endX, endY));
+
+        OpenList open = state.openList;
+        float[] distanceTraveled = state.distanceTraveled;
+
+        while (open.size() > 0) {
+            int current = open.poll();
+            state.expanded++;
+
+            if (current == end) {
+                return end;
+            }
+
+            state.close(current);
+
+            int x = current % width;
+            int y = current / width;
+
+            // Each set bit of the mask is an allowed move, so there is no
+            // need to check bounds or walls here
+            int mask = map.getNeighborMask(x, y);
+
+            while (mask != 0) {
+                int d = Integer.numberOfTrailingZeros(mask);
+                mask &= mask - 1;
+
+                int nx = x + Connectivity.DX[d];
+                int ny = y + Connectivity.DY[d];
+                int neighbor = ny * width + nx;
+                float distance = distanceTraveled[current] +
+                                 Connectivity.STEP[d] * map.getCost(nx, ny);
+
+                if (!state.isReached(neighbor)) {
+                    state.open(neighbor, current, distance, distance +
+                               estimate * connectivity.distance(nx, ny, endX, endY));
+                } else if (!state.isClosed(neighbor) &&
+                           distance < distanceTraveled[neighbor]) {
+                    state.improve(neighbor, current, distance, distance +
+                                  estimate * connectivity.distance(nx, ny, endX, endY));
+                }
             }
         }
 
-        return bestNode;
+        return -1;
     }
 
     /**
@@ -194,5 +657,167 @@ public class AStar {
      */
     public void setGrid(Grid grid) {
         this.grid = grid;
+        this.map  = grid;
+    }
+
+    /**
+     * Gets the map used by this object in order to calculate the shortest
+     * path
+     *
+     * @return the map used by this object
+     */
+    public GridMap getMap() {
+        return map;
+    }
+
+    /**
+     * Sets the map that this object will use when calculating the shortest
+     * path
+     *
+     * @param map The map to find the shortest path on
+     */
+    public void setMap(GridMap map) {
+        this.map  = map;
+        this.grid = map instanceof Grid ? (Grid) map : null;
+    }
+
+    /**
+     * Gets the number of cells the last search on this object took out of
+     * the open list
+     *
+     * @return The number of cells expanded by the last search
+     */
+    public int getNodesExpanded() {
+        return state.expanded;
+    }
+
+    /**
+     * Gets everything the last search on this object counted.  The cells
+     * expanded, the wall time and the path length are kept by every search.
+     * The generated, improved and reopened cells and the peak size of the
+     * open list are only counted while {@link #setMetrics(SearchMetrics)
+     * metrics} are set, since counting them slows the search down, and are
+     * 0 otherwise.  Searches answered as part of a batch are not included.
+     *
+     * @return The statistics of the last search
+     */
+    public SearchStats getLastStats() {
+        return new SearchStats(state);
+    }
+
+    /**
+     * Gets where the totals of every search are recorded
+     *
+     * @return The metrics searches are recorded into, or null if they
+     * aren't recorded
+     */
+    public SearchMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Sets where the totals of every search, including searches in a batch,
+     * are recorded.  The same metrics can be shared with other objects.
+     * This defaults to null, which records nothing.
+     *
+     * @param metrics The metrics to record into, or null to stop recording
+     */
+    public void setMetrics(SearchMetrics metrics) {
+        this.metrics = metrics;
+        this.state.counting = metrics != null;
+    }
+
+    /**
+     * Gets the algorithm used to find paths
+     *
+     * @return The algorithm used by this object
+     */
+    public Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Sets the algorithm used to find paths.  This defaults to
+     * {@link Algorithm#A_STAR}.
+     *
+     * @param algorithm The algorithm to use
+     */
+    public void setAlgorithm(Algorithm algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    /**
+     * Checks if jump point search can be used on a map.  It needs every
+     * cell to cost the same and diagonal moves, see {@link JumpPointSearch}.
+     * Both can change, so this is checked again for every search.
+     *
+     * @param map The map to search
+     * @return If the map can be searched with jumps rather than plain A*
+     */
+    private static boolean canJump(GridMap map) {
+        return map.isUniformCost() && map.getConnectivity().allowsDiagonal();
+    }
+
+    /**
+     * Gets the number of threads used to answer a batch of queries
+     *
+     * @return The number of threads batches run on
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Sets the number of threads used to answer a batch of queries.  This
+     * defaults to the number of available processors.  Batches run on a
+     * pool of this many threads that belongs to this object, which
+     * {@link #shutdown()} lets go of.  Setting it to 1 answers batches on
+     * the calling thread.
+     *
+     * @param parallelism The number of threads batches run on
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+
+        if (parallelism != this.parallelism) {
+            shutdown();
+            statePool = new SearchStatePool(parallelism);
+        }
+
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Shuts down the threads batches of queries ran on and lets go of the
+     * search states they used.  A batch answered after this starts a new
+     * pool.
+     */
+    public void shutdown() {
+        if (forkJoinPool != null) {
+            forkJoinPool.shutdown();
+        }
+        forkJoinPool = null;
+        statePool.clear();
+    }
+
+    /**
+     * Gets the open list used to pick the next node to visit
+     *
+     * @return the open list used by this object
+     */
+    public OpenList getOpenList() {
+        return openList;
+    }
+
+    /**
+     * Sets the open list used to pick the next node to visit
+     *
+     * @param openList The open list used by the search
+     */
+    public void setOpenList(OpenList openList) {
+        this.openList = openList;
+        this.state.openList = openList;
     }
 }
@@ -0,0 +1,780 @@
+package ambenavente1.cs151.astar;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A {@link GridMap} that can be edited.  This holds the parts that don't
+ * depend on how walkability is stored: the size of the map, the movement
+ * cost of each cell and the moves allowed out of each cell.  Costs are
+ * kept in a flat float array that is only allocated once a cell is given a
+ * cost other than 1, and the lowest and highest cost are kept up to date
+ * as costs are set, by counting the cells that have each, so a search never
+ * looks at every cell to scale its estimate.  The allowed moves are kept
+ * as a byte per cell and are
+ * only worked out again around a cell whose walkability changes, or for the
+ * whole map when the connectivity changes.  Every edit bumps the
+ * {@link #getVersion() version} of the map and tells the
+ * {@link GridListener}s which cells changed.  Subclasses must call
+ * {@link #updateNeighborMasks(int, int, int, int)} for the whole map once
+ * their walkability data is set up.
+ * <p></p>
+ * The first time the map is asked which {@link #getComponent(int, int)
+ * region} a cell is in, every walkable cell is labeled with its connected
+ * region.  From then on the labels are updated with each call to
+ * {@link #setWalkable(int, int, boolean)}, which lets a search between two
+ * regions be rejected without searching.  The labels take 4 bytes per
+ * cell.
+ * <p></p>
+ * Edits that come in bursts, like an explosion that clears a few hundred
+ * cells, should be made with {@link #fillWalkable(int, int, int, int,
+ * boolean)}, {@link #applyMask(int, int, int, int, long[])} or
+ * {@link #applyDiff(int[], boolean[])}.  These change every cell first and
+ * then update the allowed moves and the region labels once and tell the
+ * listeners about a single rectangle, so a cache or a flow field is
+ * repaired once per burst instead of once per cell.  A batch of a few
+ * cells costs about the same as setting them one at a time.
+ * <p></p>
+ * Every edit is made while holding the write lock of a
+ * {@link StampedLock}, and the listeners are told after it is let go, so
+ * they are free to read or search the map.  Region lookups take the read
+ * lock.  A search on another thread reads the cells without a lock: it
+ * starts with {@link #beginRead()}, which waits for an edit in progress,
+ * and ends with {@link #validateRead(long)}, which is false if any edit
+ * was made in between, in which case the search has to be run again.
+ * That is how {@link PathService} and {@link AsyncPathService} keep
+ * answering queries on other threads while the map is edited.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public abstract class AbstractGridMap implements GridMap {
+
+    /**
+     * The cost of a cell that was never given one
+     */
+    public static final float DEFAULT_COST = 1;
+
+    /**
+     * The number of cells wide the map is
+     */
+    private int width;
+
+    /**
+     * The number of cells tall the map is
+     */
+    private int height;
+
+    /**
+     * The ways a path is allowed to move from one cell to the next
+     */
+    private Connectivity connectivity;
+
+    /**
+     * The moves allowed out of each cell, indexed by <em>y * width + x</em>
+     */
+    private byte[] neighborMasks;
+
+    /**
+     * The cost of moving into each cell, indexed by <em>y * width + x</em>.
+     * This is null while every cell has the default cost.
+     */
+    private float[] costs;
+
+    /**
+     * The lowest cost of any cell
+     */
+    private float minCost;
+
+    /**
+     * The highest cost of any cell
+     */
+    private float maxCost;
+
+    /**
+     * The number of cells that have the lowest cost
+     */
+    private int minCostCount;
+
+    /**
+     * The number of cells that have the highest cost
+     */
+    private int maxCostCount;
+
+    /**
+     * A bulk edit changing more than this fraction of the cells labels the
+     * regions again from scratch instead of updating them one cell at a
+     * time
+     */
+    private static final int RELABEL_FRACTION = 16;
+
+    /**
+     * The number of edits made to the map
+     */
+    private volatile long version;
+
+    /**
+     * Held for writing while the map is edited, and for reading while the
+     * region labels are looked up
+     */
+    private final StampedLock lock;
+
+    /**
+     * The listeners told about every edit
+     */
+    private List<GridListener> listeners;
+
+    /**
+     * The connected region of each cell, or null until a region is first
+     * asked for
+     */
+    private volatile ComponentIndex components;
+
+    /**
+     * Creates a map with specified dimensions where every cell has the
+     * default cost
+     *
+     * @param width  The number of cells wide
+     * @param height The number of cells tall
+     */
+    protected AbstractGridMap(int width, int height) {
+        if (width < 0 || height < 0 || (long) width * height > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid grid size: " +
+                                               width + "x" + height);
+        }
+
+        this.width   = width;
+        this.height  = height;
+        this.connectivity  = Connectivity.FOUR;
+        this.neighborMasks = new byte[width * height];
+        this.minCost = DEFAULT_COST;
+        this.maxCost = DEFAULT_COST;
+        this.minCostCount = width * height;
+        this.maxCostCount = width * height;
+        this.version = 0;
+        this.lock = new StampedLock();
+        this.listeners = new CopyOnWriteArrayList<GridListener>();
+    }
+
+    /**
+     * Sets if a cell at a certain point is walkable or not.  <em>WARNING:
+     * This function will crash if x or y are not in bounds.</em>
+     *
+     * @param x        The x coordinate of the cell to set walkable
+     * @param y        The y coordinate of the cell to set walkable
+     * @param walkable If the cell at the given point is walkable or not.
+     *                 Typically, this leads to wall-tiles being not walkable
+     *                 (false) and floor-tiles being walkable (true)
+     */
+    public void setWalkable(int x, int y, boolean walkable) {
+        checkBounds(x, y);
+
+        long stamp = lock.writeLock();
+        try {
+            if (isWalkable(x, y) == walkable) {
+                return;
+            }
+
+            storeWalkable(x, y, walkable);
+            updateNeighborMasks(x - 1, y - 1, x + 1, y + 1);
+            if (components != null) {
+                components.cellChanged(x, y, walkable);
+            }
+            version++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        fireCellsChanged(x, y, x, y, walkable);
+    }
+
+    /**
+     * Sets the walkability of every cell in a rectangle at once, as when an
+     * explosion clears an area or a building is placed.  The rectangle is
+     * clipped to the map.
+     *
+     * @param minX     The x coordinate of the left column
+     * @param minY     The y coordinate of the top row
+     * @param maxX     The x coordinate of the right column
+     * @param maxY     The y coordinate of the bottom row
+     * @param walkable If the cells should be walkable
+     */
+    public void fillWalkable(int minX, int minY, int maxX, int maxY,
+                             boolean walkable) {
+        minX = Math.max(minX, 0);
+        minY = Math.max(minY, 0);
+        maxX = Math.min(maxX, width - 1);
+        maxY = Math.min(maxY, height - 1);
+
+        int[] changes = new int[16];
+        int count = 0;
+        for (int y = minY; y <= maxY; y++) {
+            for (int x = minX; x <= maxX; x++) {
+                if (isWalkable(x, y) != walkable) {
+                    changes = append(changes, count++,
+                                     change(y * width + x, walkable));
+                }
+            }
+        }
+
+        applyChanges(changes, count);
+    }
+
+    /**
+     * Sets the walkability of every cell in a rectangle from a bitmask at
+     * once, as when a prefab or the crater of an explosion is stamped onto
+     * the map
+     *
+     * @param originX The x coordinate of the rectangle's left column
+     * @param originY The y coordinate of the rectangle's top row
+     * @param width   The number of cells wide the rectangle is
+     * @param height  The number of cells tall the rectangle is
+     * @param mask    One bit per cell of the rectangle in row order, laid
+     *                out like {@link CompactGrid} keeps them.  A set bit
+     *                makes the cell walkable.
+     */
+    public void applyMask(int originX, int originY, int width, int height,
+                          long[] mask) {
+        if (width < 0 || height < 0 ||
+            mask.length < ((long) width * height + 63) >>> 6) {
+            throw new IllegalArgumentException("Invalid mask for a " + width +
+                                               "x" + height + " rectangle");
+        }
+        if (width == 0 || height == 0) {
+            return;
+        }
+        checkBounds(originX, originY);
+        checkBounds(originX + width - 1, originY + height - 1);
+
+        int[] changes = new int[16];
+        int count = 0;
+        int bit = 0;
+        for (int y = originY; y < originY + height; y++) {
+            for (int x = originX; x < originX + width; x++, bit++) {
+                boolean walkable = (mask[bit >>> 6] & (1L << bit)) != 0;
+                if (isWalkable(x, y) != walkable) {
+                    changes = append(changes, count++,
+                                     change(y * this.width + x, walkable));
+                }
+            }
+        }
+
+        applyChanges(changes, count);
+    }
+
+    /**
+     * Sets the walkability of a list of cells at once, as when the changes
+     * of a game tick are sent over all together.  If a cell is listed more
+     * than once, the last entry wins.
+     *
+     * @param cells    The index of each cell, <em>y * width + x</em>
+     * @param walkable If each cell should be walkable
+     */
+    public void applyDiff(int[] cells, boolean[] walkable) {
+        if (cells.length != walkable.length) {
+            throw new IllegalArgumentException("There must be one walkability " +
+                                               "for every cell");
+        }
+
+        int[] changes = new int[cells.length];
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] < 0 || cells[i] >= width * height) {
+                throw new IndexOutOfBoundsException("Cell " + cells[i] + " is " +
+                                                    "outside of the grid");
+            }
+            changes[i] = change(cells[i], walkable[i]);
+        }
+
+        applyChanges(changes, changes.length);
+    }
+
+    /**
+     * Applies a batch of walkability changes.  Every cell is stored first,
+     * then the allowed moves, the region labels and the listeners are
+     * updated once for the whole batch.
+     *
+     * @param changes The changes in the order they are made, each one made
+     *                by {@link #change(int, boolean)}
+     * @param count   The number of changes
+     */
+    private void applyChanges(int[] changes, int count) {
+        int minX = width;
+        int minY = height;
+        int maxX = -1;
+        int maxY = -1;
+        boolean opened = false;
+
+        long stamp = lock.writeLock();
+        try {
+            ComponentIndex index = components;
+            boolean relabel = index != null &&
+                              (long) count * RELABEL_FRACTION > (long) width * height;
+            boolean oneByOne = index != null && !relabel;
+
+            for (int i = 0; i < count; i++) {
+                boolean walkable = changes[i] >= 0;
+                int cell = walkable ? changes[i] : ~changes[i];
+                int x = cell % width;
+                int y = cell / width;
+                if (isWalkable(x, y) == walkable) {
+                    continue;
+                }
+
+                minX = Math.min(minX, x);
+                minY = Math.min(minY, y);
+                maxX = Math.max(maxX, x);
+                maxY = Math.max(maxY, y);
+                opened |= walkable;
+                storeWalkable(x, y, walkable);
+                if (oneByOne) {
+                    // The labels are updated one cell at a time, so the
+                    // moves around each cell have to be right before the next
+                    updateNeighborMasks(x - 1, y - 1, x + 1, y + 1);
+                    index.cellChanged(x, y, walkable);
+                }
+            }
+            if (maxX < 0) {
+                return;
+            }
+
+            if (!oneByOne) {
+                if ((long) (maxX - minX + 3) * (maxY - minY + 3) <= 9L * count) {
+                    updateNeighborMasks(minX - 1, minY - 1, maxX + 1, maxY + 1);
+                } else {
+                    // Cells spread far apart only need the moves around them
+                    for (int i = 0; i < count; i++) {
+                        int cell = changes[i] >= 0 ? changes[i] : ~changes[i];
+                        int x = cell % width;
+                        int y = cell / width;
+                        updateNeighborMasks(x - 1, y - 1, x + 1, y + 1);
+                    }
+                }
+                if (relabel) {
+                    index.rebuild();
+                }
+            }
+            version++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        fireCellsChanged(minX, minY, maxX, maxY, opened);
+    }
+
+    /**
+     * Packs a change to a cell into one number
+     *
+     * @param cell     The index of the cell
+     * @param walkable If the cell should be walkable
+     * @return The index of the cell if it is opened, or its complement if
+     * it is closed
+     */
+    private static int change(int cell, boolean walkable) {
+        return walkable ? cell : ~cell;
+    }
+
+    /**
+     * Adds a change to the end of a list, growing the list if it is full
+     *
+     * @param changes The list of changes
+     * @param count   The number of changes in the list
+     * @param change  The change to add
+     * @return The list, which may be a new array
+     */
+    private static int[] append(int[] changes, int count, int change) {
+        if (count == changes.length) {
+            changes = Arrays.copyOf(changes, count * 2);
+        }
+        changes[count] = change;
+        return changes;
+    }
+
+    /**
+     * Stores the walkability of a cell.  The point is always in bounds.
+     *
+     * @param x        The x coordinate of the cell
+     * @param y        The y coordinate of the cell
+     * @param walkable If the cell is walkable or not
+     */
+    protected abstract void storeWalkable(int x, int y, boolean walkable);
+
+    /**
+     * Sets the ways a path is allowed to move from one cell to the next.
+     * This works out the allowed moves of every cell again and counts as a
+     * change to every cell.
+     *
+     * @param connectivity The connectivity to use
+     */
+    public void setConnectivity(Connectivity connectivity) {
+        long stamp = lock.writeLock();
+        try {
+            if (this.connectivity == connectivity) {
+                return;
+            }
+            this.connectivity = connectivity;
+            updateNeighborMasks(0, 0, width - 1, height - 1);
+            components = null;
+            version++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        fireCellsChanged(0, 0, width - 1, height - 1, true);
+    }
+
+    @Override
+    public Connectivity getConnectivity() {
+        return connectivity;
+    }
+
+    @Override
+    public int getNeighborMask(int x, int y) {
+        return neighborMasks[y * width + x] & 0xFF;
+    }
+
+    /**
+     * Works out the allowed moves again for every cell in a rectangle.  The
+     * rectangle is clipped to the map.
+     *
+     * @param minX The x coordinate of the left column
+     * @param minY The y coordinate of the top row
+     * @param maxX The x coordinate of the right column
+     * @param maxY The y coordinate of the bottom row
+     */
+    protected void updateNeighborMasks(int minX, int minY, int maxX, int maxY) {
+        minX = Math.max(minX, 0);
+        minY = Math.max(minY, 0);
+        maxX = Math.min(maxX, width - 1);
+        maxY = Math.min(maxY, height - 1);
+
+        for (int y = minY; y <= maxY; y++) {
+            for (int x = minX; x <= maxX; x++) {
+                neighborMasks[y * width + x] =
+                        (byte) connectivity.neighborMask(this, x, y);
+            }
+        }
+    }
+
+    /**
+     * Gets the connected region a cell is in.  Two cells are connected by a
+     * path exactly when they are in the same region.  Regions are numbered
+     * again whenever the map is edited, so the numbers should only be
+     * compared with each other, not kept.  The first call labels the whole
+     * map, and each later call takes a few steps.
+     *
+     * @param x The x coordinate of the cell
+     * @param y The y coordinate of the cell
+     * @return The number of the cell's region, or -1 if the cell isn't
+     * walkable
+     */
+    public int getComponent(int x, int y) {
+        checkBounds(x, y);
+        long stamp = lock.readLock();
+        try {
+            return getComponentIndex().getComponent(y * width + x);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Checks if there is any path between two cells
+     *
+     * @param startX The x coordinate of the first cell
+     * @param startY The y coordinate of the first cell
+     * @param endX   The x coordinate of the second cell
+     * @param endY   The y coordinate of the second cell
+     * @return If both cells are walkable and in the same region
+     */
+    public boolean isConnected(int startX, int startY, int endX, int endY) {
+        checkBounds(startX, startY);
+        checkBounds(endX, endY);
+
+        // Both cells are looked up under one lock, since an edit in between
+        // could number the regions again
+        long stamp = lock.readLock();
+        try {
+            ComponentIndex index = getComponentIndex();
+            int component = index.getComponent(startY * width + startX);
+            return component != ComponentIndex.NO_COMPONENT &&
+                   component == index.getComponent(endY * width + endX);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Gets the region labels of the map, labeling the whole map the first
+     * time.  This is called with the read lock held, and searches on many
+     * threads may ask for it at once, so only one of them builds it.
+     *
+     * @return The region labels
+     */
+    private ComponentIndex getComponentIndex() {
+        ComponentIndex index = components;
+        if (index == null) {
+            synchronized (this) {
+                index = components;
+                if (index == null) {
+                    index = new ComponentIndex(this);
+                    components = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Sets the cost of moving into a cell.  Roads might cost less than the
+     * default of 1 and mud might cost more.
+     *
+     * @param x    The x coordinate of the cell
+     * @param y    The y coordinate of the cell
+     * @param cost The cost of moving into the cell.  It must be greater than
+     *             0 and finite.
+     */
+    public void setCost(int x, int y, float cost) {
+        checkBounds(x, y);
+
+        if (!(cost > 0) || Float.isInfinite(cost)) {
+            throw new IllegalArgumentException("Invalid cost: " + cost);
+        }
+
+        float old;
+        long stamp = lock.writeLock();
+        try {
+            old = getCost(x, y);
+            if (cost == old) {
+                return;
+            }
+            storeCost(y * width + x, old, cost);
+            version++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        fireCellsChanged(x, y, x, y, cost < old);
+    }
+
+    /**
+     * Stores the cost of a cell and keeps the lowest and highest cost up to
+     * date
+     *
+     * @param cell The index of the cell
+     * @param old  The cost the cell had
+     * @param cost The new cost of the cell
+     */
+    private void storeCost(int cell, float old, float cost) {
+        if (costs == null) {
+            float[] costs = new float[width * height];
+            Arrays.fill(costs, DEFAULT_COST);
+            this.costs = costs;
+        }
+        costs[cell] = cost;
+
+        if (old == minCost) {
+            minCostCount--;
+        }
+        if (cost < minCost) {
+            minCost = cost;
+            minCostCount = 1;
+        } else if (cost == minCost) {
+            minCostCount++;
+        }
+
+        if (old == maxCost) {
+            maxCostCount--;
+        }
+        if (cost > maxCost) {
+            maxCost = cost;
+            maxCostCount = 1;
+        } else if (cost == maxCost) {
+            maxCostCount++;
+        }
+
+        if (minCostCount == 0 || maxCostCount == 0) {
+            // The last cell with the lowest or highest cost was changed, so
+            // only a scan can tell what the next one is
+            findCostRange();
+        }
+    }
+
+    /**
+     * Replaces the cost of every cell at once without telling the
+     * listeners, as when a map is being loaded
+     *
+     * @param costs The cost of each cell in cell order.  The array is kept,
+     *              not copied.
+     */
+    void loadCosts(float[] costs) {
+        long stamp = lock.writeLock();
+        try {
+            this.costs = costs;
+            findCostRange();
+            version++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public float getCost(int x, int y) {
+        return costs == null ? DEFAULT_COST : costs[y * width + x];
+    }
+
+    @Override
+    public float getMinCost() {
+        return minCost;
+    }
+
+    @Override
+    public boolean isUniformCost() {
+        return minCost == maxCost;
+    }
+
+    /**
+     * Finds the lowest and highest cost and how many cells have each by
+     * looking at every cell.  This only runs when costs are loaded or when
+     * the last cell with the lowest or highest cost changes, never while
+     * searching.
+     */
+    private void findCostRange() {
+        float min = Float.MAX_VALUE;
+        float max = 0;
+        int minCount = 0;
+        int maxCount = 0;
+        for (float cost : costs) {
+            if (cost < min) {
+                min = cost;
+                minCount = 0;
+            }
+            if (cost == min) {
+                minCount++;
+            }
+            if (cost > max) {
+                max = cost;
+                maxCount = 0;
+            }
+            if (cost == max) {
+                maxCount++;
+            }
+        }
+        minCost = min;
+        maxCost = max;
+        minCostCount = minCount;
+        maxCostCount = maxCount;
+    }
+
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Starts reading the map without a lock, first waiting for an edit
+     * being made on another thread to finish.  Everything read after this
+     * can be trusted if {@link #validateRead(long)} is true afterwards.
+     *
+     * @return The stamp to check the read with
+     */
+    public long beginRead() {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp == 0) {
+            // An edit is being made, so wait for it instead of spinning
+            stamp = lock.tryConvertToOptimisticRead(lock.readLock());
+        }
+        return stamp;
+    }
+
+    /**
+     * Checks that no edit was made since a read began.  If one was, what
+     * was read may mix the map from before the edit with the map after it.
+     *
+     * @param stamp The stamp {@link #beginRead()} returned
+     * @return If everything read since then saw the same map
+     */
+    public boolean validateRead(long stamp) {
+        return lock.validate(stamp);
+    }
+
+    /**
+     * Starts reading any map without a lock.  Maps that can't be edited on
+     * another thread use their version as the stamp.
+     *
+     * @param map The map
+     * @return The stamp to check the read with
+     */
+    static long beginRead(GridMap map) {
+        return map instanceof AbstractGridMap ?
+               ((AbstractGridMap) map).beginRead() : map.getVersion();
+    }
+
+    /**
+     * Checks that no edit was made to any map since a read began
+     *
+     * @param map   The map
+     * @param stamp The stamp {@link #beginRead(GridMap)} returned
+     * @return If everything read since then saw the same map
+     */
+    static boolean validateRead(GridMap map, long stamp) {
+        return map instanceof AbstractGridMap ?
+               ((AbstractGridMap) map).validateRead(stamp) :
+               map.getVersion() == stamp;
+    }
+
+    /**
+     * Adds a listener that is told about every edit made to the map
+     *
+     * @param listener The listener to add
+     */
+    public void addGridListener(GridListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Stops telling a listener about edits made to the map
+     *
+     * @param listener The listener to remove
+     */
+    public void removeGridListener(GridListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Tells every listener that cells in a rectangle have changed.  This is
+     * called once an edit has been made and the lock let go.
+     *
+     * @param minX    The x coordinate of the left column that changed
+     * @param minY    The y coordinate of the top row that changed
+     * @param maxX    The x coordinate of the right column that changed
+     * @param maxY    The y coordinate of the bottom row that changed
+     * @param cheaper If a path may now be cheaper than before
+     */
+    private void fireCellsChanged(int minX, int minY, int maxX, int maxY,
+                                    boolean cheaper) {
+        for (GridListener listener : listeners) {
+            listener.cellsChanged(this, minX, minY, maxX, maxY, cheaper);
+        }
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Makes sure a point is inside of the map
+     *
+     * @param x The x coordinate of the point
+     * @param y The y coordinate of the point
+     */
+    protected void checkBounds(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            throw new IndexOutOfBoundsException("(" + x + ", " + y + ") is " +
+                                                "outside of the grid");
+        }
+    }
+}
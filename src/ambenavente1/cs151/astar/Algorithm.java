@@ -0,0 +1,35 @@
+package ambenavente1.cs151.astar;
+
+/**
+ * The search algorithms that {@link AStar} can use to find a path.  Every
+ * algorithm finds a path of the same cost; they only differ in how much of
+ * the map they have to look at to find it.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public enum Algorithm {
+
+    /**
+     * Plain A*, which expands every cell it reaches.  This works on any map.
+     */
+    A_STAR,
+
+    /**
+     * Jump point search, which skips over runs of cells that can't lead to a
+     * better path and only expands the cells where the path has to turn.
+     * This only works when every cell costs the same and paths may move
+     * diagonally, so maps with varied costs or with
+     * {@link Connectivity#FOUR} are searched with plain A* instead.
+     */
+    JUMP_POINT_SEARCH,
+
+    /**
+     * Bidirectional A*, which searches from the start and from the goal at
+     * the same time until the two searches meet.  This works on any map and
+     * usually expands fewer cells than plain A*, most of all when one end
+     * is walled in, like a goal inside of a room, or can't be reached at
+     * all.
+     */
+    BIDIRECTIONAL_A_STAR
+}
@@ -0,0 +1,542 @@
+package ambenavente1.cs151.astar;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiConsumer;
+
+/**
+ * Answers path queries without blocking the threads that ask for them.
+ * Each query returns a {@link CompletableFuture} right away and waits in a
+ * bounded queue until a thread of the executor searches it.  The executor
+ * can be a fixed pool, or on newer JDKs
+ * <code>Executors.newVirtualThreadPerTaskExecutor()</code>, since a thread
+ * is only handed a task once there is a search waiting for it.
+ * <p></p>
+ * Queries for the same start and goal that are waiting or running at the
+ * same time share one search.  Cancelling a future only drops that caller;
+ * the search stops once every caller waiting on it has cancelled.  A
+ * search that was already running notices within a few hundred cells and
+ * stops, and one that was still queued is skipped without searching.
+ * Queries made on behalf of an agent cancel the agent's last query, so a
+ * unit that gets a new order never waits behind its stale ones.
+ * <p></p>
+ * Like {@link PathService}, the map is only read and must not be edited
+ * while queries are running, except through the edit methods of
+ * {@link AbstractGridMap}.  A search that overlaps one of those starts over
+ * once the edit is done.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public class AsyncPathService {
+
+    /**
+     * The number of queries that may wait in the queue by default
+     */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    /**
+     * How many cells a search expands between checks for being cancelled
+     */
+    private static final int CANCEL_CHECK_INTERVAL = 256;
+
+    /**
+     * The map that every query searches
+     */
+    private final GridMap map;
+
+    /**
+     * The executor that queries are searched on
+     */
+    private final Executor executor;
+
+    /**
+     * The executor to shut down with this service, or null if it belongs to
+     * someone else
+     */
+    private final ExecutorService ownExecutor;
+
+    /**
+     * The most queries that may wait in the queue
+     */
+    private final int capacity;
+
+    /**
+     * Search states that aren't being used by a query right now, one for
+     * each available processor at most
+     */
+    private final SearchStatePool pool;
+
+    /**
+     * Guards the queue, the searches, the agents and the counts
+     */
+    private final Object lock;
+
+    /**
+     * The searches waiting for a thread, in the order they were asked for.
+     * Cancelled searches stay in the queue and are skipped when taken out.
+     */
+    private final Queue<Search> queue;
+
+    /**
+     * Every search that is waiting or running, by its start and goal cells
+     */
+    private final Map<Long, Search> searches;
+
+    /**
+     * The last query made on behalf of each agent
+     */
+    private final Map<Object, CompletableFuture<Path>> agents;
+
+    /**
+     * The number of searches waiting in the queue that aren't cancelled
+     */
+    private int queued;
+
+    /**
+     * The number of queries that shared a search already waiting or running
+     */
+    private long coalesced;
+
+    /**
+     * The number of searches stopped because every caller cancelled
+     */
+    private long cancelled;
+
+    /**
+     * Where every search is recorded, or null to not record them
+     */
+    private volatile SearchMetrics metrics;
+
+    /**
+     * Creates a service with one thread per available processor and the
+     * default queue capacity
+     *
+     * @param map The map that every query searches
+     */
+    public AsyncPathService(GridMap map) {
+        this(map, Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors()), DEFAULT_CAPACITY,
+             true);
+    }
+
+    /**
+     * Creates a service that searches on the given executor.  The executor
+     * is not shut down by {@link #shutdown()}.
+     *
+     * @param map      The map that every query searches
+     * @param executor The executor that queries are searched on
+     * @param capacity The most queries that may wait in the queue
+     */
+    public AsyncPathService(GridMap map, Executor executor, int capacity) {
+        this(map, executor, capacity, false);
+    }
+
+    /**
+     * Creates a service
+     *
+     * @param map      The map that every query searches
+     * @param executor The executor that queries are searched on
+     * @param capacity The most queries that may wait in the queue
+     * @param own      If the executor belongs to this service
+     */
+    private AsyncPathService(GridMap map, Executor executor, int capacity,
+                             boolean own) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+
+        this.map = map;
+        this.executor = executor;
+        this.ownExecutor = own ? (ExecutorService) executor : null;
+        this.capacity = capacity;
+        this.pool = new SearchStatePool();
+        this.lock = new Object();
+        this.queue = new ArrayDeque<Search>();
+        this.searches = new HashMap<Long, Search>();
+        this.agents = new HashMap<Object, CompletableFuture<Path>>();
+    }
+
+    /**
+     * Queues a query for the shortest path between two cells
+     *
+     * @param startX The x coordinate of the cell the search begins at
+     * @param startY The y coordinate of the cell the search begins at
+     * @param endX   The x coordinate of the goal cell
+     * @param endY   The y coordinate of the goal cell
+     * @return The future path from the start to the end, which is empty if
+     * the end can't be reached.  It fails with a
+     * {@link RejectedExecutionException} if the queue is full.
+     */
+    public CompletableFuture<Path> findPath(int startX, int startY,
+                                            int endX, int endY) {
+        int width = map.getWidth();
+        long key = (long) (startY * width + startX) * width * map.getHeight() +
+                   endY * width + endX;
+        CompletableFuture<Path> future = new CompletableFuture<Path>();
+        Search search;
+        boolean created = false;
+
+        synchronized (lock) {
+            search = searches.get(key);
+            if (search != null) {
+                coalesced++;
+            } else if (queued >= capacity) {
+                future.completeExceptionally(
+                        new RejectedExecutionException("The path queue is full"));
+                return future;
+            } else {
+                search = new Search(key, startX, startY, endX, endY);
+                searches.put(key, search);
+                queue.add(search);
+                queued++;
+                created = true;
+            }
+            search.callers++;
+        }
+
+        subscribe(search, future);
+        if (created) {
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        runNext();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                synchronized (lock) {
+                    if (search.started || search.cancelled) {
+                        // A thread of an earlier query already took it, or
+                        // every caller cancelled it
+                        return future;
+                    }
+                    search.cancelled = true;
+                    queued--;
+                    searches.remove(key);
+                }
+                search.result.completeExceptionally(e);
+            }
+        }
+        return future;
+    }
+
+    /**
+     * Queues a query for an agent, cancelling the agent's last query if it
+     * hasn't finished yet
+     *
+     * @param agent  The agent the path is for, such as a unit
+     * @param startX The x coordinate of the cell the search begins at
+     * @param startY The y coordinate of the cell the search begins at
+     * @param endX   The x coordinate of the goal cell
+     * @param endY   The y coordinate of the goal cell
+     * @return The future path from the start to the end
+     * @see #findPath(int, int, int, int)
+     */
+    public CompletableFuture<Path> findPath(final Object agent,
+                                            int startX, int startY,
+                                            int endX, int endY) {
+        // The new query is queued first so that a stale query for the same
+        // cells keeps its search instead of stopping and starting over
+        final CompletableFuture<Path> future = findPath(startX, startY,
+                                                        endX, endY);
+        CompletableFuture<Path> last;
+        synchronized (lock) {
+            last = agents.put(agent, future);
+        }
+        if (last != null) {
+            last.cancel(false);
+        }
+
+        future.whenComplete(new BiConsumer<Path, Throwable>() {
+            @Override
+            public void accept(Path path, Throwable error) {
+                synchronized (lock) {
+                    if (agents.get(agent) == future) {
+                        agents.remove(agent);
+                    }
+                }
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Cancels an agent's last query if it hasn't finished yet
+     *
+     * @param agent The agent whose query to cancel
+     * @return If there was a query to cancel
+     */
+    public boolean cancel(Object agent) {
+        CompletableFuture<Path> last;
+        synchronized (lock) {
+            last = agents.remove(agent);
+        }
+        return last != null && last.cancel(false);
+    }
+
+    /**
+     * Hands the result of a search to one caller's future, and drops the
+     * caller from the search if the future is cancelled first
+     *
+     * @param search The search the caller waits on
+     * @param future The caller's future
+     */
+    private void subscribe(final Search search,
+                           final CompletableFuture<Path> future) {
+        search.result.whenComplete(new BiConsumer<Path, Throwable>() {
+            @Override
+            public void accept(Path path, Throwable error) {
+                if (error != null) {
+                    future.completeExceptionally(error);
+                } else {
+                    future.complete(path);
+                }
+            }
+        });
+        future.whenComplete(new BiConsumer<Path, Throwable>() {
+            @Override
+            public void accept(Path path, Throwable error) {
+                if (future.isCancelled()) {
+                    unsubscribe(search);
+                }
+            }
+        });
+    }
+
+    /**
+     * Drops one caller from a search, and stops the search once nobody is
+     * waiting on it anymore
+     *
+     * @param search The search the caller cancelled
+     */
+    private void unsubscribe(Search search) {
+        synchronized (lock) {
+            if (--search.callers > 0 || search.result.isDone() ||
+                search.cancelled) {
+                return;
+            }
+            search.cancelled = true;
+            cancelled++;
+            if (!search.started) {
+                queued--;
+            }
+            if (searches.get(search.key) == search) {
+                searches.remove(search.key);
+            }
+        }
+        search.result.cancel(false);
+    }
+
+    /**
+     * Takes the next search out of the queue that hasn't been cancelled and
+     * runs it.  Each queued search hands one of these to the executor, so
+     * there is always a thread on its way for every search in the queue.
+     */
+    private void runNext() {
+        Search search;
+        synchronized (lock) {
+            do {
+                search = queue.poll();
+            } while (search != null && search.cancelled);
+            if (search == null) {
+                return;
+            }
+            search.started = true;
+            queued--;
+        }
+
+        SearchMetrics metrics = this.metrics;
+        SearchState state = pool.borrow();
+        state.counting = metrics != null;
+        try {
+            PathSearch pathSearch = new PathSearch(map, state, null,
+                                                   search.startX, search.startY,
+                                                   search.endX, search.endY, 1);
+            // A search that finished while the map was edited isn't done
+            while (!pathSearch.run(CANCEL_CHECK_INTERVAL, Long.MAX_VALUE) ||
+                   !pathSearch.isDone()) {
+                if (search.cancelled) {
+                    return;
+                }
+            }
+
+            if (metrics != null) {
+                metrics.record(state);
+            }
+            finish(search);
+            search.result.complete(pathSearch.getPath());
+        } catch (RuntimeException e) {
+            finish(search);
+            search.result.completeExceptionally(e);
+        } finally {
+            pool.release(state);
+        }
+    }
+
+    /**
+     * Stops new queries from sharing a search that is about to finish
+     *
+     * @param search The search
+     */
+    private void finish(Search search) {
+        synchronized (lock) {
+            if (searches.get(search.key) == search) {
+                searches.remove(search.key);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of queries waiting for a thread
+     *
+     * @return The number of searches in the queue that aren't cancelled
+     */
+    public int getQueuedCount() {
+        synchronized (lock) {
+            return queued;
+        }
+    }
+
+    /**
+     * Gets the number of queries that shared a search with an earlier query
+     * for the same cells instead of searching again
+     *
+     * @return The number of queries that were coalesced
+     */
+    public long getCoalescedCount() {
+        synchronized (lock) {
+            return coalesced;
+        }
+    }
+
+    /**
+     * Gets the number of searches that were stopped or skipped because
+     * every caller waiting on them cancelled
+     *
+     * @return The number of searches cancelled
+     */
+    public long getCancelledCount() {
+        synchronized (lock) {
+            return cancelled;
+        }
+    }
+
+    /**
+     * Gets where every search is recorded
+     *
+     * @return The metrics searches are recorded into, or null if they
+     * aren't recorded
+     */
+    public SearchMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Sets where every search is recorded.  This defaults to null, which
+     * records nothing.  Cancelled searches aren't recorded.
+     *
+     * @param metrics The metrics to record into, or null to stop recording
+     */
+    public void setMetrics(SearchMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Gets the map that every query searches
+     *
+     * @return The map used by this service
+     */
+    public GridMap getMap() {
+        return map;
+    }
+
+    /**
+     * Stops the executor the service created after the queued queries have
+     * finished and lets go of the search states that aren't in use.  An
+     * executor that was passed in is left running.
+     */
+    public void shutdown() {
+        if (ownExecutor != null) {
+            ownExecutor.shutdown();
+        }
+        pool.clear();
+    }
+
+    /**
+     * A search that one or more queries are waiting on
+     */
+    private static final class Search {
+
+        /**
+         * The start and goal cells packed into one number
+         */
+        final long key;
+
+        /**
+         * The x coordinate of the cell the search begins at
+         */
+        final int startX;
+
+        /**
+         * The y coordinate of the cell the search begins at
+         */
+        final int startY;
+
+        /**
+         * The x coordinate of the goal cell
+         */
+        final int endX;
+
+        /**
+         * The y coordinate of the goal cell
+         */
+        final int endY;
+
+        /**
+         * Completed with the path once the search is done
+         */
+        final CompletableFuture<Path> result;
+
+        /**
+         * The number of callers still waiting on the search
+         */
+        int callers;
+
+        /**
+         * If a thread has taken the search out of the queue
+         */
+        boolean started;
+
+        /**
+         * If every caller cancelled, which the running search checks every
+         * few cells
+         */
+        volatile boolean cancelled;
+
+        /**
+         * Creates a search that hasn't been queued yet
+         *
+         * @param key    The start and goal cells packed into one number
+         * @param startX The x coordinate of the cell the search begins at
+         * @param startY The y coordinate of the cell the search begins at
+         * @param endX   The x coordinate of the goal cell
+         * @param endY   The y coordinate of the goal cell
+         */
+        Search(long key, int startX, int startY, int endX, int endY) {
+            this.key = key;
+            this.startX = startX;
+            this.startY = startY;
+            this.endX = endX;
+            this.endY = endY;
+            this.result = new CompletableFuture<Path>();
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package ambenavente1.cs151.astar;
+
+/**
+ * Bidirectional A*, which searches forward from the start and backward from
+ * the goal at the same time until the two searches meet.  It pays off when
+ * one end is walled in, like a goal inside of a room whose door faces away
+ * from the start: plain A* floods everything in front of the wall before
+ * it finds the way around, while the search from the goal walks straight
+ * out of the door.  When one end can't be reached at all, the search from
+ * that end runs out of cells and stops early.
+ * <p></p>
+ * Both sides order their cells by the same estimate with opposite signs:
+ * half of the way left to the side's target less half of the way back to
+ * where it began.  With that, the cost of a path through a cell is the sum
+ * of the two sides' keys there, so each side's lowest key is a bound on
+ * the rest of the path that the other side still has to cover.  The
+ * search stops once the lowest keys of the two sides add up to the best
+ * path found so far, which is usually soon after the sides meet in the
+ * middle, where plain A* would have to stop at the goal.  The plain
+ * estimate is still used to drop any cell that can't lead to a cheaper
+ * path.  A cell the other side has already expanded isn't expanded again,
+ * since the path through it was counted when both sides had reached it.
+ * <p></p>
+ * On open ground every cell between the ends has the same key, and the
+ * two sides would each pick a different one of the many equally short
+ * paths and pass each other.  Ties go to the cell nearer the straight line
+ * between the ends instead, which both sides agree on, so they walk the
+ * same path toward each other.
+ * <p></p>
+ * The side with the smaller open list is expanded next, which keeps the
+ * two searches about the same size.  Moving into a cell costs that cell's
+ * cost in both directions, so the backward search charges each step with
+ * the cost of the cell it steps out of.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+final class BidirectionalSearch {
+
+    /**
+     * This class only has static methods
+     */
+    private BidirectionalSearch() {
+    }
+
+    /**
+     * Calculates the cheapest path between two cells of a map by searching
+     * from both ends
+     *
+     * @param map    The map to search
+     * @param state  The per-cell data of the forward search.  The backward
+     *               search uses the state's {@link SearchState#reverse()};
+     *               its counts are added to this state at the end and its
+     *               peak open list size is kept apart.
+     * @param startX The x coordinate of the cell the search begins at
+     * @param startY The y coordinate of the cell the search begins at
+     * @param endX   The x coordinate of the goal cell
+     * @param endY   The y coordinate of the goal cell
+     * @return The index of each cell on the path from the one after the start
+     * up to the end, or an empty array if the end can't be reached
+     */
+    static int[] calculateCellPath(GridMap map, SearchState state,
+                                   int startX, int startY, int endX, int endY) {
+        int width  = map.getWidth();
+        int cells  = width * map.getHeight();
+        int start  = startY * width + startX;
+        int end    = endY * width + endX;
+        Connectivity connectivity = map.getConnectivity();
+        float estimate = map.getMinCost();
+
+        SearchState forward  = state;
+        SearchState backward = state.reverse();
+        forward.begin(cells);
+        backward.begin(cells);
+
+        if (start == end || !map.isWalkable(endX, endY)) {
+            return new int[0];
+        }
+
+        // The last key taken out of each side, which starts at the key
+        // its first cell goes in with
+        float half = estimate / 2;
+        double lastForward  = potential(connectivity, half, startX, startY,
+                                        startX, startY, endX, endY);
+        double lastBackward = potential(connectivity, half, endX, endY,
+                                        endX, endY, startX, startY);
+        forward.open(start, -1, 0, lastForward);
+        backward.open(end, -1, 0, lastBackward);
+
+        float best = Float.POSITIVE_INFINITY;
+        int meeting = -1;
+
+        while (forward.openList.size() > 0 && backward.openList.size() > 0) {
+            boolean isForward = forward.openList.size() <= backward.openList.size();
+            SearchState side  = isForward ? forward : backward;
+            SearchState other = isForward ? backward : forward;
+            int fromX = isForward ? startX : endX;
+            int fromY = isForward ? startY : endY;
+            int targetX = isForward ? endX : startX;
+            int targetY = isForward ? endY : startY;
+
+            int current = side.openList.poll();
+            int x = current % width;
+            int y = current / width;
+            float distance = side.distanceTraveled[current];
+            double key = distance + potential(connectivity, half, x, y,
+                                              fromX, fromY, targetX, targetY);
+
+            // Keys come out of each side in order, so the last key taken
+            // from the other side is no higher than anything still in it
+            if (isForward) {
+                lastForward = key;
+            } else {
+                lastBackward = key;
+            }
+            if (lastForward + lastBackward >=
+                    best * (1 - OpenList.TIE_TOLERANCE)) {
+                // No path left to find can be cheaper than the best one by
+                // more than the open lists can tell apart
+                break;
+            }
+
+            side.close(current);
+            if (other.isClosed(current)) {
+                // The other side already went on from here, and the path
+                // through this cell was counted when both had reached it
+                continue;
+            }
+            if (distance + estimate * connectivity.distance(x, y, targetX, targetY)
+                    >= best) {
+                // Even a straight way on from here is no cheaper
+                continue;
+            }
+            side.expanded++;
+
+            // Stepping out of the current cell backwards means the path
+            // moves into it, so it is the current cell that costs
+            float stepCost = isForward ? 0 : map.getCost(x, y);
+            int mask = map.getNeighborMask(x, y);
+
+            while (mask != 0) {
+                int d = Integer.numberOfTrailingZeros(mask);
+                mask &= mask - 1;
+
+                int nx = x + Connectivity.DX[d];
+                int ny = y + Connectivity.DY[d];
+                int neighbor = ny * width + nx;
+                float next = distance + Connectivity.STEP[d] *
+                             (isForward ? map.getCost(nx, ny) : stepCost);
+
+                if (!side.isReached(neighbor)) {
+                    side.open(neighbor, current, next, next +
+                              potential(connectivity, half, nx, ny,
+                                        fromX, fromY, targetX, targetY),
+                              -offLine(nx, ny, startX, startY, endX, endY));
+                } else if (!side.isClosed(neighbor) &&
+                           next < side.distanceTraveled[neighbor]) {
+                    side.improve(neighbor, current, next, next +
+                                 potential(connectivity, half, nx, ny,
+                                           fromX, fromY, targetX, targetY),
+                                 -offLine(nx, ny, startX, startY, endX, endY));
+                } else {
+                    continue;
+                }
+
+                if (other.isReached(neighbor) &&
+                    next + other.distanceTraveled[neighbor] < best) {
+                    best = next + other.distanceTraveled[neighbor];
+                    meeting = neighbor;
+                }
+            }
+        }
+
+        forward.expanded        += backward.expanded;
+        forward.generated       += backward.generated;
+        forward.improved        += backward.improved;
+        forward.reversePeakOpen  = backward.peakOpen;
+
+        if (meeting < 0) {
+            return new int[0];
+        }
+
+        return buildPath(forward, backward, start, end, meeting);
+    }
+
+    /**
+     * The estimate one side of the search orders a cell by: half of the
+     * way left to its target less half of the way back to where it began.
+     * The sides use the same estimate with opposite signs, so a path
+     * through a cell costs the sum of both sides' keys there.
+     *
+     * @param connectivity The moves allowed on the map
+     * @param half         Half of the lowest cost of a cell on the map
+     * @param x            The x coordinate of the cell
+     * @param y            The y coordinate of the cell
+     * @param fromX        The x coordinate of the cell this side began at
+     * @param fromY        The y coordinate of the cell this side began at
+     * @param targetX      The x coordinate of the cell this side heads for
+     * @param targetY      The y coordinate of the cell this side heads for
+     * @return The estimate added to the distance traveled to the cell
+     */
+    private static double potential(Connectivity connectivity, float half,
+                                    int x, int y, int fromX, int fromY,
+                                    int targetX, int targetY) {
+        return half * ((double) connectivity.distance(x, y, targetX, targetY) -
+                       connectivity.distance(x, y, fromX, fromY));
+    }
+
+    /**
+     * How far a cell is from the straight line between the start and the
+     * goal, scaled by the length of the line
+     *
+     * @param x      The x coordinate of the cell
+     * @param y      The y coordinate of the cell
+     * @param startX The x coordinate of the start
+     * @param startY The y coordinate of the start
+     * @param endX   The x coordinate of the goal
+     * @param endY   The y coordinate of the goal
+     * @return The distance off the line times its length
+     */
+    private static double offLine(int x, int y, int startX, int startY,
+                                  int endX, int endY) {
+        return Math.abs((double) (x - startX) * (endY - startY) -
+                        (double) (y - startY) * (endX - startX));
+    }
+
+    /**
+     * Joins the forward path up to the meeting cell with the backward path
+     * from it down to the goal
+     *
+     * @param forward  The state of the search from the start
+     * @param backward The state of the search from the goal
+     * @param start    The index of the start cell
+     * @param end      The index of the goal cell
+     * @param meeting  The cell where the cheapest path found crosses over
+     * @return The cells from the one after the start up to the end
+     */
+    private static int[] buildPath(SearchState forward, SearchState backward,
+                                   int start, int end, int meeting) {
+        int length = 0;
+        for (int cell = meeting; cell != start; cell = forward.parent[cell]) {
+            length++;
+        }
+        int half = length;
+        for (int cell = meeting; cell != end; cell = backward.parent[cell]) {
+            length++;
+        }
+
+        int[] path = new int[length];
+        int i = half;
+        for (int cell = meeting; cell != start; cell = forward.parent[cell]) {
+            path[--i] = cell;
+        }
+        i = half;
+        for (int cell = meeting; cell != end; cell = backward.parent[cell]) {
+            path[i++] = backward.parent[cell];
+        }
+
+        return path;
+    }
+}
@@ -0,0 +1,28 @@
+package ambenavente1.cs151.astar;
+
+/**
+ * Where a {@link ChunkedWorld} gets its cells from.  The world asks for a
+ * chunk the first time a search looks at one of its cells, and again if the
+ * chunk was evicted to make room for others, so a provider has to give the
+ * same cells every time it is asked for the same chunk until the world is
+ * told otherwise with {@link ChunkedWorld#invalidate(int, int)}.  A provider
+ * would usually read the chunk out of the game's own world data or
+ * generate it from a seed.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public interface ChunkProvider {
+
+    /**
+     * Fills in the cells of a chunk.  The chunk covers the world cells from
+     * (chunkX * {@link WorldChunk#SIZE}, chunkY * {@link WorldChunk#SIZE})
+     * to one less than the next chunk over in each direction.
+     *
+     * @param chunkX The x coordinate of the chunk, in chunks
+     * @param chunkY The y coordinate of the chunk, in chunks
+     * @param chunk  The chunk to fill in, where every cell starts out
+     *               walkable with the default cost
+     */
+    void loadChunk(int chunkX, int chunkY, WorldChunk chunk);
+}
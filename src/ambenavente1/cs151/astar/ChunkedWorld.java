@@ -0,0 +1,364 @@
+package ambenavente1.cs151.astar;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A world with no fixed size that is loaded in square {@link WorldChunk}s
+ * as searches reach them.  Nothing is allocated up front: the first time a
+ * cell of a chunk is looked at, the chunk is filled in by a
+ * {@link ChunkProvider}, and once more than a set number of chunks are
+ * loaded the one that was looked at longest ago is evicted.  The memory a
+ * world takes follows the area that was searched, not the size of the
+ * world.
+ * <p></p>
+ * Searches don't run on the world itself but on a {@link WorldWindow}, a
+ * rectangle of the world that is a {@link GridMap} of its own.  A window
+ * can be as large as the region a search may need, like the bounding box
+ * of the start and goal plus a margin (see
+ * {@link #windowAround(int, int, int, int, int)}), and the chunks it covers
+ * are still only loaded where the search goes.
+ * <p></p>
+ * Since the provider is where the cells come from, the world is edited by
+ * changing what the provider gives and then calling
+ * {@link #invalidate(int, int)} for the chunks that changed.  A world and
+ * its windows must only be used by one thread at a time.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public class ChunkedWorld {
+
+    /**
+     * The number of chunks kept loaded if no other number is given, which
+     * is 16M cells or about 2.5MB without terrain
+     */
+    public static final int DEFAULT_MAX_CHUNKS = 4096;
+
+    /**
+     * Where the cells of each chunk come from
+     */
+    private final ChunkProvider provider;
+
+    /**
+     * The ways a path is allowed to move from one cell to the next
+     */
+    private final Connectivity connectivity;
+
+    /**
+     * The most chunks kept loaded at once
+     */
+    private final int maxChunks;
+
+    /**
+     * The lowest cost any cell of the world may have
+     */
+    private final float minCost;
+
+    /**
+     * The highest cost any cell of the world may have
+     */
+    private final float maxCost;
+
+    /**
+     * The loaded chunks by their packed coordinates, from the one looked at
+     * longest ago to the one looked at last
+     */
+    private final ChunkCache chunks;
+
+    /**
+     * The number of times chunks were invalidated
+     */
+    private long version;
+
+    /**
+     * The number of chunks the provider has filled in
+     */
+    private long loads;
+
+    /**
+     * The number of chunks that were evicted to make room for others
+     */
+    private long evictions;
+
+    /**
+     * Creates a world where every cell has the default cost
+     *
+     * @param provider     Where the cells of each chunk come from
+     * @param connectivity The ways a path is allowed to move
+     * @param maxChunks    The most chunks to keep loaded at once
+     */
+    public ChunkedWorld(ChunkProvider provider, Connectivity connectivity,
+                        int maxChunks) {
+        this(provider, connectivity, maxChunks, AbstractGridMap.DEFAULT_COST,
+             AbstractGridMap.DEFAULT_COST);
+    }
+
+    /**
+     * Creates a world with terrain.  Since chunks that aren't loaded yet
+     * can't be looked at, the range of costs the provider will give has to
+     * be known up front; the lowest cost is what the search's estimate is
+     * scaled by.
+     *
+     * @param provider     Where the cells of each chunk come from
+     * @param connectivity The ways a path is allowed to move
+     * @param maxChunks    The most chunks to keep loaded at once
+     * @param minCost      The lowest cost the provider will give a cell
+     * @param maxCost      The highest cost the provider will give a cell
+     */
+    public ChunkedWorld(ChunkProvider provider, Connectivity connectivity,
+                        int maxChunks, float minCost, float maxCost) {
+        if (maxChunks < 1) {
+            throw new IllegalArgumentException("Invalid number of chunks: " +
+                                               maxChunks);
+        }
+        if (!(minCost > 0) || !(maxCost >= minCost) || Float.isInfinite(maxCost)) {
+            throw new IllegalArgumentException("Invalid cost range: " +
+                                               minCost + " to " + maxCost);
+        }
+
+        this.provider     = provider;
+        this.connectivity = connectivity;
+        this.maxChunks    = maxChunks;
+        this.minCost      = minCost;
+        this.maxCost      = maxCost;
+        this.chunks       = new ChunkCache();
+    }
+
+    /**
+     * Creates a window onto a rectangle of the world.  Nothing is loaded
+     * until a search looks at the window's cells.
+     *
+     * @param originX The world x coordinate of the window's left column
+     * @param originY The world y coordinate of the window's top row
+     * @param width   The number of cells wide the window is
+     * @param height  The number of cells tall the window is
+     * @return The window
+     */
+    public WorldWindow window(int originX, int originY, int width, int height) {
+        return new WorldWindow(this, originX, originY, width, height);
+    }
+
+    /**
+     * Creates a window that covers two cells of the world and a margin
+     * around them, which is room for a path between them to go around
+     * whatever is in the way
+     *
+     * @param x1     The world x coordinate of the first cell
+     * @param y1     The world y coordinate of the first cell
+     * @param x2     The world x coordinate of the second cell
+     * @param y2     The world y coordinate of the second cell
+     * @param margin The number of cells around the two cells to include
+     * @return The window
+     */
+    public WorldWindow windowAround(int x1, int y1, int x2, int y2, int margin) {
+        int minX = Math.min(x1, x2) - margin;
+        int minY = Math.min(y1, y2) - margin;
+        return window(minX, minY, Math.max(x1, x2) + margin - minX + 1,
+                      Math.max(y1, y2) + margin - minY + 1);
+    }
+
+    /**
+     * Checks if a cell of the world can be walked on, loading its chunk if
+     * it isn't loaded
+     *
+     * @param x The world x coordinate of the cell
+     * @param y The world y coordinate of the cell
+     * @return If the cell is walkable
+     */
+    public boolean isWalkable(int x, int y) {
+        return getChunk(x >> WorldChunk.SHIFT, y >> WorldChunk.SHIFT)
+                .isWalkable(x & (WorldChunk.SIZE - 1), y & (WorldChunk.SIZE - 1));
+    }
+
+    /**
+     * Gets the cost of entering a cell of the world, loading its chunk if
+     * it isn't loaded
+     *
+     * @param x The world x coordinate of the cell
+     * @param y The world y coordinate of the cell
+     * @return The cost of the cell
+     */
+    public float getCost(int x, int y) {
+        return getChunk(x >> WorldChunk.SHIFT, y >> WorldChunk.SHIFT)
+                .getCost(x & (WorldChunk.SIZE - 1), y & (WorldChunk.SIZE - 1));
+    }
+
+    /**
+     * Throws away a loaded chunk so it is filled in again the next time it
+     * is looked at.  Call this after the provider starts giving different
+     * cells for the chunk.  Windows onto the world get a new version, so
+     * paths and searches worked out before are known to be stale.
+     *
+     * @param chunkX The x coordinate of the chunk, in chunks
+     * @param chunkY The y coordinate of the chunk, in chunks
+     */
+    public void invalidate(int chunkX, int chunkY) {
+        WorldChunk chunk = chunks.remove(key(chunkX, chunkY));
+        if (chunk != null) {
+            chunk.evict();
+        }
+        version++;
+    }
+
+    /**
+     * Throws away every loaded chunk
+     */
+    public void invalidateAll() {
+        for (WorldChunk chunk : chunks.values()) {
+            chunk.evict();
+        }
+        chunks.clear();
+        version++;
+    }
+
+    /**
+     * Gets a chunk, filling it in and evicting the least recently used
+     * chunk if it isn't loaded
+     *
+     * @param chunkX The x coordinate of the chunk, in chunks
+     * @param chunkY The y coordinate of the chunk, in chunks
+     * @return The loaded chunk
+     */
+    WorldChunk getChunk(int chunkX, int chunkY) {
+        Long key = key(chunkX, chunkY);
+        WorldChunk chunk = chunks.get(key);
+
+        if (chunk == null) {
+            chunk = new WorldChunk(chunkX, chunkY, key);
+            provider.loadChunk(chunkX, chunkY, chunk);
+            if (chunk.getMinCost() < minCost || chunk.getMaxCost() > maxCost) {
+                throw new IllegalStateException("Chunk (" + chunkX + ", " +
+                                                chunkY + ") has costs outside " +
+                                                "of " + minCost + " to " +
+                                                maxCost);
+            }
+
+            chunks.put(key, chunk);
+            loads++;
+        }
+
+        return chunk;
+    }
+
+    /**
+     * Marks a chunk that is already loaded as just used
+     *
+     * @param chunk The chunk that was looked at
+     */
+    void touch(WorldChunk chunk) {
+        chunks.get(chunk.key);
+    }
+
+    /**
+     * Packs the coordinates of a chunk into one number
+     *
+     * @param chunkX The x coordinate of the chunk, in chunks
+     * @param chunkY The y coordinate of the chunk, in chunks
+     * @return The key of the chunk
+     */
+    private static Long key(int chunkX, int chunkY) {
+        return ((long) chunkX << 32) | (chunkY & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Gets the ways a path is allowed to move from one cell to the next
+     *
+     * @return The connectivity of the world
+     */
+    public Connectivity getConnectivity() {
+        return connectivity;
+    }
+
+    /**
+     * Gets the lowest cost any cell of the world may have
+     *
+     * @return The lowest cost
+     */
+    public float getMinCost() {
+        return minCost;
+    }
+
+    /**
+     * Gets the highest cost any cell of the world may have
+     *
+     * @return The highest cost
+     */
+    public float getMaxCost() {
+        return maxCost;
+    }
+
+    /**
+     * Gets a number that changes every time chunks are invalidated
+     *
+     * @return The current version of the world
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the most chunks kept loaded at once
+     *
+     * @return The number of chunks
+     */
+    public int getMaxChunks() {
+        return maxChunks;
+    }
+
+    /**
+     * Gets the number of chunks that are loaded right now
+     *
+     * @return The number of chunks
+     */
+    public int getLoadedChunkCount() {
+        return chunks.size();
+    }
+
+    /**
+     * Gets the number of chunks the provider has filled in, counting
+     * chunks that were loaded again after being evicted
+     *
+     * @return The number of loads
+     */
+    public long getLoadCount() {
+        return loads;
+    }
+
+    /**
+     * Gets the number of chunks that were evicted to make room for others
+     *
+     * @return The number of evictions
+     */
+    public long getEvictionCount() {
+        return evictions;
+    }
+
+    /**
+     * The loaded chunks in the order they were last looked at, which
+     * evicts the one looked at longest ago once there are too many
+     */
+    private class ChunkCache extends LinkedHashMap<Long, WorldChunk> {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Creates an empty cache that keeps its chunks in the order they
+         * were last looked at
+         */
+        ChunkCache() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, WorldChunk> eldest) {
+            if (size() <= maxChunks) {
+                return false;
+            }
+
+            eldest.getValue().evict();
+            evictions++;
+            return true;
+        }
+    }
+}
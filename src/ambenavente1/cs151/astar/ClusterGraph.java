@@ -0,0 +1,821 @@
+package ambenavente1.cs151.astar;
+
+import java.util.Arrays;
+
+/**
+ * The graph of entrances a {@link HierarchicalPathfinder} searches.  The
+ * map is split into square clusters, entrances are placed where walkable
+ * cells meet across the border of two clusters, and the cheapest path
+ * between every pair of entrances of a cluster is stored.  Clusters are
+ * only rebuilt once they are marked dirty and {@link #update()} is called.
+ * <p></p>
+ * Each entrance has an id of <em>cluster * stride + position</em>, where
+ * its position is its place in the cluster's sorted entrance cells.  The
+ * two ids after the last cluster's are left for the start and the end of
+ * a query.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+final class ClusterGraph {
+
+    /**
+     * The farthest along a border a crossing can be from an entrance that
+     * joins the same two regions
+     */
+    private static final int ENTRANCE_SPACING = 4;
+
+    /**
+     * The map the graph is built for
+     */
+    private final GridMap map;
+
+    /**
+     * The number of cells along each side of a cluster
+     */
+    final int clusterSize;
+
+    /**
+     * The number of clusters across the map
+     */
+    final int columns;
+
+    /**
+     * The number of clusters down the map
+     */
+    final int rows;
+
+    /**
+     * The most entrance cells a cluster can have, which is the spacing of
+     * the ids of entrances of different clusters
+     */
+    final int stride;
+
+    /**
+     * The id given to the start of a query
+     */
+    final int startId;
+
+    /**
+     * The id given to the end of a query
+     */
+    final int endId;
+
+    /**
+     * The search the clusters are labeled and searched with while building.
+     * It is shared with the searches of a query's start and end clusters.
+     */
+    final ClusterSearch search;
+
+    /**
+     * The state of the searches between the entrances of a cluster while
+     * building
+     */
+    private final SearchState buildState;
+
+    /**
+     * The pairs of cells, left then right, where each cluster meets the
+     * cluster to its right
+     */
+    private final int[][] rightBorders;
+
+    /**
+     * The pairs of cells, top then bottom, where each cluster meets the
+     * cluster below it
+     */
+    private final int[][] bottomBorders;
+
+    /**
+     * The region of each cell on the edges of each cluster, or -1 for walls,
+     * with the top row, the bottom row, the left column and then the right
+     * column
+     */
+    private final int[][] perimeters;
+
+    /**
+     * The entrance cells of each cluster in ascending order
+     */
+    final int[][] entrances;
+
+    /**
+     * Where the cells across a border from each entrance of a cluster start
+     * in {@link #crossCells}, with one more at the end
+     */
+    final int[][] crossStarts;
+
+    /**
+     * The cells across a border from each entrance of a cluster
+     */
+    final int[][] crossCells;
+
+    /**
+     * The ids of the entrances in {@link #crossCells}
+     */
+    final int[][] crossIds;
+
+    /**
+     * The cost of stepping across the border to each cell in
+     * {@link #crossCells}
+     */
+    final float[][] crossCosts;
+
+    /**
+     * Where the edges out of each entrance of a cluster start in
+     * {@link #edgeTargets}, with one more at the end
+     */
+    final int[][] edgeStarts;
+
+    /**
+     * The positions of the entrances each edge inside of a cluster leads to.
+     * An entrance only has an edge to another one if no third entrance is on
+     * the way for no more cost, since the search gets there through that
+     * one anyway.
+     */
+    final int[][] edgeTargets;
+
+    /**
+     * The cheapest cost of each edge inside of a cluster without leaving it
+     */
+    final float[][] edgeCosts;
+
+    /**
+     * The directions of every step of the paths between the entrances of
+     * each cluster, two to a byte
+     */
+    final byte[][] intraSteps;
+
+    /**
+     * Where the steps of the path between each pair of entrances of a
+     * cluster start, see {@link #pairIndex(int, int, int, boolean)}, with
+     * one more at the end
+     */
+    final int[][] intraOffsets;
+
+    /**
+     * If every cell of each cluster costs the same, so only one path is
+     * stored for each pair of its entrances
+     */
+    final boolean[] symmetric;
+
+    /**
+     * The clusters that have to be rebuilt before the next query
+     */
+    private final boolean[] dirty;
+
+    /**
+     * The clusters whose entrances changed during the rebuild going on
+     */
+    private final boolean[] changed;
+
+    /**
+     * If any cluster has to be rebuilt
+     */
+    private boolean anyDirty;
+
+    /**
+     * The version of the map the clusters were built for
+     */
+    private long version;
+
+    /**
+     * The directions of a path while it is being stored
+     */
+    private byte[] steps;
+
+    /**
+     * Creates the graph of a map and builds every cluster
+     *
+     * @param map         The map to build the graph for
+     * @param clusterSize The number of cells along each side of a cluster
+     */
+    ClusterGraph(GridMap map, int clusterSize) {
+        this.map = map;
+        this.clusterSize = clusterSize;
+        this.columns = (map.getWidth() + clusterSize - 1) / clusterSize;
+        this.rows = (map.getHeight() + clusterSize - 1) / clusterSize;
+        this.stride = clusterSize * 4;
+
+        int clusters = columns * rows;
+        this.startId = clusters * stride;
+        this.endId = startId + 1;
+        this.search = new ClusterSearch(map, clusterSize, columns);
+        this.buildState = new SearchState(new HeapOpenList());
+
+        this.rightBorders = new int[clusters][];
+        this.bottomBorders = new int[clusters][];
+        this.perimeters = new int[clusters][];
+        this.entrances = new int[clusters][];
+        this.crossStarts = new int[clusters][];
+        this.crossCells = new int[clusters][];
+        this.crossIds = new int[clusters][];
+        this.crossCosts = new float[clusters][];
+        this.edgeStarts = new int[clusters][];
+        this.edgeTargets = new int[clusters][];
+        this.edgeCosts = new float[clusters][];
+        this.intraSteps = new byte[clusters][];
+        this.intraOffsets = new int[clusters][];
+        this.symmetric = new boolean[clusters];
+        this.dirty = new boolean[clusters];
+        Arrays.fill(dirty, true);
+        this.changed = new boolean[clusters];
+        this.anyDirty = true;
+        this.steps = new byte[clusterSize * clusterSize];
+
+        rebuild();
+    }
+
+    /**
+     * Marks every cluster a changed rectangle touches.  The clusters across
+     * a border from them are rebuilt too if the entrances on that border
+     * change.
+     *
+     * @param minX The x coordinate of the left column that changed
+     * @param minY The y coordinate of the top row that changed
+     * @param maxX The x coordinate of the right column that changed
+     * @param maxY The y coordinate of the bottom row that changed
+     */
+    void markDirty(int minX, int minY, int maxX, int maxY) {
+        int left   = Math.max(0, minX) / clusterSize;
+        int top    = Math.max(0, minY) / clusterSize;
+        int right  = Math.min(columns - 1, maxX / clusterSize);
+        int bottom = Math.min(rows - 1, maxY / clusterSize);
+
+        for (int cy = top; cy <= bottom; cy++) {
+            for (int cx = left; cx <= right; cx++) {
+                dirty[cy * columns + cx] = true;
+            }
+        }
+        anyDirty = true;
+    }
+
+    /**
+     * Rebuilds the clusters marked dirty.  If the map changed without
+     * telling the graph, every cluster is rebuilt.
+     *
+     * @return If anything was rebuilt
+     */
+    boolean update() {
+        if (map.getVersion() != version && !anyDirty) {
+            markDirty(0, 0, map.getWidth() - 1, map.getHeight() - 1);
+        }
+        if (!anyDirty) {
+            return false;
+        }
+
+        rebuild();
+        return true;
+    }
+
+    /**
+     * Gets the number of entrances in the graph
+     *
+     * @return The number of entrance cells over every cluster
+     */
+    int getEntranceCount() {
+        int count = 0;
+        for (int[] cells : entrances) {
+            count += cells.length;
+        }
+        return count;
+    }
+
+    /**
+     * Gets the number of steps of every path stored between entrances
+     *
+     * @return The number of steps stored over every cluster
+     */
+    long getStoredStepCount() {
+        long count = 0;
+        for (int[] offsets : intraOffsets) {
+            count += offsets[offsets.length - 1];
+        }
+        return count;
+    }
+
+    /**
+     * Rebuilds every cluster marked dirty.  The regions of their cells come
+     * first, then the borders, since the entrances of a cluster come from
+     * all four of its borders and a border's entrances depend on the regions
+     * on both sides of it.  Each border is only found once even when the
+     * clusters on both sides of it are dirty, and a cluster that isn't dirty
+     * is only rebuilt if the entrances on one of its borders changed.  Then
+     * come the entrances and the paths between them, and last the ids of
+     * the entrances across the borders of every cluster next to a rebuilt
+     * one.
+     */
+    private void rebuild() {
+        int clusters = columns * rows;
+
+        for (int c = 0; c < clusters; c++) {
+            if (dirty[c]) {
+                search.load(c);
+                search.labelRegions();
+                keepPerimeter(c);
+            }
+        }
+
+        for (int c = 0; c < clusters; c++) {
+            // A border is shared with the cluster to the right or below
+            boolean hasRight = c % columns < columns - 1;
+            boolean hasBottom = c + columns < clusters;
+            if (dirty[c] || (hasRight && dirty[c + 1])) {
+                int[] border = findBorder(c % columns, c / columns, true);
+                if (!Arrays.equals(border, rightBorders[c])) {
+                    rightBorders[c] = border;
+                    changed[c] = true;
+                    if (hasRight) {
+                        changed[c + 1] = true;
+                    }
+                }
+            }
+            if (dirty[c] || (hasBottom && dirty[c + columns])) {
+                int[] border = findBorder(c % columns, c / columns, false);
+                if (!Arrays.equals(border, bottomBorders[c])) {
+                    bottomBorders[c] = border;
+                    changed[c] = true;
+                    if (hasBottom) {
+                        changed[c + columns] = true;
+                    }
+                }
+            }
+        }
+
+        for (int c = 0; c < clusters; c++) {
+            if (dirty[c] || changed[c]) {
+                collectEntrances(c);
+                buildPaths(c);
+                dirty[c] = false;
+                changed[c] = true;
+            }
+        }
+
+        // The ids across a border move when the cluster there is rebuilt
+        for (int c = 0; c < clusters; c++) {
+            int cx = c % columns;
+            if (changed[c] || (cx > 0 && changed[c - 1]) ||
+                (cx < columns - 1 && changed[c + 1]) ||
+                (c >= columns && changed[c - columns]) ||
+                (c + columns < clusters && changed[c + columns])) {
+                linkCrossings(c);
+            }
+        }
+        Arrays.fill(changed, false);
+
+        anyDirty = false;
+        version = map.getVersion();
+    }
+
+    /**
+     * Keeps the regions of the cells on the edges of the cluster the search
+     * just labeled
+     *
+     * @param cluster The index of the cluster
+     */
+    private void keepPerimeter(int cluster) {
+        int[] regions = search.regions;
+        int[] perimeter = perimeters[cluster];
+        if (perimeter == null) {
+            perimeter = new int[clusterSize * 4];
+            perimeters[cluster] = perimeter;
+        }
+
+        int last = clusterSize - 1;
+        for (int i = 0; i < clusterSize; i++) {
+            perimeter[i] = regions[i];
+            perimeter[clusterSize + i] = regions[last * clusterSize + i];
+            perimeter[clusterSize * 2 + i] = regions[i * clusterSize];
+            perimeter[clusterSize * 3 + i] = regions[i * clusterSize + last];
+        }
+    }
+
+    /**
+     * Finds the entrances on the border between a cluster and the one to its
+     * right or below it.  The places a path can cross the border are grouped
+     * by the two regions they join, since crossing anywhere in a group leads
+     * to the same cells on both sides.  Each group gets entrances so that
+     * none of its crossings is more than {@link #ENTRANCE_SPACING} cells
+     * from one, and a group that spans less than twice that gets a single
+     * entrance in its middle.
+     *
+     * @param cx    The column of the cluster
+     * @param cy    The row of the cluster
+     * @param right If the border to the right should be found instead of the
+     *              one below
+     * @return Pairs of cells, the one in this cluster first, where a path can
+     * cross the border
+     */
+    private int[] findBorder(int cx, int cy, boolean right) {
+        int width = map.getWidth();
+        int height = map.getHeight();
+        int cluster = cy * columns + cx;
+
+        // The border runs along the last column or row of the cluster
+        int length;
+        int x;
+        int y;
+        if (right) {
+            x = cx * clusterSize + clusterSize - 1;
+            y = cy * clusterSize;
+            if (x + 1 >= width) {
+                return new int[0];
+            }
+            length = Math.min(clusterSize, height - y);
+        } else {
+            x = cx * clusterSize;
+            y = cy * clusterSize + clusterSize - 1;
+            if (y + 1 >= height) {
+                return new int[0];
+            }
+            length = Math.min(clusterSize, width - x);
+        }
+
+        // The right column or bottom row of this cluster against the left
+        // column or top row of the other one
+        int[] near = perimeters[cluster];
+        int[] far = perimeters[right ? cluster + 1 : cluster + columns];
+        int nearStart = right ? clusterSize * 3 : clusterSize;
+        int farStart = right ? clusterSize * 2 : 0;
+
+        int first = y * width + x;
+        int step = right ? width : 1;
+        int across = right ? 1 : width;
+
+        int[] pairs = new int[length * 2];
+        int count = 0;
+        int[] group = new int[length];
+        boolean[] grouped = new boolean[length];
+
+        for (int i = 0; i < length; i++) {
+            int nearRegion = near[nearStart + i];
+            int farRegion = far[farStart + i];
+            if (grouped[i] || nearRegion < 0 || farRegion < 0) {
+                continue;
+            }
+
+            int members = 0;
+            for (int j = i; j < length; j++) {
+                if (near[nearStart + j] == nearRegion &&
+                    far[farStart + j] == farRegion) {
+                    grouped[j] = true;
+                    group[members++] = j;
+                }
+            }
+
+            int k = 0;
+            while (k < members) {
+                int uncovered = group[k];
+                int last = members - 1;
+                int chosen;
+                if (group[last] - uncovered <= ENTRANCE_SPACING * 2) {
+                    // What is left fits around one entrance in its middle
+                    int middle = (uncovered + group[last]) / 2;
+                    chosen = k;
+                    while (chosen < last && group[chosen + 1] <= middle) {
+                        chosen++;
+                    }
+                    k = members;
+                } else {
+                    chosen = k;
+                    while (chosen < last &&
+                           group[chosen + 1] <= uncovered + ENTRANCE_SPACING) {
+                        chosen++;
+                    }
+                    int covered = group[chosen] + ENTRANCE_SPACING;
+                    k = chosen + 1;
+                    while (k < members && group[k] <= covered) {
+                        k++;
+                    }
+                }
+
+                int cell = first + step * group[chosen];
+                pairs[count++] = cell;
+                pairs[count++] = cell + across;
+            }
+        }
+
+        return Arrays.copyOf(pairs, count);
+    }
+
+    /**
+     * Gathers the cells of a cluster that are on its side of an entrance,
+     * and for each one the cells across the borders it leads to
+     *
+     * @param cluster The index of the cluster
+     */
+    private void collectEntrances(int cluster) {
+        int cx = cluster % columns;
+        int cy = cluster / columns;
+        int[] left = cx > 0 ? rightBorders[cluster - 1] : new int[0];
+        int[] top = cy > 0 ? bottomBorders[cluster - columns] : new int[0];
+        int[] cells = new int[stride];
+        int count = 0;
+
+        count = addSide(cells, count, rightBorders[cluster], 0);
+        count = addSide(cells, count, bottomBorders[cluster], 0);
+        count = addSide(cells, count, left, 1);
+        count = addSide(cells, count, top, 1);
+
+        Arrays.sort(cells, 0, count);
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || cells[unique - 1] != cells[i]) {
+                cells[unique++] = cells[i];
+            }
+        }
+        cells = Arrays.copyOf(cells, unique);
+
+        // An entrance on a corner of the cluster can lead across two borders
+        int[] starts = new int[unique + 1];
+        int[] across = new int[count];
+        int crossings = 0;
+        for (int i = 0; i < unique; i++) {
+            starts[i] = crossings;
+            crossings = addCrossings(across, crossings, cells[i],
+                                     rightBorders[cluster], 0);
+            crossings = addCrossings(across, crossings, cells[i],
+                                     bottomBorders[cluster], 0);
+            crossings = addCrossings(across, crossings, cells[i], left, 1);
+            crossings = addCrossings(across, crossings, cells[i], top, 1);
+        }
+        starts[unique] = crossings;
+
+        entrances[cluster] = cells;
+        crossStarts[cluster] = starts;
+        crossCells[cluster] = Arrays.copyOf(across, crossings);
+    }
+
+    /**
+     * Looks up the id and the cost of the cells across the borders from the
+     * entrances of a cluster
+     *
+     * @param cluster The index of the cluster
+     */
+    private void linkCrossings(int cluster) {
+        int width = map.getWidth();
+        int[] across = crossCells[cluster];
+        int[] ids = new int[across.length];
+        float[] costs = new float[across.length];
+
+        for (int k = 0; k < across.length; k++) {
+            int x = across[k] % width;
+            int y = across[k] / width;
+            int other = clusterOf(x, y);
+            ids[k] = other * stride + Arrays.binarySearch(entrances[other],
+                                                          across[k]);
+            costs[k] = map.getCost(x, y);
+        }
+
+        crossIds[cluster] = ids;
+        crossCosts[cluster] = costs;
+    }
+
+    /**
+     * Adds one side of each pair of a border to a list of cells
+     *
+     * @param cells The list to add to
+     * @param count The number of cells already in the list
+     * @param pairs The pairs of cells of the border
+     * @param side  0 for the first cell of each pair, 1 for the second
+     * @return The number of cells in the list afterwards
+     */
+    private static int addSide(int[] cells, int count, int[] pairs, int side) {
+        for (int i = side; i < pairs.length; i += 2) {
+            cells[count++] = pairs[i];
+        }
+        return count;
+    }
+
+    /**
+     * Adds the cell across a border from an entrance to a list, if the
+     * border has an entrance at that cell
+     *
+     * @param across The list to add to
+     * @param count  The number of cells already in the list
+     * @param cell   The entrance cell
+     * @param pairs  The pairs of cells of the border
+     * @param side   Which cell of each pair is on the entrance's side
+     * @return The number of cells in the list afterwards
+     */
+    private static int addCrossings(int[] across, int count, int cell,
+                                    int[] pairs, int side) {
+        for (int i = side; i < pairs.length; i += 2) {
+            if (pairs[i] == cell) {
+                across[count++] = pairs[i ^ 1];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Works out and stores the cheapest path between every pair of entrances
+     * of a cluster without leaving it.  The cluster is read from the map
+     * once and each entrance is searched from once, stopping as soon as
+     * every entrance it still needs a path to is reached.
+     *
+     * @param cluster The index of the cluster
+     */
+    private void buildPaths(int cluster) {
+        int[] cells = entrances[cluster];
+        int count = cells.length;
+        boolean same = search.load(cluster);
+        boolean[] targets = search.targets;
+
+        int[] locals = new int[count];
+        for (int i = 0; i < count; i++) {
+            locals[i] = toLocal(cluster, cells[i]);
+        }
+
+        float[] costs = new float[count * count];
+        Arrays.fill(costs, Float.POSITIVE_INFINITY);
+        int[] offsets = new int[(same ? count * (count - 1) / 2 : count * count) + 1];
+        int length = 0;
+
+        for (int i = 0; i < count; i++) {
+            costs[i * count + i] = 0;
+
+            // With every cell costing the same, the paths to the entrances
+            // before this one were stored when they were searched from
+            int first = same ? i + 1 : 0;
+            int needed = same ? count - first : count - 1;
+            if (needed == 0) {
+                continue;
+            }
+            for (int j = first; j < count; j++) {
+                targets[locals[j]] = j != i;
+            }
+            search.search(locals[i], false, buildState, needed);
+
+            for (int j = first; j < count; j++) {
+                targets[locals[j]] = false;
+                if (j == i) {
+                    continue;
+                }
+
+                float cost = buildState.distanceTo(locals[j]);
+                costs[i * count + j] = cost;
+                if (same) {
+                    costs[j * count + i] = cost;
+                }
+                if (cost < Float.POSITIVE_INFINITY) {
+                    length = storePath(locals[i], locals[j], length);
+                }
+                offsets[pairIndex(i, j, count, same) + 1] = length;
+            }
+        }
+
+        // Pairs that were never searched start where the one before ends
+        for (int p = 1; p < offsets.length; p++) {
+            offsets[p] = Math.max(offsets[p], offsets[p - 1]);
+        }
+
+        keepEdges(cluster, costs, count);
+        intraOffsets[cluster] = offsets;
+        intraSteps[cluster] = Arrays.copyOf(steps, (length + 1) >> 1);
+        symmetric[cluster] = same;
+    }
+
+    /**
+     * Keeps the edges between the entrances of a cluster that the search of
+     * the graph needs.  An edge is left out when going through another
+     * entrance costs no more, which is safe since every edge that path
+     * takes costs less than the one left out.
+     *
+     * @param cluster The index of the cluster
+     * @param costs   The cheapest cost from each entrance to each other one,
+     *                indexed by <em>from * count + to</em>
+     * @param count   The number of entrances of the cluster
+     */
+    private void keepEdges(int cluster, float[] costs, int count) {
+        int[] starts = new int[count + 1];
+        int[] others = new int[count * count];
+        float[] kept = new float[count * count];
+        int edges = 0;
+
+        for (int i = 0; i < count; i++) {
+            starts[i] = edges;
+            for (int j = 0; j < count; j++) {
+                float cost = costs[i * count + j];
+                if (j == i || cost == Float.POSITIVE_INFINITY) {
+                    continue;
+                }
+
+                boolean needed = true;
+                for (int k = 0; k < count && needed; k++) {
+                    needed = k == i || k == j ||
+                             costs[i * count + k] + costs[k * count + j] > cost;
+                }
+                if (needed) {
+                    others[edges] = j;
+                    kept[edges] = cost;
+                    edges++;
+                }
+            }
+        }
+        starts[count] = edges;
+
+        edgeStarts[cluster] = starts;
+        edgeTargets[cluster] = Arrays.copyOf(others, edges);
+        edgeCosts[cluster] = Arrays.copyOf(kept, edges);
+    }
+
+    /**
+     * Adds the directions of the path the last build search found to a cell
+     * to the steps being stored
+     *
+     * @param from   The cell the search started at, in cluster order
+     * @param to     The cell the path ends at, in cluster order
+     * @param length The number of steps already stored
+     * @return The number of steps stored afterwards
+     */
+    private int storePath(int from, int to, int length) {
+        int[] parents = buildState.parent;
+        int count = 0;
+        for (int local = to; local != from; local = parents[local]) {
+            count++;
+        }
+        if (((length + count + 1) >> 1) > steps.length) {
+            steps = Arrays.copyOf(steps, Math.max(steps.length * 2,
+                                                  (length + count + 1) >> 1));
+        }
+
+        // The parents lead backwards, so the steps are written from the end
+        int index = length + count;
+        for (int local = to; local != from; local = parents[local]) {
+            int parent = parents[local];
+            int d = Connectivity.direction(local % clusterSize - parent % clusterSize,
+                                           local / clusterSize - parent / clusterSize);
+            index--;
+            int shift = (index & 1) << 2;
+            steps[index >> 1] = (byte) ((steps[index >> 1] & ~(0xF << shift)) |
+                                        (d << shift));
+        }
+
+        return length + count;
+    }
+
+    /**
+     * Gets where the path between two entrances is stored
+     *
+     * @param from      The position of the first entrance in its cluster
+     * @param to        The position of the second entrance
+     * @param count     The number of entrances of the cluster
+     * @param symmetric If only one path is stored for each pair, from the
+     *                  earlier entrance to the later one
+     * @return The index of the pair in the cluster's offsets
+     */
+    static int pairIndex(int from, int to, int count, boolean symmetric) {
+        if (!symmetric) {
+            return from * count + to;
+        }
+        int low = Math.min(from, to);
+        int high = Math.max(from, to);
+        return low * count - low * (low + 1) / 2 + high - low - 1;
+    }
+
+    /**
+     * Gets a cell's place in its cluster
+     *
+     * @param cluster The index of the cluster
+     * @param cell    The index of the cell in the map
+     * @return The index of the cell in cluster order
+     */
+    int toLocal(int cluster, int cell) {
+        int width = map.getWidth();
+        return (cell / width - (cluster / columns) * clusterSize) * clusterSize +
+               cell % width - (cluster % columns) * clusterSize;
+    }
+
+    /**
+     * Gets the map index of a cell of a cluster
+     *
+     * @param cluster The index of the cluster
+     * @param local   The index of the cell in cluster order
+     * @return The index of the cell in the map
+     */
+    int toCell(int cluster, int local) {
+        return ((cluster / columns) * clusterSize + local / clusterSize) *
+               map.getWidth() + (cluster % columns) * clusterSize +
+               local % clusterSize;
+    }
+
+    /**
+     * Gets the cluster a cell belongs to
+     *
+     * @param x The x coordinate of the cell
+     * @param y The y coordinate of the cell
+     * @return The index of the cluster
+     */
+    int clusterOf(int x, int y) {
+        return (y / clusterSize) * columns + x / clusterSize;
+    }
+
+    /**
+     * Gets the map index of the entrance with an id
+     *
+     * @param id The id of the entrance
+     * @return The index of its cell in the map
+     */
+    int entranceCell(int id) {
+        return entrances[id / stride][id % stride];
+    }
+}
@@ -0,0 +1,301 @@
+package ambenavente1.cs151.astar;
+
+import java.util.Arrays;
+
+/**
+ * Searches inside of one cluster of a {@link HierarchicalPathfinder}
+ * without leaving it.  A cluster is first read from the map with
+ * {@link #load(int)}, which keeps the moves of its cells that stay inside
+ * of it, and can then be split into regions or searched from any of its
+ * cells as many times as needed.  Cells are numbered in cluster order,
+ * <em>y * clusterSize + x</em> from the cluster's top left cell.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+final class ClusterSearch {
+
+    /**
+     * The directions that move left, right, up and down, used to keep the
+     * moves of a cluster's cells inside of it
+     */
+    private static final int LEFT_MOVES  = movesWhere(-1, 0);
+    private static final int RIGHT_MOVES = movesWhere(1, 0);
+    private static final int UP_MOVES    = movesWhere(0, -1);
+    private static final int DOWN_MOVES  = movesWhere(0, 1);
+
+    /**
+     * The map being searched
+     */
+    private final GridMap map;
+
+    /**
+     * The number of cells along each side of a cluster
+     */
+    private final int clusterSize;
+
+    /**
+     * The number of clusters across the map
+     */
+    private final int columns;
+
+    /**
+     * The moves out of each cell of the loaded cluster that stay inside of
+     * it
+     */
+    private final int[] masks;
+
+    /**
+     * The cost of each cell of the loaded cluster, or 0 for walls
+     */
+    private final float[] costs;
+
+    /**
+     * The difference in cluster order of a move in each direction
+     */
+    private final int[] offsets;
+
+    /**
+     * The region of each cell of the loaded cluster, which are the cells it
+     * can reach without leaving the cluster, or -1 for walls.  Only set by
+     * {@link #labelRegions()}.
+     */
+    final int[] regions;
+
+    /**
+     * The cells of the loaded cluster that a search still has to reach
+     * before it can stop
+     */
+    final boolean[] targets;
+
+    /**
+     * If every cell of the loaded cluster costs the same and moves are only
+     * straight, so it can be searched breadth first
+     */
+    private boolean breadthFirst;
+
+    /**
+     * The cells waiting to be visited by a breadth-first search or to be
+     * labeled with a region
+     */
+    private final int[] queue;
+
+    /**
+     * Creates the search of the clusters of a map
+     *
+     * @param map         The map being searched
+     * @param clusterSize The number of cells along each side of a cluster
+     * @param columns     The number of clusters across the map
+     */
+    ClusterSearch(GridMap map, int clusterSize, int columns) {
+        this.map = map;
+        this.clusterSize = clusterSize;
+        this.columns = columns;
+
+        int area = clusterSize * clusterSize;
+        this.masks = new int[area];
+        this.costs = new float[area];
+        this.offsets = new int[8];
+        for (int d = 0; d < 8; d++) {
+            offsets[d] = Connectivity.DY[d] * clusterSize + Connectivity.DX[d];
+        }
+        this.regions = new int[area];
+        this.targets = new boolean[area];
+        this.queue = new int[area];
+    }
+
+    /**
+     * Reads the moves and costs of a cluster's cells from the map.  Moves
+     * that would leave the cluster are left out, and walls cost 0.
+     *
+     * @param cluster The index of the cluster
+     * @return If every walkable cell of the cluster costs the same
+     */
+    boolean load(int cluster) {
+        int left = (cluster % columns) * clusterSize;
+        int top = (cluster / columns) * clusterSize;
+        int width = Math.min(clusterSize, map.getWidth() - left);
+        int height = Math.min(clusterSize, map.getHeight() - top);
+        float firstCost = 0;
+        boolean any = false;
+        boolean same = true;
+
+        Arrays.fill(masks, 0);
+        Arrays.fill(costs, 0);
+        for (int ly = 0; ly < height; ly++) {
+            for (int lx = 0; lx < width; lx++) {
+                int x = left + lx;
+                int y = top + ly;
+                if (!map.isWalkable(x, y)) {
+                    continue;
+                }
+
+                int mask = map.getNeighborMask(x, y);
+                if (lx == 0) mask &= ~LEFT_MOVES;
+                if (lx == width - 1) mask &= ~RIGHT_MOVES;
+                if (ly == 0) mask &= ~UP_MOVES;
+                if (ly == height - 1) mask &= ~DOWN_MOVES;
+
+                float cost = map.getCost(x, y);
+                if (!any) {
+                    firstCost = cost;
+                    any = true;
+                } else if (cost != firstCost) {
+                    same = false;
+                }
+
+                int local = ly * clusterSize + lx;
+                masks[local] = mask;
+                costs[local] = cost;
+            }
+        }
+
+        breadthFirst = same && !map.getConnectivity().allowsDiagonal();
+        return same;
+    }
+
+    /**
+     * Splits the cells of the loaded cluster into {@link #regions} that can
+     * reach each other without leaving it
+     */
+    void labelRegions() {
+        int area = clusterSize * clusterSize;
+        Arrays.fill(regions, -1);
+
+        int count = 0;
+        for (int seed = 0; seed < area; seed++) {
+            if (costs[seed] == 0 || regions[seed] >= 0) {
+                continue;
+            }
+
+            int size = 0;
+            queue[size++] = seed;
+            regions[seed] = count;
+            while (size > 0) {
+                int local = queue[--size];
+                int mask = masks[local];
+                while (mask != 0) {
+                    int d = Integer.numberOfTrailingZeros(mask);
+                    mask &= mask - 1;
+
+                    int neighbor = local + offsets[d];
+                    if (regions[neighbor] < 0) {
+                        regions[neighbor] = count;
+                        queue[size++] = neighbor;
+                    }
+                }
+            }
+            count++;
+        }
+    }
+
+    /**
+     * Runs Dijkstra's algorithm from one cell of the loaded cluster without
+     * leaving the cluster.  Cells the search didn't reach have an infinite
+     * {@link SearchState#distanceTo(int) distance} afterwards.
+     *
+     * @param source    The cell to search from, in cluster order
+     * @param reverse   If the costs should be of getting <em>to</em> the
+     *                  source instead of from it, so the parent of each
+     *                  cell is the next cell on the way to the source
+     * @param state     The state the distances and parents are kept in
+     * @param remaining The number of cells marked in {@link #targets} to
+     *                  reach before stopping
+     */
+    void search(int source, boolean reverse, SearchState state, int remaining) {
+        state.begin(clusterSize * clusterSize);
+
+        if (breadthFirst) {
+            searchBreadthFirst(source, state, remaining);
+            return;
+        }
+
+        OpenList open = state.openList;
+        float[] distances = state.distanceTraveled;
+        state.open(source, -1, 0, 0);
+
+        while (open.size() > 0) {
+            int local = open.poll();
+            state.close(local);
+            if (targets[local] && --remaining == 0) {
+                return;
+            }
+
+            float distance = distances[local];
+            int mask = masks[local];
+            while (mask != 0) {
+                int d = Integer.numberOfTrailingZeros(mask);
+                mask &= mask - 1;
+
+                // Moving into a cell costs that cell, so going backwards
+                // costs the cell being left
+                int neighbor = local + offsets[d];
+                float next = distance + Connectivity.STEP[d] *
+                             costs[reverse ? local : neighbor];
+
+                if (!state.isReached(neighbor)) {
+                    state.open(neighbor, local, next, next);
+                } else if (!state.isClosed(neighbor) &&
+                           next < distances[neighbor]) {
+                    state.improve(neighbor, local, next, next);
+                }
+            }
+        }
+    }
+
+    /**
+     * Searches the loaded cluster where every cell costs the same and moves
+     * are only straight, so the cells come out of a plain queue in the
+     * order of their cost
+     *
+     * @param source    The cell to search from, in cluster order
+     * @param state     The state the distances and parents are kept in
+     * @param remaining The number of cells marked in {@link #targets} to
+     *                  reach before stopping
+     */
+    private void searchBreadthFirst(int source, SearchState state,
+                                    int remaining) {
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = source;
+        state.reach(source, -1, 0);
+
+        while (head < tail) {
+            int local = queue[head++];
+            if (targets[local] && --remaining == 0) {
+                return;
+            }
+
+            float distance = state.distanceTraveled[local];
+            int mask = masks[local];
+            while (mask != 0) {
+                int d = Integer.numberOfTrailingZeros(mask);
+                mask &= mask - 1;
+
+                int neighbor = local + offsets[d];
+                if (!state.isReached(neighbor)) {
+                    state.reach(neighbor, local, distance + costs[neighbor]);
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the directions of a neighbor mask that move one way along an axis
+     *
+     * @param dx The x offset to look for, or 0 to look at y
+     * @param dy The y offset to look for, or 0 to look at x
+     * @return A bitmask of the directions
+     */
+    private static int movesWhere(int dx, int dy) {
+        int mask = 0;
+        for (int d = 0; d < 8; d++) {
+            if ((dx != 0 && Connectivity.DX[d] == dx) ||
+                (dy != 0 && Connectivity.DY[d] == dy)) {
+                mask |= 1 << d;
+            }
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,82 @@
+package ambenavente1.cs151.astar;
+
+import java.util.Arrays;
+
+/**
+ * A grid that only stores one bit per cell for its walkability instead of a
+ * {@link Node} object.  This is meant for very large maps: a 4096 x 4096
+ * grid takes 2MB for walkability plus 16MB for the allowed moves of each
+ * cell, and the search keeps its own per-cell data in flat arrays (see
+ * {@link AStar#calculateCellPath(int, int, int, int)}).  The first search
+ * also labels the connected regions of the map, which takes another 64MB
+ * at that size.
+ * <p></p>
+ * Like {@link Grid}, every cell starts out walkable with a cost of 1.  The
+ * cost plane is only allocated once a cell is given a different cost.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public class CompactGrid extends AbstractGridMap {
+
+    /**
+     * The walkability of each cell, one bit per cell in index order.  A set
+     * bit means the cell is walkable.
+     */
+    private long[] walkable;
+
+    /**
+     * Creates a grid with specified dimensions where every cell is walkable
+     *
+     * @param width  The number of cells wide
+     * @param height The number of cells tall
+     */
+    public CompactGrid(int width, int height) {
+        super(width, height);
+
+        this.walkable = new long[(int) (((long) width * height + 63) >>> 6)];
+
+        Arrays.fill(walkable, -1L);
+        updateNeighborMasks(0, 0, width - 1, height - 1);
+    }
+
+    /**
+     * Creates a grid from walkability bits that were already worked out, as
+     * when a {@link GridFile} is read
+     *
+     * @param width        The number of cells wide
+     * @param height       The number of cells tall
+     * @param connectivity The moves paths are allowed to make
+     * @param walkable     One bit per cell, set if the cell is walkable.  The
+     *                     array is kept, not copied.
+     */
+    CompactGrid(int width, int height, Connectivity connectivity,
+                long[] walkable) {
+        super(width, height);
+
+        this.walkable = walkable;
+
+        if (connectivity == getConnectivity()) {
+            updateNeighborMasks(0, 0, width - 1, height - 1);
+        } else {
+            setConnectivity(connectivity);
+        }
+    }
+
+    @Override
+    protected void storeWalkable(int x, int y, boolean walkable) {
+        int cell = y * getWidth() + x;
+
+        if (walkable) {
+            this.walkable[cell >>> 6] |= 1L << cell;
+        } else {
+            this.walkable[cell >>> 6] &= ~(1L << cell);
+        }
+    }
+
+    @Override
+    public boolean isWalkable(int x, int y) {
+        int cell = y * getWidth() + x;
+        return (walkable[cell >>> 6] & (1L << cell)) != 0;
+    }
+}
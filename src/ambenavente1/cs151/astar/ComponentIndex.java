@@ -0,0 +1,614 @@
+package ambenavente1.cs151.astar;
+
+import java.util.Arrays;
+
+/**
+ * Labels every walkable cell of a map with the connected region it belongs
+ * to, so a query between two regions can be answered as unreachable without
+ * searching.  Each cell keeps a label, and labels are grouped into regions
+ * with a union-find structure, so the region of a cell is the root of its
+ * label's set.
+ * <p></p>
+ * The labels are kept up to date one edit at a time instead of being worked
+ * out again for the whole map:
+ * <ul>
+ *     <li>Opening a cell gives it a new label and joins that label with the
+ *     labels of the cells it can move to.  Opening a cell never allows a new
+ *     move that doesn't go through that cell, so this is all that can
+ *     change.</li>
+ *     <li>Closing a cell may split its region.  If the cells around it are
+ *     still connected to each other through the ring of cells around it, the
+ *     region can't have split.  Otherwise a breadth-first search is started
+ *     from each group of cells around it, one step of each at a time, and
+ *     each search relabels the cells it reaches.  Searches that meet are
+ *     joined.  A search that runs out of cells first has found a region that
+ *     split off, so the work is bounded by the size of the smaller regions
+ *     and the part of the map nobody reached keeps its old label.</li>
+ * </ul>
+ * Every edit uses up a few labels, so once there are more labels than
+ * cells the labels are worked out again from scratch.
+ * <p></p>
+ * The labels of the cells and the union-find structure are both kept in
+ * pages of 4096 entries, so handing out more labels only adds a page
+ * instead of copying every label.
+ * <p></p>
+ * Looking up a region never changes anything, so any number of threads can
+ * look up regions at once.  {@link AbstractGridMap} looks them up under
+ * its read lock and edits the index under its write lock.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+final class ComponentIndex {
+
+    /**
+     * The label of a cell that isn't walkable
+     */
+    static final int NO_COMPONENT = -1;
+
+    /**
+     * The x offset of each cell in the ring around a cell, going around
+     */
+    private static final int[] RING_DX = { -1, 0, 1, 1, 1, 0, -1, -1 };
+
+    /**
+     * The y offset of each cell in the ring around a cell, going around
+     */
+    private static final int[] RING_DY = { -1, -1, -1, 0, 1, 1, 1, 0 };
+
+    /**
+     * The map the regions are worked out for
+     */
+    private final GridMap map;
+
+    /**
+     * The number of entries in each page, as a power of two
+     */
+    private static final int PAGE_SHIFT = 12;
+
+    /**
+     * The bits of an index that are its place in a page
+     */
+    private static final int PAGE_MASK = (1 << PAGE_SHIFT) - 1;
+
+    /**
+     * The number of cells in the map
+     */
+    private final int cells;
+
+    /**
+     * The label of each cell in pages of 2^12 cells, or
+     * {@link #NO_COMPONENT} for walls
+     */
+    private int[][] pages;
+
+    /**
+     * The parent of each label in the union-find structure in pages of 2^12
+     * labels.  A label that is its own parent is the root of its region.
+     */
+    private int[][] parents;
+
+    /**
+     * An upper bound of the height of each root's tree, used to keep the
+     * trees shallow, in the same pages as the parents
+     */
+    private byte[][] ranks;
+
+    /**
+     * The next label to hand out
+     */
+    private int nextLabel;
+
+    /**
+     * The cells waiting to be visited by each search after a closed cell,
+     * one queue per group of cells around it
+     */
+    private int[][] queues;
+
+    /**
+     * The index of the next cell to visit in each queue
+     */
+    private int[] heads;
+
+    /**
+     * The number of cells in each queue
+     */
+    private int[] tails;
+
+    /**
+     * Works out the regions of a map
+     *
+     * @param map The map to label.  It must not be edited while this runs.
+     */
+    ComponentIndex(GridMap map) {
+        this.map = map;
+        this.cells = map.getWidth() * map.getHeight();
+        this.queues = new int[8][16];
+        this.heads = new int[8];
+        this.tails = new int[8];
+        rebuild();
+    }
+
+    /**
+     * Gets the label of a cell
+     *
+     * @param cell The index of the cell
+     * @return The label, or {@link #NO_COMPONENT} for a wall
+     */
+    private int label(int cell) {
+        return pages[cell >>> PAGE_SHIFT][cell & PAGE_MASK];
+    }
+
+    /**
+     * Changes the label of a cell
+     *
+     * @param cell  The index of the cell
+     * @param label The new label
+     */
+    private void setLabel(int cell, int label) {
+        pages[cell >>> PAGE_SHIFT][cell & PAGE_MASK] = label;
+    }
+
+    /**
+     * Gets the parent of a label in the union-find structure
+     *
+     * @param label The label
+     * @return The parent, which is the label itself for a root
+     */
+    private int parentOf(int label) {
+        return parents[label >>> PAGE_SHIFT][label & PAGE_MASK];
+    }
+
+    /**
+     * Changes the parent of a label
+     *
+     * @param label  The label
+     * @param parent The new parent
+     */
+    private void setParent(int label, int parent) {
+        parents[label >>> PAGE_SHIFT][label & PAGE_MASK] = parent;
+    }
+
+    /**
+     * Gets the rank of a label, which only means something for roots
+     *
+     * @param label The label
+     * @return The upper bound of the height of the label's tree
+     */
+    private int rankOf(int label) {
+        return ranks[label >>> PAGE_SHIFT][label & PAGE_MASK];
+    }
+
+    /**
+     * Gets the region a cell belongs to.  Two cells are connected exactly
+     * when they are in the same region.  The numbers given to regions change
+     * whenever the map is edited.
+     *
+     * @param cell The index of the cell
+     * @return The region of the cell, or {@link #NO_COMPONENT} if the cell
+     * isn't walkable
+     */
+    int getComponent(int cell) {
+        int label = label(cell);
+        if (label == NO_COMPONENT) {
+            return NO_COMPONENT;
+        }
+
+        // No path compression here, so lookups never write and can run on
+        // many threads.  Union by rank keeps this to a few steps.
+        int up;
+        while ((up = parentOf(label)) != label) {
+            label = up;
+        }
+        return label;
+    }
+
+    /**
+     * Updates the regions after one cell has changed.  The neighbor masks
+     * of the map must already be updated.
+     *
+     * @param x        The x coordinate of the cell
+     * @param y        The y coordinate of the cell
+     * @param walkable If the cell was opened instead of closed
+     */
+    void cellChanged(int x, int y, boolean walkable) {
+        if (nextLabel > cells + 64L) {
+            rebuild();
+        } else if (walkable) {
+            cellOpened(x, y);
+        } else {
+            cellClosed(x, y);
+        }
+    }
+
+    /**
+     * Works out the labels of every cell from scratch.  Each region ends up
+     * with a single label.
+     */
+    void rebuild() {
+        int width  = map.getWidth();
+
+        // Join each cell with the neighbors before it, always keeping the
+        // lower cell as the root, so every region's root is its first cell
+        int[] roots = new int[cells];
+        for (int cell = 0; cell < cells; cell++) {
+            int x = cell % width;
+            int y = cell / width;
+            if (!map.isWalkable(x, y)) {
+                roots[cell] = NO_COMPONENT;
+                continue;
+            }
+
+            roots[cell] = cell;
+            int mask = map.getNeighborMask(x, y);
+            while (mask != 0) {
+                int d = Integer.numberOfTrailingZeros(mask);
+                mask &= mask - 1;
+
+                int neighbor = (y + Connectivity.DY[d]) * width +
+                               x + Connectivity.DX[d];
+                if (neighbor < cell) {
+                    int a = findRoot(roots, neighbor);
+                    int b = findRoot(roots, cell);
+                    roots[Math.max(a, b)] = Math.min(a, b);
+                }
+            }
+        }
+
+        int pageSize = 1 << PAGE_SHIFT;
+        int[][] labels = new int[(cells + pageSize - 1) >>> PAGE_SHIFT][];
+        for (int page = 0; page < labels.length; page++) {
+            labels[page] = new int[Math.min(pageSize, cells - page * pageSize)];
+        }
+
+        int count = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            int label;
+            if (roots[cell] == NO_COMPONENT) {
+                label = NO_COMPONENT;
+            } else if (roots[cell] == cell) {
+                label = count++;
+            } else {
+                // The root comes first, so its label is already set
+                int root = findRoot(roots, cell);
+                label = labels[root >>> PAGE_SHIFT][root & (pageSize - 1)];
+            }
+            labels[cell >>> PAGE_SHIFT][cell & (pageSize - 1)] = label;
+        }
+        pages = labels;
+
+        // Room for as many labels again before another page is needed
+        int labelPages = (int) ((count * 2L + pageSize) >>> PAGE_SHIFT);
+        parents = new int[labelPages][];
+        ranks = new byte[labelPages][];
+        for (int page = 0; page < labelPages; page++) {
+            parents[page] = new int[pageSize];
+            ranks[page] = new byte[pageSize];
+        }
+        for (int label = 0; label < count; label++) {
+            parents[label >>> PAGE_SHIFT][label & PAGE_MASK] = label;
+        }
+        nextLabel = count;
+    }
+
+    /**
+     * Finds the root of a cell while the labels are being built, halving
+     * the path on the way
+     *
+     * @param roots The parent of each cell
+     * @param cell  The cell to find the root of
+     * @return The first cell of the cell's region found so far
+     */
+    private static int findRoot(int[] roots, int cell) {
+        while (roots[cell] != cell) {
+            roots[cell] = roots[roots[cell]];
+            cell = roots[cell];
+        }
+        return cell;
+    }
+
+    /**
+     * Gives an opened cell a new label and joins it with the regions it can
+     * move to
+     *
+     * @param x The x coordinate of the cell
+     * @param y The y coordinate of the cell
+     */
+    private void cellOpened(int x, int y) {
+        int width = map.getWidth();
+        int cell  = y * width + x;
+        int label = newLabel();
+        setLabel(cell, label);
+
+        int mask = map.getNeighborMask(x, y);
+        while (mask != 0) {
+            int d = Integer.numberOfTrailingZeros(mask);
+            mask &= mask - 1;
+            union(label, label((y + Connectivity.DY[d]) * width +
+                               x + Connectivity.DX[d]));
+        }
+    }
+
+    /**
+     * Removes a closed cell and splits its region if the cells around it
+     * are no longer connected
+     *
+     * @param x The x coordinate of the cell
+     * @param y The y coordinate of the cell
+     */
+    private void cellClosed(int x, int y) {
+        int width = map.getWidth();
+        int cell  = y * width + x;
+        int old   = label(cell);
+        setLabel(cell, NO_COMPONENT);
+        if (old == NO_COMPONENT) {
+            return;
+        }
+        int root = find(old);
+
+        // Group the cells of the ring that were in the same region by the
+        // moves between them that don't leave the ring
+        int[] group = new int[8];
+        int groups = 0;
+        for (int i = 0; i < 8; i++) {
+            group[i] = isRingCell(x, y, i, root) ? i : NO_COMPONENT;
+        }
+        for (int i = 0; i < 8; i++) {
+            if (group[i] == NO_COMPONENT) {
+                continue;
+            }
+            int rx = x + RING_DX[i];
+            int ry = y + RING_DY[i];
+            int mask = map.getNeighborMask(rx, ry);
+            while (mask != 0) {
+                int d = Integer.numberOfTrailingZeros(mask);
+                mask &= mask - 1;
+                int j = ringIndex(rx + Connectivity.DX[d] - x,
+                                  ry + Connectivity.DY[d] - y);
+                if (j >= 0 && group[j] != NO_COMPONENT) {
+                    joinGroups(group, i, j);
+                }
+            }
+        }
+        for (int i = 0; i < 8; i++) {
+            if (group[i] == i) {
+                groups++;
+            }
+        }
+
+        if (groups <= 1) {
+            return;
+        }
+
+        splitRegion(x, y, group, root);
+    }
+
+    /**
+     * Searches out from each group of cells around a closed cell, one step
+     * of each search at a time, until at most one search is left that
+     * hasn't met another search or run out of cells.  Each search labels the
+     * cells it reaches with its own label.
+     *
+     * @param x     The x coordinate of the closed cell
+     * @param y     The y coordinate of the closed cell
+     * @param group The group of each cell of the ring, or
+     *              {@link #NO_COMPONENT} for walls
+     * @param root  The root of the region the closed cell was in
+     */
+    private void splitRegion(int x, int y, int[] group, int root) {
+        int width = map.getWidth();
+        int firstLabel = nextLabel;
+        int[] searchLabel = new int[8];
+        boolean[] finished = new boolean[8];
+        int searches = 0;
+
+        for (int i = 0; i < 8; i++) {
+            heads[i] = 0;
+            tails[i] = 0;
+            if (group[i] == i) {
+                searchLabel[i] = newLabel();
+                searches++;
+            }
+        }
+        for (int i = 0; i < 8; i++) {
+            if (group[i] != NO_COMPONENT) {
+                int g = group[i];
+                int ring = (y + RING_DY[i]) * width + x + RING_DX[i];
+                setLabel(ring, searchLabel[g]);
+                push(g, ring);
+            }
+        }
+
+        // Searches that have met share a root, so a region is finished once
+        // every search with its root has run out of cells
+        while (searches > 1) {
+            for (int g = 0; g < 8 && searches > 1; g++) {
+                if (group[g] != g || heads[g] == tails[g]) {
+                    continue;
+                }
+
+                int current = queues[g][heads[g]++];
+                int cx = current % width;
+                int cy = current / width;
+                int mask = map.getNeighborMask(cx, cy);
+                while (mask != 0) {
+                    int d = Integer.numberOfTrailingZeros(mask);
+                    mask &= mask - 1;
+
+                    int neighbor = (cy + Connectivity.DY[d]) * width +
+                                   cx + Connectivity.DX[d];
+                    int label = label(neighbor);
+                    if (label < firstLabel) {
+                        setLabel(neighbor, searchLabel[g]);
+                        push(g, neighbor);
+                    } else if (find(label) != find(searchLabel[g])) {
+                        union(label, searchLabel[g]);
+                        searches--;
+                    }
+                }
+            }
+
+            for (int g = 0; g < 8 && searches > 1; g++) {
+                if (group[g] != g || finished[g]) {
+                    continue;
+                }
+                int top = find(searchLabel[g]);
+                boolean done = true;
+                for (int h = 0; h < 8 && done; h++) {
+                    done = group[h] != h || heads[h] == tails[h] ||
+                           find(searchLabel[h]) != top;
+                }
+                if (done) {
+                    // Mark every search that shares the root
+                    for (int h = 0; h < 8; h++) {
+                        if (group[h] == h && find(searchLabel[h]) == top) {
+                            finished[h] = true;
+                        }
+                    }
+                    searches--;
+                }
+            }
+        }
+
+        // The search that is left may not have reached every cell of its
+        // region, so it keeps the old region's root
+        for (int g = 0; g < 8; g++) {
+            if (group[g] == g && !finished[g]) {
+                union(searchLabel[g], root);
+                break;
+            }
+        }
+    }
+
+    /**
+     * Checks if a cell of the ring around a cell is in the map and in a
+     * region.  With 4-way movement the corners of the ring may be in other
+     * regions, and those aren't affected by the center cell.
+     *
+     * @param x    The x coordinate of the center cell
+     * @param y    The y coordinate of the center cell
+     * @param i    The position in the ring
+     * @param root The root of the center cell's region
+     * @return If the ring cell is walkable and in the region
+     */
+    private boolean isRingCell(int x, int y, int i, int root) {
+        int rx = x + RING_DX[i];
+        int ry = y + RING_DY[i];
+        if (rx < 0 || rx >= map.getWidth() || ry < 0 || ry >= map.getHeight()) {
+            return false;
+        }
+        int label = label(ry * map.getWidth() + rx);
+        return label != NO_COMPONENT && find(label) == root;
+    }
+
+    /**
+     * Gets the position in the ring of an offset from the center cell
+     *
+     * @param dx The x offset
+     * @param dy The y offset
+     * @return The position in the ring, or -1 if the offset isn't in the
+     * ring
+     */
+    private static int ringIndex(int dx, int dy) {
+        for (int i = 0; i < 8; i++) {
+            if (RING_DX[i] == dx && RING_DY[i] == dy) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Joins the groups of two ring cells, keeping the lower position as the
+     * group of both
+     *
+     * @param group The group of each ring cell
+     * @param i     The first ring cell
+     * @param j     The second ring cell
+     */
+    private static void joinGroups(int[] group, int i, int j) {
+        int a = group[i];
+        int b = group[j];
+        if (a == b) {
+            return;
+        }
+        int low  = Math.min(a, b);
+        int high = Math.max(a, b);
+        for (int k = 0; k < 8; k++) {
+            if (group[k] == high) {
+                group[k] = low;
+            }
+        }
+    }
+
+    /**
+     * Adds a cell to the end of a search's queue
+     *
+     * @param g    The search
+     * @param cell The cell to add
+     */
+    private void push(int g, int cell) {
+        if (tails[g] == queues[g].length) {
+            queues[g] = Arrays.copyOf(queues[g], tails[g] * 2);
+        }
+        queues[g][tails[g]++] = cell;
+    }
+
+    /**
+     * Hands out a label that isn't joined with anything yet
+     *
+     * @return The new label
+     */
+    private int newLabel() {
+        int page = nextLabel >>> PAGE_SHIFT;
+        if (page == parents.length) {
+            parents = Arrays.copyOf(parents, page + 1);
+            ranks = Arrays.copyOf(ranks, page + 1);
+            parents[page] = new int[1 << PAGE_SHIFT];
+            ranks[page] = new byte[1 << PAGE_SHIFT];
+        }
+        setParent(nextLabel, nextLabel);
+        ranks[page][nextLabel & PAGE_MASK] = 0;
+        return nextLabel++;
+    }
+
+    /**
+     * Finds the root of a label, halving the path on the way
+     *
+     * @param label The label
+     * @return The root of the label's region
+     */
+    private int find(int label) {
+        int up;
+        while ((up = parentOf(label)) != label) {
+            int grandparent = parentOf(up);
+            setParent(label, grandparent);
+            label = grandparent;
+        }
+        return label;
+    }
+
+    /**
+     * Joins the regions of two labels
+     *
+     * @param a The first label
+     * @param b The second label
+     */
+    private void union(int a, int b) {
+        a = find(a);
+        b = find(b);
+        if (a == b) {
+            return;
+        }
+        int rankA = rankOf(a);
+        int rankB = rankOf(b);
+        if (rankA < rankB) {
+            setParent(a, b);
+        } else if (rankA > rankB) {
+            setParent(b, a);
+        } else {
+            setParent(b, a);
+            ranks[a >>> PAGE_SHIFT][a & PAGE_MASK]++;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package ambenavente1.cs151.astar;
+
+/**
+ * The ways a path is allowed to move from one cell to the next.  Each cell of
+ * a map keeps the moves it allows as a bitmask (see
+ * {@link GridMap#getNeighborMask(int, int)}) where bit <em>d</em> stands for
+ * the move in direction <em>d</em>:
+ * <pre>
+ *     0: up      4: up-left
+ *     1: down    5: up-right
+ *     2: left    6: down-left
+ *     3: right   7: down-right
+ * </pre>
+ * Moving straight costs the cost of the cell moved into and moving
+ * diagonally costs that times the square root of 2.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public enum Connectivity {
+
+    /**
+     * Only up, down, left and right.  Distances are estimated with the
+     * Manhattan distance.
+     */
+    FOUR,
+
+    /**
+     * All eight directions.  A diagonal move is allowed whenever the cell it
+     * moves into is walkable, even if it cuts past the corner of a wall.
+     * Distances are estimated with the octile distance.
+     */
+    EIGHT,
+
+    /**
+     * All eight directions, but a diagonal move is only allowed if both of
+     * the cells beside it are walkable, so paths never clip the corner of a
+     * wall.  Distances are estimated with the octile distance.
+     */
+    EIGHT_NO_CORNER_CUTTING;
+
+    /**
+     * The length of a diagonal step
+     */
+    static final float SQRT_2 = (float) Math.sqrt(2);
+
+    /**
+     * The x offset of each direction
+     */
+    static final int[] DX = { 0, 0, -1, 1, -1, 1, -1, 1 };
+
+    /**
+     * The y offset of each direction
+     */
+    static final int[] DY = { -1, 1, 0, 0, -1, -1, 1, 1 };
+
+    /**
+     * The length of a step in each direction
+     */
+    static final float[] STEP = { 1, 1, 1, 1, SQRT_2, SQRT_2, SQRT_2, SQRT_2 };
+
+    /**
+     * The direction of each offset, indexed by <em>(dy + 1) * 3 + dx + 1</em>
+     */
+    private static final int[] DIRECTIONS = { 4, 0, 5, 2, -1, 3, 6, 1, 7 };
+
+    /**
+     * Gets if diagonal moves are allowed
+     *
+     * @return If paths can move diagonally
+     */
+    public boolean allowsDiagonal() {
+        return this != FOUR;
+    }
+
+    /**
+     * Estimates the length of a path between two cells with no walls in the
+     * way.  This never overestimates, so it can be used as the A*
+     * heuristic.
+     *
+     * @param x1 The x coordinate of the first cell
+     * @param y1 The y coordinate of the first cell
+     * @param x2 The x coordinate of the second cell
+     * @param y2 The y coordinate of the second cell
+     * @return The Manhattan distance for 4-way movement, or the octile
+     * distance for 8-way movement
+     */
+    public float distance(int x1, int y1, int x2, int y2) {
+        int dx = Math.abs(x1 - x2);
+        int dy = Math.abs(y1 - y2);
+
+        if (this == FOUR) {
+            return dx + dy;
+        }
+
+        return Math.max(dx, dy) + (SQRT_2 - 1) * Math.min(dx, dy);
+    }
+
+    /**
+     * Works out which moves are allowed from a cell of a map
+     *
+     * @param map The map the cell belongs to
+     * @param x   The x coordinate of the cell
+     * @param y   The y coordinate of the cell
+     * @return A bitmask with bit <em>d</em> set if the move in direction
+     * <em>d</em> is allowed
+     */
+    public int neighborMask(GridMap map, int x, int y) {
+        int width  = map.getWidth();
+        int height = map.getHeight();
+        int mask = 0;
+
+        for (int d = 0; d < 4; d++) {
+            if (isWalkable(map, x + DX[d], y + DY[d], width, height)) {
+                mask |= 1 << d;
+            }
+        }
+
+        if (this == FOUR) {
+            return mask;
+        }
+
+        for (int d = 4; d < 8; d++) {
+            int nx = x + DX[d];
+            int ny = y + DY[d];
+
+            if (!isWalkable(map, nx, ny, width, height)) {
+                continue;
+            }
+
+            if (this == EIGHT_NO_CORNER_CUTTING &&
+                (!isWalkable(map, nx, y, width, height) ||
+                 !isWalkable(map, x, ny, width, height))) {
+                continue;
+            }
+
+            mask |= 1 << d;
+        }
+
+        return mask;
+    }
+
+    /**
+     * Gets the direction of a move by one cell
+     *
+     * @param dx The x offset of the move, -1, 0 or 1
+     * @param dy The y offset of the move, -1, 0 or 1
+     * @return The direction of the move, or -1 if it doesn't move
+     */
+    static int direction(int dx, int dy) {
+        return DIRECTIONS[(dy + 1) * 3 + dx + 1];
+    }
+
+    /**
+     * Checks if a cell is inside of the map and walkable
+     *
+     * @param map    The map the cell belongs to
+     * @param x      The x coordinate of the cell
+     * @param y      The y coordinate of the cell
+     * @param width  The width of the map
+     * @param height The height of the map
+     * @return If the cell can be walked through
+     */
+    private static boolean isWalkable(GridMap map, int x, int y,
+                                      int width, int height) {
+        return x >= 0 && x < width && y >= 0 && y < height &&
+               map.isWalkable(x, y);
+    }
+}
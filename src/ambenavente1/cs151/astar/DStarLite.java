@@ -0,0 +1,844 @@
+package ambenavente1.cs151.astar;
+
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An incremental planner (D* Lite) for an agent that keeps heading to the
+ * same goal while the map changes around it.  The search runs backwards
+ * from the goal and keeps the cost of every cell it reached between
+ * queries.  After an edit only the cells whose cost to the goal really
+ * changed are searched again, and moving the start doesn't throw anything
+ * away either, so replanning after a door closes costs a small part of a
+ * new search.
+ * <p></p>
+ * Edits are picked up through {@link GridListener} when the map is an
+ * {@link AbstractGridMap} and applied on the next query.  Changing the
+ * goal, changing the connectivity, lowering the cheapest cost of the map
+ * or editing a large part of it starts over with a new search.  Like
+ * {@link AStar}, one object must only be used by one thread at a time,
+ * and the map must not be edited during a query.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public class DStarLite implements GridListener {
+
+    /**
+     * How far past a cell's key the search goes before the cell counts as
+     * settled.  Every cell on a cheapest path has a key no higher than the
+     * start's, but sums of costs like the square root of 2 can leave keys
+     * that should tie a few bits apart.
+     */
+    private static final float KEY_SLACK = 1.0001f;
+
+    /**
+     * Edits covering more than this fraction of the map start a new search
+     * instead of repairing the old one
+     */
+    private static final int RESET_FRACTION = 4;
+
+    /**
+     * The map being searched
+     */
+    private final GridMap map;
+
+    /**
+     * The cost from each cell to the goal as of its last expansion
+     */
+    private float[] g;
+
+    /**
+     * The cost from each cell to the goal through its best neighbor.  A
+     * cell whose value here differs from g has to be expanded again.
+     */
+    private float[] rhs;
+
+    /**
+     * The cells that have to be expanded, ordered by their keys
+     */
+    private final KeyQueue queue;
+
+    /**
+     * The index of the goal cell, or -1 if no goal was set
+     */
+    private int goal;
+
+    /**
+     * The index of the start cell of the last query, or -1 before the first
+     */
+    private int last;
+
+    /**
+     * How much the distance estimate has shrunk by since the search began,
+     * summed over every move of the start.  It is added to new keys instead
+     * of changing the keys of every queued cell.
+     */
+    private float keyModifier;
+
+    /**
+     * The cheapest cost of a cell when the search began, which scales the
+     * distance estimate
+     */
+    private float minCost;
+
+    /**
+     * The connectivity of the map when the search began
+     */
+    private Connectivity connectivity;
+
+    /**
+     * The rectangles edited since the last query, four numbers each
+     */
+    private int[] pending;
+
+    /**
+     * The number of numbers used in the pending array
+     */
+    private int pendingSize;
+
+    /**
+     * If the next query has to start over with a new search
+     */
+    private boolean reset;
+
+    /**
+     * The version of the map once the pending edits are applied
+     */
+    private long version;
+
+    /**
+     * The number of cells expanded by the last query
+     */
+    private int expanded;
+
+    /**
+     * Creates a planner for a map.  A goal has to be set before the first
+     * query.
+     *
+     * @param map The map to find paths on
+     */
+    public DStarLite(GridMap map) {
+        this.map = map;
+        this.queue = new KeyQueue();
+        this.goal = -1;
+        this.last = -1;
+        this.pending = new int[16];
+        this.pendingSize = 0;
+        this.reset = true;
+
+        if (map instanceof AbstractGridMap) {
+            ((AbstractGridMap) map).addGridListener(this);
+        }
+    }
+
+    /**
+     * Creates a planner for a map and a goal
+     *
+     * @param map   The map to find paths on
+     * @param goalX The x coordinate of the goal cell
+     * @param goalY The y coordinate of the goal cell
+     */
+    public DStarLite(GridMap map, int goalX, int goalY) {
+        this(map);
+        setGoal(goalX, goalY);
+    }
+
+    /**
+     * Changes the goal.  The next query starts over with a new search
+     * unless the goal is the same as before.
+     *
+     * @param goalX The x coordinate of the goal cell
+     * @param goalY The y coordinate of the goal cell
+     */
+    public void setGoal(int goalX, int goalY) {
+        int cell = goalY * map.getWidth() + goalX;
+        if (cell != goal) {
+            goal = cell;
+            reset = true;
+        }
+    }
+
+    /**
+     * Gets the x coordinate of the goal
+     *
+     * @return The x coordinate of the goal cell
+     */
+    public int getGoalX() {
+        return goal % map.getWidth();
+    }
+
+    /**
+     * Gets the y coordinate of the goal
+     *
+     * @return The y coordinate of the goal cell
+     */
+    public int getGoalY() {
+        return goal / map.getWidth();
+    }
+
+    /**
+     * Finds a path from a point to the goal
+     *
+     * @param start The point the agent is at
+     * @return A new list of points that lead up from the start to
+     * the goal
+     */
+    public List<Point> calculatePath(Point start) {
+        return findPath(start.x, start.y).toPointList();
+    }
+
+    /**
+     * Finds a path from a cell to the goal
+     *
+     * @param startX The x coordinate of the cell the agent is at
+     * @param startY The y coordinate of the cell the agent is at
+     * @return The path from the start to the goal, which is empty if the goal
+     * can't be reached
+     */
+    public Path findPath(int startX, int startY) {
+        int width = map.getWidth();
+        return new Path(width, startY * width + startX,
+                        calculateCellPath(startX, startY));
+    }
+
+    /**
+     * Finds a path from a cell to the goal without creating point objects.
+     * Only the part of the search that the edits and the move of the start
+     * since the last query affect is redone.
+     *
+     * @param startX The x coordinate of the cell the agent is at
+     * @param startY The y coordinate of the cell the agent is at
+     * @return The index of each cell on the path from the one after the start
+     * up to the goal, or an empty array if the goal can't be reached
+     */
+    public int[] calculateCellPath(int startX, int startY) {
+        if (goal < 0) {
+            throw new IllegalStateException("No goal has been set");
+        }
+
+        int width = map.getWidth();
+        int start = startY * width + startX;
+        expanded = 0;
+
+        if (map.getVersion() != version ||
+            map.getConnectivity() != connectivity ||
+            map.getMinCost() < minCost) {
+            // The map changed without telling us, or the distance estimate
+            // may now be too high
+            reset = true;
+        }
+
+        if (reset) {
+            begin(start);
+        } else {
+            keyModifier += estimate(last, start);
+            last = start;
+            applyEdits(start);
+        }
+
+        int goalX = goal % width;
+        int goalY = goal / width;
+        if (!map.isWalkable(startX, startY) || !map.isWalkable(goalX, goalY)) {
+            return new int[0];
+        }
+
+        computeShortestPath(start, start);
+
+        return buildPath(start);
+    }
+
+    @Override
+    public void cellsChanged(GridMap map, int minX, int minY, int maxX,
+                             int maxY, boolean cheaper) {
+        if (map != this.map) {
+            return;
+        }
+
+        version = map.getVersion();
+        if (reset) {
+            return;
+        }
+
+        long area = (long) (maxX - minX + 1) * (maxY - minY + 1);
+        if (area * RESET_FRACTION > (long) map.getWidth() * map.getHeight()) {
+            reset = true;
+            pendingSize = 0;
+            return;
+        }
+
+        if (pendingSize == pending.length) {
+            pending = Arrays.copyOf(pending, pendingSize * 2);
+        }
+        pending[pendingSize++] = minX;
+        pending[pendingSize++] = minY;
+        pending[pendingSize++] = maxX;
+        pending[pendingSize++] = maxY;
+    }
+
+    /**
+     * Stops listening to the map.  Call this once the planner isn't needed
+     * anymore so the map doesn't keep it alive.
+     */
+    public void dispose() {
+        if (map instanceof AbstractGridMap) {
+            ((AbstractGridMap) map).removeGridListener(this);
+        }
+    }
+
+    /**
+     * Gets the number of cells the last query expanded.  This is what a
+     * replan costs compared with a new search.
+     *
+     * @return The number of cells expanded
+     */
+    public int getLastExpanded() {
+        return expanded;
+    }
+
+    /**
+     * Throws away the old search and queues only the goal
+     *
+     * @param start The index of the start cell
+     */
+    private void begin(int start) {
+        int cells = map.getWidth() * map.getHeight();
+        if (g == null || g.length != cells) {
+            g = new float[cells];
+            rhs = new float[cells];
+        }
+        Arrays.fill(g, Float.POSITIVE_INFINITY);
+        Arrays.fill(rhs, Float.POSITIVE_INFINITY);
+        queue.clear();
+
+        minCost = map.getMinCost();
+        connectivity = map.getConnectivity();
+        version = map.getVersion();
+        keyModifier = 0;
+        last = start;
+        pendingSize = 0;
+        reset = false;
+
+        rhs[goal] = 0;
+        queue.add(goal, estimate(start, goal), 0);
+    }
+
+    /**
+     * Works out the cost through the best neighbor again for every cell an
+     * edit could have affected.  Widening each rectangle by one cell
+     * catches the neighbors whose moves into or past the changed cells
+     * were allowed or blocked.
+     *
+     * @param start The index of the start cell
+     */
+    private void applyEdits(int start) {
+        int width  = map.getWidth();
+        int height = map.getHeight();
+
+        for (int i = 0; i < pendingSize; i += 4) {
+            int minX = Math.max(0, pending[i] - 1);
+            int minY = Math.max(0, pending[i + 1] - 1);
+            int maxX = Math.min(width - 1, pending[i + 2] + 1);
+            int maxY = Math.min(height - 1, pending[i + 3] + 1);
+
+            for (int y = minY; y <= maxY; y++) {
+                for (int x = minX; x <= maxX; x++) {
+                    int cell = y * width + x;
+                    if (cell != goal) {
+                        rhs[cell] = bestThroughNeighbor(x, y);
+                    }
+                    updateCell(cell, start);
+                }
+            }
+        }
+
+        pendingSize = 0;
+    }
+
+    /**
+     * Expands cells until a cell's cost to the goal is settled and no
+     * queued cell could still lower it.  Cells with the same key as the
+     * target are expanded too, so once the start is settled so is every
+     * cell on its cheapest paths.
+     *
+     * @param target The index of the cell whose cost has to be settled
+     * @param start  The index of the start cell
+     */
+    private void computeShortestPath(int target, int start) {
+        int width = map.getWidth();
+
+        while (queue.size() > 0 &&
+               (queue.peekKey1() <= key1(target, start) * KEY_SLACK ||
+                rhs[target] != g[target])) {
+            int cell = queue.peek();
+            float oldKey1 = queue.peekKey1();
+            float oldKey2 = queue.peekKey2();
+            float newKey1 = key1(cell, start);
+            float newKey2 = key2(cell);
+
+            if (isBefore(oldKey1, oldKey2, newKey1, newKey2)) {
+                // The start moved since this cell was queued
+                queue.update(cell, newKey1, newKey2);
+                continue;
+            }
+
+            expanded++;
+            int x = cell % width;
+            int y = cell / width;
+            int mask = map.getNeighborMask(x, y);
+
+            if (g[cell] > rhs[cell]) {
+                // The cell got cheaper, so its neighbors may too
+                g[cell] = rhs[cell];
+                queue.poll();
+
+                while (mask != 0) {
+                    int d = Integer.numberOfTrailingZeros(mask);
+                    mask &= mask - 1;
+
+                    int nx = x + Connectivity.DX[d];
+                    int ny = y + Connectivity.DY[d];
+                    int neighbor = ny * width + nx;
+                    float distance = g[cell] + Connectivity.STEP[d] * map.getCost(x, y);
+
+                    if (neighbor != goal && distance < rhs[neighbor]) {
+                        rhs[neighbor] = distance;
+                        updateCell(neighbor, start);
+                    }
+                }
+            } else {
+                // The cell got more expensive, so every neighbor that went
+                // through it has to find its best neighbor again
+                float oldG = g[cell];
+                g[cell] = Float.POSITIVE_INFINITY;
+
+                while (mask != 0) {
+                    int d = Integer.numberOfTrailingZeros(mask);
+                    mask &= mask - 1;
+
+                    int nx = x + Connectivity.DX[d];
+                    int ny = y + Connectivity.DY[d];
+                    int neighbor = ny * width + nx;
+
+                    if (neighbor != goal &&
+                        rhs[neighbor] == oldG + Connectivity.STEP[d] * map.getCost(x, y)) {
+                        rhs[neighbor] = bestThroughNeighbor(nx, ny);
+                    }
+                    updateCell(neighbor, start);
+                }
+                if (cell != goal) {
+                    rhs[cell] = bestThroughNeighbor(x, y);
+                }
+                updateCell(cell, start);
+            }
+        }
+    }
+
+    /**
+     * Gets the cheapest cost to the goal from a cell through one of its
+     * neighbors
+     *
+     * @param x The x coordinate of the cell
+     * @param y The y coordinate of the cell
+     * @return The lowest step cost plus neighbor cost over every allowed move,
+     * or infinity if the cell is a wall
+     */
+    private float bestThroughNeighbor(int x, int y) {
+        if (!map.isWalkable(x, y)) {
+            return Float.POSITIVE_INFINITY;
+        }
+
+        int width = map.getWidth();
+        int mask = map.getNeighborMask(x, y);
+        float best = Float.POSITIVE_INFINITY;
+
+        while (mask != 0) {
+            int d = Integer.numberOfTrailingZeros(mask);
+            mask &= mask - 1;
+
+            int nx = x + Connectivity.DX[d];
+            int ny = y + Connectivity.DY[d];
+            float distance = g[ny * width + nx] +
+                             Connectivity.STEP[d] * map.getCost(nx, ny);
+            if (distance < best) {
+                best = distance;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Queues a cell whose costs disagree and takes it out of the queue once
+     * they agree
+     *
+     * @param cell  The index of the cell
+     * @param start The index of the start cell
+     */
+    private void updateCell(int cell, int start) {
+        boolean queued = queue.contains(cell);
+
+        if (g[cell] != rhs[cell]) {
+            if (queued) {
+                queue.update(cell, key1(cell, start), key2(cell));
+            } else {
+                queue.add(cell, key1(cell, start), key2(cell));
+            }
+        } else if (queued) {
+            queue.remove(cell);
+        }
+    }
+
+    /**
+     * Follows the cheapest neighbor from the start down to the goal.  Each
+     * neighbor taken is settled first in case rounding left it out of the
+     * search.
+     *
+     * @param start The index of the start cell
+     * @return The index of each cell on the path from the one after the start
+     * up to the goal, or an empty array if the goal can't be reached
+     */
+    private int[] buildPath(int start) {
+        if (start == goal || g[start] == Float.POSITIVE_INFINITY) {
+            return new int[0];
+        }
+
+        int[] path = new int[64];
+        int length = 0;
+        int cell = start;
+        int limit = map.getWidth() * map.getHeight();
+
+        while (cell != goal) {
+            int best;
+            int before;
+            do {
+                best = cheapestNeighbor(cell);
+                if (best < 0 || length == limit) {
+                    return new int[0];
+                }
+                before = expanded;
+                computeShortestPath(best, start);
+            } while (expanded != before);
+
+            if (length == path.length) {
+                path = Arrays.copyOf(path, length * 2);
+            }
+            path[length++] = best;
+            cell = best;
+        }
+
+        return Arrays.copyOf(path, length);
+    }
+
+    /**
+     * Finds the neighbor of a cell with the cheapest cost to the goal,
+     * counting the step into it
+     *
+     * @param cell The index of the cell
+     * @return The index of the cheapest neighbor, or -1 if none can reach
+     * the goal
+     */
+    private int cheapestNeighbor(int cell) {
+        int width = map.getWidth();
+        int x = cell % width;
+        int y = cell / width;
+        int mask = map.getNeighborMask(x, y);
+        int best = -1;
+        float bestDistance = Float.POSITIVE_INFINITY;
+
+        while (mask != 0) {
+            int d = Integer.numberOfTrailingZeros(mask);
+            mask &= mask - 1;
+
+            int nx = x + Connectivity.DX[d];
+            int ny = y + Connectivity.DY[d];
+            int neighbor = ny * width + nx;
+            float distance = g[neighbor] +
+                             Connectivity.STEP[d] * map.getCost(nx, ny);
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = neighbor;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Gets the first part of a cell's key, which is its estimated cost of a
+     * path from the start through the cell to the goal
+     *
+     * @param cell  The index of the cell
+     * @param start The index of the start cell
+     * @return The estimated cost through the cell
+     */
+    private float key1(int cell, int start) {
+        return key2(cell) + estimate(start, cell) + keyModifier;
+    }
+
+    /**
+     * Gets the second part of a cell's key, which breaks ties between cells
+     * with the same first part
+     *
+     * @param cell The index of the cell
+     * @return The lower of the cell's two costs to the goal
+     */
+    private float key2(int cell) {
+        return Math.min(g[cell], rhs[cell]);
+    }
+
+    /**
+     * Estimates the cost between two cells.  Scaling by the cheapest cell
+     * of the map keeps the estimate from ever being more than the real
+     * cost.
+     *
+     * @param from The index of one cell
+     * @param to   The index of the other cell
+     * @return The estimated cost
+     */
+    private float estimate(int from, int to) {
+        int width = map.getWidth();
+        return minCost * connectivity.distance(from % width, from / width,
+                                               to % width, to / width);
+    }
+
+    /**
+     * Checks if key a comes before key b
+     *
+     * @param a1 The first part of key a
+     * @param a2 The second part of key a
+     * @param b1 The first part of key b
+     * @param b2 The second part of key b
+     * @return If a is lower than b, comparing the first parts and then the
+     * second parts
+     */
+    private static boolean isBefore(float a1, float a2, float b1, float b2) {
+        return a1 < b1 || (a1 == b1 && a2 < b2);
+    }
+
+    /**
+     * An indexed binary min-heap of cells ordered by two-part keys.  Unlike
+     * {@link HeapOpenList}, cells can be taken out of the middle of it,
+     * which the planner needs when a cell's costs agree again.
+     */
+    private static final class KeyQueue {
+
+        /**
+         * The cells in heap order
+         */
+        private int[] heap = new int[64];
+
+        /**
+         * The first part of the key of the cell at the same slot
+         */
+        private float[] keys1 = new float[64];
+
+        /**
+         * The second part of the key of the cell at the same slot
+         */
+        private float[] keys2 = new float[64];
+
+        /**
+         * The heap slot of each cell, indexed by cell
+         */
+        private int[] slots = new int[64];
+
+        /**
+         * The number of cells in the heap
+         */
+        private int size;
+
+        /**
+         * Adds a cell that isn't in the heap yet
+         *
+         * @param cell The index of the cell
+         * @param key1 The first part of its key
+         * @param key2 The second part of its key
+         */
+        void add(int cell, float key1, float key2) {
+            if (size == heap.length) {
+                heap  = Arrays.copyOf(heap, size * 2);
+                keys1 = Arrays.copyOf(keys1, size * 2);
+                keys2 = Arrays.copyOf(keys2, size * 2);
+            }
+            if (cell >= slots.length) {
+                slots = Arrays.copyOf(slots, Math.max(cell + 1, slots.length * 2));
+            }
+
+            place(cell, key1, key2, size);
+            size++;
+            siftUp(size - 1);
+        }
+
+        /**
+         * Gets the cell with the lowest key without removing it
+         *
+         * @return The index of the cell
+         */
+        int peek() {
+            return heap[0];
+        }
+
+        /**
+         * Gets the first part of the lowest key
+         *
+         * @return The first part of the key, or infinity if the heap is empty
+         */
+        float peekKey1() {
+            return size == 0 ? Float.POSITIVE_INFINITY : keys1[0];
+        }
+
+        /**
+         * Gets the second part of the lowest key
+         *
+         * @return The second part of the key, or infinity if the heap is empty
+         */
+        float peekKey2() {
+            return size == 0 ? Float.POSITIVE_INFINITY : keys2[0];
+        }
+
+        /**
+         * Removes the cell with the lowest key
+         */
+        void poll() {
+            removeAt(0);
+        }
+
+        /**
+         * Removes a cell from anywhere in the heap
+         *
+         * @param cell The index of the cell
+         */
+        void remove(int cell) {
+            removeAt(slots[cell]);
+        }
+
+        /**
+         * Changes the key of a cell in the heap
+         *
+         * @param cell The index of the cell
+         * @param key1 The first part of its new key
+         * @param key2 The second part of its new key
+         */
+        void update(int cell, float key1, float key2) {
+            int i = slots[cell];
+            keys1[i] = key1;
+            keys2[i] = key2;
+            siftUp(i);
+            siftDown(slots[cell]);
+        }
+
+        /**
+         * Checks if a cell is in the heap
+         *
+         * @param cell The index of the cell
+         * @return If the heap holds the cell
+         */
+        boolean contains(int cell) {
+            if (cell >= slots.length) {
+                return false;
+            }
+            int i = slots[cell];
+            return i >= 0 && i < size && heap[i] == cell;
+        }
+
+        /**
+         * Gets the number of cells in the heap
+         *
+         * @return The number of cells
+         */
+        int size() {
+            return size;
+        }
+
+        /**
+         * Removes every cell
+         */
+        void clear() {
+            size = 0;
+        }
+
+        /**
+         * Removes the cell at a slot and fills the hole with the last cell
+         *
+         * @param i The slot to empty
+         */
+        private void removeAt(int i) {
+            size--;
+            if (i < size) {
+                int moved = heap[size];
+                place(moved, keys1[size], keys2[size], i);
+                siftUp(i);
+                siftDown(slots[moved]);
+            }
+        }
+
+        /**
+         * Moves the cell at slot i towards the root until its parent is
+         * lower
+         *
+         * @param i The slot of the cell to move
+         */
+        private void siftUp(int i) {
+            int cell = heap[i];
+            float key1 = keys1[i];
+            float key2 = keys2[i];
+
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!isBefore(key1, key2, keys1[parent], keys2[parent])) {
+                    break;
+                }
+                place(heap[parent], keys1[parent], keys2[parent], i);
+                i = parent;
+            }
+
+            place(cell, key1, key2, i);
+        }
+
+        /**
+         * Moves the cell at slot i towards the leaves until both of its
+         * children are higher
+         *
+         * @param i The slot of the cell to move
+         */
+        private void siftDown(int i) {
+            int cell = heap[i];
+            float key1 = keys1[i];
+            float key2 = keys2[i];
+            int half = size >>> 1;
+
+            while (i < half) {
+                int child = 2 * i + 1;
+                int right = child + 1;
+                if (right < size &&
+                    isBefore(keys1[right], keys2[right], keys1[child], keys2[child])) {
+                    child = right;
+                }
+                if (!isBefore(keys1[child], keys2[child], key1, key2)) {
+                    break;
+                }
+                place(heap[child], keys1[child], keys2[child], i);
+                i = child;
+            }
+
+            place(cell, key1, key2, i);
+        }
+
+        /**
+         * Puts a cell into a slot and records the slot for the cell
+         *
+         * @param cell The index of the cell
+         * @param key1 The first part of its key
+         * @param key2 The second part of its key
+         * @param i    The slot to place it in
+         */
+        private void place(int cell, float key1, float key2, int i) {
+            heap[i]  = cell;
+            keys1[i] = key1;
+            keys2[i] = key2;
+            slots[cell] = i;
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package ambenavente1.cs151.astar;
+
+/**
+ * The search of a {@link ClusterGraph} a {@link HierarchicalPathfinder}
+ * runs for each query.  The start is joined to every entrance of its
+ * cluster it can reach, every entrance of the end's cluster that can reach
+ * the end is joined to it, and the graph is searched with A* over entrance
+ * ids in a {@link SearchState}.
+ * <p></p>
+ * The estimate is scaled by {@link #ESTIMATE_WEIGHT}, which keeps the
+ * search from spreading out on long queries.  The searches of the start's
+ * and the end's clusters are kept for the next query, which often shares
+ * its start or end with this one, until {@link #forget()} is called.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+final class EntranceSearch {
+
+    /**
+     * How much the estimate of the search of the graph is scaled up by.
+     * The search then goes straighter for the end, and the entrances it
+     * finds cost at most this many times the cheapest way through them.
+     */
+    static final float ESTIMATE_WEIGHT = 1.1f;
+
+    /**
+     * The map being searched
+     */
+    private final GridMap map;
+
+    /**
+     * The graph being searched
+     */
+    private final ClusterGraph graph;
+
+    /**
+     * The state of the search of the graph, indexed by entrance id
+     */
+    private final SearchState state;
+
+    /**
+     * The cost of getting from the start of the last query to each cell of
+     * its cluster, and the cell each one was reached from
+     */
+    final SearchState startState;
+
+    /**
+     * The cost of getting from each cell of the end's cluster to the end of
+     * the last query, and the cell each one moves to next on the way there
+     */
+    final SearchState endState;
+
+    /**
+     * The cell the start's cluster was last searched from, or -1
+     */
+    private int startSource;
+
+    /**
+     * The cell the end's cluster was last searched from, or -1
+     */
+    private int endSource;
+
+    /**
+     * The ids of the entrances on the path found by the last search, from
+     * the start to the end
+     */
+    int[] hops;
+
+    /**
+     * Creates the search of a graph
+     *
+     * @param map   The map the graph was built for
+     * @param graph The graph to search
+     */
+    EntranceSearch(GridMap map, ClusterGraph graph) {
+        this.map = map;
+        this.graph = graph;
+        this.state = new SearchState(new HeapOpenList());
+        this.startState = new SearchState(new HeapOpenList());
+        this.endState = new SearchState(new HeapOpenList());
+        this.startSource = -1;
+        this.endSource = -1;
+        this.hops = new int[64];
+    }
+
+    /**
+     * Forgets the searches of the start's and the end's clusters, which
+     * have to be done again once the graph is rebuilt
+     */
+    void forget() {
+        startSource = -1;
+        endSource = -1;
+    }
+
+    /**
+     * Gets the number of entrances taken out of the open list by the last
+     * search
+     *
+     * @return The number of entrances expanded
+     */
+    int getExpanded() {
+        return state.expanded;
+    }
+
+    /**
+     * Searches the graph of entrances from the start to the end
+     *
+     * @param startX The x coordinate of the start
+     * @param startY The y coordinate of the start
+     * @param endX   The x coordinate of the end
+     * @param endY   The y coordinate of the end
+     * @return The number of ids written to {@link #hops}, from the start's
+     * to the end's, or -1 if the graph doesn't connect them
+     */
+    int search(int startX, int startY, int endX, int endY) {
+        int width = map.getWidth();
+        int startCluster = graph.clusterOf(startX, startY);
+        int endCluster = graph.clusterOf(endX, endY);
+        int startId = graph.startId;
+        int endId = graph.endId;
+        int stride = graph.stride;
+
+        Connectivity connectivity = map.getConnectivity();
+        float estimate = map.getMinCost() * ESTIMATE_WEIGHT;
+
+        int start = startY * width + startX;
+        int end = endY * width + endX;
+        if (start != startSource) {
+            searchFrom(startCluster, start, false, startState);
+            startSource = start;
+        }
+        if (end != endSource) {
+            searchFrom(endCluster, end, true, endState);
+            endSource = end;
+        }
+
+        state.begin(endId + 1);
+        state.open(startId, -1, 0, 0);
+        OpenList open = state.openList;
+        float[] distances = state.distanceTraveled;
+
+        while (open.size() > 0) {
+            int current = open.poll();
+            float distance = distances[current];
+            state.close(current);
+            state.expanded++;
+
+            if (current == startId) {
+                // The start joins every entrance of its cluster it can reach
+                int[] startEntrances = graph.entrances[startCluster];
+                for (int i = 0; i < startEntrances.length; i++) {
+                    int cell = startEntrances[i];
+                    float cost = startState.distanceTo(
+                            graph.toLocal(startCluster, cell));
+                    if (cost < Float.POSITIVE_INFINITY) {
+                        relax(startCluster * stride + i, startId, cost,
+                              estimate * connectivity.distance(cell % width,
+                                      cell / width, endX, endY));
+                    }
+                }
+                continue;
+            }
+
+            if (current == endId) {
+                return storeHops(endId);
+            }
+
+            int cluster = current / stride;
+            int local = current % stride;
+            int[] cells = graph.entrances[cluster];
+            int cell = cells[local];
+
+            // Other entrances of the same cluster
+            int[] edgeStarts = graph.edgeStarts[cluster];
+            int[] others = graph.edgeTargets[cluster];
+            float[] costs = graph.edgeCosts[cluster];
+            for (int e = edgeStarts[local]; e < edgeStarts[local + 1]; e++) {
+                int j = others[e];
+                int id = cluster * stride + j;
+                float next = distance + costs[e];
+                if (improves(id, next)) {
+                    relax(id, current, next,
+                          estimate * connectivity.distance(cells[j] % width,
+                                  cells[j] / width, endX, endY));
+                }
+            }
+
+            // Across the borders of the cluster
+            int[] crossStarts = graph.crossStarts[cluster];
+            int[] across = graph.crossCells[cluster];
+            int[] acrossIds = graph.crossIds[cluster];
+            float[] acrossCosts = graph.crossCosts[cluster];
+            for (int k = crossStarts[local]; k < crossStarts[local + 1]; k++) {
+                int id = acrossIds[k];
+                float next = distance + acrossCosts[k];
+                if (improves(id, next)) {
+                    relax(id, current, next, estimate * connectivity.distance(
+                            across[k] % width, across[k] / width, endX, endY));
+                }
+            }
+
+            // The end itself
+            if (cluster == endCluster) {
+                float toEnd = endState.distanceTo(graph.toLocal(endCluster, cell));
+                if (toEnd < Float.POSITIVE_INFINITY &&
+                    improves(endId, distance + toEnd)) {
+                    relax(endId, current, distance + toEnd, 0);
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Searches the cluster of a query's start or end from that cell,
+     * stopping once every entrance of the cluster is reached
+     *
+     * @param cluster The index of the cluster
+     * @param source  The index of the cell to search from
+     * @param reverse If the costs should be of getting to the cell
+     * @param into    The state the search is kept in
+     */
+    private void searchFrom(int cluster, int source, boolean reverse,
+                            SearchState into) {
+        ClusterSearch search = graph.search;
+        boolean[] targets = search.targets;
+        int[] cells = graph.entrances[cluster];
+
+        search.load(cluster);
+        for (int cell : cells) {
+            targets[graph.toLocal(cluster, cell)] = true;
+        }
+        search.search(graph.toLocal(cluster, source), reverse, into,
+                      cells.length);
+        for (int cell : cells) {
+            targets[graph.toLocal(cluster, cell)] = false;
+        }
+    }
+
+    /**
+     * Checks if a cost of reaching an entrance is cheaper than the one the
+     * current search has for it, which is checked before the estimate from
+     * the entrance is worked out
+     *
+     * @param id       The id of the entrance
+     * @param distance The cost of reaching it
+     * @return If the entrance isn't closed and this is its cheapest cost
+     */
+    private boolean improves(int id, float distance) {
+        return !state.isReached(id) ||
+               (!state.isClosed(id) && distance < state.distanceTraveled[id]);
+    }
+
+    /**
+     * Opens an entrance with a new cost, or gives it the new cost if it is
+     * already open
+     *
+     * @param id        The id of the entrance
+     * @param parent    The id it is reached from
+     * @param distance  The cost of reaching it
+     * @param heuristic The estimated cost from it to the end
+     */
+    private void relax(int id, int parent, float distance, float heuristic) {
+        if (state.isReached(id)) {
+            state.improve(id, parent, distance, distance + heuristic);
+        } else {
+            state.open(id, parent, distance, distance + heuristic);
+        }
+    }
+
+    /**
+     * Follows the parents back from the end and writes the ids of the path
+     * into {@link #hops}
+     *
+     * @param endId The id of the end
+     * @return The number of ids written
+     */
+    private int storeHops(int endId) {
+        int[] parents = state.parent;
+        int length = 0;
+        for (int id = endId; id != -1; id = parents[id]) {
+            length++;
+        }
+        if (length > hops.length) {
+            hops = new int[Math.max(length, hops.length * 2)];
+        }
+
+        int index = length;
+        for (int id = endId; id != -1; id = parents[id]) {
+            hops[--index] = id;
+        }
+        return length;
+    }
+}
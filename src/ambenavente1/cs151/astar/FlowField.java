@@ -0,0 +1,877 @@
+package ambenavente1.cs151.astar;
+
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The cost from every cell of a map to a single goal, and the direction to
+ * step in from each cell to get there.  Any number of agents heading to
+ * the same goal can then read their next step in constant time instead of
+ * each running its own search.  The field takes 5 bytes per cell.
+ * <p></p>
+ * The field is worked out by searching backwards from the goal.  When it
+ * is given more than one thread it is worked out in tiles of 64 x 64
+ * cells instead: each round searches every tile that has something new to
+ * look at in parallel, using whatever its neighbors knew at the start of
+ * the round, and a tile whose edge could now lower a cell of another tile
+ * wakes that tile up for the next round.  Costs only ever go down, so the
+ * rounds stop once no tile is woken up, and the field ends up the same as
+ * with a single search.
+ * <p></p>
+ * The tiles search more cells than a single search does and only the
+ * tiles the search has spread to can run at once, so the tiles only pay
+ * off on large maps with spare cores.  On rooms maps run on one core, the
+ * tiled field took 1.7 to 2.6 times as long as a single search up to
+ * 1024x1024, and about 1.05 times as long at 2048x2048 and 4096x4096.  So
+ * a field uses one thread unless it is given more, which is only worth it
+ * from about 2048x2048 up.
+ * <p></p>
+ * When the map is an {@link AbstractGridMap}, edits are applied to the
+ * field as soon as they are made.  Cells whose way to the goal went through
+ * a changed cell are cleared first, then the cleared cells and the cells
+ * around the edit take the best cost their neighbors offer and the lower
+ * costs are spread outward, so only the part of the field the edit
+ * affected is searched again.  Edits covering a large part of the map, a
+ * new connectivity or a changed goal work the whole field out again.
+ * <p></p>
+ * Reading the field never changes it, so any number of threads can read it
+ * at once as long as nobody edits the map at the same time.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public class FlowField implements GridListener {
+
+    /**
+     * The width and height of the tiles the field is worked out in when it
+     * is worked out in parallel
+     */
+    private static final int TILE_SIZE = 64;
+
+    /**
+     * Edits covering more than this fraction of the map work the whole
+     * field out again instead of repairing it
+     */
+    private static final int RESET_FRACTION = 4;
+
+    /**
+     * The direction of a cell that has no step to take
+     */
+    private static final byte NO_DIRECTION = -1;
+
+    /**
+     * The map the field covers
+     */
+    private final GridMap map;
+
+    /**
+     * The cost of the cheapest path from each cell to the goal, or infinity
+     * if the goal can't be reached
+     */
+    private float[] distances;
+
+    /**
+     * The direction of the first step of the cheapest path from each cell
+     * (see {@link Connectivity}), or {@link #NO_DIRECTION}
+     */
+    private byte[] directions;
+
+    /**
+     * The index of the goal cell
+     */
+    private int goal;
+
+    /**
+     * The connectivity the field was worked out with
+     */
+    private Connectivity connectivity;
+
+    /**
+     * The cells whose cost is being spread to their neighbors
+     */
+    private final HeapOpenList open;
+
+    /**
+     * Cells waiting to be cleared or to have their direction worked out
+     * again after an edit
+     */
+    private int[] queue;
+
+    /**
+     * The number of threads the field is worked out on
+     */
+    private int parallelism;
+
+    /**
+     * The pool tiles are searched on.  It is created the first time the
+     * field is worked out on more than one thread.
+     */
+    private ForkJoinPool forkJoinPool;
+
+    /**
+     * The number of cells searched the last time the field was worked out
+     * or repaired
+     */
+    private final AtomicLong expanded;
+
+    /**
+     * Creates the field of a goal, worked out with a single search on the
+     * calling thread
+     *
+     * @param map   The map the field covers
+     * @param goalX The x coordinate of the goal cell
+     * @param goalY The y coordinate of the goal cell
+     */
+    public FlowField(GridMap map, int goalX, int goalY) {
+        this(map, goalX, goalY, 1);
+    }
+
+    /**
+     * Creates the field of a goal
+     *
+     * @param map         The map the field covers
+     * @param goalX       The x coordinate of the goal cell
+     * @param goalY       The y coordinate of the goal cell
+     * @param parallelism The number of threads to work the field out on,
+     *                    where 1 works it out on the calling thread.  More
+     *                    threads only pay off on maps of about 2048x2048
+     *                    and up.
+     */
+    public FlowField(GridMap map, int goalX, int goalY, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+
+        this.map = map;
+        this.open = new HeapOpenList();
+        this.queue = new int[64];
+        this.parallelism = parallelism;
+        this.expanded = new AtomicLong();
+        this.goal = goalY * map.getWidth() + goalX;
+        computeAll();
+        if (map instanceof AbstractGridMap) {
+            ((AbstractGridMap) map).addGridListener(this);
+        }
+    }
+
+    /**
+     * Changes the goal and works out the whole field again
+     *
+     * @param goalX The x coordinate of the goal cell
+     * @param goalY The y coordinate of the goal cell
+     */
+    public void setGoal(int goalX, int goalY) {
+        goal = goalY * map.getWidth() + goalX;
+        computeAll();
+    }
+
+    /**
+     * Gets the x coordinate of the goal
+     *
+     * @return The x coordinate of the goal cell
+     */
+    public int getGoalX() {
+        return goal % map.getWidth();
+    }
+
+    /**
+     * Gets the y coordinate of the goal
+     *
+     * @return The y coordinate of the goal cell
+     */
+    public int getGoalY() {
+        return goal / map.getWidth();
+    }
+
+    /**
+     * Gets the cost of the cheapest path from a cell to the goal
+     *
+     * @param x The x coordinate of the cell
+     * @param y The y coordinate of the cell
+     * @return The cost of reaching the goal, or infinity if it can't be
+     * reached
+     */
+    public float getDistance(int x, int y) {
+        return distances[y * map.getWidth() + x];
+    }
+
+    /**
+     * Gets the direction of the first step from a cell towards the goal
+     *
+     * @param x The x coordinate of the cell
+     * @param y The y coordinate of the cell
+     * @return The direction to step in, numbered as in {@link Connectivity},
+     * or -1 if the cell is the goal or can't reach it
+     */
+    public int getDirection(int x, int y) {
+        return directions[y * map.getWidth() + x];
+    }
+
+    /**
+     * Gets the cell to step to from a cell to head towards the goal
+     *
+     * @param x The x coordinate of the cell
+     * @param y The y coordinate of the cell
+     * @return The index (<em>y * width + x</em>) of the next cell, or -1 if
+     * the cell is the goal or can't reach it
+     */
+    public int getNextCell(int x, int y) {
+        int d = directions[y * map.getWidth() + x];
+        if (d == NO_DIRECTION) {
+            return -1;
+        }
+        return (y + Connectivity.DY[d]) * map.getWidth() + x + Connectivity.DX[d];
+    }
+
+    /**
+     * Follows the field from a point to the goal
+     *
+     * @param start The point the agent is at
+     * @return A new list of points that lead up from the start to the
+     * goal, which is empty if the goal can't be reached
+     */
+    public List<Point> calculatePath(Point start) {
+        return findPath(start.x, start.y).toPointList();
+    }
+
+    /**
+     * Follows the field from a cell to the goal
+     *
+     * @param startX The x coordinate of the cell the agent is at
+     * @param startY The y coordinate of the cell the agent is at
+     * @return The path from the start to the goal, which is empty if the goal
+     * can't be reached
+     */
+    public Path findPath(int startX, int startY) {
+        int width = map.getWidth();
+        int start = startY * width + startX;
+        int length = 0;
+        for (int cell = start; directions[cell] != NO_DIRECTION;
+             cell = next(cell)) {
+            length++;
+        }
+
+        int[] cells = new int[length];
+        int cell = start;
+        for (int i = 0; i < length; i++) {
+            cell = next(cell);
+            cells[i] = cell;
+        }
+        return new Path(width, start, cells);
+    }
+
+    @Override
+    public void cellsChanged(GridMap map, int minX, int minY, int maxX,
+                             int maxY, boolean cheaper) {
+        if (map != this.map) {
+            return;
+        }
+
+        int width = map.getWidth();
+        long area = (long) (maxX - minX + 1) * (maxY - minY + 1);
+        boolean goalChanged = goal % width >= minX && goal % width <= maxX &&
+                              goal / width >= minY && goal / width <= maxY;
+        if (goalChanged || map.getConnectivity() != connectivity ||
+            area * RESET_FRACTION > (long) width * map.getHeight()) {
+            computeAll();
+        } else {
+            repair(minX, minY, maxX, maxY);
+        }
+    }
+
+    /**
+     * Stops listening to the map's edits and shuts down the threads the
+     * field was worked out on.  The field is no longer kept up to date after
+     * this, but can still be read.
+     */
+    public void dispose() {
+        if (map instanceof AbstractGridMap) {
+            ((AbstractGridMap) map).removeGridListener(this);
+        }
+        if (forkJoinPool != null) {
+            forkJoinPool.shutdown();
+            forkJoinPool = null;
+        }
+    }
+
+    /**
+     * Gets the number of cells searched the last time the field was worked
+     * out or repaired after an edit
+     *
+     * @return The number of cells searched
+     */
+    public long getLastExpanded() {
+        return expanded.get();
+    }
+
+    /**
+     * Gets the number of threads the field is worked out on
+     *
+     * @return The number of threads used
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Sets the number of threads the field is worked out on the next time
+     * it is worked out from scratch.  The field is first worked out with the
+     * number given to the constructor.  Setting it to 1 works the field out
+     * with a single search on the calling thread, which is faster on maps
+     * smaller than about 2048x2048.  Repairs after edits
+     * always run on the thread that made the edit.
+     *
+     * @param parallelism The number of threads to use
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+
+        if (parallelism != this.parallelism && forkJoinPool != null) {
+            forkJoinPool.shutdown();
+            forkJoinPool = null;
+        }
+
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Works out the whole field from scratch
+     */
+    private void computeAll() {
+        int width = map.getWidth();
+        int cells = width * map.getHeight();
+        if (distances == null || distances.length != cells) {
+            distances  = new float[cells];
+            directions = new byte[cells];
+        }
+        connectivity = map.getConnectivity();
+        expanded.set(0);
+
+        Arrays.fill(distances, Float.POSITIVE_INFINITY);
+        Arrays.fill(directions, NO_DIRECTION);
+        if (!map.isWalkable(goal % width, goal / width)) {
+            return;
+        }
+        distances[goal] = 0;
+
+        int tilesX = (width + TILE_SIZE - 1) / TILE_SIZE;
+        int tilesY = (map.getHeight() + TILE_SIZE - 1) / TILE_SIZE;
+        if (parallelism == 1 || tilesX * tilesY == 1) {
+            open.clear();
+            open.add(goal, 0);
+            spread();
+            for (int cell = 0; cell < cells; cell++) {
+                updateDirection(cell);
+            }
+            return;
+        }
+
+        if (forkJoinPool == null) {
+            forkJoinPool = new ForkJoinPool(parallelism);
+        }
+
+        boolean[] active = new boolean[tilesX * tilesY];
+        boolean[] woken  = new boolean[active.length];
+        int[] tiles = new int[active.length];
+        active[(goal / width / TILE_SIZE) * tilesX + goal % width / TILE_SIZE] = true;
+
+        for (boolean first = true; ; first = false) {
+            int count = 0;
+            for (int tile = 0; tile < active.length; tile++) {
+                if (active[tile]) {
+                    tiles[count++] = tile;
+                }
+            }
+            if (count == 0) {
+                break;
+            }
+
+            forkJoinPool.invoke(new TileBatch(tiles, 0, count, grain(count),
+                                              first, woken));
+            boolean[] swap = active;
+            active = woken;
+            woken = swap;
+            Arrays.fill(woken, false);
+        }
+
+        for (int tile = 0; tile < tiles.length; tile++) {
+            tiles[tile] = tile;
+        }
+        forkJoinPool.invoke(new TileBatch(tiles, 0, tiles.length,
+                                          grain(tiles.length), false, null));
+    }
+
+    /**
+     * Gets the number of tiles one task searches without splitting
+     *
+     * @param tiles The number of tiles to search
+     * @return The number of tiles per task
+     */
+    private int grain(int tiles) {
+        // Several pieces per thread so that fast pieces can be stolen from
+        return Math.max(1, tiles / (parallelism * 4));
+    }
+
+    /**
+     * Repairs the field after cells in a rectangle have changed
+     *
+     * @param minX The x coordinate of the left column that changed
+     * @param minY The y coordinate of the top row that changed
+     * @param maxX The x coordinate of the right column that changed
+     * @param maxY The y coordinate of the bottom row that changed
+     */
+    private void repair(int minX, int minY, int maxX, int maxY) {
+        int width  = map.getWidth();
+        int height = map.getHeight();
+        int ringMinX = Math.max(minX - 1, 0);
+        int ringMinY = Math.max(minY - 1, 0);
+        int ringMaxX = Math.min(maxX + 1, width - 1);
+        int ringMaxY = Math.min(maxY + 1, height - 1);
+        expanded.set(0);
+
+        // Clear the cells whose step to the goal no longer costs what it
+        // did, and every cell whose way to the goal steps through one of
+        // them.  A cell can only step into the edit from inside of it or
+        // from the ring around it.  Cells of a large edit that didn't
+        // change still take the same step at the same cost, so they keep
+        // their cost instead of being searched again.
+        int size = 0;
+        for (int y = ringMinY; y <= ringMaxY; y++) {
+            for (int x = ringMinX; x <= ringMaxX; x++) {
+                int cell = y * width + x;
+                int d = directions[cell];
+                if (d == NO_DIRECTION) {
+                    continue;
+                }
+
+                int nx = x + Connectivity.DX[d];
+                int ny = y + Connectivity.DY[d];
+                if (!map.isWalkable(x, y) ||
+                    (map.getNeighborMask(x, y) & (1 << d)) == 0 ||
+                    distances[cell] != distances[ny * width + nx] +
+                                       Connectivity.STEP[d] * map.getCost(nx, ny)) {
+                    size = clear(cell, size);
+                }
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            int cell = queue[i];
+            int x = cell % width;
+            int y = cell / width;
+            for (int d = 0; d < 8; d++) {
+                int nx = x + Connectivity.DX[d];
+                int ny = y + Connectivity.DY[d];
+                if (nx < 0 || nx >= width || ny < 0 || ny >= height) {
+                    continue;
+                }
+                int neighbor = ny * width + nx;
+                int back = directions[neighbor];
+                if (back != NO_DIRECTION &&
+                    nx + Connectivity.DX[back] == x &&
+                    ny + Connectivity.DY[back] == y) {
+                    size = clear(neighbor, size);
+                }
+            }
+        }
+
+        // The cleared cells and the cells around the edit take the best cost
+        // their neighbors offer, then lower costs are spread outward
+        open.clear();
+        for (int i = 0; i < size; i++) {
+            pull(queue[i]);
+        }
+        for (int y = ringMinY; y <= ringMaxY; y++) {
+            for (int x = ringMinX; x <= ringMaxX; x++) {
+                pull(y * width + x);
+            }
+        }
+        int cleared = size;
+        size = spread(size);
+
+        // Any cell whose cost changed, and its neighbors, may now have a
+        // better direction
+        for (int y = ringMinY; y <= ringMaxY; y++) {
+            for (int x = ringMinX; x <= ringMaxX; x++) {
+                updateDirection(y * width + x);
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            int cell = queue[i];
+            int x = cell % width;
+            int y = cell / width;
+            updateDirection(cell);
+            for (int d = 0; d < 8; d++) {
+                int nx = x + Connectivity.DX[d];
+                int ny = y + Connectivity.DY[d];
+                if (nx >= 0 && nx < width && ny >= 0 && ny < height) {
+                    updateDirection(ny * width + nx);
+                }
+            }
+        }
+        expanded.addAndGet(cleared);
+    }
+
+    /**
+     * Clears a cell's cost and direction and queues it
+     *
+     * @param cell The cell to clear
+     * @param size The number of cells in the queue
+     * @return The new number of cells in the queue
+     */
+    private int clear(int cell, int size) {
+        if (distances[cell] == Float.POSITIVE_INFINITY &&
+            directions[cell] == NO_DIRECTION) {
+            return size;
+        }
+        distances[cell] = Float.POSITIVE_INFINITY;
+        directions[cell] = NO_DIRECTION;
+        return push(cell, size);
+    }
+
+    /**
+     * Adds a cell to the end of the queue
+     *
+     * @param cell The cell to add
+     * @param size The number of cells in the queue
+     * @return The new number of cells in the queue
+     */
+    private int push(int cell, int size) {
+        if (size == queue.length) {
+            queue = Arrays.copyOf(queue, size * 2);
+        }
+        queue[size] = cell;
+        return size + 1;
+    }
+
+    /**
+     * Lowers a cell's cost to the best one its neighbors offer and opens it
+     * if that lowered it
+     *
+     * @param cell The cell to look at
+     */
+    private void pull(int cell) {
+        int width = map.getWidth();
+        int x = cell % width;
+        int y = cell / width;
+        if (cell == goal || !map.isWalkable(x, y)) {
+            return;
+        }
+
+        float best = distances[cell];
+        int mask = map.getNeighborMask(x, y);
+        while (mask != 0) {
+            int d = Integer.numberOfTrailingZeros(mask);
+            mask &= mask - 1;
+
+            int nx = x + Connectivity.DX[d];
+            int ny = y + Connectivity.DY[d];
+            best = Math.min(best, distances[ny * width + nx] +
+                                  Connectivity.STEP[d] * map.getCost(nx, ny));
+        }
+
+        if (best < distances[cell]) {
+            distances[cell] = best;
+            if (open.contains(cell)) {
+                open.update(cell, best);
+            } else {
+                open.add(cell, best);
+            }
+        }
+    }
+
+    /**
+     * Spreads the costs of the open cells to the rest of the map
+     */
+    private void spread() {
+        spread(-1);
+    }
+
+    /**
+     * Spreads the costs of the open cells to the rest of the map, lowest
+     * cost first, so each cell is final once it is taken out
+     *
+     * @param size The number of cells in the queue, or -1 to not queue the
+     *             cells whose cost changed
+     * @return The new number of cells in the queue
+     */
+    private int spread(int size) {
+        int width = map.getWidth();
+        long count = 0;
+
+        while (open.size() > 0) {
+            int cell = open.poll();
+            count++;
+            if (size >= 0) {
+                size = push(cell, size);
+            }
+
+            int x = cell % width;
+            int y = cell / width;
+            // Stepping into this cell costs its own cost from any side
+            float cost = map.getCost(x, y);
+            int mask = map.getNeighborMask(x, y);
+
+            while (mask != 0) {
+                int d = Integer.numberOfTrailingZeros(mask);
+                mask &= mask - 1;
+
+                int neighbor = (y + Connectivity.DY[d]) * width +
+                               x + Connectivity.DX[d];
+                float distance = distances[cell] + Connectivity.STEP[d] * cost;
+                if (distance < distances[neighbor]) {
+                    distances[neighbor] = distance;
+                    if (open.contains(neighbor)) {
+                        open.update(neighbor, distance);
+                    } else {
+                        open.add(neighbor, distance);
+                    }
+                }
+            }
+        }
+
+        expanded.addAndGet(count);
+        return size;
+    }
+
+    /**
+     * Points a cell at the neighbor its cheapest path steps to
+     *
+     * @param cell The cell to point
+     */
+    private void updateDirection(int cell) {
+        int width = map.getWidth();
+        int x = cell % width;
+        int y = cell / width;
+        if (cell == goal || distances[cell] == Float.POSITIVE_INFINITY) {
+            directions[cell] = NO_DIRECTION;
+            return;
+        }
+
+        float best = Float.POSITIVE_INFINITY;
+        int direction = NO_DIRECTION;
+        int mask = map.getNeighborMask(x, y);
+        while (mask != 0) {
+            int d = Integer.numberOfTrailingZeros(mask);
+            mask &= mask - 1;
+
+            int nx = x + Connectivity.DX[d];
+            int ny = y + Connectivity.DY[d];
+            float distance = distances[ny * width + nx] +
+                             Connectivity.STEP[d] * map.getCost(nx, ny);
+            if (distance < best) {
+                best = distance;
+                direction = d;
+            }
+        }
+        directions[cell] = (byte) direction;
+    }
+
+    /**
+     * Gets the cell a cell's direction points at
+     *
+     * @param cell The cell, which must have a direction
+     * @return The next cell towards the goal
+     */
+    private int next(int cell) {
+        int d = directions[cell];
+        return cell + Connectivity.DY[d] * map.getWidth() + Connectivity.DX[d];
+    }
+
+    /**
+     * Searches one tile, reading its neighbors' costs along its edges.  Only
+     * cells of the tile are written, so tiles can be searched in parallel.
+     *
+     * @param tile  The tile to search
+     * @param first If every reached cell of the tile is searched from, as
+     *              for the goal's tile in the first round, instead of only
+     *              the cells whose cost the neighbors lowered
+     * @param woken Set for each tile a cell of this tile could now lower a
+     *              cell of
+     * @param heap  The open list to search with
+     * @return The number of cells searched
+     */
+    private long searchTile(int tile, boolean first, boolean[] woken,
+                            HeapOpenList heap) {
+        int width  = map.getWidth();
+        int tilesX = (width + TILE_SIZE - 1) / TILE_SIZE;
+        int minX = tile % tilesX * TILE_SIZE;
+        int minY = tile / tilesX * TILE_SIZE;
+        int maxX = Math.min(minX + TILE_SIZE, width) - 1;
+        int maxY = Math.min(minY + TILE_SIZE, map.getHeight()) - 1;
+        heap.clear();
+
+        for (int y = minY; y <= maxY; y++) {
+            boolean edgeRow = y == minY || y == maxY;
+            for (int x = minX; x <= maxX; x += edgeRow || first ? 1 : maxX - minX) {
+                int cell = y * width + x;
+                int local = (y - minY) * TILE_SIZE + x - minX;
+                float best = distances[cell];
+                boolean seed = first && best != Float.POSITIVE_INFINITY;
+
+                if (map.isWalkable(x, y)) {
+                    int mask = map.getNeighborMask(x, y);
+                    while (mask != 0) {
+                        int d = Integer.numberOfTrailingZeros(mask);
+                        mask &= mask - 1;
+
+                        int nx = x + Connectivity.DX[d];
+                        int ny = y + Connectivity.DY[d];
+                        if (nx < minX || nx > maxX || ny < minY || ny > maxY) {
+                            best = Math.min(best, distances[ny * width + nx] +
+                                    Connectivity.STEP[d] * map.getCost(nx, ny));
+                        }
+                    }
+                }
+
+                if (best < distances[cell]) {
+                    distances[cell] = best;
+                    seed = true;
+                }
+                if (seed) {
+                    heap.add(local, best);
+                }
+                if (maxX == minX) {
+                    break;
+                }
+            }
+        }
+
+        long count = 0;
+        while (heap.size() > 0) {
+            int local = heap.poll();
+            int x = minX + local % TILE_SIZE;
+            int y = minY + local / TILE_SIZE;
+            int cell = y * width + x;
+            float cost = map.getCost(x, y);
+            int mask = map.getNeighborMask(x, y);
+            count++;
+
+            while (mask != 0) {
+                int d = Integer.numberOfTrailingZeros(mask);
+                mask &= mask - 1;
+
+                int nx = x + Connectivity.DX[d];
+                int ny = y + Connectivity.DY[d];
+                int neighbor = ny * width + nx;
+                float distance = distances[cell] + Connectivity.STEP[d] * cost;
+                if (distance >= distances[neighbor]) {
+                    continue;
+                }
+
+                if (nx < minX || nx > maxX || ny < minY || ny > maxY) {
+                    woken[(ny / TILE_SIZE) * tilesX + nx / TILE_SIZE] = true;
+                } else {
+                    int neighborLocal = (ny - minY) * TILE_SIZE + nx - minX;
+                    distances[neighbor] = distance;
+                    if (heap.contains(neighborLocal)) {
+                        heap.update(neighborLocal, distance);
+                    } else {
+                        heap.add(neighborLocal, distance);
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * A fork-join task that searches a range of tiles, or works out the
+     * directions of their cells once every tile is done
+     */
+    private class TileBatch extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The tiles to work on
+         */
+        private final int[] tiles;
+
+        /**
+         * The first tile in the range this task works on
+         */
+        private final int from;
+
+        /**
+         * One past the last tile in the range this task works on
+         */
+        private final int to;
+
+        /**
+         * The largest range that is worked on without splitting
+         */
+        private final int grain;
+
+        /**
+         * If this is the first round of the search
+         */
+        private final boolean first;
+
+        /**
+         * The tiles woken up for the next round, or null to work out
+         * directions instead of searching
+         */
+        private final boolean[] woken;
+
+        /**
+         * Creates a task that works on a range of tiles
+         *
+         * @param tiles The tiles to work on
+         * @param from  The first tile in the range
+         * @param to    One past the last tile in the range
+         * @param grain The largest range that is worked on without splitting
+         * @param first If this is the first round of the search
+         * @param woken The tiles woken up for the next round, or null to
+         *              work out directions
+         */
+        TileBatch(int[] tiles, int from, int to, int grain, boolean first,
+                  boolean[] woken) {
+            this.tiles = tiles;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.first = first;
+            this.woken = woken;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > grain) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new TileBatch(tiles, from, middle, grain, first, woken),
+                          new TileBatch(tiles, middle, to, grain, first, woken));
+                return;
+            }
+
+            if (woken == null) {
+                int width  = map.getWidth();
+                int tilesX = (width + TILE_SIZE - 1) / TILE_SIZE;
+                for (int i = from; i < to; i++) {
+                    int minX = tiles[i] % tilesX * TILE_SIZE;
+                    int minY = tiles[i] / tilesX * TILE_SIZE;
+                    int maxX = Math.min(minX + TILE_SIZE, width);
+                    int maxY = Math.min(minY + TILE_SIZE, map.getHeight());
+                    for (int y = minY; y < maxY; y++) {
+                        for (int x = minX; x < maxX; x++) {
+                            updateDirection(y * width + x);
+                        }
+                    }
+                }
+                return;
+            }
+
+            HeapOpenList heap = new HeapOpenList();
+            long count = 0;
+            for (int i = from; i < to; i++) {
+                count += searchTile(tiles[i], first, woken, heap);
+            }
+            expanded.addAndGet(count);
+        }
+    }
+}
@@ -7,7 +7,8 @@ import java.util.ArrayList;
 /**
  * Represents a 2D grid of Nodes that contain information on walkability and
  * costs. In order to use this with a custom map, you must set the walkability
- * of each Node with the setWalkable() function.
+ * of each Node with the setWalkable() function.  Cells that are slower to
+ * cross, like mud, can be given a higher cost with the setCost() function.
  * <p></p>
  * Example: If I had a Grid object, <em>grid</em>, and a World object,
  * <em>world</em>, that contained information on if a certain tile at a given
@@ -19,17 +20,7 @@ import java.util.ArrayList;
  * @author Anthony Benavente
  * @version 2/24/14
  */
-public class Grid {
-
-    /**
-     * The number of nodes wide the grid is
-     */
-    private int width;
-
-    /**
-     * The number of nodes tall the grid is
-     */
-    private int height;
+public class Grid extends AbstractGridMap {
 
     /**
      * The 2D array of nodes used as the grid
@@ -50,37 +41,27 @@ public class Grid {
      * @param height The number of nodes in the tall
      */
     public Grid(int width, int height) {
-        this.width  = width;
-        this.height = height;
-        this.grid   = new Node[height][width];
+        super(width, height);
+        this.grid = new Node[height][width];
 
         initNodes();
     }
 
     /**
-     * Initializes the nodes by calling the reset function
+     * Initializes the nodes and links each one to its neighbors
      */
     private void initNodes() {
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
+        for (int y = 0; y < getHeight(); y++) {
+            for (int x = 0; x < getWidth(); x++) {
                 grid[y][x] = new Node(x, y);
             }
         }
 
-        reset();
+        updateNeighborMasks(0, 0, getWidth() - 1, getHeight() - 1);
     }
 
-    /**
-     * Sets if a node at a certain point is walkable or not.  <em>WARNING:
-     * This function will crash if x or y are not in bounds.</em>
-     *
-     * @param x The x coordinate of the node to set walkable
-     * @param y The y coordinate of the node to set walkable
-     * @param walkable If the cell at the given point is walkable or not.
-     *                 Typically, this leads to wall-tiles being not walkable
-     *                 (false) and floor-tiles being walkable (true)
-     */
-    public void setWalkable(int x, int y, boolean walkable) {
+    @Override
+    protected void storeWalkable(int x, int y, boolean walkable) {
         grid[y][x].setWalkable(walkable);
     }
 
@@ -92,6 +73,7 @@ public class Grid {
      * @return If the node allows the ability for anything to "walk" through it
      * (walkablilty)
      */
+    @Override
     public boolean isWalkable(int x, int y) {
         return grid[y][x].isWalkable();
     }
@@ -105,7 +87,18 @@ public class Grid {
      * @return The node at the specified x and y coordinates
      */
     public Node getNode(int x, int y) {
-        return getNode(new Point(x, y));
+        return grid[y][x];
+    }
+
+    /**
+     * Gets the node of a cell index (<em>y * width + x</em>), the way
+     * searches and paths number cells
+     *
+     * @param cell The index of the cell
+     * @return The node of the cell
+     */
+    public Node getNode(int cell) {
+        return grid[cell / getWidth()][cell % getWidth()];
     }
 
     /**
@@ -120,63 +113,41 @@ public class Grid {
     }
 
     /**
-     * Resets the nodes of the grid by setting their inClosedList and
-     * inOpenList values to false and also resetting each of its neighbors
+     * Used to clear the search state stored on the nodes before each search.
+     * Searches keep their own state now, so there is nothing to reset.
+     *
+     * @deprecated Searches no longer store their state on nodes
      */
+    @Deprecated
     public void reset() {
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                Node node = grid[y][x];
-                node.setInClosedList(false);
-                node.setInOpenList(false);
-
-                List<Point> neighbors = new ArrayList<Point>();
-                List<Node> nodes = new ArrayList<Node>();
-                neighbors.add(new Point(x, y - 1));
-                neighbors.add(new Point(x, y + 1));
-                neighbors.add(new Point(x - 1, y));
-                neighbors.add(new Point(x + 1, y));
-
-                // Uncomment for diagonal movement
-                // -------------------------------
-//                neighbors.add(new Point(x - 1, y - 1));
-//                neighbors.add(new Point(x + 1, y - 1));
-//                neighbors.add(new Point(x - 1, y + 1));
-//                neighbors.add(new Point(x + 1, y + 1));
-//                neighbors.add(new Point(x - 1, y - 1));
-//                neighbors.add(new Point(x - 1, y + 1));
-//                neighbors.add(new Point(x + 1, y - 1));
-//                neighbors.add(new Point(x + 1, y + 1));
-
-                for (Point p : neighbors) {
-                    if (p.x >= 0 && p.x < width
-                            && p.y >= 0 && p.y < height) {
-                        nodes.add(grid[p.y][p.x]);
-                    }
-                }
-
-                node.setNeighbors(nodes);
-            }
-        }
     }
 
     /**
-     * Gets the width of the grid by the number of tiles it has in the
-     * x-dimension
+     * Works out the allowed moves again for every cell in a rectangle and
+     * rebuilds the neighbor lists of the nodes in it to match
      *
-     * @return The width of the grid
+     * @param minX The x coordinate of the left column
+     * @param minY The y coordinate of the top row
+     * @param maxX The x coordinate of the right column
+     * @param maxY The y coordinate of the bottom row
      */
-    public int getWidth() {
-        return width;
-    }
+    @Override
+    protected void updateNeighborMasks(int minX, int minY, int maxX, int maxY) {
+        super.updateNeighborMasks(minX, minY, maxX, maxY);
+
+        for (int y = Math.max(minY, 0); y <= Math.min(maxY, getHeight() - 1); y++) {
+            for (int x = Math.max(minX, 0); x <= Math.min(maxX, getWidth() - 1); x++) {
+                int mask = getNeighborMask(x, y);
+                List<Node> nodes = new ArrayList<Node>(Integer.bitCount(mask));
+
+                for (int d = 0; d < Connectivity.DX.length; d++) {
+                    if ((mask & (1 << d)) != 0) {
+                        nodes.add(grid[y + Connectivity.DY[d]][x + Connectivity.DX[d]]);
+                    }
+                }
 
-    /**
-     * Gets the width of the grid by the number of tiles it has in the
-     * y-dimension
-     *
-     * @return The height of the grid
-     */
-    public int getHeight() {
-        return height;
+                grid[y][x].setNeighbors(nodes);
+            }
+        }
     }
 }
@@ -0,0 +1,229 @@
+package ambenavente1.cs151.astar;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads and writes maps in a compact binary format that can be memory
+ * mapped instead of parsed.  All numbers are little-endian.  The file is a
+ * 32 byte header followed by the walkability of every cell and, only if
+ * the cells don't all cost 1, the cost of every cell:
+ * <pre>
+ * offset  size  contents
+ *      0     4  magic number, the ASCII characters "AGRD"
+ *      4     4  format version, currently 1
+ *      8     4  width
+ *     12     4  height
+ *     16     1  connectivity (the ordinal of {@link Connectivity})
+ *     17     1  flags; bit 0 is set if there is a cost plane
+ *     18     2  zero
+ *     20     4  lowest cost of any cell, as a float
+ *     24     4  highest cost of any cell, as a float
+ *     28     4  zero
+ *     32     8 * ceil(width * height / 64)
+ *               walkability, one bit per cell: bit (i % 64) of long (i / 64)
+ *               is set if cell i = y * width + x is walkable
+ *      ...   4 * width * height, only if flag bit 0 is set
+ *               the cost of each cell as a float, in cell order
+ * </pre>
+ * The walkability is laid out the same way {@link CompactGrid} keeps it in
+ * memory, and the cost plane starts on an 8 byte boundary.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public final class GridFile {
+
+    /**
+     * The first four bytes of every grid file, "AGRD" read as a
+     * little-endian int
+     */
+    static final int MAGIC = 0x44524741;
+
+    /**
+     * The version of the format written by this class
+     */
+    static final int FORMAT_VERSION = 1;
+
+    /**
+     * The number of bytes before the walkability bits
+     */
+    static final int HEADER_SIZE = 32;
+
+    /**
+     * The flag set when the file has a cost plane
+     */
+    static final int HAS_COSTS = 1;
+
+    /**
+     * The size of the buffer used to write files
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * This class only has static methods
+     */
+    private GridFile() {
+    }
+
+    /**
+     * Writes a map to a file, replacing the file if it exists
+     *
+     * @param map  The map to write
+     * @param file The file to write to
+     * @throws IOException If the file can't be written
+     */
+    public static void write(GridMap map, File file) throws IOException {
+        int width  = map.getWidth();
+        int height = map.getHeight();
+        long cells = (long) width * height;
+        boolean hasCosts = needsCostPlane(map);
+
+        RandomAccessFile out = new RandomAccessFile(file, "rw");
+        try {
+            out.setLength(0);
+            FileChannel channel = out.getChannel();
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE)
+                                          .order(ByteOrder.LITTLE_ENDIAN);
+
+            buffer.putInt(MAGIC);
+            buffer.putInt(FORMAT_VERSION);
+            buffer.putInt(width);
+            buffer.putInt(height);
+            buffer.put((byte) map.getConnectivity().ordinal());
+            buffer.put((byte) (hasCosts ? HAS_COSTS : 0));
+            buffer.putShort((short) 0);
+            buffer.putFloat(hasCosts ? map.getMinCost() : AbstractGridMap.DEFAULT_COST);
+            buffer.putFloat(hasCosts ? maxCost(map) : AbstractGridMap.DEFAULT_COST);
+            buffer.putInt(0);
+
+            for (long word = 0; word < (cells + 63) >>> 6; word++) {
+                long bits = 0;
+                long first = word << 6;
+                for (int bit = 0; bit < 64 && first + bit < cells; bit++) {
+                    int cell = (int) (first + bit);
+                    if (map.isWalkable(cell % width, cell / width)) {
+                        bits |= 1L << bit;
+                    }
+                }
+                if (buffer.remaining() < 8) {
+                    flush(channel, buffer);
+                }
+                buffer.putLong(bits);
+            }
+
+            if (hasCosts) {
+                for (int y = 0; y < height; y++) {
+                    for (int x = 0; x < width; x++) {
+                        if (buffer.remaining() < 4) {
+                            flush(channel, buffer);
+                        }
+                        buffer.putFloat(map.getCost(x, y));
+                    }
+                }
+            }
+
+            flush(channel, buffer);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Maps a grid file into memory.  Nothing is read until cells are looked
+     * at, and the pages are shared with every other process mapping the same
+     * file.
+     *
+     * @param file The file to map
+     * @return A read-only map backed by the file
+     * @throws IOException If the file can't be read or isn't a grid file
+     */
+    public static MappedGrid map(File file) throws IOException {
+        RandomAccessFile in = new RandomAccessFile(file, "r");
+        try {
+            return new MappedGrid(in.getChannel(), file.getPath());
+        } finally {
+            // The mapping stays valid after the file is closed
+            in.close();
+        }
+    }
+
+    /**
+     * Loads a grid file into a grid that can be edited.  The walkability
+     * bits and costs are copied in bulk instead of setting one cell at a
+     * time.
+     *
+     * @param file The file to read
+     * @return A new grid with the same cells as the file
+     * @throws IOException If the file can't be read or isn't a grid file
+     */
+    public static CompactGrid read(File file) throws IOException {
+        MappedGrid mapped = map(file);
+        CompactGrid grid = new CompactGrid(mapped.getWidth(), mapped.getHeight(),
+                                           mapped.getConnectivity(),
+                                           mapped.copyWalkable());
+        float[] costs = mapped.copyCosts();
+        if (costs != null) {
+            grid.loadCosts(costs);
+        }
+        return grid;
+    }
+
+    /**
+     * Gets the number of bytes of walkability bits in a file
+     *
+     * @param width  The width of the map
+     * @param height The height of the map
+     * @return The size of the walkability bits, a multiple of 8
+     */
+    static long walkableBytes(int width, int height) {
+        return (((long) width * height + 63) >>> 6) << 3;
+    }
+
+    /**
+     * Checks if a map has cells that don't cost the default cost
+     *
+     * @param map The map to check
+     * @return If a cost plane has to be written
+     */
+    private static boolean needsCostPlane(GridMap map) {
+        return !map.isUniformCost() ||
+               map.getMinCost() != AbstractGridMap.DEFAULT_COST;
+    }
+
+    /**
+     * Finds the highest cost of any cell of a map
+     *
+     * @param map The map to look through
+     * @return The highest cost
+     */
+    private static float maxCost(GridMap map) {
+        float max = map.getMinCost();
+        for (int y = 0; y < map.getHeight(); y++) {
+            for (int x = 0; x < map.getWidth(); x++) {
+                max = Math.max(max, map.getCost(x, y));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Writes out everything in a buffer and empties it
+     *
+     * @param channel The channel to write to
+     * @param buffer  The buffer to write out
+     * @throws IOException If the write fails
+     */
+    private static void flush(FileChannel channel, ByteBuffer buffer)
+            throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
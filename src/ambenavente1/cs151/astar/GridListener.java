@@ -0,0 +1,32 @@
+package ambenavente1.cs151.astar;
+
+/**
+ * Something that needs to know when the cells of a map change, like a cache
+ * of paths or an index built from the walls.  Listeners are added with
+ * {@link AbstractGridMap#addGridListener(GridListener)} and are called on
+ * the thread that edited the map, after the edit is done.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public interface GridListener {
+
+    /**
+     * Called after cells of a map have been changed.  Every changed cell is
+     * inside of the given rectangle, but not every cell in the rectangle has
+     * to have changed.
+     *
+     * @param map     The map that changed
+     * @param minX    The x coordinate of the left column that changed
+     * @param minY    The y coordinate of the top row that changed
+     * @param maxX    The x coordinate of the right column that changed
+     * @param maxY    The y coordinate of the bottom row that changed
+     * @param cheaper If a path may now be cheaper than before because a cell
+     *                was made walkable, a cost was lowered or more moves
+     *                were allowed.  When this is false the edit only closed
+     *                cells or raised costs, so only paths through the
+     *                rectangle can be affected.
+     */
+    void cellsChanged(GridMap map, int minX, int minY, int maxX, int maxY,
+                      boolean cheaper);
+}
@@ -0,0 +1,90 @@
+package ambenavente1.cs151.astar;
+
+/**
+ * The map data that the A* search needs: the size of the map, which cells
+ * can be walked through, how much it costs to move into each cell and which
+ * moves are allowed between cells.  Cells can also be identified by a single index,
+ * <em>y * width + x</em>, which is how the search refers to them.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public interface GridMap {
+
+    /**
+     * Gets the number of cells in the x-dimension
+     *
+     * @return The width of the map
+     */
+    int getWidth();
+
+    /**
+     * Gets the number of cells in the y-dimension
+     *
+     * @return The height of the map
+     */
+    int getHeight();
+
+    /**
+     * Gets if the cell at the specified point is walkable or not
+     *
+     * @param x The x coordinate of the cell to check
+     * @param y The y coordinate of the cell to check
+     * @return If the cell can be walked through
+     */
+    boolean isWalkable(int x, int y);
+
+    /**
+     * Gets the cost of moving into the cell at the specified point
+     *
+     * @param x The x coordinate of the cell
+     * @param y The y coordinate of the cell
+     * @return The cost of stepping onto the cell, which is always greater
+     * than 0
+     */
+    float getCost(int x, int y);
+
+    /**
+     * Gets the lowest cost of any cell in the map.  The search scales its
+     * distance estimate by this so that it never overestimates.
+     *
+     * @return The lowest cost of moving into a cell
+     */
+    float getMinCost();
+
+    /**
+     * Gets if every cell in the map has the same cost.  Some searches, like
+     * jump point search, only work on maps like this.
+     *
+     * @return If moving into any cell costs the same
+     */
+    boolean isUniformCost();
+
+    /**
+     * Gets the ways a path is allowed to move from one cell to the next
+     *
+     * @return The connectivity of the map
+     */
+    Connectivity getConnectivity();
+
+    /**
+     * Gets the moves that are allowed out of a cell.  Moves off of the map
+     * or into walls are never allowed, and the connectivity decides the
+     * rest.
+     *
+     * @param x The x coordinate of the cell
+     * @param y The y coordinate of the cell
+     * @return A bitmask with bit <em>d</em> set if the move in direction
+     * <em>d</em> is allowed (see {@link Connectivity})
+     */
+    int getNeighborMask(int x, int y);
+
+    /**
+     * Gets a number that changes every time any cell of the map is changed.
+     * A result worked out from the map is still good as long as the version
+     * is the same.
+     *
+     * @return The current version of the map
+     */
+    long getVersion();
+}
@@ -0,0 +1,284 @@
+package ambenavente1.cs151.astar;
+
+import java.util.Arrays;
+
+/**
+ * An open list backed by an indexed binary min-heap.  The heap remembers the
+ * slot of every cell in it so a changed cost can be fixed with a single sift
+ * instead of a search through the list.  Adding, polling and updating are
+ * all O(log n).
+ * <p></p>
+ * Ties between cells with the same cost, within
+ * {@link OpenList#TIE_TOLERANCE}, go to the cell with the larger tie break
+ * value and then to the cell that was added last, the same rule
+ * {@link ScanOpenList} picks by.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public class HeapOpenList implements OpenList {
+
+    /**
+     * The starting capacity of the heap arrays
+     */
+    private static final int DEFAULT_CAPACITY = 64;
+
+    /**
+     * The cells in heap order
+     */
+    private int[] heap;
+
+    /**
+     * The cost value of the cell at the same slot in the heap
+     */
+    private double[] costs;
+
+    /**
+     * The tie break value of the cell at the same slot in the heap
+     */
+    private double[] ties;
+
+    /**
+     * The insertion number of the cell at the same slot in the heap
+     */
+    private long[] order;
+
+    /**
+     * The heap slot of each cell, indexed by cell.  A value is only
+     * meaningful if the heap really holds that cell at that slot.
+     */
+    private int[] slots;
+
+    /**
+     * The number of cells in the heap
+     */
+    private int size;
+
+    /**
+     * The insertion number given to the next cell that is added
+     */
+    private long nextOrder;
+
+    /**
+     * Creates an empty open list
+     */
+    public HeapOpenList() {
+        this.heap  = new int[DEFAULT_CAPACITY];
+        this.costs = new double[DEFAULT_CAPACITY];
+        this.ties  = new double[DEFAULT_CAPACITY];
+        this.order = new long[DEFAULT_CAPACITY];
+        this.slots = new int[DEFAULT_CAPACITY];
+        this.size  = 0;
+        this.nextOrder = 0;
+    }
+
+    @Override
+    public void add(int cell, double cost) {
+        add(cell, cost, 0);
+    }
+
+    @Override
+    public void add(int cell, double cost, double tieBreak) {
+        if (size == heap.length) {
+            heap  = Arrays.copyOf(heap, size * 2);
+            costs = Arrays.copyOf(costs, size * 2);
+            ties  = Arrays.copyOf(ties, size * 2);
+            order = Arrays.copyOf(order, size * 2);
+        }
+
+        if (cell >= slots.length) {
+            slots = Arrays.copyOf(slots, Math.max(cell + 1, slots.length * 2));
+        }
+
+        place(cell, cost, tieBreak, nextOrder++, size);
+        size++;
+
+        siftUp(size - 1);
+    }
+
+    @Override
+    public int poll() {
+        if (size == 0) {
+            return -1;
+        }
+
+        int best = heap[0];
+        size--;
+
+        if (size > 0) {
+            move(size, 0);
+            siftDown(0);
+        }
+
+        return best;
+    }
+
+    @Override
+    public void update(int cell, double cost) {
+        if (contains(cell)) {
+            update(cell, cost, ties[slots[cell]]);
+        }
+    }
+
+    @Override
+    public void update(int cell, double cost, double tieBreak) {
+        if (!contains(cell)) {
+            return;
+        }
+
+        int i = slots[cell];
+        costs[i] = cost;
+        ties[i]  = tieBreak;
+
+        siftUp(i);
+        siftDown(slots[cell]);
+    }
+
+    /**
+     * Checks if a cell is waiting in this list
+     *
+     * @param cell The index of the cell to look for
+     * @return If the cell is in the heap
+     */
+    public boolean contains(int cell) {
+        if (cell < 0 || cell >= slots.length) {
+            return false;
+        }
+
+        int i = slots[cell];
+        return i >= 0 && i < size && heap[i] == cell;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        nextOrder = 0;
+    }
+
+    /**
+     * Moves the cell at slot i towards the root until its parent is better
+     *
+     * @param i The slot of the cell to move
+     */
+    private void siftUp(int i) {
+        int cell = heap[i];
+        double cost = costs[i];
+        double tie = ties[i];
+        long cellOrder = order[i];
+
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+
+            if (!isBetter(cost, tie, cellOrder,
+                          costs[parent], ties[parent], order[parent])) {
+                break;
+            }
+
+            move(parent, i);
+            i = parent;
+        }
+
+        place(cell, cost, tie, cellOrder, i);
+    }
+
+    /**
+     * Moves the cell at slot i towards the leaves until both of its children
+     * are worse
+     *
+     * @param i The slot of the cell to move
+     */
+    private void siftDown(int i) {
+        int cell = heap[i];
+        double cost = costs[i];
+        double tie = ties[i];
+        long cellOrder = order[i];
+        int half = size >>> 1;
+
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+
+            if (right < size &&
+                isBetter(costs[right], ties[right], order[right],
+                         costs[child], ties[child], order[child])) {
+                child = right;
+            }
+
+            if (!isBetter(costs[child], ties[child], order[child],
+                          cost, tie, cellOrder)) {
+                break;
+            }
+
+            move(child, i);
+            i = child;
+        }
+
+        place(cell, cost, tie, cellOrder, i);
+    }
+
+    /**
+     * Copies the cell at slot from into slot to
+     *
+     * @param from The slot to copy from
+     * @param to   The slot to copy into
+     */
+    private void move(int from, int to) {
+        place(heap[from], costs[from], ties[from], order[from], to);
+    }
+
+    /**
+     * Puts a cell into a slot of the heap and records the slot for the cell
+     *
+     * @param cell      The cell to place
+     * @param cost      The cost value of the cell
+     * @param tie       The tie break value of the cell
+     * @param cellOrder The insertion number of the cell
+     * @param i         The slot to place it in
+     */
+    private void place(int cell, double cost, double tie, long cellOrder,
+                       int i) {
+        heap[i]  = cell;
+        costs[i] = cost;
+        ties[i]  = tie;
+        order[i] = cellOrder;
+        slots[cell] = i;
+    }
+
+    /**
+     * Checks if cell a should be visited before cell b
+     *
+     * @param aCost  The cost value of the first cell
+     * @param aTie   The tie break value of the first cell
+     * @param aOrder The insertion number of the first cell
+     * @param bCost  The cost value of the second cell
+     * @param bTie   The tie break value of the second cell
+     * @param bOrder The insertion number of the second cell
+     * @return If a has a lower cost than b, or the same cost and a larger
+     * tie break value, or the same of both and was added later
+     */
+    private static boolean isBetter(double aCost, double aTie, long aOrder,
+                                    double bCost, double bTie, long bOrder) {
+        if (!isTie(aCost, bCost)) {
+            return aCost < bCost;
+        }
+        return aTie > bTie || (aTie == bTie && aOrder > bOrder);
+    }
+
+    /**
+     * Checks if two costs are close enough to be broken by the tie break
+     * value
+     *
+     * @param a The first cost
+     * @param b The second cost
+     * @return If the costs are equal to within {@link OpenList#TIE_TOLERANCE}
+     */
+    static boolean isTie(double a, double b) {
+        return Math.abs(a - b) <= TIE_TOLERANCE * Math.max(Math.abs(a),
+                                                           Math.abs(b));
+    }
+}
@@ -0,0 +1,256 @@
+package ambenavente1.cs151.astar;
+
+import java.awt.Point;
+import java.util.List;
+
+/**
+ * Hierarchical path-finding A* (HPA*) for long paths across large maps.  The
+ * map is split into square clusters.  Wherever walkable cells meet across
+ * the border of two clusters an entrance is placed, and the cheapest path
+ * between every pair of entrances of a cluster is worked out ahead of time
+ * while staying inside of that cluster.  A query then only searches this
+ * small graph of entrances, and the path is put together from the stored
+ * paths between entrances, a step across each border, and searches of the
+ * start's and the end's clusters, without searching the map.
+ * <p></p>
+ * The cells of a cluster that can reach each other without leaving it make
+ * up a region.  The places a path can cross a border are grouped by the
+ * two regions they join, and each group gets entrances a few cells apart
+ * rather than one for every run of open cells, which keeps the graph small
+ * on maps with scattered walls.  An edge between two entrances of a cluster
+ * is left out when another entrance is on the way for no more cost.
+ * <p></p>
+ * The graph is searched with its estimate scaled up by a tenth, which
+ * keeps the search from spreading out on long queries, and the entrances it
+ * finds cost at most 1.1 times the cheapest way through entrances.
+ * Crossing at an entrance rather than
+ * where the cheapest path would can cost a little more too, so the path put
+ * together is cut into short pieces that are each searched again on the
+ * map.  What is left is usually about a percent and at most about 8% over
+ * the cheapest cost on the maps in HierarchicalTest, which checks that
+ * bound.  Queries whose ends are within
+ * two clusters of each other are searched directly.  Every place a path can
+ * cross a border joins the same two regions as an entrance, so when the
+ * graph of entrances can't connect two cells neither can the map.  The one
+ * exception is {@link Connectivity#EIGHT}, where a path can squeeze
+ * diagonally between two walls at a border, so there the whole map is
+ * searched before giving up.
+ * <p></p>
+ * The stored paths take 4 bits a step.  A cluster where every cell costs the
+ * same only stores one path for each pair of its entrances, since the path
+ * back is the same one walked the other way.
+ * <p></p>
+ * When the map is an {@link AbstractGridMap} only the clusters touched by
+ * an edit are rebuilt, and not until the next query, so many edits in a
+ * row only rebuild each cluster once.  Like {@link AStar}, one object must
+ * only be used by one thread at a time.
+ * <p></p>
+ * The graph itself is kept by ClusterGraph, EntranceSearch searches it for
+ * each query and PathRefiner puts the path together from what it finds.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public class HierarchicalPathfinder implements GridListener {
+
+    /**
+     * The default number of cells along each side of a cluster
+     */
+    public static final int DEFAULT_CLUSTER_SIZE = 32;
+
+    /**
+     * The map being searched
+     */
+    private final GridMap map;
+
+    /**
+     * The clusters, their entrances and the paths stored between them
+     */
+    private final ClusterGraph graph;
+
+    /**
+     * The search of the graph of entrances
+     */
+    private final EntranceSearch entranceSearch;
+
+    /**
+     * What puts the paths through entrances together
+     */
+    private final PathRefiner refiner;
+
+    /**
+     * The search state of queries that are searched on the map directly
+     */
+    private final SearchState directState;
+
+    /**
+     * The number of entrances taken out of the open list by the last query
+     */
+    private int abstractExpanded;
+
+    /**
+     * Creates a pathfinder with clusters of the default size
+     *
+     * @param map The map to find paths on
+     */
+    public HierarchicalPathfinder(GridMap map) {
+        this(map, DEFAULT_CLUSTER_SIZE);
+    }
+
+    /**
+     * Creates a pathfinder and builds every cluster
+     *
+     * @param map         The map to find paths on
+     * @param clusterSize The number of cells along each side of a cluster
+     */
+    public HierarchicalPathfinder(GridMap map, int clusterSize) {
+        if (clusterSize < 2) {
+            throw new IllegalArgumentException("Clusters must be at least 2 " +
+                                               "cells wide");
+        }
+
+        this.map = map;
+        this.graph = new ClusterGraph(map, clusterSize);
+        this.entranceSearch = new EntranceSearch(map, graph);
+        this.directState = new SearchState(new HeapOpenList());
+        this.refiner = new PathRefiner(map, graph, directState);
+
+        if (map instanceof AbstractGridMap) {
+            ((AbstractGridMap) map).addGridListener(this);
+        }
+    }
+
+    /**
+     * Finds a path between two points
+     *
+     * @param start The starting point; where the search begins
+     * @param end   The ending point; the goal to where the search will end
+     * @return A new list of points that lead up from the start to
+     * the end
+     */
+    public List<Point> calculatePath(Point start, Point end) {
+        return findPath(start.x, start.y, end.x, end.y).toPointList();
+    }
+
+    /**
+     * Finds a path between two cells
+     *
+     * @param startX The x coordinate of the cell the search begins at
+     * @param startY The y coordinate of the cell the search begins at
+     * @param endX   The x coordinate of the goal cell
+     * @param endY   The y coordinate of the goal cell
+     * @return The path from the start to the end, which is empty if the end
+     * can't be reached
+     */
+    public Path findPath(int startX, int startY, int endX, int endY) {
+        int width = map.getWidth();
+        return new Path(width, startY * width + startX,
+                        calculateCellPath(startX, startY, endX, endY));
+    }
+
+    /**
+     * Finds a path between two cells without creating point objects
+     *
+     * @param startX The x coordinate of the cell the search begins at
+     * @param startY The y coordinate of the cell the search begins at
+     * @param endX   The x coordinate of the goal cell
+     * @param endY   The y coordinate of the goal cell
+     * @return The index of each cell on the path from the one after the start
+     * up to the end, or an empty array if the end can't be reached
+     */
+    public int[] calculateCellPath(int startX, int startY, int endX, int endY) {
+        update();
+        abstractExpanded = 0;
+
+        if (Math.abs(startX - endX) + Math.abs(startY - endY) <=
+            graph.clusterSize * 2) {
+            return AStar.calculateCellPath(map, directState, Algorithm.A_STAR,
+                                           startX, startY, endX, endY);
+        }
+
+        int count = entranceSearch.search(startX, startY, endX, endY);
+        abstractExpanded = entranceSearch.getExpanded();
+        if (count < 0) {
+            // Only paths that cut a corner can cross a border without an
+            // entrance, so otherwise there is no path at all
+            if (map.getConnectivity() != Connectivity.EIGHT) {
+                return new int[0];
+            }
+            return AStar.calculateCellPath(map, directState, Algorithm.A_STAR,
+                                           startX, startY, endX, endY);
+        }
+
+        int width = map.getWidth();
+        return refiner.refine(entranceSearch, count, startY * width + startX,
+                              endY * width + endX);
+    }
+
+    @Override
+    public void cellsChanged(GridMap map, int minX, int minY, int maxX,
+                             int maxY, boolean cheaper) {
+        if (map == this.map) {
+            graph.markDirty(minX, minY, maxX, maxY);
+        }
+    }
+
+    /**
+     * Stops listening to the map.  Call this once the pathfinder isn't
+     * needed anymore so the map doesn't keep it alive.
+     */
+    public void dispose() {
+        if (map instanceof AbstractGridMap) {
+            ((AbstractGridMap) map).removeGridListener(this);
+        }
+    }
+
+    /**
+     * Gets the number of cells along each side of a cluster
+     *
+     * @return The size of the clusters
+     */
+    public int getClusterSize() {
+        return graph.clusterSize;
+    }
+
+    /**
+     * Gets the number of entrances in the graph that queries search
+     *
+     * @return The number of entrance cells over every cluster
+     */
+    public int getEntranceCount() {
+        update();
+        return graph.getEntranceCount();
+    }
+
+    /**
+     * Gets the number of steps of every path stored between entrances,
+     * which is twice the number of bytes they take
+     *
+     * @return The number of steps stored over every cluster
+     */
+    public long getStoredStepCount() {
+        update();
+        return graph.getStoredStepCount();
+    }
+
+    /**
+     * Gets the number of entrances the last query took out of the open
+     * list.  This is 0 for queries that were searched directly.
+     *
+     * @return The number of entrances expanded
+     */
+    public int getLastExpanded() {
+        return abstractExpanded;
+    }
+
+    /**
+     * Rebuilds the clusters that changed since the last query.  The
+     * searches of the last query's start and end clusters are kept until
+     * then.
+     */
+    private void update() {
+        if (graph.update()) {
+            entranceSearch.forget();
+        }
+    }
+}
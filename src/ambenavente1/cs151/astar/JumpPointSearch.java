@@ -0,0 +1,354 @@
+package ambenavente1.cs151.astar;
+
+/**
+ * Jump point search for grids where every cell costs the same.  Instead of
+ * adding every neighbor to the open list, the search "jumps" in a straight
+ * line until it reaches a cell where a shortest path may have to turn, and
+ * only that cell (a jump point) is added.  On open maps this cuts the number
+ * of expanded cells by orders of magnitude while still finding a shortest
+ * path.  Jumps still read every cell they pass, though, and on a map with
+ * no walls at all they run to its edges, so the search reads most of the
+ * map.  Plain A* only expands the cells along the path there and is
+ * faster; jumps pay off once there are walls to stop them.
+ * <p></p>
+ * Jumps need diagonal moves.  With {@link Connectivity#FOUR} every cell on
+ * a vertical jump would have to scan its whole row for jump points, which
+ * costs more than the expansions it saves: on an open 512x512 map it
+ * expanded 150 cells and still took longer than plain A*.  So
+ * {@link AStar} searches 4-way maps with plain A* even when
+ * {@link Algorithm#JUMP_POINT_SEARCH} is asked for.
+ * <p></p>
+ * The search follows the path that moves diagonally as early as it can, so
+ * each cell on a diagonal jump checks for jump points along both of the
+ * straight directions it is made of.  Straight jumps stop at forced
+ * neighbors, which depend on whether diagonal moves may cut corners
+ * ({@link Connectivity#EIGHT}) or not
+ * ({@link Connectivity#EIGHT_NO_CORNER_CUTTING}).
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+final class JumpPointSearch {
+
+    /**
+     * This class only has static methods
+     */
+    private JumpPointSearch() {
+    }
+
+    /**
+     * Calculates a shortest path between two cells of a map where every cell
+     * costs the same
+     *
+     * @param map    The map to search
+     * @param state  The per-cell data of the search
+     * @param startX The x coordinate of the cell the search begins at
+     * @param startY The y coordinate of the cell the search begins at
+     * @param endX   The x coordinate of the goal cell
+     * @param endY   The y coordinate of the goal cell
+     * @return The index of each cell on the path from the one after the start
+     * up to the end, or an empty array if the end can't be reached
+     */
+    static int[] calculateCellPath(GridMap map, SearchState state,
+                                   int startX, int startY, int endX, int endY) {
+        int width = map.getWidth();
+        int start = startY * width + startX;
+        int end   = endY * width + endX;
+        float cost = map.getMinCost();
+        float estimate = cost;
+        Connectivity connectivity = map.getConnectivity();
+
+        state.begin(width * map.getHeight());
+        state.open(start, -1, 0,
+                   estimate * connectivity.distance(startX, startY, endX, endY));
+
+        OpenList open = state.openList;
+        float[] distanceTraveled = state.distanceTraveled;
+        int[] jumps = new int[8];
+
+        while (open.size() > 0) {
+            int current = open.poll();
+            state.expanded++;
+
+            if (current == end) {
+                return buildPath(state, width, start, end);
+            }
+
+            state.close(current);
+
+            int x = current % width;
+            int y = current / width;
+            int count = findJumpPoints(map, state, current, x, y,
+                                       endX, endY, jumps);
+
+            for (int i = 0; i < count; i++) {
+                int jump = jumps[i];
+                int jx = jump % width;
+                int jy = jump / width;
+                float distance = distanceTraveled[current] +
+                                 cost * connectivity.distance(x, y, jx, jy);
+
+                if (!state.isReached(jump)) {
+                    state.open(jump, current, distance, distance +
+                               estimate * connectivity.distance(jx, jy, endX, endY));
+                } else if (!state.isClosed(jump) &&
+                           distance < distanceTraveled[jump]) {
+                    state.improve(jump, current, distance, distance +
+                                  estimate * connectivity.distance(jx, jy, endX, endY));
+                }
+            }
+        }
+
+        return new int[0];
+    }
+
+    /**
+     * Finds the jump points reachable from a cell in each direction the
+     * path could go next
+     *
+     * @param map     The map being searched
+     * @param state   The per-cell data of the search
+     * @param current The index of the cell being expanded
+     * @param x       The x coordinate of the cell being expanded
+     * @param y       The y coordinate of the cell being expanded
+     * @param endX    The x coordinate of the goal cell
+     * @param endY    The y coordinate of the goal cell
+     * @param jumps   The array the jump points are written to
+     * @return The number of jump points found
+     */
+    private static int findJumpPoints(GridMap map, SearchState state,
+                                      int current, int x, int y,
+                                      int endX, int endY, int[] jumps) {
+        int parent = state.parent[current];
+        int directions;
+
+        if (parent < 0) {
+            // The start can go every way
+            directions = 0xFF;
+        } else {
+            int width = map.getWidth();
+            int dx = Integer.signum(x - parent % width);
+            int dy = Integer.signum(y - parent / width);
+            directions = prunedDirections(map, x, y, dx, dy);
+        }
+
+        directions &= map.getNeighborMask(x, y);
+
+        int count = 0;
+        while (directions != 0) {
+            int d = Integer.numberOfTrailingZeros(directions);
+            directions &= directions - 1;
+
+            int jump = jump(map, x, y, Connectivity.DX[d], Connectivity.DY[d],
+                            endX, endY);
+            if (jump >= 0) {
+                jumps[count++] = jump;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Works out which directions a path that moved into a cell in a given
+     * direction might continue in.  Every other direction can be reached at
+     * least as cheaply by a path that doesn't go through this cell.
+     *
+     * @param map The map being searched
+     * @param x   The x coordinate of the cell
+     * @param y   The y coordinate of the cell
+     * @param dx  The x direction the path moved into the cell in
+     * @param dy  The y direction the path moved into the cell in
+     * @return A bitmask of the directions to keep searching in
+     */
+    private static int prunedDirections(GridMap map, int x, int y,
+                                        int dx, int dy) {
+        boolean cutsCorners = map.getConnectivity() == Connectivity.EIGHT;
+        int directions = bit(dx, dy);
+
+        if (dx != 0 && dy != 0) {
+            directions |= bit(dx, 0) | bit(0, dy);
+
+            if (cutsCorners) {
+                if (!isWalkable(map, x - dx, y)) {
+                    directions |= bit(-dx, dy);
+                }
+                if (!isWalkable(map, x, y - dy)) {
+                    directions |= bit(dx, -dy);
+                }
+            }
+        } else if (dx != 0) {
+            for (int side = -1; side <= 1; side += 2) {
+                if (cutsCorners) {
+                    if (!isWalkable(map, x, y + side)) {
+                        directions |= bit(dx, side);
+                    }
+                } else if (isForced(map, x, y, dx, side)) {
+                    directions |= bit(0, side) | bit(dx, side);
+                }
+            }
+        } else {
+            for (int side = -1; side <= 1; side += 2) {
+                if (cutsCorners) {
+                    if (!isWalkable(map, x + side, y)) {
+                        directions |= bit(side, dy);
+                    }
+                } else if (isWalkable(map, x + side, y) &&
+                           !isWalkable(map, x + side, y - dy)) {
+                    directions |= bit(side, 0) | bit(side, dy);
+                }
+            }
+        }
+
+        return directions;
+    }
+
+    /**
+     * Moves from a cell in one of the 8 directions until reaching a jump
+     * point
+     *
+     * @param map  The map being searched
+     * @param x    The x coordinate of the cell to jump from
+     * @param y    The y coordinate of the cell to jump from
+     * @param dx   The x direction to move in
+     * @param dy   The y direction to move in
+     * @param endX The x coordinate of the goal cell
+     * @param endY The y coordinate of the goal cell
+     * @return The index of the jump point or -1 if the move was blocked
+     * before one was found
+     */
+    private static int jump(GridMap map, int x, int y, int dx, int dy,
+                            int endX, int endY) {
+        int direction = bit(dx, dy);
+        boolean cutsCorners = map.getConnectivity() == Connectivity.EIGHT;
+
+        while ((map.getNeighborMask(x, y) & direction) != 0) {
+            x += dx;
+            y += dy;
+
+            if (x == endX && y == endY) {
+                return y * map.getWidth() + x;
+            }
+
+            if (dx != 0 && dy != 0) {
+                if (cutsCorners &&
+                    ((!isWalkable(map, x - dx, y) && isWalkable(map, x - dx, y + dy)) ||
+                     (!isWalkable(map, x, y - dy) && isWalkable(map, x + dx, y - dy)))) {
+                    return y * map.getWidth() + x;
+                }
+
+                if (jump(map, x, y, dx, 0, endX, endY) >= 0 ||
+                    jump(map, x, y, 0, dy, endX, endY) >= 0) {
+                    return y * map.getWidth() + x;
+                }
+            } else if (dx != 0) {
+                if (cutsCorners ?
+                    (!isWalkable(map, x, y - 1) && isWalkable(map, x + dx, y - 1)) ||
+                    (!isWalkable(map, x, y + 1) && isWalkable(map, x + dx, y + 1)) :
+                    isForced(map, x, y, dx, -1) || isForced(map, x, y, dx, 1)) {
+                    return y * map.getWidth() + x;
+                }
+            } else {
+                if (cutsCorners ?
+                    (!isWalkable(map, x - 1, y) && isWalkable(map, x - 1, y + dy)) ||
+                    (!isWalkable(map, x + 1, y) && isWalkable(map, x + 1, y + dy)) :
+                    (isWalkable(map, x - 1, y) && !isWalkable(map, x - 1, y - dy)) ||
+                    (isWalkable(map, x + 1, y) && !isWalkable(map, x + 1, y - dy))) {
+                    return y * map.getWidth() + x;
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Gets the bit of a direction in a neighbor mask
+     *
+     * @param dx The x offset of the direction, -1, 0 or 1
+     * @param dy The y offset of the direction, -1, 0 or 1
+     * @return The mask bit of the direction
+     */
+    private static int bit(int dx, int dy) {
+        return 1 << Connectivity.direction(dx, dy);
+    }
+
+    /**
+     * Checks if a horizontal move into a cell forces the path to turn
+     * vertically there when diagonal moves can't cut corners, which is when
+     * the cell beside it is open but the cell diagonally behind it is
+     * blocked
+     *
+     * @param map The map being searched
+     * @param x   The x coordinate of the cell that was moved into
+     * @param y   The y coordinate of the cell that was moved into
+     * @param dx  The horizontal direction of the move
+     * @param dy  The vertical side to check, -1 or 1
+     * @return If the path may have to turn towards dy at this cell
+     */
+    private static boolean isForced(GridMap map, int x, int y, int dx, int dy) {
+        return isWalkable(map, x, y + dy) && !isWalkable(map, x - dx, y + dy);
+    }
+
+    /**
+     * Checks if a cell is inside of the map and walkable
+     *
+     * @param map The map being searched
+     * @param x   The x coordinate of the cell
+     * @param y   The y coordinate of the cell
+     * @return If the cell can be walked through
+     */
+    private static boolean isWalkable(GridMap map, int x, int y) {
+        return x >= 0 && x < map.getWidth() && y >= 0 && y < map.getHeight() &&
+               map.isWalkable(x, y);
+    }
+
+    /**
+     * Gets the number of steps between two cells on a straight or diagonal
+     * line
+     *
+     * @param x1 The x coordinate of the first cell
+     * @param y1 The y coordinate of the first cell
+     * @param x2 The x coordinate of the second cell
+     * @param y2 The y coordinate of the second cell
+     * @return The number of cells moved through to get from one to the other
+     */
+    private static int steps(int x1, int y1, int x2, int y2) {
+        return Math.max(Math.abs(x1 - x2), Math.abs(y1 - y2));
+    }
+
+    /**
+     * Follows the jump points back from the end and fills in every cell
+     * between them.  Each pair of jump points is joined by a straight or
+     * diagonal line.
+     *
+     * @param state The per-cell data of the search
+     * @param width The width of the map
+     * @param start The index of the start cell
+     * @param end   The index of the end cell
+     * @return The cells from the one after the start up to the end
+     */
+    private static int[] buildPath(SearchState state, int width,
+                                   int start, int end) {
+        int length = 0;
+        for (int cell = end; cell != start; cell = state.parent[cell]) {
+            int parent = state.parent[cell];
+            length += steps(cell % width, cell / width,
+                            parent % width, parent / width);
+        }
+
+        int[] path = new int[length];
+        for (int cell = end; cell != start; cell = state.parent[cell]) {
+            int parent = state.parent[cell];
+            int dx = Integer.signum(cell % width - parent % width);
+            int dy = Integer.signum(cell / width - parent / width);
+            int step = dy * width + dx;
+
+            for (int c = cell; c != parent; c -= step) {
+                path[--length] = c;
+            }
+        }
+
+        return path;
+    }
+}
@@ -0,0 +1,195 @@
+package ambenavente1.cs151.astar;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of durations that any number of threads can record into and
+ * read from at the same time.  Values are counted in log-linear buckets:
+ * every power of two is split into 8 buckets, so a percentile read back is
+ * never more than 12.5% above the real value, and the whole range of a long
+ * fits in a few hundred counters.  Recording is a single atomic increment
+ * and never allocates.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public class LatencyHistogram {
+
+    /**
+     * The number of bits of each value kept below its highest set bit
+     */
+    private static final int SUB_BUCKET_BITS = 3;
+
+    /**
+     * The number of buckets each power of two is split into
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * The number of buckets needed to count every non-negative long
+     */
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    /**
+     * The number of values recorded in each bucket
+     */
+    private final AtomicLongArray counts;
+
+    /**
+     * The sum of every value recorded
+     */
+    private final AtomicLong total;
+
+    /**
+     * The largest value recorded
+     */
+    private final AtomicLong max;
+
+    /**
+     * Creates an empty histogram
+     */
+    public LatencyHistogram() {
+        this.counts = new AtomicLongArray(BUCKETS);
+        this.total = new AtomicLong();
+        this.max = new AtomicLong();
+    }
+
+    /**
+     * Counts one value
+     *
+     * @param value The value to count, usually a duration in nanoseconds.
+     *              Negative values are counted as 0.
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+
+        counts.incrementAndGet(bucket(value));
+        total.addAndGet(value);
+
+        long largest = max.get();
+        while (value > largest && !max.compareAndSet(largest, value)) {
+            largest = max.get();
+        }
+    }
+
+    /**
+     * Gets the number of values recorded
+     *
+     * @return The number of values counted
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Gets the largest value recorded
+     *
+     * @return The largest value, or 0 if nothing has been recorded
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Gets the average of the values recorded
+     *
+     * @return The mean value, or 0 if nothing has been recorded
+     */
+    public double getMean() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) total.get() / count;
+    }
+
+    /**
+     * Gets the value that a percent of the recorded values are at or below.
+     * The value returned is the top of the bucket the real value falls in.
+     *
+     * @param percent The percentile to get, from 0 to 100
+     * @return The value at the percentile, or 0 if nothing has been recorded
+     */
+    public long getValueAtPercentile(double percent) {
+        long[] snapshot = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percent / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(highestInBucket(i), max.get());
+            }
+        }
+
+        return max.get();
+    }
+
+    /**
+     * Forgets every value recorded so far.  Values recorded by other threads
+     * while this runs may or may not be kept.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        total.set(0);
+        max.set(0);
+    }
+
+    /**
+     * Gets the bucket a value is counted in
+     *
+     * @param value A non-negative value
+     * @return The index of the bucket
+     */
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Gets the largest value counted in a bucket
+     *
+     * @param bucket The index of the bucket
+     * @return The top of the bucket's range
+     */
+    private static long highestInBucket(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        long lowest = (SUB_BUCKETS + sub) << (exponent - SUB_BUCKET_BITS);
+        return lowest + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return "LatencyHistogram[count=" + getCount() +
+               ", mean=" + (long) getMean() +
+               ", p50=" + getValueAtPercentile(50) +
+               ", p90=" + getValueAtPercentile(90) +
+               ", p99=" + getValueAtPercentile(99) +
+               ", max=" + getMax() + "]";
+    }
+}
@@ -0,0 +1,232 @@
+package ambenavente1.cs151.astar;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A read-only map backed by a memory mapped {@link GridFile}.  Opening one
+ * only reads the header: the walkability bits and costs are read straight
+ * out of the mapped file when the search looks at them, so a map of any
+ * size loads at once and takes no heap beyond this object.  Since the file
+ * is mapped read-only, every process that maps the same file shares the
+ * same pages of the operating system's cache.
+ * <p></p>
+ * The allowed moves of each cell are worked out from the walkability bits
+ * each time they are asked for instead of being stored, which keeps the
+ * map entirely in the file.  The map can't be edited, so its version never
+ * changes and it has no listeners; load it into a {@link CompactGrid} to
+ * edit it.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public class MappedGrid implements GridMap {
+
+    /**
+     * The number of cells in each mapped piece of the cost plane.  A single
+     * mapping can't be larger than 2GB.
+     */
+    private static final int COST_CHUNK_SHIFT = 28;
+
+    /**
+     * The number of cells wide the map is
+     */
+    private final int width;
+
+    /**
+     * The number of cells tall the map is
+     */
+    private final int height;
+
+    /**
+     * The ways a path is allowed to move from one cell to the next
+     */
+    private final Connectivity connectivity;
+
+    /**
+     * The walkability of each cell, one bit per cell
+     */
+    private final LongBuffer walkable;
+
+    /**
+     * The cost of each cell in pieces of 2^28 cells, or null if every cell
+     * has the default cost
+     */
+    private final FloatBuffer[] costs;
+
+    /**
+     * The lowest cost of any cell
+     */
+    private final float minCost;
+
+    /**
+     * The highest cost of any cell
+     */
+    private final float maxCost;
+
+    /**
+     * Maps a grid file.  Use {@link GridFile#map(java.io.File)} to open one.
+     *
+     * @param channel The channel of the open file
+     * @param name    The name of the file used in error messages
+     * @throws IOException If the file can't be read or isn't a grid file
+     */
+    MappedGrid(FileChannel channel, String name) throws IOException {
+        long size = channel.size();
+        if (size < GridFile.HEADER_SIZE) {
+            throw new IOException("Not a grid file: " + name);
+        }
+
+        ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                                        GridFile.HEADER_SIZE)
+                                   .order(ByteOrder.LITTLE_ENDIAN);
+        if (header.getInt(0) != GridFile.MAGIC) {
+            throw new IOException("Not a grid file: " + name);
+        }
+        if (header.getInt(4) != GridFile.FORMAT_VERSION) {
+            throw new IOException("Unsupported grid file version " +
+                                  header.getInt(4) + ": " + name);
+        }
+
+        this.width  = header.getInt(8);
+        this.height = header.getInt(12);
+        int connectivity = header.get(16);
+        boolean hasCosts = (header.get(17) & GridFile.HAS_COSTS) != 0;
+        this.minCost = header.getFloat(20);
+        this.maxCost = header.getFloat(24);
+
+        if (width < 0 || height < 0 ||
+            (long) width * height > Integer.MAX_VALUE ||
+            connectivity < 0 || connectivity >= Connectivity.values().length ||
+            !(minCost > 0) || !(maxCost >= minCost) || Float.isInfinite(maxCost)) {
+            throw new IOException("Corrupt grid file header: " + name);
+        }
+        if (!hasCosts && (minCost != AbstractGridMap.DEFAULT_COST ||
+                          maxCost != AbstractGridMap.DEFAULT_COST)) {
+            // Every cell costs the default, so any other range would scale
+            // the search's estimate past the real costs
+            throw new IOException("Grid file without costs has a cost range " +
+                                  "of " + minCost + " to " + maxCost + ": " +
+                                  name);
+        }
+        this.connectivity = Connectivity.values()[connectivity];
+
+        long cells = (long) width * height;
+        long walkableBytes = GridFile.walkableBytes(width, height);
+        long expected = GridFile.HEADER_SIZE + walkableBytes +
+                        (hasCosts ? cells * 4 : 0);
+        if (size < expected) {
+            throw new IOException("Grid file is cut short: " + name);
+        }
+
+        this.walkable = channel.map(FileChannel.MapMode.READ_ONLY,
+                                    GridFile.HEADER_SIZE, walkableBytes)
+                               .order(ByteOrder.LITTLE_ENDIAN)
+                               .asLongBuffer();
+
+        if (hasCosts) {
+            long offset = GridFile.HEADER_SIZE + walkableBytes;
+            int chunks = (int) ((cells + (1L << COST_CHUNK_SHIFT) - 1) >>>
+                                COST_CHUNK_SHIFT);
+            this.costs = new FloatBuffer[chunks];
+            for (int i = 0; i < chunks; i++) {
+                long first = (long) i << COST_CHUNK_SHIFT;
+                long length = Math.min(1L << COST_CHUNK_SHIFT, cells - first);
+                costs[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+                                       offset + first * 4, length * 4)
+                                  .order(ByteOrder.LITTLE_ENDIAN)
+                                  .asFloatBuffer();
+            }
+        } else {
+            this.costs = null;
+        }
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public boolean isWalkable(int x, int y) {
+        int cell = y * width + x;
+        return (walkable.get(cell >>> 6) & (1L << cell)) != 0;
+    }
+
+    @Override
+    public float getCost(int x, int y) {
+        if (costs == null) {
+            return AbstractGridMap.DEFAULT_COST;
+        }
+        int cell = y * width + x;
+        return costs[cell >>> COST_CHUNK_SHIFT]
+                .get(cell & ((1 << COST_CHUNK_SHIFT) - 1));
+    }
+
+    @Override
+    public float getMinCost() {
+        return minCost;
+    }
+
+    @Override
+    public boolean isUniformCost() {
+        return minCost == maxCost;
+    }
+
+    @Override
+    public Connectivity getConnectivity() {
+        return connectivity;
+    }
+
+    @Override
+    public int getNeighborMask(int x, int y) {
+        return connectivity.neighborMask(this, x, y);
+    }
+
+    @Override
+    public long getVersion() {
+        return 0;
+    }
+
+    /**
+     * Copies the walkability bits out of the file
+     *
+     * @return One bit per cell, laid out like {@link CompactGrid} keeps them
+     */
+    long[] copyWalkable() {
+        long[] bits = new long[walkable.capacity()];
+        walkable.duplicate().get(bits);
+        return bits;
+    }
+
+    /**
+     * Copies the costs out of the file
+     *
+     * @return The cost of each cell in cell order, or null if every cell has
+     * the default cost
+     */
+    float[] copyCosts() {
+        if (costs == null) {
+            return null;
+        }
+
+        float[] copy = new float[width * height];
+        int offset = 0;
+        for (FloatBuffer chunk : costs) {
+            FloatBuffer view = chunk.duplicate();
+            int length = view.remaining();
+            view.get(copy, offset, length);
+            offset += length;
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,197 @@
+package ambenavente1.cs151.astar;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the <code>.map</code> and <code>.scen</code> text files of the
+ * Moving AI grid benchmarks.  A map file is a short header followed by one
+ * line of characters per row:
+ * <pre>
+ * type octile
+ * height 4
+ * width 6
+ * map
+ * ..@@..
+ * ...
+ * </pre>
+ * The cells <code>.</code>, <code>G</code> and <code>S</code> are walkable
+ * and every other cell (<code>@</code>, <code>O</code>, <code>T</code>,
+ * <code>W</code>) is not.  Octile maps allow diagonal moves but not past
+ * the corner of a wall, so maps are read with
+ * {@link Connectivity#EIGHT_NO_CORNER_CUTTING}, which is the movement the
+ * optimal lengths of the scenario files were worked out with.
+ * <p></p>
+ * A scenario file starts with a <code>version</code> line and then has one
+ * query per line, separated by tabs: the bucket, the map file, the map's
+ * width and height, the start x and y, the goal x and y and the optimal
+ * path length.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public final class MovingAi {
+
+    /**
+     * The number of fields on each line of a scenario file
+     */
+    private static final int SCENARIO_FIELDS = 9;
+
+    /**
+     * This class only has static methods
+     */
+    private MovingAi() {
+    }
+
+    /**
+     * Reads a map file into a grid.  The walls are collected into bits and
+     * handed to the grid at once instead of being set one cell at a time.
+     *
+     * @param file The map file to read
+     * @return A grid with the walls of the file and octile movement
+     * @throws IOException If the file can't be read or isn't a map
+     */
+    public static CompactGrid readMap(File file) throws IOException {
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        try {
+            int width = -1;
+            int height = -1;
+            String line;
+            while ((line = reader.readLine()) != null && !line.trim().equals("map")) {
+                String[] parts = line.trim().split("\\s+");
+                if (parts.length < 2) {
+                    continue;
+                }
+                if (parts[0].equals("width")) {
+                    width = parseInt(parts[1], file);
+                } else if (parts[0].equals("height")) {
+                    height = parseInt(parts[1], file);
+                }
+            }
+
+            if (line == null || width <= 0 || height <= 0 ||
+                (long) width * height > Integer.MAX_VALUE) {
+                throw new IOException("Missing map header in " + file);
+            }
+
+            long[] walkable = new long[(int) (((long) width * height + 63) >>> 6)];
+            for (int y = 0; y < height; y++) {
+                line = reader.readLine();
+                if (line == null || line.length() < width) {
+                    throw new IOException("Row " + y + " of " + file +
+                                          " is too short");
+                }
+                for (int x = 0; x < width; x++) {
+                    char c = line.charAt(x);
+                    if (c == '.' || c == 'G' || c == 'S') {
+                        int cell = y * width + x;
+                        walkable[cell >>> 6] |= 1L << cell;
+                    }
+                }
+            }
+
+            return new CompactGrid(width, height,
+                                   Connectivity.EIGHT_NO_CORNER_CUTTING,
+                                   walkable);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Reads every scenario of a scenario file
+     *
+     * @param file The scenario file to read
+     * @return The scenarios in the order of the file
+     * @throws IOException If the file can't be read or a line is malformed
+     */
+    public static List<MovingAiScenario> readScenarios(File file)
+            throws IOException {
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        try {
+            List<MovingAiScenario> scenarios = new ArrayList<MovingAiScenario>();
+            String line;
+            int number = 0;
+
+            while ((line = reader.readLine()) != null) {
+                number++;
+                line = line.trim();
+                if (line.length() == 0 || line.startsWith("version")) {
+                    continue;
+                }
+
+                // Map names never have spaces, but some files use spaces
+                // instead of tabs
+                String[] parts = line.split("\\s+");
+                if (parts.length != SCENARIO_FIELDS) {
+                    throw new IOException("Line " + number + " of " + file +
+                                          " doesn't have " + SCENARIO_FIELDS +
+                                          " fields");
+                }
+
+                try {
+                    scenarios.add(new MovingAiScenario(
+                            Integer.parseInt(parts[0]), parts[1],
+                            Integer.parseInt(parts[2]), Integer.parseInt(parts[3]),
+                            Integer.parseInt(parts[4]), Integer.parseInt(parts[5]),
+                            Integer.parseInt(parts[6]), Integer.parseInt(parts[7]),
+                            Double.parseDouble(parts[8])));
+                } catch (NumberFormatException e) {
+                    throw new IOException("Line " + number + " of " + file +
+                                          " has a bad number: " + e.getMessage());
+                }
+            }
+
+            return scenarios;
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Finds the map file a scenario refers to.  Scenario files name their
+     * map relative to some folder of the benchmark set, so the map is looked
+     * for next to the scenario file first, then by the name alone next to
+     * the scenario file and last as written.
+     *
+     * @param scenarioFile The scenario file
+     * @param scenario     A scenario from that file
+     * @return The map file, which may not exist if none of the places had it
+     */
+    public static File findMap(File scenarioFile, MovingAiScenario scenario) {
+        File folder = scenarioFile.getAbsoluteFile().getParentFile();
+        String name = scenario.getMapName();
+
+        File file = new File(folder, name);
+        if (file.isFile()) {
+            return file;
+        }
+
+        file = new File(folder, new File(name).getName());
+        if (file.isFile()) {
+            return file;
+        }
+
+        return new File(name);
+    }
+
+    /**
+     * Parses a number in a map header
+     *
+     * @param text The text of the number
+     * @param file The file being read, for the error message
+     * @return The number
+     * @throws IOException If the text isn't a number
+     */
+    private static int parseInt(String text, File file) throws IOException {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new IOException("Bad number " + text + " in " + file);
+        }
+    }
+}
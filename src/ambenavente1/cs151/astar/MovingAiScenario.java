@@ -0,0 +1,117 @@
+package ambenavente1.cs151.astar;
+
+/**
+ * One query from a Moving AI <code>.scen</code> file: the start and goal,
+ * the map it belongs to and the cost of the cheapest path between them.
+ * The scenarios of a file are sorted into buckets by the length of their
+ * paths, so results can be reported per bucket.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ * @see MovingAi#readScenarios(java.io.File)
+ */
+public class MovingAiScenario extends PathRequest {
+
+    /**
+     * The bucket the scenario was put in by its path length
+     */
+    private final int bucket;
+
+    /**
+     * The name of the map file as written in the scenario file
+     */
+    private final String mapName;
+
+    /**
+     * The width the map is expected to have
+     */
+    private final int mapWidth;
+
+    /**
+     * The height the map is expected to have
+     */
+    private final int mapHeight;
+
+    /**
+     * The cost of the cheapest path, with straight steps costing 1 and
+     * diagonal steps the square root of 2
+     */
+    private final double optimalLength;
+
+    /**
+     * Creates a scenario
+     *
+     * @param bucket        The bucket the scenario belongs to
+     * @param mapName       The name of the map file
+     * @param mapWidth      The width the map is expected to have
+     * @param mapHeight     The height the map is expected to have
+     * @param startX        The x coordinate of the start
+     * @param startY        The y coordinate of the start
+     * @param endX          The x coordinate of the goal
+     * @param endY          The y coordinate of the goal
+     * @param optimalLength The cost of the cheapest path
+     */
+    public MovingAiScenario(int bucket, String mapName, int mapWidth,
+                            int mapHeight, int startX, int startY,
+                            int endX, int endY, double optimalLength) {
+        super(startX, startY, endX, endY);
+        this.bucket = bucket;
+        this.mapName = mapName;
+        this.mapWidth = mapWidth;
+        this.mapHeight = mapHeight;
+        this.optimalLength = optimalLength;
+    }
+
+    /**
+     * Gets the bucket the scenario was put in by its path length
+     *
+     * @return The bucket number
+     */
+    public int getBucket() {
+        return bucket;
+    }
+
+    /**
+     * Gets the name of the map file as written in the scenario file.  It is
+     * usually relative to the folder of the scenario file.
+     *
+     * @return The name of the map file
+     */
+    public String getMapName() {
+        return mapName;
+    }
+
+    /**
+     * Gets the width the map is expected to have
+     *
+     * @return The width of the map
+     */
+    public int getMapWidth() {
+        return mapWidth;
+    }
+
+    /**
+     * Gets the height the map is expected to have
+     *
+     * @return The height of the map
+     */
+    public int getMapHeight() {
+        return mapHeight;
+    }
+
+    /**
+     * Gets the cost of the cheapest path between the start and the goal
+     *
+     * @return The optimal path length
+     */
+    public double getOptimalLength() {
+        return optimalLength;
+    }
+
+    @Override
+    public String toString() {
+        return "MovingAiScenario[bucket=" + bucket + ", map=" + mapName +
+               ", from (" + getStartX() + ", " + getStartY() + ") to (" +
+               getEndX() + ", " + getEndY() + "), optimal=" + optimalLength + "]";
+    }
+}
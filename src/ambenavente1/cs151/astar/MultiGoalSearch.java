@@ -0,0 +1,249 @@
+package ambenavente1.cs151.astar;
+
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Searches from one start towards many goals at once, instead of running a
+ * separate search to each goal.  Finding the nearest goal runs A* with an
+ * estimate of the distance to the closest goal, which never overestimates
+ * when each single distance doesn't, so the first goal taken out of the open
+ * list is the cheapest one to reach.  Working out the estimate looks at
+ * every goal, so with many goals the estimate is dropped and the search is
+ * Dijkstra's algorithm instead.
+ * <p></p>
+ * Finding the distance to each goal runs Dijkstra's algorithm, since the
+ * goals are found in the order of their distance, and stops as soon as
+ * enough of them have been taken out of the open list.
+ * <p></p>
+ * On an {@link AbstractGridMap}, goals in another connected region than the
+ * start are dropped before searching, so a search never floods the map
+ * looking for a goal it can't reach.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+final class MultiGoalSearch {
+
+    /**
+     * The most goals the nearest goal search estimates distances to.  With
+     * more goals than this, working out the estimate costs more than the
+     * cells it saves.
+     */
+    private static final int MAX_ESTIMATED_GOALS = 8;
+
+    /**
+     * This class only has static methods
+     */
+    private MultiGoalSearch() {
+    }
+
+    /**
+     * Calculates the cheapest path from a cell to whichever of the goals is
+     * cheapest to reach
+     *
+     * @param map    The map to search
+     * @param state  The per-cell data of the search
+     * @param startX The x coordinate of the cell the search begins at
+     * @param startY The y coordinate of the cell the search begins at
+     * @param goals  The cells that could be the end of the path
+     * @return The index of each cell on the path from the one after the start
+     * up to the goal, which is empty if the start is a goal, or null if no
+     * goal can be reached
+     */
+    static int[] findNearest(GridMap map, SearchState state,
+                             int startX, int startY, List<Point> goals) {
+        int width = map.getWidth();
+        int start = startY * width + startX;
+        int[] targets = reachableGoals(map, startX, startY, goals);
+        Connectivity connectivity = map.getConnectivity();
+
+        state.begin(width * map.getHeight());
+        if (targets.length == 0) {
+            return null;
+        }
+
+        // Zero turns the estimate off, which makes this Dijkstra's algorithm
+        float estimate = targets.length <= MAX_ESTIMATED_GOALS ?
+                         map.getMinCost() : 0;
+
+        state.open(start, -1, 0,
+                   estimate(connectivity, estimate, startX, startY, targets, width));
+
+        OpenList open = state.openList;
+        float[] distanceTraveled = state.distanceTraveled;
+
+        while (open.size() > 0) {
+            int current = open.poll();
+            state.expanded++;
+
+            if (Arrays.binarySearch(targets, current) >= 0) {
+                return state.buildPath(start, current);
+            }
+
+            state.close(current);
+
+            int x = current % width;
+            int y = current / width;
+            int mask = map.getNeighborMask(x, y);
+
+            while (mask != 0) {
+                int d = Integer.numberOfTrailingZeros(mask);
+                mask &= mask - 1;
+
+                int nx = x + Connectivity.DX[d];
+                int ny = y + Connectivity.DY[d];
+                int neighbor = ny * width + nx;
+                float distance = distanceTraveled[current] +
+                                 Connectivity.STEP[d] * map.getCost(nx, ny);
+
+                if (!state.isReached(neighbor)) {
+                    state.open(neighbor, current, distance, distance +
+                               estimate(connectivity, estimate, nx, ny,
+                                        targets, width));
+                } else if (!state.isClosed(neighbor) &&
+                           distance < distanceTraveled[neighbor]) {
+                    state.improve(neighbor, current, distance, distance +
+                                  estimate(connectivity, estimate, nx, ny,
+                                           targets, width));
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Calculates the cost of the cheapest path from a cell to each of the
+     * goals, stopping once the given number of goals have been reached
+     *
+     * @param map    The map to search
+     * @param state  The per-cell data of the search
+     * @param startX The x coordinate of the cell the search begins at
+     * @param startY The y coordinate of the cell the search begins at
+     * @param goals  The cells to find the distance to
+     * @param limit  How many of the closest goal cells to find before
+     *               stopping.  Goals on the same cell count once.
+     * @return The cost of reaching each goal, in the same order as the goals,
+     * or infinity for goals that can't be reached or weren't among the
+     * closest
+     */
+    static float[] findDistances(GridMap map, SearchState state,
+                                 int startX, int startY, List<Point> goals,
+                                 int limit) {
+        int width = map.getWidth();
+        int start = startY * width + startX;
+        int[] targets = reachableGoals(map, startX, startY, goals);
+        int remaining = Math.min(limit, targets.length);
+
+        state.begin(width * map.getHeight());
+        if (remaining > 0) {
+            state.open(start, -1, 0, 0);
+        }
+
+        OpenList open = state.openList;
+        float[] distanceTraveled = state.distanceTraveled;
+
+        while (open.size() > 0) {
+            int current = open.poll();
+            state.expanded++;
+            state.close(current);
+
+            if (Arrays.binarySearch(targets, current) >= 0 && --remaining == 0) {
+                break;
+            }
+
+            int x = current % width;
+            int y = current / width;
+            int mask = map.getNeighborMask(x, y);
+
+            while (mask != 0) {
+                int d = Integer.numberOfTrailingZeros(mask);
+                mask &= mask - 1;
+
+                int nx = x + Connectivity.DX[d];
+                int ny = y + Connectivity.DY[d];
+                int neighbor = ny * width + nx;
+                float distance = distanceTraveled[current] +
+                                 Connectivity.STEP[d] * map.getCost(nx, ny);
+
+                if (!state.isReached(neighbor)) {
+                    state.open(neighbor, current, distance, distance);
+                } else if (!state.isClosed(neighbor) &&
+                           distance < distanceTraveled[neighbor]) {
+                    state.improve(neighbor, current, distance, distance);
+                }
+            }
+        }
+
+        // Only closed cells are known to have their cheapest distance
+        float[] distances = new float[goals.size()];
+        for (int i = 0; i < distances.length; i++) {
+            Point goal = goals.get(i);
+            int cell = goal.y * width + goal.x;
+            distances[i] = state.isClosed(cell) ?
+                           distanceTraveled[cell] : Float.POSITIVE_INFINITY;
+        }
+        return distances;
+    }
+
+    /**
+     * Finds the goals that may be reachable from the start, dropping those
+     * the map's region labels rule out
+     *
+     * @param map    The map being searched
+     * @param startX The x coordinate of the start
+     * @param startY The y coordinate of the start
+     * @param goals  The goals
+     * @return The sorted cell indices of the goals, each cell only once
+     */
+    private static int[] reachableGoals(GridMap map, int startX, int startY,
+                                        List<Point> goals) {
+        int width = map.getWidth();
+        int[] cells = new int[goals.size()];
+        int count = 0;
+
+        for (Point goal : goals) {
+            if (!AStar.isUnreachable(map, startX, startY, goal.x, goal.y)) {
+                cells[count++] = goal.y * width + goal.x;
+            }
+        }
+
+        Arrays.sort(cells, 0, count);
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || cells[i] != cells[unique - 1]) {
+                cells[unique++] = cells[i];
+            }
+        }
+        return Arrays.copyOf(cells, unique);
+    }
+
+    /**
+     * Estimates the distance from a cell to the closest goal
+     *
+     * @param connectivity The connectivity of the map
+     * @param estimate     What to scale the distance by, or 0 for no
+     *                     estimate
+     * @param x            The x coordinate of the cell
+     * @param y            The y coordinate of the cell
+     * @param targets      The cell indices of the goals
+     * @param width        The width of the map
+     * @return The estimated distance to the closest goal
+     */
+    private static float estimate(Connectivity connectivity, float estimate,
+                                  int x, int y, int[] targets, int width) {
+        if (estimate == 0) {
+            return 0;
+        }
+
+        float closest = Float.MAX_VALUE;
+        for (int target : targets) {
+            closest = Math.min(closest, connectivity.distance(x, y,
+                                                              target % width,
+                                                              target / width));
+        }
+        return estimate * closest;
+    }
+}
@@ -5,6 +5,10 @@ import java.util.List;
 
 /**
  * Represents an individual node in the search grid.
+ * <p></p>
+ * {@link AStar} keeps the state of a search (parent, distances and list
+ * flags) in its own arrays so that many searches can share one grid, so
+ * those values are no longer filled in by a search.
  *
  * @author Anthony Benavente
  * @version 2/24/14
@@ -94,7 +98,9 @@ public class Node {
      * Gets the distance from the start node to this one
      *
      * @return The distance from the start node to this one (<em>g(x)</em>)
+     * @deprecated Searches no longer store their state on nodes
      */
+    @Deprecated
     public double getDistanceTraveled() {
         return distanceTraveled;
     }
@@ -104,7 +110,9 @@ public class Node {
      *
      * @param distanceTraveled distance from the start node to this one
      *                         (<em>g(x)</em>)
+     * @deprecated Searches no longer store their state on nodes
      */
+    @Deprecated
     public void setDistanceTraveled(double distanceTraveled) {
         this.distanceTraveled = distanceTraveled;
     }
@@ -114,7 +122,9 @@ public class Node {
      *
      * @return The approximate distance from the goal to this node
      * (<em>h(x)</em>)
+     * @deprecated Searches no longer store their state on nodes
      */
+    @Deprecated
     public double getDistanceToGoal() {
         return distanceToGoal;
     }
@@ -125,7 +135,9 @@ public class Node {
      *
      * @param distanceToGoal The approximate distance from the goal node to
      *                       this one (<em>h(x)</em>)
+     * @deprecated Searches no longer store their state on nodes
      */
+    @Deprecated
     public void setDistanceToGoal(double distanceToGoal) {
         this.distanceToGoal = distanceToGoal;
     }
@@ -134,7 +146,9 @@ public class Node {
      * Gets the parent node to this node (start node has no parent)
      *
      * @return The parent node to this node
+     * @deprecated Searches no longer store their state on nodes
      */
+    @Deprecated
     public Node getParent() {
         return parent;
     }
@@ -142,7 +156,9 @@ public class Node {
     /**
      * Sets the parent node to this node (start node has no parent)
      * @param parent The parent node to this node
+     * @deprecated Searches no longer store their state on nodes
      */
+    @Deprecated
     public void setParent(Node parent) {
         this.parent = parent;
     }
@@ -170,7 +186,9 @@ public class Node {
      * algorithm
      *
      * @return If this node is in the openList
+     * @deprecated Searches no longer store their state on nodes
      */
+    @Deprecated
     public boolean isInOpenList() {
         return inOpenList;
     }
@@ -179,7 +197,9 @@ public class Node {
      * Sets if this node is eligible to be visited
      *
      * @param inOpenList If the node should be in the openList
+     * @deprecated Searches no longer store their state on nodes
      */
+    @Deprecated
     public void setInOpenList(boolean inOpenList) {
         this.inOpenList = inOpenList;
     }
@@ -189,7 +209,9 @@ public class Node {
      * algorithm
      *
      * @return If this node is in the closedList
+     * @deprecated Searches no longer store their state on nodes
      */
+    @Deprecated
     public boolean isInClosedList() {
         return inClosedList;
     }
@@ -198,7 +220,9 @@ public class Node {
      * Sets if this node should not be visited
      *
      * @param inClosedList If this node should be in the closedList
+     * @deprecated Searches no longer store their state on nodes
      */
+    @Deprecated
     public void setInClosedList(boolean inClosedList) {
         this.inClosedList = inClosedList;
     }
@@ -212,6 +236,27 @@ public class Node {
         return neighbors;
     }
 
+    /**
+     * Gets the number of nodes neighboring this node
+     *
+     * @return The number of neighbors
+     */
+    public int getNeighborCount() {
+        return neighbors.size();
+    }
+
+    /**
+     * Gets one of the nodes neighboring this node.  Going through the
+     * neighbors by index doesn't create an iterator.
+     *
+     * @param index The index of the neighbor, from 0 up to
+     *              {@link #getNeighborCount()}
+     * @return The neighbor at the index
+     */
+    public Node getNeighbor(int index) {
+        return neighbors.get(index);
+    }
+
     /**
      * Sets the nodes that neighbor this node
      *
@@ -222,11 +267,25 @@ public class Node {
     }
 
     /**
-     * Gets a point that contains this node's x and y coordinate
+     * Gets a point that contains this node's x and y coordinate.  This
+     * creates a new point every time; use {@link #getX()} and
+     * {@link #getY()} or {@link #getPos(Point)} in loops.
      *
      * @return The point position of this node
      */
     public Point getPos() {
         return new Point(x, y);
     }
+
+    /**
+     * Copies this node's x and y coordinate into an existing point
+     *
+     * @param pos The point to move to this node's position
+     * @return The same point
+     */
+    public Point getPos(Point pos) {
+        pos.x = x;
+        pos.y = y;
+        return pos;
+    }
 }
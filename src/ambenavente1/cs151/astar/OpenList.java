@@ -0,0 +1,94 @@
+package ambenavente1.cs151.astar;
+
+/**
+ * The frontier used by the A* search.  Cells are identified by their index in
+ * the grid (<em>y * width + x</em>) and ordered by a cost value.  When two
+ * cells cost the same, the one with the larger tie break value comes out
+ * first, and after that the one that was added last.  A* passes the
+ * distance from the start as the tie break, so among cells with the same
+ * estimated total the one closest to the goal is visited first.  On a grid
+ * this keeps the search moving forward instead of widening out across every
+ * cell with the same cost without touching the costs themselves.
+ * <p></p>
+ * Costs are compared exactly unless they are within {@link #TIE_TOLERANCE}
+ * of each other, and only then does the tie break decide.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public interface OpenList {
+
+    /**
+     * How far apart two costs may be, as a fraction of the larger one, and
+     * still count as a tie.  Costs are sums of floats, so two ways of
+     * reaching what is the same cost on paper, like the two ways around a
+     * diagonal on an open 8-way map, come out a few float roundings apart;
+     * compared exactly, the tie break would almost never apply.  This is
+     * about 8 float roundings, the size of the error the float distances
+     * carry anyway.  Costs that really differ by less than this can come out
+     * in either order, so a path may cost a few millionths more than the
+     * cheapest one; TerrainCostTest checks paths on maps with costs spread
+     * over a range against Dijkstra's algorithm in doubles.
+     */
+    double TIE_TOLERANCE = 1e-6;
+
+    /**
+     * Adds a cell to the frontier with a tie break value of 0
+     *
+     * @param cell The index of the cell to add.  It must not already be in
+     *             this list
+     * @param cost The cost value the cell is ordered by
+     */
+    void add(int cell, double cost);
+
+    /**
+     * Adds a cell to the frontier with a value that breaks ties between
+     * cells of the same cost
+     *
+     * @param cell     The index of the cell to add.  It must not already be
+     *                 in this list
+     * @param cost     The cost value the cell is ordered by
+     * @param tieBreak The value that puts the cell first among cells of the
+     *                 same cost when it is larger
+     */
+    void add(int cell, double cost, double tieBreak);
+
+    /**
+     * Removes and returns the cell with the lowest cost value
+     *
+     * @return The index of the best cell in the list or -1 if the list is
+     * empty
+     */
+    int poll();
+
+    /**
+     * Changes the cost value of a cell in the list, keeping its tie break
+     * value.  Cells that are not in the list are ignored.
+     *
+     * @param cell The index of the cell whose cost changed
+     * @param cost The new cost value of the cell
+     */
+    void update(int cell, double cost);
+
+    /**
+     * Changes the cost value and the tie break value of a cell in the list.
+     * Cells that are not in the list are ignored.
+     *
+     * @param cell     The index of the cell whose cost changed
+     * @param cost     The new cost value of the cell
+     * @param tieBreak The new tie break value of the cell
+     */
+    void update(int cell, double cost, double tieBreak);
+
+    /**
+     * Gets the number of cells waiting to be visited
+     *
+     * @return The number of cells in this list
+     */
+    int size();
+
+    /**
+     * Removes every cell from the list
+     */
+    void clear();
+}
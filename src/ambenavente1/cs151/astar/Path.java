@@ -0,0 +1,230 @@
+package ambenavente1.cs151.astar;
+
+import java.awt.Point;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A path found by a search, kept as one array of cell indices
+ * (<em>y * width + x</em>) instead of a list of point objects.  The path
+ * starts with the cell after the start and ends with the goal.  Paths
+ * can't be changed, so they can be shared and cached freely.
+ * <p></p>
+ * Code that wants points can copy them into a list of its own with
+ * {@link #toPointList()}, read them through {@link #asPoints()}, which
+ * creates each point only when it is asked for, or use
+ * {@link #getWaypoints()} to get just the cells where the path turns.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public final class Path {
+
+    /**
+     * The width of the map the path was found on
+     */
+    private final int width;
+
+    /**
+     * The index of the cell the path starts from
+     */
+    private final int start;
+
+    /**
+     * The index of each cell on the path, not counting the start
+     */
+    private final int[] cells;
+
+    /**
+     * Creates a path from the cells a search returned.  The array is kept,
+     * not copied, so it must not be changed afterwards.
+     *
+     * @param width The width of the map the path was found on
+     * @param start The index of the cell the path starts from
+     * @param cells The index of each cell on the path from the one after the
+     *              start up to the goal
+     */
+    Path(int width, int start, int[] cells) {
+        this.width = width;
+        this.start = start;
+        this.cells = cells;
+    }
+
+    /**
+     * Gets the number of cells on the path, not counting the start
+     *
+     * @return The number of steps in the path
+     */
+    public int length() {
+        return cells.length;
+    }
+
+    /**
+     * Gets if the path has no steps, which means no path was found or the
+     * start was the goal
+     *
+     * @return If the path is empty
+     */
+    public boolean isEmpty() {
+        return cells.length == 0;
+    }
+
+    /**
+     * Gets the index of a cell on the path
+     *
+     * @param step The step of the path, starting at 0 for the cell after
+     *             the start
+     * @return The index of the cell
+     */
+    public int getCell(int step) {
+        return cells[step];
+    }
+
+    /**
+     * Gets the x coordinate of a cell on the path
+     *
+     * @param step The step of the path
+     * @return The x coordinate of the cell
+     */
+    public int getX(int step) {
+        return cells[step] % width;
+    }
+
+    /**
+     * Gets the y coordinate of a cell on the path
+     *
+     * @param step The step of the path
+     * @return The y coordinate of the cell
+     */
+    public int getY(int step) {
+        return cells[step] / width;
+    }
+
+    /**
+     * Gets the index of the cell the path starts from
+     *
+     * @return The index of the start cell
+     */
+    public int getStart() {
+        return start;
+    }
+
+    /**
+     * Gets the width of the map the path was found on, which is needed to
+     * turn cell indices back into coordinates
+     *
+     * @return The width of the map
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Copies the cell indices of the path into a new array
+     *
+     * @return The index of each cell on the path
+     */
+    public int[] toCellArray() {
+        return cells.clone();
+    }
+
+    /**
+     * Gets only the cells where the path changes direction, plus the goal.
+     * Moving in a straight line from the start to each waypoint in turn
+     * follows the same path.
+     *
+     * @return The index of each waypoint, in order
+     */
+    public int[] getWaypoints() {
+        if (cells.length == 0) {
+            return new int[0];
+        }
+
+        int[] waypoints = new int[cells.length];
+        int count = 0;
+        int previous = start;
+
+        for (int i = 0; i < cells.length - 1; i++) {
+            int cell = cells[i];
+            int next = cells[i + 1];
+            if (cell % width - previous % width != next % width - cell % width ||
+                cell / width - previous / width != next / width - cell / width) {
+                waypoints[count++] = cell;
+            }
+            previous = cell;
+        }
+        waypoints[count++] = cells[cells.length - 1];
+
+        return Arrays.copyOf(waypoints, count);
+    }
+
+    /**
+     * Copies the path into a new list of points, which the caller is free
+     * to change
+     *
+     * @return A list with a point for each cell on the path
+     */
+    public List<Point> toPointList() {
+        List<Point> points = new ArrayList<Point>(cells.length);
+        for (int cell : cells) {
+            points.add(new Point(cell % width, cell / width));
+        }
+        return points;
+    }
+
+    /**
+     * Gets a read-only view of the path as points.  A new point is created
+     * each time one is read, so no points are created for a path that is
+     * never looked at this way, but a path that is read more than once is
+     * better copied with {@link #toPointList()}.
+     *
+     * @return A list with a point for each cell on the path
+     */
+    public List<Point> asPoints() {
+        return new PointView();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Path)) {
+            return false;
+        }
+        Path path = (Path) o;
+        return width == path.width && start == path.start &&
+               Arrays.equals(cells, path.cells);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * width + start) + Arrays.hashCode(cells);
+    }
+
+    @Override
+    public String toString() {
+        return "Path[start=(" + start % width + ", " + start / width +
+               "), length=" + cells.length + "]";
+    }
+
+    /**
+     * The list of points returned by {@link #asPoints()}
+     */
+    private final class PointView extends AbstractList<Point>
+            implements RandomAccess {
+
+        @Override
+        public Point get(int index) {
+            return new Point(cells[index] % width, cells[index] / width);
+        }
+
+        @Override
+        public int size() {
+            return cells.length;
+        }
+    }
+}
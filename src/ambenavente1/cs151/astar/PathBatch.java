@@ -0,0 +1,117 @@
+package ambenavente1.cs151.astar;
+
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A fork-join task that answers a range of path requests.  The range is
+ * split in half until it is small enough, then each piece is answered on one
+ * worker with a single search state borrowed from the pool, so the per-cell
+ * arrays are reused for every query in the piece.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+final class PathBatch extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The map every request searches
+     */
+    private final GridMap map;
+
+    /**
+     * The pool search states are borrowed from
+     */
+    private final SearchStatePool pool;
+
+    /**
+     * The algorithm every request is searched with
+     */
+    private final Algorithm algorithm;
+
+    /**
+     * Where every search is recorded, or null
+     */
+    private final SearchMetrics metrics;
+
+    /**
+     * Every request in the batch
+     */
+    private final List<PathRequest> requests;
+
+    /**
+     * The path of each request, filled in at the same index as the request
+     */
+    private final int[][] paths;
+
+    /**
+     * The first request in the range this task answers
+     */
+    private final int from;
+
+    /**
+     * One past the last request in the range this task answers
+     */
+    private final int to;
+
+    /**
+     * The largest range that is answered without splitting
+     */
+    private final int grain;
+
+    /**
+     * Creates a task that answers a range of requests
+     *
+     * @param map       The map every request searches
+     * @param pool      The pool search states are borrowed from
+     * @param algorithm The algorithm every request is searched with
+     * @param metrics   Where every search is recorded, or null
+     * @param requests  Every request in the batch
+     * @param paths     The array the paths are written to
+     * @param from      The first request in the range
+     * @param to        One past the last request in the range
+     * @param grain     The largest range that is answered without splitting
+     */
+    PathBatch(GridMap map, SearchStatePool pool, Algorithm algorithm,
+              SearchMetrics metrics, List<PathRequest> requests, int[][] paths,
+              int from, int to, int grain) {
+        this.map = map;
+        this.pool = pool;
+        this.algorithm = algorithm;
+        this.metrics = metrics;
+        this.requests = requests;
+        this.paths = paths;
+        this.from = from;
+        this.to = to;
+        this.grain = grain;
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from <= grain) {
+            SearchState state = pool.borrow();
+            state.counting = metrics != null;
+            try {
+                for (int i = from; i < to; i++) {
+                    PathRequest request = requests.get(i);
+                    paths[i] = AStar.calculateCellPath(map, state, algorithm,
+                            request.getStartX(), request.getStartY(),
+                            request.getEndX(), request.getEndY());
+                    if (metrics != null) {
+                        metrics.record(state);
+                    }
+                }
+            } finally {
+                pool.release(state);
+            }
+        } else {
+            int middle = (from + to) >>> 1;
+            invokeAll(new PathBatch(map, pool, algorithm, metrics, requests,
+                                    paths, from, middle, grain),
+                      new PathBatch(map, pool, algorithm, metrics, requests,
+                                    paths, middle, to, grain));
+        }
+    }
+}
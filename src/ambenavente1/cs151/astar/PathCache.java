@@ -0,0 +1,388 @@
+package ambenavente1.cs151.astar;
+
+import java.awt.Point;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Remembers the paths an {@link AStar} object has found so that asking for
+ * the same start and end again doesn't search again.  At most a fixed
+ * number of paths are kept and the one used least recently is forgotten
+ * first.
+ * <p></p>
+ * Paths are only kept while they are still right for the map.  When the map
+ * is an {@link AbstractGridMap} the cache listens to its edits: closing a
+ * cell or raising its cost only forgets the paths that go through that
+ * cell, since every other path is still the cheapest, while opening a cell,
+ * lowering a cost or changing the connectivity can make any path cheaper,
+ * so everything is forgotten.  For any other kind of map everything is
+ * forgotten whenever the {@link GridMap#getVersion() version} changes.
+ * <p></p>
+ * Like AStar, a cache must only be used by one thread at a time, and the
+ * map must not be edited while a path is being found.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public class PathCache implements GridListener {
+
+    /**
+     * The object that finds paths the cache doesn't have
+     */
+    private final AStar aStar;
+
+    /**
+     * The most paths that are kept
+     */
+    private final int capacity;
+
+    /**
+     * The cached paths by start and end cell, least recently used first
+     */
+    private final LinkedHashMap<Long, CachedPath> entries;
+
+    /**
+     * The map the cached paths were found on
+     */
+    private GridMap map;
+
+    /**
+     * The version of the map the cached paths are right for
+     */
+    private long version;
+
+    /**
+     * The number of queries answered from the cache
+     */
+    private long hits;
+
+    /**
+     * The number of queries that had to be searched
+     */
+    private long misses;
+
+    /**
+     * The number of paths forgotten to make room for new ones
+     */
+    private long evictions;
+
+    /**
+     * The number of paths forgotten because the map changed
+     */
+    private long invalidations;
+
+    /**
+     * Creates a cache in front of an AStar object
+     *
+     * @param aStar    The object that finds paths the cache doesn't have
+     * @param capacity The most paths to keep
+     */
+    public PathCache(AStar aStar, final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+
+        this.aStar = aStar;
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<Long, CachedPath>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedPath> eldest) {
+                if (size() > capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+        attach(aStar.getMap());
+    }
+
+    /**
+     * Gets the shortest path, from the cache if it has it
+     *
+     * @param start The starting point; where the search begins
+     * @param end   The ending point; the goal to where the search will end
+     * @return A new list of points that lead up from the start to
+     * the end
+     */
+    public List<Point> calculatePath(Point start, Point end) {
+        return findPath(start.x, start.y, end.x, end.y).toPointList();
+    }
+
+    /**
+     * Gets the shortest path as cell indices, from the cache if it has it
+     *
+     * @param startX The x coordinate of the cell the search begins at
+     * @param startY The y coordinate of the cell the search begins at
+     * @param endX   The x coordinate of the goal cell
+     * @param endY   The y coordinate of the goal cell
+     * @return The index of each cell on the path from the one after the start
+     * up to the end, or an empty array if the end can't be reached.  The
+     * array is a copy, so it can be changed freely.
+     */
+    public int[] calculateCellPath(int startX, int startY, int endX, int endY) {
+        return findPath(startX, startY, endX, endY).toCellArray();
+    }
+
+    /**
+     * Gets the shortest path, from the cache if it has it.  Paths can't be
+     * changed, so the cached path itself is returned.
+     *
+     * @param startX The x coordinate of the cell the search begins at
+     * @param startY The y coordinate of the cell the search begins at
+     * @param endX   The x coordinate of the goal cell
+     * @param endY   The y coordinate of the goal cell
+     * @return The path from the start to the end, which is empty if the end
+     * can't be reached
+     */
+    public Path findPath(int startX, int startY, int endX, int endY) {
+        if (aStar.getMap() != map) {
+            attach(aStar.getMap());
+        } else if (map.getVersion() != version) {
+            // The map changed without telling us
+            invalidateAll();
+        }
+
+        int width = map.getWidth();
+        Long key = ((long) (startY * width + startX) << 32) |
+                   (endY * width + endX);
+
+        CachedPath entry = entries.get(key);
+        if (entry != null) {
+            hits++;
+            return entry.path;
+        }
+
+        misses++;
+        Path path = aStar.findPath(startX, startY, endX, endY);
+        entries.put(key, new CachedPath(path));
+        return path;
+    }
+
+    @Override
+    public void cellsChanged(GridMap map, int minX, int minY, int maxX,
+                             int maxY, boolean cheaper) {
+        if (map != this.map) {
+            return;
+        }
+
+        if (cheaper) {
+            invalidateAll();
+            return;
+        }
+
+        if (map.getConnectivity() == Connectivity.EIGHT_NO_CORNER_CUTTING) {
+            // A closed cell also blocks the diagonal moves past its corners
+            minX--;
+            minY--;
+            maxX++;
+            maxY++;
+        }
+
+        Iterator<CachedPath> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().passesThrough(minX, minY, maxX, maxY)) {
+                iterator.remove();
+                invalidations++;
+            }
+        }
+        version = map.getVersion();
+    }
+
+    /**
+     * Forgets every cached path
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Stops listening to the map.  Call this once the cache isn't needed
+     * anymore so the map doesn't keep it alive.
+     */
+    public void dispose() {
+        if (map instanceof AbstractGridMap) {
+            ((AbstractGridMap) map).removeGridListener(this);
+        }
+        entries.clear();
+    }
+
+    /**
+     * Gets the number of queries answered from the cache
+     *
+     * @return The number of cache hits
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of queries that had to be searched
+     *
+     * @return The number of cache misses
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets the share of queries answered from the cache
+     *
+     * @return The hit ratio from 0 to 1, or 0 if nothing has been asked
+     */
+    public double getHitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Gets the number of paths forgotten to make room for new ones
+     *
+     * @return The number of evictions
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Gets the number of paths forgotten because the map changed
+     *
+     * @return The number of invalidations
+     */
+    public long getInvalidations() {
+        return invalidations;
+    }
+
+    /**
+     * Gets the number of paths in the cache
+     *
+     * @return The number of cached paths
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the most paths that are kept
+     *
+     * @return The capacity of the cache
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Starts caching paths for a new map, listening to its edits if it can
+     * be edited
+     *
+     * @param map The map paths are found on
+     */
+    private void attach(GridMap map) {
+        if (this.map instanceof AbstractGridMap) {
+            ((AbstractGridMap) this.map).removeGridListener(this);
+        }
+
+        this.map = map;
+        if (map instanceof AbstractGridMap) {
+            ((AbstractGridMap) map).addGridListener(this);
+        }
+
+        invalidateAll();
+    }
+
+    /**
+     * Forgets every cached path because the map changed
+     */
+    private void invalidateAll() {
+        invalidations += entries.size();
+        entries.clear();
+        version = map.getVersion();
+    }
+
+    /**
+     * A cached path with the rectangle around it, so most edits can skip it
+     * without looking at its cells
+     */
+    private static final class CachedPath {
+
+        /**
+         * The path that was found
+         */
+        final Path path;
+
+        /**
+         * The x coordinate of the left column of the path
+         */
+        final int minX;
+
+        /**
+         * The y coordinate of the top row of the path
+         */
+        final int minY;
+
+        /**
+         * The x coordinate of the right column of the path
+         */
+        final int maxX;
+
+        /**
+         * The y coordinate of the bottom row of the path
+         */
+        final int maxY;
+
+        /**
+         * Creates an entry for a path
+         *
+         * @param path The path that was found
+         */
+        CachedPath(Path path) {
+            int width = path.getWidth();
+            int minX = path.getStart() % width;
+            int minY = path.getStart() / width;
+            int maxX = minX;
+            int maxY = minY;
+
+            for (int i = 0; i < path.length(); i++) {
+                minX = Math.min(minX, path.getX(i));
+                minY = Math.min(minY, path.getY(i));
+                maxX = Math.max(maxX, path.getX(i));
+                maxY = Math.max(maxY, path.getY(i));
+            }
+
+            this.path = path;
+            this.minX = minX;
+            this.minY = minY;
+            this.maxX = maxX;
+            this.maxY = maxY;
+        }
+
+        /**
+         * Checks if the path goes through a cell in a rectangle.  A path
+         * that was never found stays unreachable when cells are closed, so
+         * it never goes through anything.
+         *
+         * @param left   The x coordinate of the left column
+         * @param top    The y coordinate of the top row
+         * @param right  The x coordinate of the right column
+         * @param bottom The y coordinate of the bottom row
+         * @return If a cell of the path is inside of the rectangle
+         */
+        boolean passesThrough(int left, int top, int right, int bottom) {
+            if (right < minX || left > maxX || bottom < minY || top > maxY) {
+                return false;
+            }
+
+            for (int i = 0; i < path.length(); i++) {
+                int x = path.getX(i);
+                int y = path.getY(i);
+                if (x >= left && x <= right && y >= top && y <= bottom) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package ambenavente1.cs151.astar;
+
+import java.util.Arrays;
+
+/**
+ * Puts the path of a {@link HierarchicalPathfinder} query together from
+ * the entrances an {@link EntranceSearch} went through, and then shortens
+ * it.  Each hop is either a stored path inside of a cluster, one step
+ * across a border, or part of the search of the start's or the end's
+ * cluster.  Crossing at an entrance rather than where the cheapest path
+ * would can cost a little more, so the path is then cut into short pieces
+ * that are each searched again on the map.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+final class PathRefiner {
+
+    /**
+     * The number of steps of each piece of a path that is searched again
+     * once the path is put together
+     */
+    private static final int SHORTEN_WINDOW = 64;
+
+    /**
+     * The map being searched
+     */
+    private final GridMap map;
+
+    /**
+     * The graph the path's entrances are in
+     */
+    private final ClusterGraph graph;
+
+    /**
+     * The search state the pieces of the path are searched again with
+     */
+    private final SearchState directState;
+
+    /**
+     * The cells of the path being put together
+     */
+    private int[] cells;
+
+    /**
+     * The cells of the path being shortened, starting with the start
+     */
+    private int[] points;
+
+    /**
+     * Creates the refiner of a graph's paths
+     *
+     * @param map         The map the graph was built for
+     * @param graph       The graph the paths go through
+     * @param directState The search state to search pieces of paths with
+     */
+    PathRefiner(GridMap map, ClusterGraph graph, SearchState directState) {
+        this.map = map;
+        this.graph = graph;
+        this.directState = directState;
+
+        int area = graph.clusterSize * graph.clusterSize;
+        this.cells = new int[area];
+        this.points = new int[area];
+    }
+
+    /**
+     * Puts the cells of the path together from the entrances the last
+     * search of the graph went through and shortens it
+     *
+     * @param search The search of the graph that found the entrances
+     * @param count  The number of ids in the search's hops
+     * @param start  The index of the start cell
+     * @param end    The index of the end cell
+     * @return The cells of the path from the one after the start up to the
+     * end
+     */
+    int[] refine(EntranceSearch search, int count, int start, int end) {
+        return shorten(start, join(search, count, start, end));
+    }
+
+    /**
+     * Puts the cells of the path together from the entrances the last
+     * search of the graph went through
+     *
+     * @param search The search of the graph that found the entrances
+     * @param count  The number of ids in the search's hops
+     * @param start  The index of the start cell
+     * @param end    The index of the end cell
+     * @return The number of cells written to {@link #cells}, not counting
+     * the start
+     */
+    private int join(EntranceSearch search, int count, int start, int end) {
+        int width = map.getWidth();
+        int stride = graph.stride;
+        int startCluster = graph.clusterOf(start % width, start / width);
+        int endCluster = graph.clusterOf(end % width, end / width);
+        int[] startParents = search.startState.parent;
+        int[] endParents = search.endState.parent;
+        int[] hops = search.hops;
+        int length = 0;
+
+        for (int h = 1; h < count; h++) {
+            int from = hops[h - 1];
+            int to = hops[h];
+
+            if (from == graph.startId) {
+                // The start's search leads backwards from the entrance
+                int first = length;
+                for (int local = graph.toLocal(startCluster, graph.entranceCell(to));
+                     local != -1 && startParents[local] != -1;
+                     local = startParents[local]) {
+                    length = addCell(length, graph.toCell(startCluster, local));
+                }
+                reverse(first, length);
+            } else if (to == graph.endId) {
+                int cell = graph.entranceCell(from);
+                for (int local = endParents[graph.toLocal(endCluster, cell)];
+                     local != -1; local = endParents[local]) {
+                    length = addCell(length, graph.toCell(endCluster, local));
+                }
+            } else if (from / stride == to / stride) {
+                length = addStoredPath(to / stride, from % stride, to % stride,
+                                       length);
+            } else {
+                length = addCell(length, graph.entranceCell(to));
+            }
+        }
+
+        return length;
+    }
+
+    /**
+     * Adds the cells of a stored path between two entrances of a cluster to
+     * the path being put together
+     *
+     * @param cluster The index of the cluster
+     * @param from    The position of the entrance the path starts at
+     * @param to      The position of the entrance the path ends at
+     * @param length  The number of cells already in the path
+     * @return The number of cells in the path afterwards
+     */
+    private int addStoredPath(int cluster, int from, int to, int length) {
+        int[] entrances = graph.entrances[cluster];
+        boolean symmetric = graph.symmetric[cluster];
+        boolean backwards = symmetric && from > to;
+        int pair = ClusterGraph.pairIndex(from, to, entrances.length, symmetric);
+        int first = graph.intraOffsets[cluster][pair];
+        int last = graph.intraOffsets[cluster][pair + 1];
+        byte[] directions = graph.intraSteps[cluster];
+        int width = map.getWidth();
+
+        // A path stored the other way is walked from its own start, leaving
+        // out its last cell and adding its first, then turned around
+        int cell = entrances[backwards ? to : from];
+        int begin = length;
+        if (backwards) {
+            length = addCell(length, cell);
+        }
+        for (int i = first; i < last; i++) {
+            int d = (directions[i >> 1] >> ((i & 1) << 2)) & 0xF;
+            cell += Connectivity.DY[d] * width + Connectivity.DX[d];
+            if (!backwards || i < last - 1) {
+                length = addCell(length, cell);
+            }
+        }
+        if (backwards) {
+            reverse(begin, length);
+        }
+
+        return length;
+    }
+
+    /**
+     * Shortens the path that was put together.  It is cut into pieces of
+     * {@link #SHORTEN_WINDOW} steps and each piece is searched again on the
+     * map from its first cell to its last, which takes out the detours to
+     * the entrances and loops where two hops cross.  The search of a piece
+     * only goes as far as the cost of the piece allows, and its path never
+     * costs more than the piece.
+     *
+     * @param start  The index of the start cell
+     * @param length The number of cells in {@link #cells}
+     * @return The shortened path, not counting the start
+     */
+    private int[] shorten(int start, int length) {
+        int width = map.getWidth();
+        if (points.length <= length) {
+            points = new int[Math.max(length + 1, points.length * 2)];
+        }
+        points[0] = start;
+        System.arraycopy(cells, 0, points, 1, length);
+
+        int shortened = 0;
+        for (int i = 0; i < length; i += SHORTEN_WINDOW) {
+            int from = points[i];
+            int to = points[Math.min(i + SHORTEN_WINDOW, length)];
+            int[] piece = AStar.calculateCellPath(map, directState,
+                                                  Algorithm.A_STAR,
+                                                  from % width, from / width,
+                                                  to % width, to / width);
+            for (int cell : piece) {
+                shortened = addCell(shortened, cell);
+            }
+        }
+
+        return Arrays.copyOf(cells, shortened);
+    }
+
+    /**
+     * Adds a cell to the path being put together, making room if needed
+     *
+     * @param length The number of cells already in the path
+     * @param cell   The index of the cell
+     * @return The number of cells in the path afterwards
+     */
+    private int addCell(int length, int cell) {
+        if (length == cells.length) {
+            cells = Arrays.copyOf(cells, length * 2);
+        }
+        cells[length] = cell;
+        return length + 1;
+    }
+
+    /**
+     * Turns around a run of the path being put together
+     *
+     * @param from The index of the first cell of the run
+     * @param to   One past the index of the last cell of the run
+     */
+    private void reverse(int from, int to) {
+        for (int i = from, j = to - 1; i < j; i++, j--) {
+            int cell = cells[i];
+            cells[i] = cells[j];
+            cells[j] = cell;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package ambenavente1.cs151.astar;
+
+import java.awt.Point;
+
+/**
+ * A single start and end point pair to find a path between.  Used to hand a
+ * batch of queries to {@link AStar#calculatePaths(java.util.List)}.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public class PathRequest {
+
+    /**
+     * The starting point; where the search begins
+     */
+    private final Point start;
+
+    /**
+     * The ending point; the goal to where the search will end
+     */
+    private final Point end;
+
+    /**
+     * Creates a request for the path between two points
+     *
+     * @param start The starting point; where the search begins
+     * @param end   The ending point; the goal to where the search will end
+     */
+    public PathRequest(Point start, Point end) {
+        this.start = new Point(start);
+        this.end   = new Point(end);
+    }
+
+    /**
+     * Creates a request for the path between two cells
+     *
+     * @param startX The x coordinate of the cell the search begins at
+     * @param startY The y coordinate of the cell the search begins at
+     * @param endX   The x coordinate of the goal cell
+     * @param endY   The y coordinate of the goal cell
+     */
+    public PathRequest(int startX, int startY, int endX, int endY) {
+        this(new Point(startX, startY), new Point(endX, endY));
+    }
+
+    /**
+     * Gets the starting point of the request
+     *
+     * @return A copy of the starting point
+     */
+    public Point getStart() {
+        return new Point(start);
+    }
+
+    /**
+     * Gets the ending point of the request
+     *
+     * @return A copy of the ending point
+     */
+    public Point getEnd() {
+        return new Point(end);
+    }
+
+    /**
+     * Gets the x coordinate of the starting point
+     *
+     * @return The x coordinate of the cell the search begins at
+     */
+    public int getStartX() {
+        return start.x;
+    }
+
+    /**
+     * Gets the y coordinate of the starting point
+     *
+     * @return The y coordinate of the cell the search begins at
+     */
+    public int getStartY() {
+        return start.y;
+    }
+
+    /**
+     * Gets the x coordinate of the ending point
+     *
+     * @return The x coordinate of the goal cell
+     */
+    public int getEndX() {
+        return end.x;
+    }
+
+    /**
+     * Gets the y coordinate of the ending point
+     *
+     * @return The y coordinate of the goal cell
+     */
+    public int getEndY() {
+        return end.y;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof PathRequest)) {
+            return false;
+        }
+        PathRequest other = (PathRequest) o;
+        return start.equals(other.start) && end.equals(other.end);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * start.hashCode() + end.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "PathRequest[start=" + start + ", end=" + end + "]";
+    }
+}
@@ -0,0 +1,433 @@
+package ambenavente1.cs151.astar;
+
+import java.util.Arrays;
+
+/**
+ * A search for a path that runs a little at a time, so a long query can be
+ * spread over several game ticks instead of stalling one of them.  Each
+ * call to {@link #run(int, long)} expands at most a given number of cells
+ * or runs for at most a given time and then returns, keeping everything it
+ * found for the next call.
+ * <p></p>
+ * Until the goal is reached, {@link #getPath()} gives a partial path to
+ * the cell that looks closest to the goal, so an agent can start walking
+ * in the right direction.
+ * <p></p>
+ * A search created with a weight above 1 is Anytime Repairing A*
+ * (ARA*).  It scales up the estimate of the distance to the goal, which
+ * finds a path that costs at most that many times the cheapest one while
+ * expanding far fewer cells.  Once it has a path it lowers the weight and
+ * keeps searching, reusing the cells it already reached, until the weight
+ * is 1 and the path is the cheapest one.  Stopping as soon as
+ * {@link #isFound()} is true gives plain weighted A*.
+ * <p></p>
+ * If the map is edited while a search is paused, the next run starts the
+ * search over.  Like {@link AStar}, a search must only be used by one
+ * thread at a time.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public final class PathSearch {
+
+    /**
+     * How much the weight is lowered by each time a path is found
+     */
+    static final float WEIGHT_STEP = 0.5f;
+
+    /**
+     * How many cells are expanded between looks at the clock
+     */
+    private static final int CLOCK_INTERVAL = 64;
+
+    /**
+     * The map being searched
+     */
+    private final GridMap map;
+
+    /**
+     * The pool the search state goes back to once the search is disposed,
+     * or null if the state belongs to someone else
+     */
+    private final SearchStatePool pool;
+
+    /**
+     * The per-cell data of the search, or null once it is disposed
+     */
+    private SearchState state;
+
+    /**
+     * The index of the cell the search begins at
+     */
+    private final int start;
+
+    /**
+     * The index of the goal cell
+     */
+    private final int end;
+
+    /**
+     * The weight the search starts with
+     */
+    private final float initialWeight;
+
+    /**
+     * The weight of the current pass of the search
+     */
+    private float weight;
+
+    /**
+     * What the distance to the goal is scaled by before the weight
+     */
+    private float estimate;
+
+    /**
+     * The stamp of the read the search was started with, which stops being
+     * valid once the map is edited
+     */
+    private long stamp;
+
+    /**
+     * The cells that were given a shorter distance after they were closed
+     * in the current pass.  They go back into the open list in the next
+     * pass.  Between passes this also holds the cells of the open list.
+     */
+    private int[] inconsistent;
+
+    /**
+     * The number of cells in the inconsistent list
+     */
+    private int inconsistentSize;
+
+    /**
+     * The expanded cell that looks closest to the goal
+     */
+    private int closest;
+
+    /**
+     * The estimated distance from the closest cell to the goal
+     */
+    private float closestDistance;
+
+    /**
+     * The best complete path found so far, or null if none has been found
+     */
+    private int[] path;
+
+    /**
+     * The weight of the pass that found the best path
+     */
+    private float pathWeight;
+
+    /**
+     * If the search can't do any better
+     */
+    private boolean done;
+
+    /**
+     * Creates a search and gets it ready to run
+     *
+     * @param map    The map to search
+     * @param state  The per-cell data of the search, which nothing else may
+     *               use until the search is disposed
+     * @param pool   Where the state goes back to when the search is
+     *               disposed, or null if it doesn't belong to the search
+     * @param startX The x coordinate of the cell the search begins at
+     * @param startY The y coordinate of the cell the search begins at
+     * @param endX   The x coordinate of the goal cell
+     * @param endY   The y coordinate of the goal cell
+     * @param weight How much the estimate is scaled up by at first, which
+     *               must be at least 1
+     */
+    PathSearch(GridMap map, SearchState state, SearchStatePool pool,
+               int startX, int startY, int endX, int endY, float weight) {
+        if (!(weight >= 1) || Float.isInfinite(weight)) {
+            throw new IllegalArgumentException("Invalid weight: " + weight);
+        }
+
+        this.map   = map;
+        this.state = state;
+        this.pool  = pool;
+        this.start = startY * map.getWidth() + startX;
+        this.end   = endY * map.getWidth() + endX;
+        this.initialWeight = weight;
+        this.inconsistent  = new int[64];
+        restart();
+    }
+
+    /**
+     * Continues the search until it can't do any better or runs out of
+     * budget.  A search with a weight above 1 keeps going after it finds a
+     * path, lowering the weight each time.
+     *
+     * @param maxExpanded The most cells to expand during this call
+     * @param maxNanos    The most time to spend in this call in
+     *                    nanoseconds.  The clock is only looked at every few
+     *                    cells, so this can be overrun slightly.
+     * @return If the search is done
+     */
+    public boolean run(int maxExpanded, long maxNanos) {
+        if (state == null) {
+            throw new IllegalStateException("The search has been disposed");
+        }
+        if (!AbstractGridMap.validateRead(map, stamp)) {
+            restart();
+        }
+
+        long begin = System.nanoTime();
+        int width = map.getWidth();
+        int endX  = end % width;
+        int endY  = end / width;
+        Connectivity connectivity = map.getConnectivity();
+        OpenList open = state.openList;
+        float[] distanceTraveled = state.distanceTraveled;
+
+        for (int count = 0; !done && count < maxExpanded; count++) {
+            if (count % CLOCK_INTERVAL == CLOCK_INTERVAL - 1 &&
+                System.nanoTime() - begin >= maxNanos) {
+                break;
+            }
+
+            if (open.size() == 0) {
+                // Every cell the start can reach has been closed without
+                // reaching the goal
+                done = true;
+                break;
+            }
+
+            int current = open.poll();
+            if (current == end) {
+                finishPass();
+                continue;
+            }
+
+            state.expanded++;
+            state.close(current);
+
+            int x = current % width;
+            int y = current / width;
+            float distance = connectivity.distance(x, y, endX, endY);
+            if (distance < closestDistance ||
+                (distance == closestDistance &&
+                 distanceTraveled[current] < distanceTraveled[closest])) {
+                closest = current;
+                closestDistance = distance;
+            }
+
+            int mask = map.getNeighborMask(x, y);
+            while (mask != 0) {
+                int d = Integer.numberOfTrailingZeros(mask);
+                mask &= mask - 1;
+
+                int nx = x + Connectivity.DX[d];
+                int ny = y + Connectivity.DY[d];
+                int neighbor = ny * width + nx;
+                float g = distanceTraveled[current] +
+                          Connectivity.STEP[d] * map.getCost(nx, ny);
+
+                if (state.isReached(neighbor) && g >= distanceTraveled[neighbor]) {
+                    continue;
+                }
+
+                float key = g + weight * estimate *
+                                connectivity.distance(nx, ny, endX, endY);
+                if (!state.isReached(neighbor)) {
+                    state.open(neighbor, current, g, key);
+                } else if (state.isOpen(neighbor)) {
+                    state.improve(neighbor, current, g, key);
+                } else if (state.isClosed(neighbor)) {
+                    // Closed cells wait for the next pass instead of being
+                    // expanded again in this one.  The last pass has no next
+                    // one, so it leaves them alone like plain A* does.
+                    if (weight == 1) {
+                        continue;
+                    }
+                    state.parent[neighbor] = current;
+                    distanceTraveled[neighbor] = g;
+                    if (state.counting) {
+                        state.reopened++;
+                    }
+                    addInconsistent(neighbor);
+                } else {
+                    // Closed in an earlier pass, so it is visited again
+                    state.open(neighbor, current, g, key);
+                    if (state.counting) {
+                        state.reopened++;
+                    }
+                }
+            }
+        }
+
+        state.time += System.nanoTime() - begin;
+        return done;
+    }
+
+    /**
+     * Runs the search until it is done, however long that takes
+     *
+     * @return If a complete path was found
+     */
+    public boolean runToEnd() {
+        run(Integer.MAX_VALUE, Long.MAX_VALUE);
+        return isFound();
+    }
+
+    /**
+     * Keeps the path to the goal, which was just taken out of the open list,
+     * and starts the next pass with a lower weight
+     */
+    private void finishPass() {
+        path = state.buildPath(start, end);
+        pathWeight = weight;
+        state.pathLength = path.length;
+
+        if (weight == 1) {
+            done = true;
+            return;
+        }
+        weight = Math.max(1, weight - WEIGHT_STEP);
+
+        // The goal stays in the open list, and every open cell gets a key
+        // with the new weight
+        OpenList open = state.openList;
+        addInconsistent(end);
+        while (open.size() > 0) {
+            addInconsistent(open.poll());
+        }
+
+        state.nextIteration();
+        int width = map.getWidth();
+        Connectivity connectivity = map.getConnectivity();
+        for (int i = 0; i < inconsistentSize; i++) {
+            int cell = inconsistent[i];
+            if (!state.isOpen(cell)) {
+                float g = state.distanceTraveled[cell];
+                state.open(cell, state.parent[cell], g,
+                           g + weight * estimate *
+                               connectivity.distance(cell % width, cell / width,
+                                                     end % width, end / width));
+            }
+        }
+        inconsistentSize = 0;
+    }
+
+    /**
+     * Adds a cell to the end of the inconsistent list
+     *
+     * @param cell The cell to add
+     */
+    private void addInconsistent(int cell) {
+        if (inconsistentSize == inconsistent.length) {
+            inconsistent = Arrays.copyOf(inconsistent, inconsistentSize * 2);
+        }
+        inconsistent[inconsistentSize++] = cell;
+    }
+
+    /**
+     * Throws away everything found and starts the search from the start
+     * cell again
+     */
+    private void restart() {
+        int width  = map.getWidth();
+        int startX = start % width;
+        int startY = start / width;
+        int endX   = end % width;
+        int endY   = end / width;
+
+        stamp    = AbstractGridMap.beginRead(map);
+        weight   = initialWeight;
+        estimate = map.getMinCost();
+        path     = null;
+        done     = false;
+        closest  = start;
+        closestDistance  = map.getConnectivity().distance(startX, startY,
+                                                          endX, endY);
+        inconsistentSize = 0;
+
+        if (start == end) {
+            state.begin(0);
+            path = new int[0];
+            pathWeight = 1;
+            done = true;
+        } else if (AStar.isUnreachable(map, startX, startY, endX, endY)) {
+            // Nothing is searched, so only the counts are cleared
+            state.begin(0);
+            done = true;
+        } else {
+            state.begin(width * map.getHeight());
+            state.open(start, -1, 0, weight * estimate * closestDistance);
+        }
+        state.time = 0;
+    }
+
+    /**
+     * Gets the best path the search knows of.  This is the best complete
+     * path found so far if there is one.  Otherwise it is the path to the
+     * cell that looks closest to the goal, or an empty path once the search
+     * is done without reaching the goal.
+     *
+     * @return The best path so far
+     */
+    public Path getPath() {
+        int[] cells;
+        if (path != null) {
+            cells = path;
+        } else if (done) {
+            cells = new int[0];
+        } else {
+            cells = state.buildPath(start, closest);
+        }
+        return new Path(map.getWidth(), start, cells);
+    }
+
+    /**
+     * Checks if the search has found a complete path to the goal
+     *
+     * @return If {@link #getPath()} reaches the goal
+     */
+    public boolean isFound() {
+        return path != null;
+    }
+
+    /**
+     * Checks if the search can't do any better: it either found the
+     * cheapest path or found that the goal can't be reached
+     *
+     * @return If running the search again won't change anything
+     */
+    public boolean isDone() {
+        return done && AbstractGridMap.validateRead(map, stamp);
+    }
+
+    /**
+     * Gets how far the path found may be from the cheapest one.  The path
+     * costs at most this many times as much as the cheapest path.
+     *
+     * @return The weight of the pass that found the path, or infinity if no
+     * path has been found
+     */
+    public float getWeight() {
+        return path != null ? pathWeight : Float.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Gets everything the search counted so far, over every call to
+     * {@link #run(int, long)}
+     *
+     * @return The statistics of the search
+     */
+    public SearchStats getStats() {
+        return new SearchStats(state);
+    }
+
+    /**
+     * Frees the search's arrays for other searches.  Call this once the
+     * search isn't needed anymore; it can't be run afterwards.
+     */
+    public void dispose() {
+        if (state != null && pool != null) {
+            pool.release(state);
+        }
+        state = null;
+    }
+}
@@ -0,0 +1,250 @@
+package ambenavente1.cs151.astar;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Answers path queries from many threads at once against one shared map.
+ * The map is only read, and each running query borrows its own search state
+ * from a pool, so no query can see another one's data.  The map must not be
+ * edited while queries are running, except through the edit methods of
+ * {@link AbstractGridMap}: a query that overlaps one of those is searched
+ * again once the edit is done, so every path is found on the map either
+ * before or after the edit.
+ * <p></p>
+ * Queries can either be run on the calling thread with
+ * {@link #calculatePath(Point, Point)} or handed to the service's executor
+ * with {@link #submit(Point, Point)}.  Any executor can be used, including
+ * one that starts a virtual thread per task.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public class PathService {
+
+    /**
+     * The map that every query searches
+     */
+    private final GridMap map;
+
+    /**
+     * The executor that submitted queries run on
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Search states that aren't being used by a query right now, one for
+     * each available processor at most
+     */
+    private final SearchStatePool pool;
+
+    /**
+     * The algorithm queries are searched with
+     */
+    private volatile Algorithm algorithm;
+
+    /**
+     * Where every query is recorded, or null to not record them
+     */
+    private volatile SearchMetrics metrics;
+
+    /**
+     * Creates a service with one thread per available processor
+     *
+     * @param map The map that every query searches
+     */
+    public PathService(GridMap map) {
+        this(map, Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Creates a service that runs submitted queries on the given executor
+     *
+     * @param map      The map that every query searches
+     * @param executor The executor that submitted queries run on
+     */
+    public PathService(GridMap map, ExecutorService executor) {
+        this.map = map;
+        this.executor = executor;
+        this.pool = new SearchStatePool();
+        this.algorithm = Algorithm.A_STAR;
+    }
+
+    /**
+     * Calculates the shortest path on the calling thread.  This is safe to
+     * call from any number of threads at once.
+     *
+     * @param start The starting point; where the search begins
+     * @param end   The ending point; the goal to where the search will end
+     * @return A new list of points that lead up from the start to
+     * the end
+     */
+    public List<Point> calculatePath(Point start, Point end) {
+        return findPath(start.x, start.y, end.x, end.y).toPointList();
+    }
+
+    /**
+     * Calculates the shortest path on the calling thread and keeps it as a
+     * compact {@link Path}.  This is safe to call from any number of threads
+     * at once.
+     *
+     * @param startX The x coordinate of the cell the search begins at
+     * @param startY The y coordinate of the cell the search begins at
+     * @param endX   The x coordinate of the goal cell
+     * @param endY   The y coordinate of the goal cell
+     * @return The path from the start to the end, which is empty if the end
+     * can't be reached
+     */
+    public Path findPath(int startX, int startY, int endX, int endY) {
+        return new Path(map.getWidth(), startY * map.getWidth() + startX,
+                        calculateCellPath(startX, startY, endX, endY));
+    }
+
+    /**
+     * Calculates the shortest path on the calling thread without creating
+     * point objects.  This is safe to call from any number of threads at
+     * once.
+     *
+     * @param startX The x coordinate of the cell the search begins at
+     * @param startY The y coordinate of the cell the search begins at
+     * @param endX   The x coordinate of the goal cell
+     * @param endY   The y coordinate of the goal cell
+     * @return The index of each cell on the path from the one after the start
+     * up to the end, or an empty array if the end can't be reached
+     */
+    public int[] calculateCellPath(int startX, int startY, int endX, int endY) {
+        SearchMetrics metrics = this.metrics;
+        SearchState state = pool.borrow();
+        state.counting = metrics != null;
+        try {
+            int[] path;
+            long stamp;
+            do {
+                stamp = AbstractGridMap.beginRead(map);
+                path = AStar.calculateCellPath(map, state, algorithm,
+                                               startX, startY, endX, endY);
+            } while (!AbstractGridMap.validateRead(map, stamp));
+            if (metrics != null) {
+                metrics.record(state);
+            }
+            return path;
+        } finally {
+            pool.release(state);
+        }
+    }
+
+    /**
+     * Queues a query to run on the service's executor
+     *
+     * @param start The starting point; where the search begins
+     * @param end   The ending point; the goal to where the search will end
+     * @return The future path from the start to the end
+     */
+    public Future<List<Point>> submit(final Point start, final Point end) {
+        return executor.submit(new Callable<List<Point>>() {
+            @Override
+            public List<Point> call() {
+                return calculatePath(start, end);
+            }
+        });
+    }
+
+    /**
+     * Runs many queries in parallel on the service's executor and waits for
+     * all of them to finish
+     *
+     * @param starts The starting point of each query
+     * @param ends   The ending point of each query
+     * @return The path of each query, in the same order as the queries
+     * @throws InterruptedException If the calling thread was interrupted
+     *                              while waiting
+     */
+    public List<List<Point>> calculatePaths(List<Point> starts, List<Point> ends)
+            throws InterruptedException {
+        if (starts.size() != ends.size()) {
+            throw new IllegalArgumentException("There must be one end point " +
+                                               "for every start point");
+        }
+
+        List<Future<List<Point>>> futures = new ArrayList<Future<List<Point>>>();
+        for (int i = 0; i < starts.size(); i++) {
+            futures.add(submit(starts.get(i), ends.get(i)));
+        }
+
+        List<List<Point>> paths = new ArrayList<List<Point>>(futures.size());
+        for (Future<List<Point>> future : futures) {
+            try {
+                paths.add(future.get());
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("A path query failed",
+                                                e.getCause());
+            }
+        }
+
+        return paths;
+    }
+
+    /**
+     * Stops the executor after the queued queries have finished and lets
+     * go of the search states that aren't in use
+     */
+    public void shutdown() {
+        executor.shutdown();
+        pool.clear();
+    }
+
+    /**
+     * Gets the algorithm queries are searched with
+     *
+     * @return The algorithm used by this service
+     */
+    public Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Sets the algorithm queries are searched with.  This defaults to
+     * {@link Algorithm#A_STAR}.
+     *
+     * @param algorithm The algorithm to use
+     */
+    public void setAlgorithm(Algorithm algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    /**
+     * Gets where every query is recorded
+     *
+     * @return The metrics queries are recorded into, or null if they aren't
+     * recorded
+     */
+    public SearchMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Sets where every query is recorded.  This defaults to null, which
+     * records nothing.
+     *
+     * @param metrics The metrics to record into, or null to stop recording
+     */
+    public void setMetrics(SearchMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Gets the map that every query searches
+     *
+     * @return The map used by this service
+     */
+    public GridMap getMap() {
+        return map;
+    }
+}
@@ -0,0 +1,128 @@
+package ambenavente1.cs151.astar;
+
+import java.util.Arrays;
+
+/**
+ * The original open list: an unsorted list that is scanned from front to
+ * back every time the best cell is needed.  Polling is O(n) so this is only
+ * kept around to compare against {@link HeapOpenList}.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public class ScanOpenList implements OpenList {
+
+    /**
+     * The starting capacity of the list
+     */
+    private static final int DEFAULT_CAPACITY = 64;
+
+    /**
+     * The cells in the order they were added
+     */
+    private int[] cells;
+
+    /**
+     * The cost value of the cell at the same position in the list
+     */
+    private double[] costs;
+
+    /**
+     * The tie break value of the cell at the same position in the list
+     */
+    private double[] ties;
+
+    /**
+     * The number of cells in the list
+     */
+    private int size;
+
+    /**
+     * Creates an empty open list
+     */
+    public ScanOpenList() {
+        this.cells = new int[DEFAULT_CAPACITY];
+        this.costs = new double[DEFAULT_CAPACITY];
+        this.ties  = new double[DEFAULT_CAPACITY];
+        this.size  = 0;
+    }
+
+    @Override
+    public void add(int cell, double cost) {
+        add(cell, cost, 0);
+    }
+
+    @Override
+    public void add(int cell, double cost, double tieBreak) {
+        if (size == cells.length) {
+            cells = Arrays.copyOf(cells, size * 2);
+            costs = Arrays.copyOf(costs, size * 2);
+            ties  = Arrays.copyOf(ties, size * 2);
+        }
+
+        cells[size] = cell;
+        costs[size] = cost;
+        ties[size]  = tieBreak;
+        size++;
+    }
+
+    @Override
+    public int poll() {
+        double minCost = Double.MAX_VALUE;
+        double maxTie  = Double.NEGATIVE_INFINITY;
+        int bestIndex  = -1;
+
+        for (int i = 0; i < size; i++) {
+            boolean better = HeapOpenList.isTie(costs[i], minCost) ?
+                             ties[i] >= maxTie : costs[i] < minCost;
+            if (better) {
+                minCost = costs[i];
+                maxTie = ties[i];
+                bestIndex = i;
+            }
+        }
+
+        if (bestIndex < 0) {
+            return -1;
+        }
+
+        int best = cells[bestIndex];
+        size--;
+        System.arraycopy(cells, bestIndex + 1, cells, bestIndex, size - bestIndex);
+        System.arraycopy(costs, bestIndex + 1, costs, bestIndex, size - bestIndex);
+        System.arraycopy(ties, bestIndex + 1, ties, bestIndex, size - bestIndex);
+
+        return best;
+    }
+
+    @Override
+    public void update(int cell, double cost) {
+        for (int i = 0; i < size; i++) {
+            if (cells[i] == cell) {
+                costs[i] = cost;
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void update(int cell, double cost, double tieBreak) {
+        for (int i = 0; i < size; i++) {
+            if (cells[i] == cell) {
+                costs[i] = cost;
+                ties[i]  = tieBreak;
+                return;
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+    }
+}
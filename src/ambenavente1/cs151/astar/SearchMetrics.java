@@ -0,0 +1,221 @@
+package ambenavente1.cs151.astar;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Running totals over every search recorded into it, plus a histogram of
+ * how long the searches took.  One object can be shared by any number of
+ * {@link AStar} objects and {@link PathService}s on any number of threads,
+ * and read at any time while they keep searching.
+ * <p></p>
+ * Nothing is recorded unless a metrics object has been set with
+ * {@link AStar#setMetrics(SearchMetrics)} or
+ * {@link PathService#setMetrics(SearchMetrics)}.  Setting one also turns on
+ * the counts of generated, improved and reopened cells and of the peak open
+ * list size, which searches skip otherwise; the cells expanded by a single
+ * search are always available from {@link AStar#getLastStats()}.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public class SearchMetrics {
+
+    /**
+     * The number of searches recorded
+     */
+    private final AtomicLong queries;
+
+    /**
+     * The number of searches that didn't find a path
+     */
+    private final AtomicLong failed;
+
+    /**
+     * The total number of cells expanded
+     */
+    private final AtomicLong expanded;
+
+    /**
+     * The total number of cells generated
+     */
+    private final AtomicLong generated;
+
+    /**
+     * The total number of cells whose distance was improved in the open
+     * list
+     */
+    private final AtomicLong improved;
+
+    /**
+     * The total number of cells reopened
+     */
+    private final AtomicLong reopened;
+
+    /**
+     * The total length of the paths found
+     */
+    private final AtomicLong pathLength;
+
+    /**
+     * How long each search took in nanoseconds
+     */
+    private final LatencyHistogram latency;
+
+    /**
+     * Creates metrics with nothing recorded
+     */
+    public SearchMetrics() {
+        this.queries = new AtomicLong();
+        this.failed = new AtomicLong();
+        this.expanded = new AtomicLong();
+        this.generated = new AtomicLong();
+        this.improved = new AtomicLong();
+        this.reopened = new AtomicLong();
+        this.pathLength = new AtomicLong();
+        this.latency = new LatencyHistogram();
+    }
+
+    /**
+     * Adds the statistics of one search to the totals
+     *
+     * @param stats The statistics of the search
+     */
+    public void record(SearchStats stats) {
+        record(stats.getExpanded(), stats.getGenerated(), stats.getImproved(),
+               stats.getReopened(), stats.getPathLength(), stats.getWallTime());
+    }
+
+    /**
+     * Adds the search that just finished with a search state to the totals
+     * without creating a stats object
+     *
+     * @param state The state of the search that just finished
+     */
+    void record(SearchState state) {
+        record(state.expanded, state.generated, state.improved, state.reopened,
+               state.pathLength, state.time);
+    }
+
+    /**
+     * Adds the numbers of one search to the totals
+     *
+     * @param expanded   The number of cells expanded
+     * @param generated  The number of cells generated
+     * @param improved   The number of cells improved in the open list
+     * @param reopened   The number of cells reopened
+     * @param pathLength The length of the path found, or 0 if there wasn't
+     *                   one
+     * @param time       How long the search took in nanoseconds
+     */
+    private void record(int expanded, int generated, int improved,
+                        int reopened, int pathLength, long time) {
+        queries.incrementAndGet();
+        if (pathLength == 0) {
+            failed.incrementAndGet();
+        }
+        this.expanded.addAndGet(expanded);
+        this.generated.addAndGet(generated);
+        this.improved.addAndGet(improved);
+        this.reopened.addAndGet(reopened);
+        this.pathLength.addAndGet(pathLength);
+        latency.record(time);
+    }
+
+    /**
+     * Gets the number of searches recorded
+     *
+     * @return The number of queries answered
+     */
+    public long getQueries() {
+        return queries.get();
+    }
+
+    /**
+     * Gets the number of searches that found no path.  This includes
+     * searches where the start was the end.
+     *
+     * @return The number of queries without a path
+     */
+    public long getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * Gets the total number of cells taken out of the open list
+     *
+     * @return The number of cells expanded by every search
+     */
+    public long getExpanded() {
+        return expanded.get();
+    }
+
+    /**
+     * Gets the total number of cells put in the open list
+     *
+     * @return The number of cells generated by every search
+     */
+    public long getGenerated() {
+        return generated.get();
+    }
+
+    /**
+     * Gets the total number of times a shorter way was found to a cell in
+     * the open list
+     *
+     * @return The number of cells improved by every search
+     */
+    public long getImproved() {
+        return improved.get();
+    }
+
+    /**
+     * Gets the total number of times a shorter way was found to a cell that
+     * had already been closed
+     *
+     * @return The number of cells reopened by every search
+     */
+    public long getReopened() {
+        return reopened.get();
+    }
+
+    /**
+     * Gets the total length of every path found
+     *
+     * @return The number of cells on every path
+     */
+    public long getPathLength() {
+        return pathLength.get();
+    }
+
+    /**
+     * Gets the histogram of how long each search took in nanoseconds
+     *
+     * @return The latency histogram, which keeps filling as searches finish
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * Forgets everything recorded so far
+     */
+    public void reset() {
+        queries.set(0);
+        failed.set(0);
+        expanded.set(0);
+        generated.set(0);
+        improved.set(0);
+        reopened.set(0);
+        pathLength.set(0);
+        latency.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "SearchMetrics[queries=" + getQueries() + ", failed=" + getFailed() +
+               ", expanded=" + getExpanded() + ", generated=" + getGenerated() +
+               ", improved=" + getImproved() + ", reopened=" + getReopened() +
+               ", pathLength=" + getPathLength() +
+               ", latency=" + latency + "]";
+    }
+}
@@ -0,0 +1,376 @@
+package ambenavente1.cs151.astar;
+
+import java.util.Arrays;
+
+/**
+ * The per-cell data of a search kept in flat arrays indexed by cell
+ * (<em>y * width + x</em>) instead of on {@link Node} objects.  The arrays
+ * are reused from one search to the next: each cell is stamped with the id
+ * of the search that last reached it, so starting a new search is O(1).
+ * <p></p>
+ * The cells expanded, the wall time and the path length are always kept,
+ * since search budgets and {@link AStar#getNodesExpanded()} need them.  The
+ * other counts are only kept while {@link #counting} is set, which is while
+ * the searches are recorded into a {@link SearchMetrics}: they are touched
+ * for every cell put in the open list, up to eight times per cell expanded,
+ * and cost 4 to 10% of an A* search on a 512x512 map when kept.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+final class SearchState {
+
+    /**
+     * The distance from the start to each cell (g)
+     */
+    float[] distanceTraveled;
+
+    /**
+     * The cell each cell was reached from, or -1 for the start
+     */
+    int[] parent;
+
+    /**
+     * The id of the search that last reached each cell.  The id is stored
+     * negated once the cell has been moved to the closed list.
+     */
+    int[] stamp;
+
+    /**
+     * The id of the current search
+     */
+    int searchId;
+
+    /**
+     * The id the current search began with.  A search that is repeated
+     * with {@link #nextIteration()} takes a new id each time but keeps the
+     * cells reached under its earlier ids.
+     */
+    private int firstId;
+
+    /**
+     * The cells that still need to be visited
+     */
+    OpenList openList;
+
+    /**
+     * If the current search keeps the counts of generated, improved and
+     * reopened cells and the peak size of the open list.  Otherwise they
+     * stay 0.
+     */
+    boolean counting;
+
+    /**
+     * The number of cells taken out of the open list by the current search
+     */
+    int expanded;
+
+    /**
+     * The number of cells put in the open list by the current search
+     */
+    int generated;
+
+    /**
+     * The number of times the current search found a shorter way to a cell
+     * that was already in the open list
+     */
+    int improved;
+
+    /**
+     * The number of times the current search found a shorter way to a cell
+     * it had already closed and had to visit it again
+     */
+    int reopened;
+
+    /**
+     * The most cells the open list has held during the current search
+     */
+    int peakOpen;
+
+    /**
+     * The most cells the open list of the search from the goal held, if
+     * the current search ran from both ends
+     */
+    int reversePeakOpen;
+
+    /**
+     * The number of cells on the path found by the last search
+     */
+    int pathLength;
+
+    /**
+     * How long the last search took in nanoseconds
+     */
+    long time;
+
+    /**
+     * The state of the search from the goal for bidirectional searches, or
+     * null until one is run
+     */
+    private SearchState reverse;
+
+    /**
+     * Creates empty search state.  The arrays are sized by the first search.
+     *
+     * @param openList The open list the search uses
+     */
+    SearchState(OpenList openList) {
+        this.distanceTraveled = new float[0];
+        this.parent   = new int[0];
+        this.stamp    = new int[0];
+        this.searchId = 0;
+        this.openList = openList;
+    }
+
+    /**
+     * Starts a new search over a map with the given number of cells
+     *
+     * @param cells The number of cells in the map being searched
+     */
+    void begin(int cells) {
+        if (stamp.length < cells) {
+            distanceTraveled = new float[cells];
+            parent   = new int[cells];
+            stamp    = new int[cells];
+            searchId = 0;
+        }
+
+        if (searchId == Integer.MAX_VALUE) {
+            // Every id has been used, so really clear the stamps once
+            Arrays.fill(stamp, 0);
+            searchId = 0;
+        }
+
+        searchId++;
+        firstId = searchId;
+        openList.clear();
+        expanded   = 0;
+        generated  = 0;
+        improved   = 0;
+        reopened   = 0;
+        peakOpen   = 0;
+        reversePeakOpen = 0;
+        pathLength = 0;
+    }
+
+    /**
+     * Starts another pass of the current search.  Every cell keeps its
+     * distance and parent and still counts as reached, but no cell is
+     * closed and no cell is counted as being in the open list anymore.
+     * The open list itself is left alone.
+     */
+    void nextIteration() {
+        if (searchId == Integer.MAX_VALUE) {
+            // Every id has been used, so fold the reached cells onto one id
+            for (int cell = 0; cell < stamp.length; cell++) {
+                stamp[cell] = isReached(cell) ? 1 : 0;
+            }
+            searchId = 1;
+            firstId  = 1;
+        }
+        searchId++;
+    }
+
+    /**
+     * Gets the state used by the half of a bidirectional search that runs
+     * from the goal.  It is created the first time it is needed and then
+     * reused like this state is.
+     *
+     * @return The state of the backward search
+     */
+    SearchState reverse() {
+        if (reverse == null) {
+            reverse = new SearchState(new HeapOpenList());
+        }
+        reverse.counting = counting;
+        return reverse;
+    }
+
+    /**
+     * Checks if a cell has been reached by the current search
+     *
+     * @param cell The index of the cell
+     * @return If the cell is in the open or closed list, or was reached by
+     * an earlier pass of the search
+     */
+    boolean isReached(int cell) {
+        // Ids only ever grow, so no cell has a stamp above the current id
+        return Math.abs(stamp[cell]) >= firstId;
+    }
+
+    /**
+     * Checks if a cell is in the open list of the current pass of the search
+     *
+     * @param cell The index of the cell
+     * @return If the cell is waiting to be visited
+     */
+    boolean isOpen(int cell) {
+        return stamp[cell] == searchId;
+    }
+
+    /**
+     * Checks if a cell has already been visited by the current search
+     *
+     * @param cell The index of the cell
+     * @return If the cell is in the closed list
+     */
+    boolean isClosed(int cell) {
+        return stamp[cell] == -searchId;
+    }
+
+    /**
+     * Marks a cell as reached and puts it in the open list
+     *
+     * @param cell             The index of the cell
+     * @param parent           The cell it was reached from
+     * @param distanceTraveled The distance from the start to the cell
+     * @param cost             The value the open list orders the cell by.
+     *                         Ties go to the cell farther from the start,
+     *                         see {@link OpenList#TIE_TOLERANCE}.
+     */
+    void open(int cell, int parent, float distanceTraveled, double cost) {
+        open(cell, parent, distanceTraveled, cost, distanceTraveled);
+    }
+
+    /**
+     * Marks a cell as reached and puts it in the open list with its own
+     * way of breaking ties
+     *
+     * @param cell             The index of the cell
+     * @param parent           The cell it was reached from
+     * @param distanceTraveled The distance from the start to the cell
+     * @param cost             The value the open list orders the cell by
+     * @param tieBreak         The value that decides between cells of the
+     *                         same cost, where the larger one goes first
+     */
+    void open(int cell, int parent, float distanceTraveled, double cost,
+              double tieBreak) {
+        this.stamp[cell]  = searchId;
+        this.parent[cell] = parent;
+        this.distanceTraveled[cell] = distanceTraveled;
+        openList.add(cell, cost, tieBreak);
+
+        if (counting) {
+            generated++;
+            int size = openList.size();
+            if (size > peakOpen) {
+                peakOpen = size;
+            }
+        }
+    }
+
+    /**
+     * Marks a cell as reached without putting it in the open list, for
+     * searches that keep their cells in a queue of their own
+     *
+     * @param cell             The index of the cell
+     * @param parent           The cell it was reached from
+     * @param distanceTraveled The distance from the start to the cell
+     */
+    void reach(int cell, int parent, float distanceTraveled) {
+        this.stamp[cell]  = searchId;
+        this.parent[cell] = parent;
+        this.distanceTraveled[cell] = distanceTraveled;
+    }
+
+    /**
+     * Gets the distance from the start to a cell, or infinity if the
+     * current search hasn't reached it
+     *
+     * @param cell The index of the cell
+     * @return The distance found so far
+     */
+    float distanceTo(int cell) {
+        return isReached(cell) ? distanceTraveled[cell] : Float.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Gives a cell in the open list a shorter distance from the start
+     *
+     * @param cell             The index of the cell
+     * @param parent           The cell it is now reached from
+     * @param distanceTraveled The new distance from the start to the cell
+     * @param cost             The new value the open list orders the cell by
+     */
+    void improve(int cell, int parent, float distanceTraveled, double cost) {
+        improve(cell, parent, distanceTraveled, cost, distanceTraveled);
+    }
+
+    /**
+     * Gives a cell in the open list a shorter distance from the start with
+     * its own way of breaking ties
+     *
+     * @param cell             The index of the cell
+     * @param parent           The cell it is now reached from
+     * @param distanceTraveled The new distance from the start to the cell
+     * @param cost             The new value the open list orders the cell by
+     * @param tieBreak         The value that decides between cells of the
+     *                         same cost, where the larger one goes first
+     */
+    void improve(int cell, int parent, float distanceTraveled, double cost,
+                 double tieBreak) {
+        this.parent[cell] = parent;
+        this.distanceTraveled[cell] = distanceTraveled;
+        openList.update(cell, cost, tieBreak);
+        if (counting) {
+            improved++;
+        }
+    }
+
+    /**
+     * Moves a cell to the closed list
+     *
+     * @param cell The index of the cell
+     */
+    void close(int cell) {
+        stamp[cell] = -searchId;
+    }
+
+    /**
+     * Follows the parents back from the end cell to build the path
+     *
+     * @param start The index of the start cell
+     * @param end   The index of the end cell
+     * @return The cells from the one after the start up to the end
+     */
+    int[] buildPath(int start, int end) {
+        int length = 0;
+        for (int cell = end; cell != start; cell = parent[cell]) {
+            length++;
+        }
+
+        int[] path = new int[length];
+        for (int cell = end; cell != start; cell = parent[cell]) {
+            path[--length] = cell;
+        }
+
+        return path;
+    }
+
+    /**
+     * Follows the parents back from the end cell and writes the path into
+     * an array that already exists
+     *
+     * @param start The index of the start cell
+     * @param end   The index of the end cell
+     * @param path  The array to write the cells from the one after the
+     *              start up to the end into
+     * @return The number of cells on the path.  Nothing is written if this
+     * is more than the length of the array.
+     */
+    int writePath(int start, int end, int[] path) {
+        int length = 0;
+        for (int cell = end; cell != start; cell = parent[cell]) {
+            length++;
+        }
+
+        if (length <= path.length) {
+            int i = length;
+            for (int cell = end; cell != start; cell = parent[cell]) {
+                path[--i] = cell;
+            }
+        }
+
+        return length;
+    }
+}
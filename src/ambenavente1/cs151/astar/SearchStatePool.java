@@ -0,0 +1,93 @@
+package ambenavente1.cs151.astar;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A thread-safe pool of search states so that parallel queries can reuse
+ * their per-cell arrays instead of allocating new ones for every query.
+ * Each state takes 9 bytes per cell of the largest map it searched, so the
+ * pool only keeps as many idle states as it has room for.  A state given
+ * back to a full pool is left for the garbage collector, which only
+ * happens when more queries than that ran at once.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+final class SearchStatePool {
+
+    /**
+     * Search states that aren't being used by a query right now
+     */
+    private final Queue<SearchState> states;
+
+    /**
+     * The number of states in the queue, kept apart since counting the
+     * queue walks it
+     */
+    private final AtomicInteger idle;
+
+    /**
+     * The most idle states the pool keeps
+     */
+    private final int capacity;
+
+    /**
+     * Creates an empty pool that keeps a state for each available processor
+     */
+    SearchStatePool() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates an empty pool
+     *
+     * @param capacity The most idle states to keep, which should be the
+     *                 number of threads that search at once
+     */
+    SearchStatePool(int capacity) {
+        this.states = new ConcurrentLinkedQueue<SearchState>();
+        this.idle = new AtomicInteger();
+        this.capacity = capacity;
+    }
+
+    /**
+     * Takes a search state from the pool, or makes a new one if every state
+     * is in use
+     *
+     * @return A search state that no other query is using
+     */
+    SearchState borrow() {
+        SearchState state = states.poll();
+        if (state == null) {
+            return new SearchState(new HeapOpenList());
+        }
+        idle.decrementAndGet();
+        return state;
+    }
+
+    /**
+     * Puts a search state back into the pool once a query is done with it.
+     * If the pool is full the state is dropped instead.
+     *
+     * @param state The state to return
+     */
+    void release(SearchState state) {
+        if (idle.incrementAndGet() > capacity) {
+            idle.decrementAndGet();
+            return;
+        }
+        states.offer(state);
+    }
+
+    /**
+     * Drops every idle state, so their arrays can be collected.  States in
+     * use can still be given back afterwards.
+     */
+    void clear() {
+        while (states.poll() != null) {
+            idle.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package ambenavente1.cs151.astar;
+
+/**
+ * What one search did: how many cells it touched, how big its open list got,
+ * how long it took and how long a path it found.  Use this to find out why a
+ * particular query was slow.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public final class SearchStats {
+
+    /**
+     * The number of cells taken out of the open list
+     */
+    private final int expanded;
+
+    /**
+     * The number of cells put in the open list
+     */
+    private final int generated;
+
+    /**
+     * The number of times a shorter way was found to a cell already in the
+     * open list
+     */
+    private final int improved;
+
+    /**
+     * The number of times a shorter way was found to a cell that had
+     * already been closed, so it was visited again
+     */
+    private final int reopened;
+
+    /**
+     * The most cells the open list held at once
+     */
+    private final int peakOpenSize;
+
+    /**
+     * The most cells the open list of the search from the goal held at
+     * once, or 0 if the search only ran from the start
+     */
+    private final int reversePeakOpenSize;
+
+    /**
+     * The number of cells on the path, or 0 if none was found
+     */
+    private final int pathLength;
+
+    /**
+     * How long the search took in nanoseconds
+     */
+    private final long wallTime;
+
+    /**
+     * Creates the statistics of one search
+     *
+     * @param expanded     The number of cells taken out of the open list
+     * @param generated    The number of cells put in the open list
+     * @param improved     The number of times a shorter way was found to a
+     *                     cell already in the open list
+     * @param reopened     The number of times a shorter way was found to a
+     *                     cell that had already been closed
+     * @param peakOpenSize The most cells the open list held at once
+     * @param pathLength   The number of cells on the path
+     * @param wallTime     How long the search took in nanoseconds
+     */
+    public SearchStats(int expanded, int generated, int improved, int reopened,
+                       int peakOpenSize, int pathLength, long wallTime) {
+        this(expanded, generated, improved, reopened, peakOpenSize, 0,
+             pathLength, wallTime);
+    }
+
+    /**
+     * Creates the statistics of one search that ran from both ends
+     *
+     * @param expanded            The number of cells taken out of either
+     *                            open list
+     * @param generated           The number of cells put in either open list
+     * @param improved            The number of times a shorter way was found
+     *                            to a cell already in an open list
+     * @param reopened            The number of times a shorter way was found
+     *                            to a cell that had already been closed
+     * @param peakOpenSize        The most cells the open list of the search
+     *                            from the start held at once
+     * @param reversePeakOpenSize The most cells the open list of the search
+     *                            from the goal held at once
+     * @param pathLength          The number of cells on the path
+     * @param wallTime            How long the search took in nanoseconds
+     */
+    public SearchStats(int expanded, int generated, int improved, int reopened,
+                       int peakOpenSize, int reversePeakOpenSize,
+                       int pathLength, long wallTime) {
+        this.expanded = expanded;
+        this.generated = generated;
+        this.improved = improved;
+        this.reopened = reopened;
+        this.peakOpenSize = peakOpenSize;
+        this.reversePeakOpenSize = reversePeakOpenSize;
+        this.pathLength = pathLength;
+        this.wallTime = wallTime;
+    }
+
+    /**
+     * Copies the statistics out of a search state
+     *
+     * @param state The state of the search that just finished
+     */
+    SearchStats(SearchState state) {
+        this(state.expanded, state.generated, state.improved, state.reopened,
+             state.peakOpen, state.reversePeakOpen, state.pathLength,
+             state.time);
+    }
+
+    /**
+     * Gets the number of cells taken out of the open list
+     *
+     * @return The number of cells expanded
+     */
+    public int getExpanded() {
+        return expanded;
+    }
+
+    /**
+     * Gets the number of cells put in the open list
+     *
+     * @return The number of cells generated
+     */
+    public int getGenerated() {
+        return generated;
+    }
+
+    /**
+     * Gets the number of times a shorter way was found to a cell that was
+     * already in the open list, so it had to be moved up
+     *
+     * @return The number of cells whose distance was improved
+     */
+    public int getImproved() {
+        return improved;
+    }
+
+    /**
+     * Gets the number of times a shorter way was found to a cell that had
+     * already been closed, so it had to be visited again.  Plain A* never
+     * does this because its distance estimates never overestimate; the
+     * weighted passes of a {@link PathSearch} do.
+     *
+     * @return The number of cells reopened
+     */
+    public int getReopened() {
+        return reopened;
+    }
+
+    /**
+     * Gets the most cells the open list held at once.  For a bidirectional
+     * search this is the open list of the search from the start; the two
+     * sides peak at different times, so adding them up would overstate how
+     * much was held at once.
+     *
+     * @return The peak size of the open list
+     */
+    public int getPeakOpenSize() {
+        return peakOpenSize;
+    }
+
+    /**
+     * Gets the most cells the open list of the search from the goal held at
+     * once, if the search ran from both ends
+     *
+     * @return The peak size of the backward open list, or 0 if the search
+     * only ran from the start
+     */
+    public int getReversePeakOpenSize() {
+        return reversePeakOpenSize;
+    }
+
+    /**
+     * Gets the number of cells on the path, not counting the start
+     *
+     * @return The length of the path, or 0 if no path was found
+     */
+    public int getPathLength() {
+        return pathLength;
+    }
+
+    /**
+     * Gets how long the search took
+     *
+     * @return The wall time of the search in nanoseconds
+     */
+    public long getWallTime() {
+        return wallTime;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchStats[expanded=" + expanded + ", generated=" + generated +
+               ", improved=" + improved + ", reopened=" + reopened +
+               ", peakOpenSize=" + peakOpenSize +
+               ", reversePeakOpenSize=" + reversePeakOpenSize +
+               ", pathLength=" + pathLength + ", wallTime=" + wallTime + "ns]";
+    }
+}
@@ -0,0 +1,216 @@
+package ambenavente1.cs151.astar;
+
+import java.util.Arrays;
+
+/**
+ * A square piece of a {@link ChunkedWorld}.  Walkability takes one bit per
+ * cell, which is one long for each row of the chunk, and the cost plane is
+ * only allocated once a cell is given a cost other than the default, so a
+ * loaded chunk without terrain takes about 600 bytes.
+ * <p></p>
+ * Cells are given in coordinates local to the chunk, from 0 to
+ * {@link #SIZE} - 1.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public final class WorldChunk {
+
+    /**
+     * The power of two the size of a chunk is
+     */
+    static final int SHIFT = 6;
+
+    /**
+     * The number of cells wide and tall each chunk is
+     */
+    public static final int SIZE = 1 << SHIFT;
+
+    /**
+     * The x coordinate of the chunk, in chunks
+     */
+    final int chunkX;
+
+    /**
+     * The y coordinate of the chunk, in chunks
+     */
+    final int chunkY;
+
+    /**
+     * The packed coordinates the world keeps the chunk under
+     */
+    final Long key;
+
+    /**
+     * The walkability of each row, with bit x set if the cell at x is
+     * walkable, or null once the chunk is evicted
+     */
+    private long[] rows;
+
+    /**
+     * The cost of each cell in row order, or null if every cell has the
+     * default cost
+     */
+    private float[] costs;
+
+    /**
+     * The lowest cost of any cell of the chunk
+     */
+    private float minCost;
+
+    /**
+     * The highest cost of any cell of the chunk
+     */
+    private float maxCost;
+
+    /**
+     * If the world has let go of this chunk.  Windows that still hold on to
+     * it have to ask the world for the chunk again.
+     */
+    boolean evicted;
+
+    /**
+     * Creates a chunk where every cell is walkable with the default cost
+     *
+     * @param chunkX The x coordinate of the chunk, in chunks
+     * @param chunkY The y coordinate of the chunk, in chunks
+     * @param key    The packed coordinates the world keeps the chunk under
+     */
+    WorldChunk(int chunkX, int chunkY, Long key) {
+        this.chunkX  = chunkX;
+        this.chunkY  = chunkY;
+        this.key     = key;
+        this.rows    = new long[SIZE];
+        this.minCost = AbstractGridMap.DEFAULT_COST;
+        this.maxCost = AbstractGridMap.DEFAULT_COST;
+
+        Arrays.fill(rows, -1L);
+    }
+
+    /**
+     * Gets the x coordinate of the chunk
+     *
+     * @return The x coordinate of the chunk, in chunks
+     */
+    public int getChunkX() {
+        return chunkX;
+    }
+
+    /**
+     * Gets the y coordinate of the chunk
+     *
+     * @return The y coordinate of the chunk, in chunks
+     */
+    public int getChunkY() {
+        return chunkY;
+    }
+
+    /**
+     * Checks if a cell of the chunk can be walked on
+     *
+     * @param x The x coordinate of the cell within the chunk
+     * @param y The y coordinate of the cell within the chunk
+     * @return If the cell is walkable
+     */
+    public boolean isWalkable(int x, int y) {
+        return (rows[y] & (1L << x)) != 0;
+    }
+
+    /**
+     * Sets whether a cell of the chunk can be walked on
+     *
+     * @param x        The x coordinate of the cell within the chunk
+     * @param y        The y coordinate of the cell within the chunk
+     * @param walkable If the cell is walkable
+     */
+    public void setWalkable(int x, int y, boolean walkable) {
+        checkBounds(x, y);
+
+        if (walkable) {
+            rows[y] |= 1L << x;
+        } else {
+            rows[y] &= ~(1L << x);
+        }
+    }
+
+    /**
+     * Gets the cost of entering a cell of the chunk
+     *
+     * @param x The x coordinate of the cell within the chunk
+     * @param y The y coordinate of the cell within the chunk
+     * @return The cost of the cell
+     */
+    public float getCost(int x, int y) {
+        return costs != null ? costs[(y << SHIFT) + x] :
+                               AbstractGridMap.DEFAULT_COST;
+    }
+
+    /**
+     * Sets the cost of entering a cell of the chunk
+     *
+     * @param x    The x coordinate of the cell within the chunk
+     * @param y    The y coordinate of the cell within the chunk
+     * @param cost The cost of the cell, which must be positive
+     */
+    public void setCost(int x, int y, float cost) {
+        checkBounds(x, y);
+
+        if (!(cost > 0) || Float.isInfinite(cost)) {
+            throw new IllegalArgumentException("Invalid cost: " + cost);
+        }
+
+        if (costs == null) {
+            if (cost == AbstractGridMap.DEFAULT_COST) {
+                return;
+            }
+            costs = new float[SIZE * SIZE];
+            Arrays.fill(costs, AbstractGridMap.DEFAULT_COST);
+        }
+
+        costs[(y << SHIFT) + x] = cost;
+        minCost = Math.min(minCost, cost);
+        maxCost = Math.max(maxCost, cost);
+    }
+
+    /**
+     * Gets the lowest cost any cell of the chunk has had
+     *
+     * @return The lowest cost
+     */
+    float getMinCost() {
+        return minCost;
+    }
+
+    /**
+     * Gets the highest cost any cell of the chunk has had
+     *
+     * @return The highest cost
+     */
+    float getMaxCost() {
+        return maxCost;
+    }
+
+    /**
+     * Lets go of the cells of the chunk once the world has evicted it.
+     * Windows may still hold on to the chunk until they next look at it, so
+     * only the arrays are freed here.
+     */
+    void evict() {
+        evicted = true;
+        rows    = null;
+        costs   = null;
+    }
+
+    /**
+     * Makes sure a cell is inside of the chunk
+     *
+     * @param x The x coordinate of the cell within the chunk
+     * @param y The y coordinate of the cell within the chunk
+     */
+    private static void checkBounds(int x, int y) {
+        if (x < 0 || y < 0 || x >= SIZE || y >= SIZE) {
+            throw new IndexOutOfBoundsException("(" + x + ", " + y + ") is " +
+                                                "outside of the chunk");
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package ambenavente1.cs151.astar;
+
+import java.util.Arrays;
+
+/**
+ * A rectangle of a {@link ChunkedWorld} that can be searched like any other
+ * map.  Cell (0, 0) of the window is the world cell at its origin, and
+ * paths found on the window are turned back into world coordinates by
+ * adding the origin.  Searches only need arrays as large as the window, not
+ * the world, and the chunks under the window are only loaded where a search
+ * looks, so a window can be made generously large.
+ * <p></p>
+ * The window keeps the chunks it has used so most cells are read without
+ * asking the world, and asks again for any chunk the world has evicted
+ * since.  A chunk is marked as used when the window moves on to it from
+ * another chunk rather than on every read, which keeps reading a cell
+ * cheap while the world still evicts the chunks searches have left.  Like {@link MappedGrid}, the allowed moves of each cell are
+ * worked out each time they are asked for.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public class WorldWindow implements GridMap {
+
+    /**
+     * The cells of a chunk that a world coordinate is reduced to
+     */
+    private static final int LOCAL_MASK = WorldChunk.SIZE - 1;
+
+    /**
+     * The world the window looks onto
+     */
+    private final ChunkedWorld world;
+
+    /**
+     * The number of cells wide the window is
+     */
+    private final int width;
+
+    /**
+     * The number of cells tall the window is
+     */
+    private final int height;
+
+    /**
+     * The world x coordinate of the window's left column
+     */
+    private int originX;
+
+    /**
+     * The world y coordinate of the window's top row
+     */
+    private int originY;
+
+    /**
+     * The x coordinate in chunks of the chunk under the window's left column
+     */
+    private int firstChunkX;
+
+    /**
+     * The y coordinate in chunks of the chunk under the window's top row
+     */
+    private int firstChunkY;
+
+    /**
+     * The number of chunks in each row of the slots
+     */
+    private final int slotsWide;
+
+    /**
+     * The chunks under the window in row order, or null where a chunk
+     * hasn't been asked for yet
+     */
+    private final WorldChunk[] slots;
+
+    /**
+     * The chunk the window last read a cell of
+     */
+    private WorldChunk lastChunk;
+
+    /**
+     * The number of times the window was moved
+     */
+    private long moves;
+
+    /**
+     * Creates a window.  Use {@link ChunkedWorld#window(int, int, int, int)}
+     * to make one.
+     *
+     * @param world   The world to look onto
+     * @param originX The world x coordinate of the window's left column
+     * @param originY The world y coordinate of the window's top row
+     * @param width   The number of cells wide the window is
+     * @param height  The number of cells tall the window is
+     */
+    WorldWindow(ChunkedWorld world, int originX, int originY,
+                int width, int height) {
+        if (width < 0 || height < 0 || (long) width * height > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid window size: " +
+                                               width + "x" + height);
+        }
+
+        this.world  = world;
+        this.width  = width;
+        this.height = height;
+
+        // Enough chunks for the window wherever it lines up with them
+        this.slotsWide = ((width + WorldChunk.SIZE - 2) >> WorldChunk.SHIFT) + 1;
+        int slotsHigh  = ((height + WorldChunk.SIZE - 2) >> WorldChunk.SHIFT) + 1;
+        this.slots = new WorldChunk[slotsWide * slotsHigh];
+
+        moveTo(originX, originY);
+        this.moves = 0;
+    }
+
+    /**
+     * Moves the window to another part of the world, keeping its size.
+     * This changes the version of the window.
+     *
+     * @param originX The world x coordinate of the window's new left column
+     * @param originY The world y coordinate of the window's new top row
+     */
+    public void moveTo(int originX, int originY) {
+        this.originX = originX;
+        this.originY = originY;
+        this.firstChunkX = originX >> WorldChunk.SHIFT;
+        this.firstChunkY = originY >> WorldChunk.SHIFT;
+        Arrays.fill(slots, null);
+        lastChunk = null;
+        moves++;
+    }
+
+    /**
+     * Gets the chunk under a world cell of the window
+     *
+     * @param worldX The world x coordinate of the cell
+     * @param worldY The world y coordinate of the cell
+     * @return The loaded chunk
+     */
+    private WorldChunk chunkAt(int worldX, int worldY) {
+        int chunkX = worldX >> WorldChunk.SHIFT;
+        int chunkY = worldY >> WorldChunk.SHIFT;
+        int slot = (chunkY - firstChunkY) * slotsWide + chunkX - firstChunkX;
+
+        WorldChunk chunk = slots[slot];
+        if (chunk == null || chunk.evicted) {
+            chunk = world.getChunk(chunkX, chunkY);
+            slots[slot] = chunk;
+        } else if (chunk != lastChunk) {
+            // Runs of reads from the same chunk only count as one use
+            world.touch(chunk);
+        }
+        lastChunk = chunk;
+        return chunk;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public boolean isWalkable(int x, int y) {
+        int worldX = originX + x;
+        int worldY = originY + y;
+        return chunkAt(worldX, worldY).isWalkable(worldX & LOCAL_MASK,
+                                                  worldY & LOCAL_MASK);
+    }
+
+    @Override
+    public float getCost(int x, int y) {
+        int worldX = originX + x;
+        int worldY = originY + y;
+        return chunkAt(worldX, worldY).getCost(worldX & LOCAL_MASK,
+                                               worldY & LOCAL_MASK);
+    }
+
+    @Override
+    public float getMinCost() {
+        return world.getMinCost();
+    }
+
+    @Override
+    public boolean isUniformCost() {
+        return world.getMinCost() == world.getMaxCost();
+    }
+
+    @Override
+    public Connectivity getConnectivity() {
+        return world.getConnectivity();
+    }
+
+    @Override
+    public int getNeighborMask(int x, int y) {
+        return world.getConnectivity().neighborMask(this, x, y);
+    }
+
+    /**
+     * Gets a number that changes every time the window is moved or chunks
+     * of the world are invalidated
+     *
+     * @return The current version of the window
+     */
+    @Override
+    public long getVersion() {
+        return world.getVersion() + moves;
+    }
+
+    /**
+     * Gets the world x coordinate of the window's left column
+     *
+     * @return The x coordinate of the origin
+     */
+    public int getOriginX() {
+        return originX;
+    }
+
+    /**
+     * Gets the world y coordinate of the window's top row
+     *
+     * @return The y coordinate of the origin
+     */
+    public int getOriginY() {
+        return originY;
+    }
+
+    /**
+     * Gets the world the window looks onto
+     *
+     * @return The world
+     */
+    public ChunkedWorld getWorld() {
+        return world;
+    }
+}
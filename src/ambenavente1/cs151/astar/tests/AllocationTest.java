@@ -0,0 +1,196 @@
+package ambenavente1.cs151.astar.tests;
+
+import ambenavente1.cs151.astar.AStar;
+import ambenavente1.cs151.astar.AbstractGridMap;
+import ambenavente1.cs151.astar.CompactGrid;
+import ambenavente1.cs151.astar.Connectivity;
+import ambenavente1.cs151.astar.Grid;
+import ambenavente1.cs151.astar.Node;
+
+import java.awt.Point;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+/**
+ * Test that counts the bytes allocated by searches with the thread
+ * allocation counter of the JVM.  Once warmed up, an A* search that writes
+ * its path into an array the caller owns must not allocate anything, and
+ * neither must walking the neighbors of the nodes of a {@link Grid} by
+ * index.  The bytes per query of the other ways to ask for a path are
+ * printed for comparison.
+ * <p></p>
+ * Usage: <code>AllocationTest [size] [queries]</code>
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public class AllocationTest {
+
+    /**
+     * The thread allocation counter of the JVM
+     */
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) {
+        int size    = args.length > 0 ? Integer.parseInt(args[0]) : 512;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+
+        if (!THREADS.isThreadAllocatedMemorySupported()) {
+            System.out.println("This JVM can't count allocated bytes");
+            return;
+        }
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+
+        Grid grid = new Grid(size, size);
+        grid.setConnectivity(Connectivity.EIGHT);
+        BenchmarkMaps.randomObstacles(grid, 25, 22);
+        Random random = new Random(23);
+        for (int i = 0; i < size * size / 10; i++) {
+            grid.setCost(random.nextInt(size), random.nextInt(size),
+                         1 + random.nextInt(4));
+        }
+        check(grid, queries, "Grid with terrain");
+
+        CompactGrid compact = new CompactGrid(size, size);
+        compact.setConnectivity(Connectivity.EIGHT_NO_CORNER_CUTTING);
+        BenchmarkMaps.rooms(compact, 24);
+        check(compact, queries, "CompactGrid rooms");
+
+        checkNeighbors(grid);
+        System.out.println("Searches into an array allocate nothing");
+    }
+
+    /**
+     * Runs the same queries every way a path can be asked for and prints
+     * the bytes allocated per query
+     *
+     * @param grid    The map to search
+     * @param queries The number of queries to run
+     * @param name    What the map is called in the output
+     */
+    private static void check(AbstractGridMap grid, int queries, String name) {
+        AStar aStar = new AStar(grid);
+        Random random = new Random(25);
+        int[][] points = new int[queries][];
+        for (int i = 0; i < queries; i++) {
+            points[i] = new int[] { randomCell(grid, random),
+                                    randomCell(grid, random) };
+        }
+        int width = grid.getWidth();
+        int[] buffer = new int[grid.getWidth() * grid.getHeight()];
+
+        // Warm up the compiler and grow the search arrays and open list
+        for (int pass = 0; pass < 3; pass++) {
+            for (int[] p : points) {
+                aStar.calculateCellPath(p[0] % width, p[0] / width,
+                                        p[1] % width, p[1] / width, buffer);
+            }
+        }
+
+        long bytes = allocated();
+        long length = 0;
+        for (int[] p : points) {
+            length += Math.max(0, aStar.calculateCellPath(p[0] % width, p[0] / width,
+                                                          p[1] % width, p[1] / width,
+                                                          buffer));
+        }
+        long intoArray = allocated() - bytes;
+
+        bytes = allocated();
+        for (int[] p : points) {
+            aStar.calculateCellPath(p[0] % width, p[0] / width,
+                                    p[1] % width, p[1] / width);
+        }
+        long cellArrays = allocated() - bytes;
+
+        bytes = allocated();
+        for (int[] p : points) {
+            aStar.findPath(p[0] % width, p[0] / width, p[1] % width, p[1] / width);
+        }
+        long paths = allocated() - bytes;
+
+        // The points of the list are only created as they are read
+        bytes = allocated();
+        for (int[] p : points) {
+            for (Point point : aStar.calculatePath(
+                    new Point(p[0] % width, p[0] / width),
+                    new Point(p[1] % width, p[1] / width))) {
+                if (!grid.isWalkable(point.x, point.y)) {
+                    throw new AssertionError("The path goes through a wall");
+                }
+            }
+        }
+        long pointLists = allocated() - bytes;
+
+        System.out.println(name + ", " + queries + " queries averaging " +
+                           length / queries + " cells:");
+        System.out.println(String.format("  Into an array:  %10.1f bytes per query",
+                                         (double) intoArray / queries));
+        System.out.println(String.format("  Cell array:     %10.1f bytes per query",
+                                         (double) cellArrays / queries));
+        System.out.println(String.format("  Path:           %10.1f bytes per query",
+                                         (double) paths / queries));
+        System.out.println(String.format("  List of points: %10.1f bytes per query",
+                                         (double) pointLists / queries));
+
+        if (intoArray != 0) {
+            throw new AssertionError("Searching into an array allocated " +
+                                     intoArray + " bytes");
+        }
+    }
+
+    /**
+     * Makes sure walking every node's neighbors by index and reading their
+     * positions into one point doesn't allocate
+     *
+     * @param grid The grid to walk
+     */
+    private static void checkNeighbors(Grid grid) {
+        Point pos = new Point();
+        long sum = 0;
+        for (int pass = 0; pass < 4; pass++) {
+            long bytes = allocated();
+            for (int cell = 0; cell < grid.getWidth() * grid.getHeight(); cell++) {
+                Node node = grid.getNode(cell);
+                for (int i = 0; i < node.getNeighborCount(); i++) {
+                    sum += node.getNeighbor(i).getPos(pos).x;
+                }
+            }
+            bytes = allocated() - bytes;
+            if (pass == 3 && bytes != 0) {
+                throw new AssertionError("Walking the neighbors allocated " +
+                                         bytes + " bytes");
+            }
+        }
+        if (sum < 0) {
+            throw new AssertionError();
+        }
+    }
+
+    /**
+     * Gets the number of bytes the current thread has allocated so far
+     *
+     * @return The bytes allocated
+     */
+    private static long allocated() {
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Picks a random walkable cell
+     *
+     * @param grid   The map to pick from
+     * @param random The source of random cells
+     * @return The index of a walkable cell
+     */
+    private static int randomCell(AbstractGridMap grid, Random random) {
+        while (true) {
+            int x = random.nextInt(grid.getWidth());
+            int y = random.nextInt(grid.getHeight());
+            if (grid.isWalkable(x, y)) {
+                return y * grid.getWidth() + x;
+            }
+        }
+    }
+}
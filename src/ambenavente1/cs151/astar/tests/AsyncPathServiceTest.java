@@ -0,0 +1,349 @@
+package ambenavente1.cs151.astar.tests;
+
+import ambenavente1.cs151.astar.AStar;
+import ambenavente1.cs151.astar.AsyncPathService;
+import ambenavente1.cs151.astar.CompactGrid;
+import ambenavente1.cs151.astar.Connectivity;
+import ambenavente1.cs151.astar.Path;
+import ambenavente1.cs151.astar.SearchMetrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Test for {@link AsyncPathService}.  Queries answered on a pool must match
+ * A*, duplicate queries must share one search, cancelled queries must never
+ * be searched, a full queue must turn queries away, and a running search
+ * must stop soon after it is cancelled.  Then agents that keep changing
+ * their orders are timed with and without cancelling their stale queries.
+ * <p></p>
+ * Usage: <code>AsyncPathServiceTest [size] [agents]</code>
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public class AsyncPathServiceTest {
+
+    public static void main(String[] args) throws Exception {
+        int size   = args.length > 0 ? Integer.parseInt(args[0]) : 1024;
+        int agents = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+
+        CompactGrid grid = new CompactGrid(256, 256);
+        grid.setConnectivity(Connectivity.EIGHT);
+        BenchmarkMaps.randomObstacles(grid, 25, 15);
+
+        checkPaths(grid);
+        checkCoalescing(grid);
+        checkCancelling(grid);
+        checkCapacity(grid);
+        checkRunningCancel(size);
+        System.out.println("Async queries match A*, share, cancel and reject");
+
+        timeOrders(size, agents);
+    }
+
+    /**
+     * Makes sure queries answered on a pool find the same paths as A*
+     *
+     * @param grid The map to search
+     */
+    private static void checkPaths(CompactGrid grid) throws Exception {
+        AsyncPathService service = new AsyncPathService(grid);
+        AStar aStar = new AStar(grid);
+        Random random = new Random(16);
+        List<int[]> queries = new ArrayList<int[]>();
+        List<CompletableFuture<Path>> futures = new ArrayList<CompletableFuture<Path>>();
+
+        for (int i = 0; i < 300; i++) {
+            int[] query = randomQuery(grid, random);
+            queries.add(query);
+            futures.add(service.findPath(query[0], query[1], query[2], query[3]));
+        }
+        for (int i = 0; i < queries.size(); i++) {
+            int[] query = queries.get(i);
+            if (!futures.get(i).get().equals(aStar.findPath(query[0], query[1],
+                                                            query[2], query[3]))) {
+                throw new AssertionError("Async path " + i + " differs from A*");
+            }
+        }
+        service.shutdown();
+    }
+
+    /**
+     * Makes sure duplicate queries share one search and each of them gets
+     * the path
+     *
+     * @param grid The map to search
+     */
+    private static void checkCoalescing(CompactGrid grid) throws Exception {
+        HeldExecutor executor = new HeldExecutor();
+        AsyncPathService service = new AsyncPathService(grid, executor, 100);
+        SearchMetrics metrics = new SearchMetrics();
+        service.setMetrics(metrics);
+        int[] query = randomQuery(grid, new Random(17));
+
+        List<CompletableFuture<Path>> futures = new ArrayList<CompletableFuture<Path>>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(service.findPath(query[0], query[1], query[2], query[3]));
+        }
+        // Dropping one caller leaves the search running for the others
+        futures.get(0).cancel(false);
+        executor.runAll();
+
+        Path expected = new AStar(grid).findPath(query[0], query[1],
+                                                 query[2], query[3]);
+        for (int i = 1; i < futures.size(); i++) {
+            if (!futures.get(i).get().equals(expected)) {
+                throw new AssertionError("A shared search gave another path");
+            }
+        }
+        if (service.getCoalescedCount() != 9 || metrics.getQueries() != 1 ||
+            service.getCancelledCount() != 0) {
+            throw new AssertionError("Duplicates ran " + metrics.getQueries() +
+                                     " searches");
+        }
+    }
+
+    /**
+     * Makes sure queries that are cancelled while queued, including the
+     * stale queries of an agent, are never searched
+     *
+     * @param grid The map to search
+     */
+    private static void checkCancelling(CompactGrid grid) throws Exception {
+        HeldExecutor executor = new HeldExecutor();
+        AsyncPathService service = new AsyncPathService(grid, executor, 100);
+        SearchMetrics metrics = new SearchMetrics();
+        service.setMetrics(metrics);
+        Random random = new Random(18);
+
+        List<CompletableFuture<Path>> futures = new ArrayList<CompletableFuture<Path>>();
+        for (int i = 0; i < 6; i++) {
+            int[] query = randomQuery(grid, random);
+            futures.add(service.findPath(query[0], query[1], query[2], query[3]));
+        }
+        for (int i = 0; i < 3; i++) {
+            futures.get(i).cancel(false);
+        }
+
+        // Each new order of an agent cancels its last one
+        Object unit = new Object();
+        CompletableFuture<Path> last = null;
+        for (int i = 0; i < 4; i++) {
+            int[] query = randomQuery(grid, random);
+            last = service.findPath(unit, query[0], query[1], query[2], query[3]);
+        }
+        if (service.getQueuedCount() != 4) {
+            throw new AssertionError(service.getQueuedCount() + " queries queued");
+        }
+
+        executor.runAll();
+        for (int i = 3; i < futures.size(); i++) {
+            futures.get(i).get();
+        }
+        last.get();
+        if (metrics.getQueries() != 4 || service.getCancelledCount() != 6) {
+            throw new AssertionError(metrics.getQueries() + " searches ran, " +
+                                     service.getCancelledCount() + " cancelled");
+        }
+        if (service.cancel(unit)) {
+            throw new AssertionError("A finished query was cancelled");
+        }
+    }
+
+    /**
+     * Makes sure a full queue turns new queries away but still shares
+     * searches with queued duplicates
+     *
+     * @param grid The map to search
+     */
+    private static void checkCapacity(CompactGrid grid) throws Exception {
+        HeldExecutor executor = new HeldExecutor();
+        AsyncPathService service = new AsyncPathService(grid, executor, 3);
+        Random random = new Random(19);
+        int[][] queries = new int[4][];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = randomQuery(grid, random);
+        }
+
+        for (int i = 0; i < 3; i++) {
+            service.findPath(queries[i][0], queries[i][1],
+                             queries[i][2], queries[i][3]);
+        }
+        CompletableFuture<Path> shared = service.findPath(queries[0][0],
+                                                          queries[0][1],
+                                                          queries[0][2],
+                                                          queries[0][3]);
+        CompletableFuture<Path> rejected = service.findPath(queries[3][0],
+                                                            queries[3][1],
+                                                            queries[3][2],
+                                                            queries[3][3]);
+        try {
+            rejected.get();
+            throw new AssertionError("A full queue took another query");
+        } catch (ExecutionException e) {
+            if (!(e.getCause() instanceof RejectedExecutionException)) {
+                throw e;
+            }
+        }
+
+        executor.runAll();
+        shared.get();
+    }
+
+    /**
+     * Makes sure a search that is already running stops soon after it is
+     * cancelled, so the thread is free for the next query
+     *
+     * @param size The width and height of the map
+     */
+    private static void checkRunningCancel(int size) throws Exception {
+        CompactGrid grid = splitMap(size);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        AsyncPathService service = new AsyncPathService(grid, executor, 10);
+
+        // Going around the wall has to search most of the half it starts in
+        long start = System.nanoTime();
+        service.findPath(0, 0, size - 1, 0).get();
+        long full = System.nanoTime() - start;
+
+        CompletableFuture<Path> slow = service.findPath(0, 1, size - 1, 0);
+        while (service.getQueuedCount() > 0) {
+            Thread.sleep(1);
+        }
+        start = System.nanoTime();
+        slow.cancel(false);
+        service.findPath(0, 0, 1, 1).get();
+        long freed = System.nanoTime() - start;
+
+        if (freed > full / 2 || service.getCancelledCount() != 1) {
+            throw new AssertionError("The cancelled search kept running");
+        }
+        executor.shutdown();
+        System.out.println(String.format("Search around the wall: %.1f ms, " +
+                                         "thread free after a cancel: %.2f ms",
+                                         full / 1e6, freed / 1e6));
+    }
+
+    /**
+     * Times agents that each change their order several times before the
+     * service gets to it, once with and once without agents
+     *
+     * @param size   The width and height of the map
+     * @param agents The number of agents
+     */
+    private static void timeOrders(int size, int agents) throws Exception {
+        CompactGrid grid = new CompactGrid(size, size);
+        grid.setConnectivity(Connectivity.EIGHT);
+        BenchmarkMaps.randomObstacles(grid, 25, 20);
+        int orders = 5;
+        Random random = new Random(21);
+        int[][] queries = new int[agents * orders][];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = randomQuery(grid, random);
+        }
+
+        System.out.println();
+        System.out.println("Map: " + size + "x" + size + " random 25%, " +
+                           agents + " agents changing orders " + orders +
+                           " times");
+        for (boolean byAgent : new boolean[] { false, true }) {
+            AsyncPathService service = new AsyncPathService(grid);
+            SearchMetrics metrics = new SearchMetrics();
+            service.setMetrics(metrics);
+            List<CompletableFuture<Path>> latest = new ArrayList<CompletableFuture<Path>>();
+
+            long start = System.nanoTime();
+            for (int order = 0; order < orders; order++) {
+                for (int agent = 0; agent < agents; agent++) {
+                    int[] q = queries[order * agents + agent];
+                    CompletableFuture<Path> future = byAgent ?
+                            service.findPath(Integer.valueOf(agent),
+                                             q[0], q[1], q[2], q[3]) :
+                            service.findPath(q[0], q[1], q[2], q[3]);
+                    if (order == orders - 1) {
+                        latest.add(future);
+                    }
+                }
+            }
+            for (CompletableFuture<Path> future : latest) {
+                future.get();
+            }
+            long time = System.nanoTime() - start;
+            service.shutdown();
+
+            System.out.println(String.format("%-22s %8.1f ms until every agent " +
+                                             "has its path, %5d searches run",
+                                             byAgent ? "Stale orders cancelled:" :
+                                                       "Every order searched:",
+                                             time / 1e6, metrics.getQueries()));
+        }
+    }
+
+    /**
+     * Makes a map split by a wall down the middle with a gap at the bottom
+     *
+     * @param size The width and height of the map
+     * @return The map
+     */
+    private static CompactGrid splitMap(int size) {
+        CompactGrid grid = new CompactGrid(size, size);
+        grid.setConnectivity(Connectivity.EIGHT);
+        for (int y = 0; y < size - 1; y++) {
+            grid.setWalkable(size / 2, y, false);
+        }
+        return grid;
+    }
+
+    /**
+     * Picks a random query between two walkable cells
+     *
+     * @param grid   The map to pick from
+     * @param random The source of random cells
+     * @return The start x and y and the end x and y
+     */
+    private static int[] randomQuery(CompactGrid grid, Random random) {
+        int[] query = new int[4];
+        for (int i = 0; i < 4; i += 2) {
+            do {
+                query[i] = random.nextInt(grid.getWidth());
+                query[i + 1] = random.nextInt(grid.getHeight());
+            } while (!grid.isWalkable(query[i], query[i + 1]));
+        }
+        return query;
+    }
+
+    /**
+     * An executor that holds every task until it is told to run them, so
+     * the queue can be looked at while nothing is running
+     */
+    private static class HeldExecutor implements Executor {
+
+        /**
+         * The tasks that haven't run yet
+         */
+        private final List<Runnable> tasks = new ArrayList<Runnable>();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        /**
+         * Runs every held task on the calling thread
+         */
+        void runAll() {
+            for (Runnable task : tasks) {
+                task.run();
+            }
+            tasks.clear();
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package ambenavente1.cs151.astar.tests;
+
+import ambenavente1.cs151.astar.AbstractGridMap;
+import ambenavente1.cs151.astar.CompactGrid;
+import ambenavente1.cs151.astar.MovingAi;
+
+import java.awt.Point;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Random;
+
+/**
+ * The families of maps the benchmarks search: open fields, random obstacles,
+ * mazes, rooms joined by corridors and maps in the Moving AI
+ * <code>.map</code> format.  Every generated map is the same for the same
+ * size and seed so runs can be compared with each other.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public class BenchmarkMaps {
+
+    /**
+     * The names of the map families that can be generated
+     */
+    public static final String[] FAMILIES = {
+            "open", "random10", "random25", "random40", "maze", "rooms"
+    };
+
+    /**
+     * This class only has static methods
+     */
+    private BenchmarkMaps() {
+    }
+
+    /**
+     * Fills a map with one of the generated families
+     *
+     * @param map    The map to fill; every cell should start walkable
+     * @param family One of the names in {@link #FAMILIES}
+     * @param seed   The seed for the random parts of the map
+     * @return The same map
+     */
+    public static AbstractGridMap generate(AbstractGridMap map, String family,
+                                           long seed) {
+        if (family.equals("open")) {
+            return map;
+        } else if (family.startsWith("random")) {
+            return randomObstacles(map,
+                    Integer.parseInt(family.substring("random".length())), seed);
+        } else if (family.equals("maze")) {
+            return maze(map, seed);
+        } else if (family.equals("rooms")) {
+            return rooms(map, seed);
+        }
+        throw new IllegalArgumentException("Unknown map family: " + family);
+    }
+
+    /**
+     * Blocks a random percent of the cells of a map
+     *
+     * @param map     The map to fill
+     * @param percent The percent of cells that are not walkable
+     * @param seed    The seed for the random obstacles
+     * @return The same map
+     */
+    public static AbstractGridMap randomObstacles(AbstractGridMap map,
+                                                  int percent, long seed) {
+        Random random = new Random(seed);
+        for (int y = 0; y < map.getHeight(); y++) {
+            for (int x = 0; x < map.getWidth(); x++) {
+                if (random.nextInt(100) < percent) {
+                    map.setWalkable(x, y, false);
+                }
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Carves a perfect maze with corridors one cell wide.  Cells with two
+     * odd coordinates are the rooms of the maze and the cells between them
+     * are knocked down by a depth-first walk, so there is exactly one path
+     * between any two open cells.
+     *
+     * @param map  The map to fill
+     * @param seed The seed for the random walk
+     * @return The same map
+     */
+    public static AbstractGridMap maze(AbstractGridMap map, long seed) {
+        int width  = map.getWidth();
+        int height = map.getHeight();
+        fill(map, false);
+
+        int columns = (width - 1) / 2;
+        int rows    = (height - 1) / 2;
+        if (columns == 0 || rows == 0) {
+            return map;
+        }
+
+        Random random = new Random(seed);
+        boolean[] visited = new boolean[columns * rows];
+        int[] stack = new int[columns * rows];
+        int size = 0;
+        int[] choices = new int[4];
+
+        stack[size++] = 0;
+        visited[0] = true;
+        map.setWalkable(1, 1, true);
+
+        while (size > 0) {
+            int room = stack[size - 1];
+            int column = room % columns;
+            int row = room / columns;
+
+            int count = 0;
+            if (row > 0 && !visited[room - columns]) choices[count++] = room - columns;
+            if (row < rows - 1 && !visited[room + columns]) choices[count++] = room + columns;
+            if (column > 0 && !visited[room - 1]) choices[count++] = room - 1;
+            if (column < columns - 1 && !visited[room + 1]) choices[count++] = room + 1;
+
+            if (count == 0) {
+                size--;
+                continue;
+            }
+
+            int next = choices[random.nextInt(count)];
+            int nextColumn = next % columns;
+            int nextRow = next / columns;
+            visited[next] = true;
+            stack[size++] = next;
+
+            map.setWalkable(column + nextColumn + 1, row + nextRow + 1, true);
+            map.setWalkable(nextColumn * 2 + 1, nextRow * 2 + 1, true);
+        }
+
+        return map;
+    }
+
+    /**
+     * Places random rectangular rooms and joins each one to the one placed
+     * before it with an L-shaped corridor, like the maps of a dungeon game
+     *
+     * @param map  The map to fill
+     * @param seed The seed for the random rooms
+     * @return The same map
+     */
+    public static AbstractGridMap rooms(AbstractGridMap map, long seed) {
+        int width  = map.getWidth();
+        int height = map.getHeight();
+        fill(map, false);
+
+        Random random = new Random(seed);
+        int maxRoom = Math.max(4, Math.min(width, height) / 8);
+        int count = Math.max(2, width * height / (maxRoom * maxRoom * 2));
+        int lastX = -1;
+        int lastY = -1;
+
+        for (int i = 0; i < count; i++) {
+            int roomWidth  = Math.min(width - 2, 3 + random.nextInt(maxRoom));
+            int roomHeight = Math.min(height - 2, 3 + random.nextInt(maxRoom));
+            int left = 1 + random.nextInt(Math.max(1, width - roomWidth - 1));
+            int top  = 1 + random.nextInt(Math.max(1, height - roomHeight - 1));
+            carve(map, left, top, left + roomWidth - 1, top + roomHeight - 1);
+
+            int centerX = left + roomWidth / 2;
+            int centerY = top + roomHeight / 2;
+            if (lastX >= 0) {
+                carve(map, Math.min(lastX, centerX), lastY,
+                      Math.max(lastX, centerX), lastY);
+                carve(map, centerX, Math.min(lastY, centerY),
+                      centerX, Math.max(lastY, centerY));
+            }
+            lastX = centerX;
+            lastY = centerY;
+        }
+
+        return map;
+    }
+
+    /**
+     * Reads a map in the Moving AI <code>.map</code> format with octile
+     * movement
+     *
+     * @param file The path of the file to read
+     * @return A grid with the walls of the file
+     * @throws IOException If the file can't be read or isn't a map
+     * @see MovingAi#readMap(File)
+     */
+    public static CompactGrid readMovingAiMap(String file) throws IOException {
+        return MovingAi.readMap(new File(file));
+    }
+
+    /**
+     * Writes a map in the Moving AI <code>.map</code> format, with walkable
+     * cells as <code>.</code> and walls as <code>@</code>
+     *
+     * @param map  The map to write
+     * @param file The file to write to
+     * @throws IOException If the file can't be written
+     */
+    public static void writeMovingAiMap(AbstractGridMap map, File file)
+            throws IOException {
+        PrintWriter out = new PrintWriter(file, "US-ASCII");
+        try {
+            out.println("type octile");
+            out.println("height " + map.getHeight());
+            out.println("width " + map.getWidth());
+            out.println("map");
+            for (int y = 0; y < map.getHeight(); y++) {
+                StringBuilder row = new StringBuilder(map.getWidth());
+                for (int x = 0; x < map.getWidth(); x++) {
+                    row.append(map.isWalkable(x, y) ? '.' : '@');
+                }
+                out.println(row);
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Picks a random walkable cell of a map
+     *
+     * @param map    The map to pick from; it needs a walkable cell
+     * @param random The random number generator to use
+     * @return The coordinates of the cell
+     */
+    public static Point randomWalkable(AbstractGridMap map, Random random) {
+        while (true) {
+            int x = random.nextInt(map.getWidth());
+            int y = random.nextInt(map.getHeight());
+            if (map.isWalkable(x, y)) {
+                return new Point(x, y);
+            }
+        }
+    }
+
+    /**
+     * Makes every cell in a rectangle walkable
+     *
+     * @param map    The map to change
+     * @param left   The left column of the rectangle
+     * @param top    The top row of the rectangle
+     * @param right  The right column of the rectangle
+     * @param bottom The bottom row of the rectangle
+     */
+    private static void carve(AbstractGridMap map, int left, int top,
+                              int right, int bottom) {
+        for (int y = top; y <= bottom; y++) {
+            for (int x = left; x <= right; x++) {
+                map.setWalkable(x, y, true);
+            }
+        }
+    }
+
+    /**
+     * Sets every cell of a map to be walkable or not
+     *
+     * @param map      The map to change
+     * @param walkable If the cells can be walked through
+     */
+    private static void fill(AbstractGridMap map, boolean walkable) {
+        for (int y = 0; y < map.getHeight(); y++) {
+            for (int x = 0; x < map.getWidth(); x++) {
+                map.setWalkable(x, y, walkable);
+            }
+        }
+    }
+}
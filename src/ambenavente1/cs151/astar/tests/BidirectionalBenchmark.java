@@ -0,0 +1,135 @@
+package ambenavente1.cs151.astar.tests;
+
+import ambenavente1.cs151.astar.AStar;
+import ambenavente1.cs151.astar.Algorithm;
+import ambenavente1.cs151.astar.CompactGrid;
+import ambenavente1.cs151.astar.Connectivity;
+
+import java.util.Random;
+
+/**
+ * Benchmark that runs the same queries on the same grid with plain A* and
+ * bidirectional A*, picking the algorithm per query.  It checks that both
+ * find paths of the same cost and prints how many cells each one expanded
+ * and how long it took.  The last map has random cell costs.
+ * <p></p>
+ * Usage: <code>BidirectionalBenchmark [size] [queries] [connectivity]</code>
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public class BidirectionalBenchmark {
+
+    public static void main(String[] args) {
+        int size    = args.length > 0 ? Integer.parseInt(args[0]) : 512;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        Connectivity connectivity = args.length > 2 ?
+                Connectivity.valueOf(args[2]) : Connectivity.FOUR;
+
+        System.out.println("Map         A* expanded     Bidi expanded   " +
+                           "A* ms   Bidi ms");
+        for (String family : BenchmarkMaps.FAMILIES) {
+            CompactGrid grid = new CompactGrid(size, size);
+            grid.setConnectivity(connectivity);
+            BenchmarkMaps.generate(grid, family, 4);
+            run(family, grid, queries);
+        }
+
+        CompactGrid terrain = new CompactGrid(size, size);
+        terrain.setConnectivity(connectivity);
+        BenchmarkMaps.generate(terrain, "random10", 4);
+        Random random = new Random(9);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                terrain.setCost(x, y, 1 + random.nextInt(4));
+            }
+        }
+        run("terrain", terrain, queries);
+    }
+
+    /**
+     * Runs random queries on a grid with both algorithms and prints the
+     * totals
+     *
+     * @param name    The name of the kind of map
+     * @param grid    The grid to search
+     * @param queries The number of queries to run
+     */
+    private static void run(String name, CompactGrid grid, int queries) {
+        AStar aStar = new AStar(grid);
+        Random random = new Random(17);
+        int size = grid.getWidth();
+        long aStarExpanded = 0;
+        long bidiExpanded = 0;
+        long aStarTime = 0;
+        long bidiTime = 0;
+
+        for (int i = 0; i < queries; i++) {
+            int sx = random.nextInt(size);
+            int sy = random.nextInt(size);
+            int ex = random.nextInt(size);
+            int ey = random.nextInt(size);
+            grid.setWalkable(sx, sy, true);
+            grid.setWalkable(ex, ey, true);
+
+            long start = System.nanoTime();
+            int[] expected = aStar.calculateCellPath(sx, sy, ex, ey,
+                                                     Algorithm.A_STAR);
+            aStarTime += System.nanoTime() - start;
+            aStarExpanded += aStar.getNodesExpanded();
+
+            start = System.nanoTime();
+            int[] path = aStar.calculateCellPath(sx, sy, ex, ey,
+                                                 Algorithm.BIDIRECTIONAL_A_STAR);
+            bidiTime += System.nanoTime() - start;
+            bidiExpanded += aStar.getNodesExpanded();
+
+            double cost = cost(grid, sx, sy, path);
+            double expectedCost = cost(grid, sx, sy, expected);
+            if ((path.length == 0) != (expected.length == 0) ||
+                Math.abs(cost - expectedCost) > expectedCost * 0.001) {
+                throw new AssertionError(name + ": bidirectional path costs " +
+                                         cost + " but A*'s costs " +
+                                         expectedCost);
+            }
+        }
+
+        System.out.println(String.format("%-11s %-15d %-15d %-7d %d", name,
+                aStarExpanded, bidiExpanded,
+                aStarTime / 1000000, bidiTime / 1000000));
+    }
+
+    /**
+     * Adds up the cost of a path and makes sure every step is a move the
+     * grid allows
+     *
+     * @param grid   The grid that was searched
+     * @param startX The x coordinate of the start
+     * @param startY The y coordinate of the start
+     * @param path   The cells on the path
+     * @return The cost of the path
+     */
+    private static double cost(CompactGrid grid, int startX, int startY,
+                               int[] path) {
+        int width = grid.getWidth();
+        int x = startX;
+        int y = startY;
+        double cost = 0;
+
+        for (int cell : path) {
+            int nx = cell % width;
+            int ny = cell / width;
+            boolean diagonal = nx != x && ny != y;
+            if (!grid.isWalkable(nx, ny) ||
+                Math.max(Math.abs(nx - x), Math.abs(ny - y)) != 1 ||
+                (!grid.getConnectivity().allowsDiagonal() && diagonal)) {
+                throw new AssertionError("Invalid step to (" + nx + ", " + ny + ")");
+            }
+            cost += grid.getCost(nx, ny) * (diagonal ? Math.sqrt(2) : 1);
+            x = nx;
+            y = ny;
+        }
+
+        return cost;
+    }
+}
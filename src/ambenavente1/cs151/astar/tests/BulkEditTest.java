@@ -0,0 +1,492 @@
+package ambenavente1.cs151.astar.tests;
+
+import ambenavente1.cs151.astar.AStar;
+import ambenavente1.cs151.astar.AbstractGridMap;
+import ambenavente1.cs151.astar.AsyncPathService;
+import ambenavente1.cs151.astar.CompactGrid;
+import ambenavente1.cs151.astar.Connectivity;
+import ambenavente1.cs151.astar.FlowField;
+import ambenavente1.cs151.astar.Grid;
+import ambenavente1.cs151.astar.GridListener;
+import ambenavente1.cs151.astar.GridMap;
+import ambenavente1.cs151.astar.Path;
+import ambenavente1.cs151.astar.PathService;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Test for the bulk edits of {@link AbstractGridMap}.  Filling rectangles,
+ * stamping masks and applying diffs must leave the walkability, allowed
+ * moves and regions exactly as making the same edits one cell at a time
+ * does, tell the listeners once per batch, and leave a flow field that
+ * listens to the map the same as a new one.  While a map is edited in bulk
+ * on one thread, queries on others must only ever see it before or after
+ * an edit, and listeners must be able to read the map they are told
+ * about.  Then explosions on a large map are timed both ways, and so are
+ * batches of a single cell, which should cost about the same as setting
+ * the cell on its own.
+ * <p></p>
+ * Usage: <code>BulkEditTest [size] [explosions]</code>
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public class BulkEditTest {
+
+    public static void main(String[] args) throws Exception {
+        int size       = args.length > 0 ? Integer.parseInt(args[0]) : 2048;
+        int explosions = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        for (Connectivity connectivity : Connectivity.values()) {
+            check(new CompactGrid(64, 48), new CompactGrid(64, 48),
+                  connectivity, 300);
+        }
+        check(new Grid(40, 30), new Grid(40, 30), Connectivity.EIGHT, 100);
+        System.out.println("Bulk edits match the same edits one cell at a time");
+
+        checkConcurrent();
+        System.out.println("Concurrent queries see every bulk edit whole");
+
+        time(size, explosions);
+        timeSmallBatches(size, explosions * 50);
+    }
+
+    /**
+     * Makes random bulk edits to one map and the same edits one cell at a
+     * time to another, and compares them after each batch
+     *
+     * @param bulk         The map edited in bulk
+     * @param single       The map edited one cell at a time
+     * @param connectivity The ways a path is allowed to move
+     * @param batches      The number of batches to make
+     */
+    private static void check(AbstractGridMap bulk, AbstractGridMap single,
+                              Connectivity connectivity, int batches) {
+        bulk.setConnectivity(connectivity);
+        single.setConnectivity(connectivity);
+        BenchmarkMaps.randomObstacles(bulk, 30, 30);
+        BenchmarkMaps.randomObstacles(single, 30, 30);
+
+        // Build the regions so the batches have to keep them up to date
+        bulk.getComponent(0, 0);
+        single.getComponent(0, 0);
+        CountingListener listener = new CountingListener();
+        bulk.addGridListener(listener);
+        FlowField field = new FlowField(bulk, 5, 5, 1);
+
+        int width = bulk.getWidth();
+        int height = bulk.getHeight();
+        Random random = new Random(31);
+        for (int batch = 0; batch < batches; batch++) {
+            int x = random.nextInt(width);
+            int y = random.nextInt(height);
+            // Now and then a batch big enough to label the regions again
+            int w = 1 + random.nextInt(batch % 25 == 0 ? width : 10);
+            int h = 1 + random.nextInt(batch % 25 == 0 ? height : 10);
+            w = Math.min(w, width - x);
+            h = Math.min(h, height - y);
+
+            long version = bulk.getVersion();
+            listener.calls = 0;
+            boolean changed;
+            switch (batch % 3) {
+                case 0: {
+                    boolean walkable = random.nextBoolean();
+                    changed = countChanges(single, x, y, w, h, walkable) > 0;
+                    bulk.fillWalkable(x, y, x + w - 1, y + h - 1, walkable);
+                    for (int cy = y; cy < y + h; cy++) {
+                        for (int cx = x; cx < x + w; cx++) {
+                            single.setWalkable(cx, cy, walkable);
+                        }
+                    }
+                    break;
+                }
+                case 1: {
+                    long[] mask = new long[(w * h + 63) / 64];
+                    for (int i = 0; i < mask.length; i++) {
+                        mask[i] = random.nextLong();
+                    }
+                    changed = false;
+                    int bit = 0;
+                    for (int cy = y; cy < y + h; cy++) {
+                        for (int cx = x; cx < x + w; cx++, bit++) {
+                            boolean walkable = (mask[bit / 64] & (1L << bit)) != 0;
+                            changed |= single.isWalkable(cx, cy) != walkable;
+                            single.setWalkable(cx, cy, walkable);
+                        }
+                    }
+                    bulk.applyMask(x, y, w, h, mask);
+                    break;
+                }
+                default: {
+                    // Cells spread over the map, some of them listed twice
+                    int count = 1 + random.nextInt(30);
+                    int[] cells = new int[count];
+                    boolean[] walkable = new boolean[count];
+                    for (int i = 0; i < count; i++) {
+                        cells[i] = i > 0 && random.nextInt(5) == 0 ?
+                                   cells[i - 1] : random.nextInt(width * height);
+                        walkable[i] = random.nextBoolean();
+                    }
+                    boolean[] before = new boolean[count];
+                    for (int i = 0; i < count; i++) {
+                        before[i] = single.isWalkable(cells[i] % width,
+                                                      cells[i] / width);
+                    }
+                    for (int i = 0; i < count; i++) {
+                        single.setWalkable(cells[i] % width, cells[i] / width,
+                                           walkable[i]);
+                    }
+                    changed = false;
+                    for (int i = 0; i < count; i++) {
+                        changed |= before[i] != walkable[i];
+                    }
+                    bulk.applyDiff(cells, walkable);
+                    break;
+                }
+            }
+
+            if (listener.calls > 1 || (changed && listener.calls == 0) ||
+                (listener.calls == 0) != (bulk.getVersion() == version)) {
+                throw new AssertionError("Batch " + batch + " told the listeners " +
+                                         listener.calls + " times");
+            }
+            compare(bulk, single, batch);
+            compareField(field, bulk, batch);
+        }
+        field.dispose();
+    }
+
+    /**
+     * Counts the cells of a rectangle that don't already have a walkability
+     *
+     * @param map      The map to look at
+     * @param x        The x coordinate of the rectangle's left column
+     * @param y        The y coordinate of the rectangle's top row
+     * @param w        The number of cells wide the rectangle is
+     * @param h        The number of cells tall the rectangle is
+     * @param walkable The walkability to look for
+     * @return The number of cells that would change
+     */
+    private static int countChanges(GridMap map, int x, int y, int w, int h,
+                                    boolean walkable) {
+        int count = 0;
+        for (int cy = y; cy < y + h; cy++) {
+            for (int cx = x; cx < x + w; cx++) {
+                if (map.isWalkable(cx, cy) != walkable) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Makes sure two maps have the same walkability, allowed moves and
+     * regions
+     *
+     * @param bulk   The map edited in bulk
+     * @param single The map edited one cell at a time
+     * @param batch  The number of the batch, for the error message
+     */
+    private static void compare(AbstractGridMap bulk, AbstractGridMap single,
+                                int batch) {
+        Map<Integer, Integer> singleOf = new HashMap<Integer, Integer>();
+        Map<Integer, Integer> bulkOf = new HashMap<Integer, Integer>();
+
+        for (int y = 0; y < bulk.getHeight(); y++) {
+            for (int x = 0; x < bulk.getWidth(); x++) {
+                if (bulk.isWalkable(x, y) != single.isWalkable(x, y) ||
+                    bulk.getNeighborMask(x, y) != single.getNeighborMask(x, y)) {
+                    throw new AssertionError("Cell (" + x + ", " + y + ") " +
+                                             "differs after batch " + batch);
+                }
+
+                // Each region of one map must go with exactly one of the other
+                Integer a = bulk.getComponent(x, y);
+                Integer b = single.getComponent(x, y);
+                if (!singleOf.containsKey(a)) {
+                    singleOf.put(a, b);
+                }
+                if (!bulkOf.containsKey(b)) {
+                    bulkOf.put(b, a);
+                }
+                if (!singleOf.get(a).equals(b) || !bulkOf.get(b).equals(a)) {
+                    throw new AssertionError("Cell (" + x + ", " + y + ") is in " +
+                                             "the wrong region after batch " +
+                                             batch);
+                }
+            }
+        }
+    }
+
+    /**
+     * Makes sure a flow field that was repaired after a batch is the same
+     * as a new one
+     *
+     * @param field The repaired field
+     * @param map   The map it covers
+     * @param batch The number of the batch, for the error message
+     */
+    private static void compareField(FlowField field, AbstractGridMap map,
+                                     int batch) {
+        FlowField fresh = new FlowField(map, field.getGoalX(), field.getGoalY(),
+                                        1);
+        fresh.dispose();
+        for (int y = 0; y < map.getHeight(); y++) {
+            for (int x = 0; x < map.getWidth(); x++) {
+                if (Math.abs(field.getDistance(x, y) - fresh.getDistance(x, y)) >
+                    1e-3f * Math.max(1, fresh.getDistance(x, y))) {
+                    throw new AssertionError("Repaired field differs at (" + x +
+                                             ", " + y + ") after batch " + batch);
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves a door between two places in a wall again and again with bulk
+     * edits while other threads ask for a path through the wall.  Every
+     * path must be the one through either door; a search that saw half of
+     * an edit would find both doors open or both closed.  A listener
+     * looks up the regions after each edit, which only works if it is told
+     * once the edit has let go of the map.
+     */
+    private static void checkConcurrent() throws Exception {
+        final CompactGrid grid = new CompactGrid(100, 100);
+        grid.setConnectivity(Connectivity.EIGHT);
+        grid.fillWalkable(50, 0, 50, 99, false);
+        final int[] doors = { 20 * 100 + 50, 21 * 100 + 50,
+                              80 * 100 + 50, 81 * 100 + 50 };
+        final boolean[] upper = { true, true, false, false };
+        final boolean[] lower = { false, false, true, true };
+
+        grid.applyDiff(doors, lower);
+        final Path throughLower = new AStar(grid).findPath(5, 50, 95, 50);
+        grid.applyDiff(doors, upper);
+        final Path throughUpper = new AStar(grid).findPath(5, 50, 95, 50);
+        grid.getComponent(0, 0);
+        grid.addGridListener(new GridListener() {
+            @Override
+            public void cellsChanged(GridMap map, int minX, int minY, int maxX,
+                                     int maxY, boolean cheaper) {
+                if (!grid.isConnected(5, 50, 95, 50)) {
+                    throw new AssertionError("A listener saw both doors closed");
+                }
+            }
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        final PathService service = new PathService(grid, executor);
+        AsyncPathService async = new AsyncPathService(grid);
+        final AtomicBoolean running = new AtomicBoolean(true);
+        List<Future<Integer>> readers = new ArrayList<Future<Integer>>();
+        for (int i = 0; i < 2; i++) {
+            readers.add(executor.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    int queries = 0;
+                    while (running.get()) {
+                        Path path = service.findPath(5, 50, 95, 50);
+                        if (!path.equals(throughUpper) && !path.equals(throughLower)) {
+                            throw new AssertionError("A query saw half of an edit");
+                        }
+                        queries++;
+                    }
+                    return queries;
+                }
+            }));
+        }
+
+        // An edit every tick of a game running at 60 ticks a second
+        List<CompletableFuture<Path>> futures = new ArrayList<CompletableFuture<Path>>();
+        int edits = 0;
+        int queries = 0;
+        try {
+            long end = System.nanoTime() + 2000000000L;
+            while (System.nanoTime() < end) {
+                grid.applyDiff(doors, edits % 2 == 0 ? lower : upper);
+                if (edits % 2 == 0) {
+                    futures.add(async.findPath(5, 50, 95, 50));
+                }
+                edits++;
+                Thread.sleep(16);
+            }
+            running.set(false);
+
+            for (Future<Integer> reader : readers) {
+                queries += reader.get();
+            }
+            for (CompletableFuture<Path> future : futures) {
+                Path path = future.get();
+                if (!path.equals(throughUpper) && !path.equals(throughLower)) {
+                    throw new AssertionError("An async query saw half of an edit");
+                }
+            }
+        } finally {
+            running.set(false);
+            executor.shutdown();
+            async.shutdown();
+        }
+        System.out.println(edits + " edits during " + queries + " queries and " +
+                           futures.size() + " async queries");
+    }
+
+    /**
+     * Times explosions that clear a disc of cells on a large map with the
+     * regions built and a flow field listening, once one cell at a time and
+     * once as a mask
+     *
+     * @param size       The width and height of the map
+     * @param explosions The number of explosions
+     */
+    private static void time(int size, int explosions) {
+        int radius = 12;
+        int side = radius * 2 + 1;
+        long[] disc = new long[(side * side + 63) / 64];
+        int cells = 0;
+        for (int i = 0; i < side * side; i++) {
+            int dx = i % side - radius;
+            int dy = i / side - radius;
+            if (dx * dx + dy * dy <= radius * radius) {
+                disc[i / 64] |= 1L << i;
+                cells++;
+            }
+        }
+
+        System.out.println();
+        System.out.println("Map: " + size + "x" + size + " random 25%, " +
+                           explosions + " explosions of " + cells + " cells");
+        for (boolean inBulk : new boolean[] { false, true }) {
+            CompactGrid grid = new CompactGrid(size, size);
+            grid.setConnectivity(Connectivity.EIGHT);
+            BenchmarkMaps.randomObstacles(grid, 25, 32);
+            grid.getComponent(0, 0);
+            FlowField field = new FlowField(grid, size / 2, size / 2);
+            CountingListener listener = new CountingListener();
+            grid.addGridListener(listener);
+            Random random = new Random(33);
+
+            long start = System.nanoTime();
+            for (int i = 0; i < explosions; i++) {
+                int x = random.nextInt(size - side);
+                int y = random.nextInt(size - side);
+                if (inBulk) {
+                    // Walls outside of the disc are left as they are
+                    long[] mask = disc.clone();
+                    for (int bit = 0; bit < side * side; bit++) {
+                        if (grid.isWalkable(x + bit % side, y + bit / side)) {
+                            mask[bit / 64] |= 1L << bit;
+                        }
+                    }
+                    grid.applyMask(x, y, side, side, mask);
+                } else {
+                    for (int bit = 0; bit < side * side; bit++) {
+                        if ((disc[bit / 64] & (1L << bit)) != 0) {
+                            grid.setWalkable(x + bit % side, y + bit / side, true);
+                        }
+                    }
+                }
+            }
+            long time = System.nanoTime() - start;
+            field.dispose();
+
+            System.out.println(String.format("%-22s %8.2f ms per explosion, " +
+                                             "%6d listener calls",
+                                             inBulk ? "Applied as a mask:" :
+                                                      "One cell at a time:",
+                                             time / 1e6 / explosions,
+                                             listener.calls));
+        }
+    }
+
+    /**
+     * Times batches that each toggle one door on a large map with the
+     * regions built.  A batch of one cell changes the regions in place
+     * like setting the cell does, so both ways should take about as
+     * long.
+     *
+     * @param size    The width and height of the map
+     * @param batches The number of doors to toggle
+     */
+    private static void timeSmallBatches(int size, int batches) {
+        System.out.println();
+        System.out.println("Map: " + size + "x" + size + " 4-way random 45%, " +
+                           batches + " one-cell batches");
+        // The fastest of a few rounds, since the first ones are mostly the
+        // compiler catching up
+        long[] fastest = { Long.MAX_VALUE, Long.MAX_VALUE };
+        for (int round = 0; round < 4; round++) {
+            for (int way = 0; way < 2; way++) {
+                fastest[way] = Math.min(fastest[way],
+                                        timeBatches(size, batches, way == 1));
+            }
+        }
+        for (int way = 0; way < 2; way++) {
+            System.out.println(String.format("%-22s %8.2f us per batch",
+                                             way == 1 ? "Applied as a diff:" :
+                                                        "One cell at a time:",
+                                             fastest[way] / 1e3 / batches));
+        }
+    }
+
+    /**
+     * Toggles random cells of a new map one at a time
+     *
+     * @param size    The width and height of the map
+     * @param batches The number of cells to toggle
+     * @param inBulk  If each cell is toggled with a diff of one cell
+     * @return How long the toggles took in nanoseconds
+     */
+    private static long timeBatches(int size, int batches, boolean inBulk) {
+        // Lots of small regions, so the union-find structure is large
+        CompactGrid grid = new CompactGrid(size, size);
+        grid.setConnectivity(Connectivity.FOUR);
+        BenchmarkMaps.randomObstacles(grid, 45, 32);
+        grid.getComponent(0, 0);
+        Random random = new Random(34);
+        int[] cells = new int[1];
+        boolean[] walkable = new boolean[1];
+
+        long start = System.nanoTime();
+        for (int i = 0; i < batches; i++) {
+            int x = random.nextInt(size);
+            int y = random.nextInt(size);
+            if (inBulk) {
+                cells[0] = y * size + x;
+                walkable[0] = !grid.isWalkable(x, y);
+                grid.applyDiff(cells, walkable);
+            } else {
+                grid.setWalkable(x, y, !grid.isWalkable(x, y));
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * A listener that counts how many times it was told about edits
+     */
+    private static class CountingListener implements GridListener {
+
+        /**
+         * The number of calls so far
+         */
+        int calls;
+
+        @Override
+        public void cellsChanged(GridMap map, int minX, int minY, int maxX,
+                                 int maxY, boolean cheaper) {
+            calls++;
+        }
+    }
+}
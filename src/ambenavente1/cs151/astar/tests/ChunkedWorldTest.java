@@ -0,0 +1,409 @@
+package ambenavente1.cs151.astar.tests;
+
+import ambenavente1.cs151.astar.AStar;
+import ambenavente1.cs151.astar.ChunkProvider;
+import ambenavente1.cs151.astar.ChunkedWorld;
+import ambenavente1.cs151.astar.CompactGrid;
+import ambenavente1.cs151.astar.Connectivity;
+import ambenavente1.cs151.astar.Path;
+import ambenavente1.cs151.astar.WorldChunk;
+import ambenavente1.cs151.astar.WorldWindow;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Test for {@link ChunkedWorld}.  Paths found on a window onto a world of
+ * generated chunks must be the same as the paths found on a
+ * {@link CompactGrid} holding the same cells, with windows that straddle
+ * negative coordinates and chunk edges, with room for only a few chunks so
+ * they are evicted during searches, and after chunks are invalidated.
+ * Then a long query far from the world's origin is timed, and the chunks it
+ * loaded are compared with the size of its window.
+ * <p></p>
+ * Usage: <code>ChunkedWorldTest [distance] [queries]</code>
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public class ChunkedWorldTest {
+
+    public static void main(String[] args) {
+        int distance = args.length > 0 ? Integer.parseInt(args[0]) : 3000;
+        int queries  = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        for (Connectivity connectivity : Connectivity.values()) {
+            for (boolean terrain : new boolean[] { false, true }) {
+                check(connectivity, terrain, ChunkedWorld.DEFAULT_MAX_CHUNKS);
+                check(connectivity, terrain, 6);
+            }
+        }
+        checkInvalidate();
+        checkEvictionOrder();
+        System.out.println("Searches across chunks match a whole grid");
+
+        time(distance, queries);
+    }
+
+    /**
+     * Runs random queries on a window and on a grid copied from the same
+     * cells and makes sure they find the same paths
+     *
+     * @param connectivity The ways a path is allowed to move
+     * @param terrain      If cells should have costs other than 1
+     * @param maxChunks    The most chunks the world may keep loaded
+     */
+    private static void check(Connectivity connectivity, boolean terrain,
+                              int maxChunks) {
+        NoiseProvider provider = new NoiseProvider(7, terrain);
+        ChunkedWorld world = terrain ?
+                new ChunkedWorld(provider, connectivity, maxChunks, 1, 4) :
+                new ChunkedWorld(provider, connectivity, maxChunks);
+
+        // Straddles the origin so chunks with negative coordinates are used
+        WorldWindow window = world.window(-150, -90, 300, 200);
+        CompactGrid grid = copy(provider, window);
+        AStar onWindow = new AStar(window);
+        AStar onGrid = new AStar(grid);
+        Random random = new Random(8);
+
+        for (int i = 0; i < 60; i++) {
+            int[] q = randomQuery(grid, random);
+            Path expected = onGrid.findPath(q[0], q[1], q[2], q[3]);
+            Path path = onWindow.findPath(q[0], q[1], q[2], q[3]);
+            if (!path.equals(expected)) {
+                throw new AssertionError("Path " + i + " on the window differs " +
+                                         "with " + connectivity + ", " +
+                                         maxChunks + " chunks");
+            }
+        }
+
+        if (world.getLoadedChunkCount() > maxChunks) {
+            throw new AssertionError(world.getLoadedChunkCount() +
+                                     " chunks loaded, room for " + maxChunks);
+        }
+        if ((maxChunks < 24) != (world.getEvictionCount() > 0) ||
+            world.getLoadCount() != world.getLoadedChunkCount() +
+                                    world.getEvictionCount()) {
+            throw new AssertionError(world.getLoadCount() + " loads, " +
+                                     world.getEvictionCount() + " evictions");
+        }
+    }
+
+    /**
+     * Makes sure a chunk that is invalidated after the provider changes is
+     * loaded again, and that searches see the change
+     */
+    private static void checkInvalidate() {
+        NoiseProvider provider = new NoiseProvider(9, false);
+        ChunkedWorld world = new ChunkedWorld(provider, Connectivity.EIGHT, 64);
+        WorldWindow window = world.window(1000, 1000, 200, 200);
+        AStar aStar = new AStar(window);
+        Random random = new Random(10);
+
+        for (int i = 0; i < 20; i++) {
+            CompactGrid grid = copy(provider, window);
+            int[] q = randomQuery(grid, random);
+            Path before = aStar.findPath(q[0], q[1], q[2], q[3]);
+            if (before.length() < 3) {
+                continue;
+            }
+
+            // Wall off the middle of the path
+            int x = window.getOriginX() + before.getX(before.length() / 2);
+            int y = window.getOriginY() + before.getY(before.length() / 2);
+            long version = window.getVersion();
+            provider.walls.add(NoiseProvider.key(x, y));
+            world.invalidate(x >> 6, y >> 6);
+            if (window.getVersion() == version || world.isWalkable(x, y)) {
+                throw new AssertionError("The invalidated chunk wasn't reloaded");
+            }
+
+            Path after = aStar.findPath(q[0], q[1], q[2], q[3]);
+            Path expected = new AStar(copy(provider, window))
+                    .findPath(q[0], q[1], q[2], q[3]);
+            if (!after.equals(expected)) {
+                throw new AssertionError("Search after an invalidate differs");
+            }
+        }
+
+        // Moving the window gives it a new version and new cells
+        long version = window.getVersion();
+        window.moveTo(-5000, 7000);
+        if (window.getVersion() == version) {
+            throw new AssertionError("Moving the window kept its version");
+        }
+        CompactGrid grid = copy(provider, window);
+        int[] q = randomQuery(grid, random);
+        if (!aStar.findPath(q[0], q[1], q[2], q[3])
+                  .equals(new AStar(grid).findPath(q[0], q[1], q[2], q[3]))) {
+            throw new AssertionError("Search after moving the window differs");
+        }
+    }
+
+    /**
+     * Makes sure the chunk evicted to make room is the one looked at longest
+     * ago, both when the world is read directly and through a window
+     */
+    private static void checkEvictionOrder() {
+        ChunkedWorld world = new ChunkedWorld(new NoiseProvider(11, false),
+                                              Connectivity.FOUR, 3);
+        int size = WorldChunk.SIZE;
+        world.isWalkable(0, 0);
+        world.isWalkable(size, 0);
+        world.isWalkable(2 * size, 0);
+        world.isWalkable(0, 0);
+        world.isWalkable(3 * size, 0);
+
+        // The second chunk was looked at longest ago
+        long loads = world.getLoadCount();
+        world.isWalkable(0, 0);
+        world.isWalkable(2 * size, 0);
+        world.isWalkable(3 * size, 0);
+        if (world.getLoadCount() != loads || world.getEvictionCount() != 1 ||
+            world.getLoadedChunkCount() != 3) {
+            throw new AssertionError("Evicted a chunk that was used recently");
+        }
+        world.isWalkable(size, 0);
+        if (world.getLoadCount() != loads + 1) {
+            throw new AssertionError("The least recently used chunk stayed loaded");
+        }
+
+        // Reading through a window counts as using the chunk
+        WorldWindow window = world.window(0, 0, 4 * size, 1);
+        window.isWalkable(0, 0);
+        window.isWalkable(2 * size, 0);
+        world.isWalkable(size, 0);
+        window.isWalkable(0, 0);
+        world.isWalkable(5 * size, 0);
+        loads = world.getLoadCount();
+        window.isWalkable(0, 0);
+        world.isWalkable(size, 0);
+        if (world.getLoadCount() != loads) {
+            throw new AssertionError("Evicted a chunk a window used recently");
+        }
+        window.isWalkable(2 * size, 0);
+        if (world.getLoadCount() != loads + 1) {
+            throw new AssertionError("The window kept a chunk loaded it " +
+                                     "didn't use");
+        }
+    }
+
+    /**
+     * Times long queries far from the origin of the world on windows around
+     * their ends, next to copying the same window into a grid first
+     *
+     * @param distance How far apart the ends of each query are
+     * @param queries  The number of queries to time
+     */
+    private static void time(int distance, int queries) {
+        NoiseProvider provider = new NoiseProvider(11, false);
+        ChunkedWorld world = new ChunkedWorld(provider, Connectivity.EIGHT,
+                                              ChunkedWorld.DEFAULT_MAX_CHUNKS);
+        Random random = new Random(12);
+        int margin = 128;
+
+        long windowTime = 0;
+        long gridTime = 0;
+        long windowChunks = 0;
+        for (int i = 0; i < queries; i++) {
+            int sx = 1000000 + random.nextInt(1000000);
+            int sy = -2000000 + random.nextInt(1000000);
+            int ex = sx + distance;
+            int ey = sy + random.nextInt(distance / 2);
+            sx = walkable(provider, sx, sy);
+            ex = walkable(provider, ex, ey);
+
+            long start = System.nanoTime();
+            WorldWindow window = world.windowAround(sx, sy, ex, ey, margin);
+            int ox = window.getOriginX();
+            int oy = window.getOriginY();
+            Path path = new AStar(window).findPath(sx - ox, sy - oy,
+                                                   ex - ox, ey - oy);
+            windowTime += System.nanoTime() - start;
+            windowChunks += ((long) window.getWidth() * window.getHeight()) /
+                            (WorldChunk.SIZE * WorldChunk.SIZE);
+
+            start = System.nanoTime();
+            CompactGrid grid = copy(provider, window);
+            Path expected = new AStar(grid).findPath(sx - ox, sy - oy,
+                                                     ex - ox, ey - oy);
+            gridTime += System.nanoTime() - start;
+
+            if (!path.equals(expected)) {
+                throw new AssertionError("Long path " + i + " differs");
+            }
+        }
+
+        System.out.println();
+        System.out.println(queries + " queries " + distance + " cells apart, " +
+                           "windows with a margin of " + margin);
+        System.out.println(String.format("Window onto chunks:   %8.1f ms per query, " +
+                                         "%6d chunks loaded of %6d under " +
+                                         "the windows",
+                                         windowTime / 1e6 / queries,
+                                         world.getLoadCount(), windowChunks));
+        System.out.println(String.format("Copied into a grid:   %8.1f ms per query",
+                                         gridTime / 1e6 / queries));
+    }
+
+    /**
+     * Copies the cells under a window straight from a provider into a grid
+     * without going through the world
+     *
+     * @param provider The provider of the cells
+     * @param window   The window to copy
+     * @return A grid with the same cells as the window
+     */
+    private static CompactGrid copy(NoiseProvider provider, WorldWindow window) {
+        CompactGrid grid = new CompactGrid(window.getWidth(), window.getHeight());
+        grid.setConnectivity(window.getConnectivity());
+        for (int y = 0; y < grid.getHeight(); y++) {
+            for (int x = 0; x < grid.getWidth(); x++) {
+                int wx = window.getOriginX() + x;
+                int wy = window.getOriginY() + y;
+                if (provider.isBlocked(wx, wy)) {
+                    grid.setWalkable(x, y, false);
+                }
+                float cost = provider.getCost(wx, wy);
+                if (cost != 1) {
+                    grid.setCost(x, y, cost);
+                }
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Finds the first walkable world cell at or to the right of a cell
+     *
+     * @param provider The provider of the cells
+     * @param x        The world x coordinate to start looking at
+     * @param y        The world y coordinate of the row to look in
+     * @return The world x coordinate of a walkable cell
+     */
+    private static int walkable(NoiseProvider provider, int x, int y) {
+        while (provider.isBlocked(x, y)) {
+            x++;
+        }
+        return x;
+    }
+
+    /**
+     * Picks a random query between two walkable cells
+     *
+     * @param grid   The map to pick from
+     * @param random The source of random cells
+     * @return The start x and y and the end x and y
+     */
+    private static int[] randomQuery(CompactGrid grid, Random random) {
+        int[] query = new int[4];
+        for (int i = 0; i < 4; i += 2) {
+            do {
+                query[i] = random.nextInt(grid.getWidth());
+                query[i + 1] = random.nextInt(grid.getHeight());
+            } while (!grid.isWalkable(query[i], query[i + 1]));
+        }
+        return query;
+    }
+
+    /**
+     * Makes the cells of a world out of a hash of their coordinates, so any
+     * chunk can be made again at any time.  About a quarter of the cells
+     * are walls, and with terrain a quarter of them cost more than 1.
+     */
+    private static class NoiseProvider implements ChunkProvider {
+
+        /**
+         * What the hash is seeded with
+         */
+        private final int seed;
+
+        /**
+         * If cells should have costs other than 1
+         */
+        private final boolean terrain;
+
+        /**
+         * The packed coordinates of walls added on top of the noise
+         */
+        final Set<Long> walls = new HashSet<Long>();
+
+        /**
+         * Creates a provider
+         *
+         * @param seed    What the hash is seeded with
+         * @param terrain If cells should have costs other than 1
+         */
+        NoiseProvider(int seed, boolean terrain) {
+            this.seed = seed;
+            this.terrain = terrain;
+        }
+
+        @Override
+        public void loadChunk(int chunkX, int chunkY, WorldChunk chunk) {
+            for (int y = 0; y < WorldChunk.SIZE; y++) {
+                for (int x = 0; x < WorldChunk.SIZE; x++) {
+                    int wx = chunkX * WorldChunk.SIZE + x;
+                    int wy = chunkY * WorldChunk.SIZE + y;
+                    if (isBlocked(wx, wy)) {
+                        chunk.setWalkable(x, y, false);
+                    }
+                    chunk.setCost(x, y, getCost(wx, wy));
+                }
+            }
+        }
+
+        /**
+         * Checks if a world cell is a wall
+         *
+         * @param x The world x coordinate of the cell
+         * @param y The world y coordinate of the cell
+         * @return If the cell is a wall
+         */
+        boolean isBlocked(int x, int y) {
+            return (hash(x, y) & 3) == 0 || walls.contains(key(x, y));
+        }
+
+        /**
+         * Gets the cost of a world cell
+         *
+         * @param x The world x coordinate of the cell
+         * @param y The world y coordinate of the cell
+         * @return The cost of the cell
+         */
+        float getCost(int x, int y) {
+            int h = hash(x, y) >>> 2;
+            return terrain && (h & 3) == 0 ? 2 + (h >>> 2) % 3 : 1;
+        }
+
+        /**
+         * Mixes the coordinates of a cell with the seed
+         *
+         * @param x The world x coordinate of the cell
+         * @param y The world y coordinate of the cell
+         * @return The hash of the cell
+         */
+        private int hash(int x, int y) {
+            int h = x * 0x9E3779B1 + y * 0x85EBCA77 + seed;
+            h ^= h >>> 15;
+            h *= 0x2C1B3C6D;
+            h ^= h >>> 12;
+            h *= 0x297A2D39;
+            h ^= h >>> 15;
+            return h;
+        }
+
+        /**
+         * Packs the coordinates of a cell into one number
+         *
+         * @param x The world x coordinate of the cell
+         * @param y The world y coordinate of the cell
+         * @return The key of the cell
+         */
+        static long key(int x, int y) {
+            return ((long) x << 32) | (y & 0xFFFFFFFFL);
+        }
+    }
+}
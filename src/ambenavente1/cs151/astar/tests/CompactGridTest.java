@@ -0,0 +1,147 @@
+package ambenavente1.cs151.astar.tests;
+
+import ambenavente1.cs151.astar.AStar;
+import ambenavente1.cs151.astar.CompactGrid;
+
+import java.awt.Point;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Test for searching a {@link CompactGrid}.  Each path is checked against a
+ * breadth-first search, then a large grid is searched to show the time and
+ * memory it takes.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public class CompactGridTest {
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 4096;
+
+        checkShortestPaths(64, 200);
+
+        Runtime runtime = Runtime.getRuntime();
+        runtime.gc();
+        long usedBefore = runtime.totalMemory() - runtime.freeMemory();
+
+        CompactGrid grid = createGrid(size, 20, 7);
+        AStar aStar = new AStar(grid);
+
+        long start = System.nanoTime();
+        int[] path = aStar.calculateCellPath(0, 0, size - 1, size - 1);
+        long time = System.nanoTime() - start;
+
+        long usedAfter = runtime.totalMemory() - runtime.freeMemory();
+
+        System.out.println("Grid:   " + size + "x" + size);
+        System.out.println("Path:   " + path.length + " steps");
+        System.out.println("Time:   " + time / 1000000 + " ms");
+        System.out.println("Memory: ~" + (usedAfter - usedBefore) / (1024 * 1024) +
+                           " MB for the grid and search state");
+    }
+
+    /**
+     * Runs random queries and makes sure every path is valid and as short as
+     * the one a breadth-first search finds
+     *
+     * @param size    The width and height of the grid
+     * @param queries The number of queries to run
+     */
+    private static void checkShortestPaths(int size, int queries) {
+        CompactGrid grid = createGrid(size, 30, 3);
+        AStar aStar = new AStar(grid);
+        Random random = new Random(5);
+
+        for (int i = 0; i < queries; i++) {
+            Point start = new Point(random.nextInt(size), random.nextInt(size));
+            Point end   = new Point(random.nextInt(size), random.nextInt(size));
+            grid.setWalkable(start.x, start.y, true);
+            grid.setWalkable(end.x, end.y, true);
+
+            List<Point> path = aStar.calculatePath(start, end);
+            int expected = breadthFirstDistance(grid, start, end);
+
+            if (expected < 0 ? !path.isEmpty() : path.size() != expected) {
+                throw new AssertionError("Path from " + start + " to " + end +
+                                         " has " + path.size() +
+                                         " steps, expected " + expected);
+            }
+
+            Point previous = start;
+            for (Point p : path) {
+                if (!grid.isWalkable(p.x, p.y) ||
+                    Math.abs(p.x - previous.x) + Math.abs(p.y - previous.y) != 1) {
+                    throw new AssertionError("Invalid step to " + p);
+                }
+                previous = p;
+            }
+        }
+
+        System.out.println("Checked " + queries + " paths against BFS");
+    }
+
+    /**
+     * Finds the number of steps between two points with a breadth-first
+     * search
+     *
+     * @param grid  The grid to search
+     * @param start The starting point
+     * @param end   The ending point
+     * @return The number of steps or -1 if end can't be reached
+     */
+    private static int breadthFirstDistance(CompactGrid grid, Point start,
+                                            Point end) {
+        int width = grid.getWidth();
+        int[] distance = new int[width * grid.getHeight()];
+        Arrays.fill(distance, -1);
+
+        ArrayDeque<Integer> queue = new ArrayDeque<Integer>();
+        distance[start.y * width + start.x] = 0;
+        queue.add(start.y * width + start.x);
+
+        while (!queue.isEmpty()) {
+            int cell = queue.poll();
+            int x = cell % width;
+            int y = cell / width;
+            int[][] moves = { { 0, -1 }, { 0, 1 }, { -1, 0 }, { 1, 0 } };
+
+            for (int[] move : moves) {
+                int nx = x + move[0];
+                int ny = y + move[1];
+                if (nx >= 0 && nx < width && ny >= 0 && ny < grid.getHeight() &&
+                    grid.isWalkable(nx, ny) && distance[ny * width + nx] < 0) {
+                    distance[ny * width + nx] = distance[cell] + 1;
+                    queue.add(ny * width + nx);
+                }
+            }
+        }
+
+        return distance[end.y * width + end.x];
+    }
+
+    /**
+     * Creates a grid with randomly placed obstacles.  The corners are always
+     * left walkable.
+     *
+     * @param size      The width and height of the grid
+     * @param obstacles The percent of cells that are not walkable
+     * @param seed      The seed for the random obstacles
+     * @return The new grid
+     */
+    private static CompactGrid createGrid(int size, int obstacles, long seed) {
+        Random random = new Random(seed);
+        CompactGrid grid = new CompactGrid(size, size);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                grid.setWalkable(x, y, random.nextInt(100) >= obstacles);
+            }
+        }
+        grid.setWalkable(0, 0, true);
+        grid.setWalkable(size - 1, size - 1, true);
+        return grid;
+    }
+}
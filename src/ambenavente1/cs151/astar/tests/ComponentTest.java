@@ -0,0 +1,315 @@
+package ambenavente1.cs151.astar.tests;
+
+import ambenavente1.cs151.astar.AStar;
+import ambenavente1.cs151.astar.AbstractGridMap;
+import ambenavente1.cs151.astar.CompactGrid;
+import ambenavente1.cs151.astar.Connectivity;
+import ambenavente1.cs151.astar.Grid;
+import ambenavente1.cs151.astar.GridMap;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Test for the connected regions of {@link AbstractGridMap}.  Cells are
+ * opened and closed at random and after every edit the regions must group
+ * the cells exactly like a flood fill from scratch does.  Then queries
+ * between two halves of a large map that can't reach each other are timed
+ * with and without the regions.
+ * <p></p>
+ * Usage: <code>ComponentTest [size] [queries]</code>
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public class ComponentTest {
+
+    /**
+     * The x offset of each move direction, in the order of the neighbor mask
+     */
+    private static final int[] DX = { 0, 0, -1, 1, -1, 1, -1, 1 };
+
+    /**
+     * The y offset of each move direction, in the order of the neighbor mask
+     */
+    private static final int[] DY = { -1, 1, 0, 0, -1, -1, 1, 1 };
+
+    public static void main(String[] args) {
+        int size    = args.length > 0 ? Integer.parseInt(args[0]) : 1024;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+
+        for (Connectivity connectivity : Connectivity.values()) {
+            for (String family : new String[] { "random25", "random40", "maze" }) {
+                CompactGrid grid = new CompactGrid(63, 41);
+                grid.setConnectivity(connectivity);
+                BenchmarkMaps.generate(grid, family, 3);
+                edit(grid, 3000, new Random(8));
+            }
+        }
+
+        Grid grid = new Grid(40, 30);
+        grid.setConnectivity(Connectivity.EIGHT);
+        BenchmarkMaps.randomObstacles(grid, 35, 4);
+        edit(grid, 1000, new Random(9));
+        System.out.println("Regions match a flood fill after every edit");
+
+        timeQueries(size, queries);
+    }
+
+    /**
+     * Toggles random cells of a map and checks the regions after each edit
+     *
+     * @param grid   The map to edit
+     * @param edits  The number of cells to toggle
+     * @param random The source of the cells to toggle
+     */
+    private static void edit(AbstractGridMap grid, int edits, Random random) {
+        check(grid);
+        for (int i = 0; i < edits; i++) {
+            int x = random.nextInt(grid.getWidth());
+            int y = random.nextInt(grid.getHeight());
+            grid.setWalkable(x, y, !grid.isWalkable(x, y));
+            check(grid);
+        }
+    }
+
+    /**
+     * Makes sure the regions of a map group the cells the same way as a
+     * flood fill
+     *
+     * @param grid The map to check
+     */
+    private static void check(AbstractGridMap grid) {
+        int width = grid.getWidth();
+        int[] flood = floodFill(grid);
+        Map<Integer, Integer> regionOf = new HashMap<Integer, Integer>();
+        Map<Integer, Integer> floodOf = new HashMap<Integer, Integer>();
+
+        for (int cell = 0; cell < flood.length; cell++) {
+            int region = grid.getComponent(cell % width, cell / width);
+            if ((region == -1) != (flood[cell] == -1)) {
+                throw new AssertionError("Cell " + cell + " has the wrong " +
+                                         "walkability");
+            }
+            if (region == -1) {
+                continue;
+            }
+
+            // Each flood region must go with exactly one region number
+            if (!regionOf.containsKey(flood[cell])) {
+                regionOf.put(flood[cell], region);
+            }
+            if (!floodOf.containsKey(region)) {
+                floodOf.put(region, flood[cell]);
+            }
+            if (regionOf.get(flood[cell]) != region ||
+                floodOf.get(region) != flood[cell]) {
+                throw new AssertionError("Cell " + cell + " is in the wrong " +
+                                         "region with " + grid.getConnectivity());
+            }
+        }
+    }
+
+    /**
+     * Numbers the regions of a map from scratch by flooding out from each
+     * cell that hasn't been reached yet
+     *
+     * @param map The map to number
+     * @return The region of each cell, or -1 for walls
+     */
+    private static int[] floodFill(GridMap map) {
+        int width = map.getWidth();
+        int[] regions = new int[width * map.getHeight()];
+        int[] queue = new int[regions.length];
+        Arrays.fill(regions, -2);
+        int count = 0;
+
+        for (int cell = 0; cell < regions.length; cell++) {
+            if (regions[cell] != -2) {
+                continue;
+            }
+            if (!map.isWalkable(cell % width, cell / width)) {
+                regions[cell] = -1;
+                continue;
+            }
+
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = cell;
+            regions[cell] = count;
+            while (head < tail) {
+                int current = queue[head++];
+                int x = current % width;
+                int y = current / width;
+                int mask = map.getNeighborMask(x, y);
+                for (int d = 0; d < 8; d++) {
+                    if ((mask & (1 << d)) == 0) {
+                        continue;
+                    }
+                    int neighbor = (y + DY[d]) * width + x + DX[d];
+                    if (regions[neighbor] == -2) {
+                        regions[neighbor] = count;
+                        queue[tail++] = neighbor;
+                    }
+                }
+            }
+            count++;
+        }
+
+        return regions;
+    }
+
+    /**
+     * Times queries between two halves of a map split by a wall, once on
+     * the map and once through a view that hides its regions so the search
+     * has to run
+     *
+     * @param size    The width and height of the map
+     * @param queries The number of queries to time
+     */
+    private static void timeQueries(int size, int queries) {
+        CompactGrid grid = new CompactGrid(size, size);
+        grid.setConnectivity(Connectivity.EIGHT);
+        BenchmarkMaps.rooms(grid, 5);
+        for (int y = 0; y < size; y++) {
+            grid.setWalkable(size / 2, y, false);
+        }
+
+        long start = System.nanoTime();
+        grid.isConnected(0, 0, 0, 0);
+        long labelTime = System.nanoTime() - start;
+
+        AStar withRegions = new AStar(grid);
+        AStar withoutRegions = new AStar(new HiddenRegions(grid));
+        Random random = new Random(10);
+        int[][] points = new int[queries][];
+        for (int i = 0; i < queries; i++) {
+            int sx;
+            int sy;
+            int ex;
+            int ey;
+            do {
+                sx = random.nextInt(size / 2);
+                sy = random.nextInt(size);
+                ex = size / 2 + 1 + random.nextInt(size / 2 - 1);
+                ey = random.nextInt(size);
+            } while (!grid.isWalkable(sx, sy) || !grid.isWalkable(ex, ey));
+            points[i] = new int[] { sx, sy, ex, ey };
+        }
+
+        long expanded = 0;
+        start = System.nanoTime();
+        for (int[] p : points) {
+            if (withoutRegions.calculateCellPath(p[0], p[1], p[2], p[3]).length != 0) {
+                throw new AssertionError("Found a path through the wall");
+            }
+            expanded += withoutRegions.getNodesExpanded();
+        }
+        long searched = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int[] p : points) {
+            if (withRegions.calculateCellPath(p[0], p[1], p[2], p[3]).length != 0 ||
+                withRegions.getNodesExpanded() != 0) {
+                throw new AssertionError("The query wasn't rejected at once");
+            }
+        }
+        long rejected = System.nanoTime() - start;
+
+        // Toggling cells keeps the regions up to date one cell at a time
+        start = System.nanoTime();
+        int edits = 0;
+        for (int i = 0; i < 10000; i++) {
+            int x = random.nextInt(size);
+            int y = random.nextInt(size);
+            if (x != size / 2) {
+                grid.setWalkable(x, y, !grid.isWalkable(x, y));
+                edits++;
+            }
+        }
+        grid.isConnected(0, 0, 0, 0);
+        long editTime = System.nanoTime() - start;
+
+        System.out.println();
+        System.out.println("Map: " + size + "x" + size + " rooms split in half, " +
+                           queries + " queries across the split");
+        System.out.println(String.format("Labeling the map:    %8.2f ms",
+                                         labelTime / 1e6));
+        System.out.println(String.format("Searching:           %8.2f ms per query, " +
+                                         "%d cells expanded",
+                                         searched / 1e6 / queries,
+                                         expanded / queries));
+        System.out.println(String.format("Rejected by regions: %8.2f us per query",
+                                         rejected / 1e3 / queries));
+        System.out.println(String.format("Updating regions:    %8.2f us per edit",
+                                         editTime / 1e3 / edits));
+    }
+
+    /**
+     * A view of a map that isn't an {@link AbstractGridMap}, so searches on
+     * it can't use the map's regions
+     */
+    private static class HiddenRegions implements GridMap {
+
+        /**
+         * The map being viewed
+         */
+        private final GridMap map;
+
+        /**
+         * Creates a view of a map
+         *
+         * @param map The map to view
+         */
+        HiddenRegions(GridMap map) {
+            this.map = map;
+        }
+
+        @Override
+        public int getWidth() {
+            return map.getWidth();
+        }
+
+        @Override
+        public int getHeight() {
+            return map.getHeight();
+        }
+
+        @Override
+        public boolean isWalkable(int x, int y) {
+            return map.isWalkable(x, y);
+        }
+
+        @Override
+        public float getCost(int x, int y) {
+            return map.getCost(x, y);
+        }
+
+        @Override
+        public float getMinCost() {
+            return map.getMinCost();
+        }
+
+        @Override
+        public boolean isUniformCost() {
+            return map.isUniformCost();
+        }
+
+        @Override
+        public Connectivity getConnectivity() {
+            return map.getConnectivity();
+        }
+
+        @Override
+        public int getNeighborMask(int x, int y) {
+            return map.getNeighborMask(x, y);
+        }
+
+        @Override
+        public long getVersion() {
+            return map.getVersion();
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package ambenavente1.cs151.astar.tests;
+
+import ambenavente1.cs151.astar.AStar;
+import ambenavente1.cs151.astar.AbstractGridMap;
+import ambenavente1.cs151.astar.Algorithm;
+import ambenavente1.cs151.astar.CompactGrid;
+import ambenavente1.cs151.astar.Connectivity;
+import ambenavente1.cs151.astar.Grid;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Test for each {@link Connectivity}.  Every step of a path found must be a
+ * move the neighbor masks allow, the cost of the path must match Dijkstra's
+ * algorithm, and on grids where every cell costs the same jump point search
+ * must find a path that costs the same as A* and, on 4-way grids, search
+ * just like it.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public class ConnectivityTest {
+
+    /**
+     * The x offset of each direction bit of a neighbor mask
+     */
+    private static final int[] DX = { 0, 0, -1, 1, -1, 1, -1, 1 };
+
+    /**
+     * The y offset of each direction bit of a neighbor mask
+     */
+    private static final int[] DY = { -1, 1, 0, 0, -1, -1, 1, 1 };
+
+    public static void main(String[] args) {
+        for (Connectivity connectivity : Connectivity.values()) {
+            check(createGrid(new Grid(40, 40), connectivity, 20, false, 1),
+                  Algorithm.A_STAR, 200);
+            check(createGrid(new CompactGrid(48, 48), connectivity, 15, true, 2),
+                  Algorithm.A_STAR, 200);
+            check(createGrid(new CompactGrid(64, 64), connectivity, 10, false, 3),
+                  Algorithm.JUMP_POINT_SEARCH, 300);
+            check(createGrid(new CompactGrid(64, 64), connectivity, 30, false, 4),
+                  Algorithm.JUMP_POINT_SEARCH, 300);
+            System.out.println(connectivity + ": path costs match Dijkstra");
+        }
+
+        checkJumpPointFallsBack();
+        System.out.println("Jump point search falls back to A* on 4-way maps");
+
+        checkMaskUpdates();
+        System.out.println("Neighbor masks follow edits");
+    }
+
+    /**
+     * Makes sure jump point search on a map with 4-way movement searches
+     * like plain A*, whether the map is 4-way when the algorithm is set or
+     * is changed to it afterwards, and jumps again once diagonal moves are
+     * allowed
+     */
+    private static void checkJumpPointFallsBack() {
+        CompactGrid grid = new CompactGrid(64, 64);
+        grid.setConnectivity(Connectivity.FOUR);
+        AStar aStar = new AStar(grid);
+        AStar jps = new AStar(grid);
+        jps.setAlgorithm(Algorithm.JUMP_POINT_SEARCH);
+
+        expectSameSearch(aStar, jps);
+
+        grid.setConnectivity(Connectivity.EIGHT);
+        aStar.calculateCellPath(0, 0, 63, 40);
+        int[] path = jps.calculateCellPath(0, 0, 63, 40);
+        if (path.length == 0 ||
+            jps.getNodesExpanded() >= aStar.getNodesExpanded()) {
+            throw new AssertionError("Jump point search didn't jump on an " +
+                                     "8-way map");
+        }
+
+        grid.setConnectivity(Connectivity.FOUR);
+        expectSameSearch(aStar, jps);
+    }
+
+    /**
+     * Makes sure two searches find the same path by expanding the same
+     * cells
+     *
+     * @param expected The search to compare with
+     * @param actual   The search to check
+     */
+    private static void expectSameSearch(AStar expected, AStar actual) {
+        int[] expectedPath = expected.calculateCellPath(0, 0, 63, 40);
+        int[] path = actual.calculateCellPath(0, 0, 63, 40);
+        if (!Arrays.equals(path, expectedPath) ||
+            actual.getNodesExpanded() != expected.getNodesExpanded()) {
+            throw new AssertionError(actual.getAlgorithm() + " searched a " +
+                                     "4-way map differently than A*");
+        }
+    }
+
+    /**
+     * Runs random queries and compares the cost of each path found with the
+     * cheapest cost Dijkstra's algorithm finds
+     *
+     * @param grid      The grid to search
+     * @param algorithm The algorithm to search with
+     * @param queries   The number of queries to run
+     */
+    private static void check(AbstractGridMap grid, Algorithm algorithm,
+                              int queries) {
+        AStar aStar = new AStar(grid);
+        aStar.setAlgorithm(algorithm);
+        Random random = new Random(9);
+        int width = grid.getWidth();
+
+        for (int i = 0; i < queries; i++) {
+            int start = random.nextInt(width * grid.getHeight());
+            int end   = random.nextInt(width * grid.getHeight());
+            if (!grid.isWalkable(start % width, start / width) ||
+                !grid.isWalkable(end % width, end / width) || start == end) {
+                continue;
+            }
+
+            int[] path = aStar.calculateCellPath(start % width, start / width,
+                                                 end % width, end / width);
+            float expected = dijkstra(grid, start)[end];
+
+            if (Float.isInfinite(expected)) {
+                if (path.length != 0) {
+                    throw new AssertionError("Found a path to an unreachable cell");
+                }
+                continue;
+            }
+
+            float cost = cost(grid, start, path);
+            if (Math.abs(cost - expected) > 1e-3 * expected) {
+                throw new AssertionError(grid.getConnectivity() + " " +
+                                         algorithm + " path cost " + cost +
+                                         " but the cheapest is " + expected);
+            }
+        }
+    }
+
+    /**
+     * Adds up the cost of a path and makes sure every step is allowed by the
+     * neighbor mask of the cell it leaves
+     *
+     * @param grid  The grid that was searched
+     * @param start The index of the start cell
+     * @param path  The cells on the path
+     * @return The cost of the path
+     */
+    private static float cost(AbstractGridMap grid, int start, int[] path) {
+        int width = grid.getWidth();
+        int x = start % width;
+        int y = start / width;
+        float cost = 0;
+
+        for (int cell : path) {
+            int nx = cell % width;
+            int ny = cell / width;
+            int direction = direction(nx - x, ny - y);
+            if (direction < 0 ||
+                (grid.getNeighborMask(x, y) & (1 << direction)) == 0) {
+                throw new AssertionError("Invalid step from (" + x + ", " + y +
+                                         ") to (" + nx + ", " + ny + ")");
+            }
+
+            cost += grid.getCost(nx, ny) *
+                    (direction < 4 ? 1 : (float) Math.sqrt(2));
+            x = nx;
+            y = ny;
+        }
+
+        return cost;
+    }
+
+    /**
+     * Finds the cheapest cost from one cell to every other cell using the
+     * moves allowed by the neighbor masks
+     *
+     * @param grid  The grid to search
+     * @param start The index of the cell to start from
+     * @return The cheapest cost to each cell, or infinity if it can't be
+     * reached
+     */
+    private static float[] dijkstra(AbstractGridMap grid, int start) {
+        int width = grid.getWidth();
+        float[] cost = new float[width * grid.getHeight()];
+        Arrays.fill(cost, Float.POSITIVE_INFINITY);
+        cost[start] = 0;
+
+        PriorityQueue<float[]> queue = new PriorityQueue<float[]>(11,
+                new Comparator<float[]>() {
+                    @Override
+                    public int compare(float[] a, float[] b) {
+                        return Float.compare(a[0], b[0]);
+                    }
+                });
+        queue.add(new float[] { 0, start });
+
+        while (!queue.isEmpty()) {
+            float[] entry = queue.poll();
+            int cell = (int) entry[1];
+            if (entry[0] > cost[cell]) {
+                continue;
+            }
+
+            int x = cell % width;
+            int y = cell / width;
+            int mask = grid.getNeighborMask(x, y);
+            for (int d = 0; d < 8; d++) {
+                if ((mask & (1 << d)) == 0) {
+                    continue;
+                }
+                int nx = x + DX[d];
+                int ny = y + DY[d];
+                float next = cost[cell] + grid.getCost(nx, ny) *
+                             (d < 4 ? 1 : (float) Math.sqrt(2));
+                if (next < cost[ny * width + nx]) {
+                    cost[ny * width + nx] = next;
+                    queue.add(new float[] { next, ny * width + nx });
+                }
+            }
+        }
+
+        return cost;
+    }
+
+    /**
+     * Makes sure editing cells and changing the connectivity keeps every
+     * neighbor mask the same as working it out from scratch
+     */
+    private static void checkMaskUpdates() {
+        Random random = new Random(5);
+        Grid grid = new Grid(24, 24);
+
+        for (int i = 0; i < 2000; i++) {
+            if (i % 500 == 0) {
+                Connectivity[] values = Connectivity.values();
+                grid.setConnectivity(values[random.nextInt(values.length)]);
+            }
+            grid.setWalkable(random.nextInt(24), random.nextInt(24),
+                             random.nextBoolean());
+        }
+
+        for (int y = 0; y < grid.getHeight(); y++) {
+            for (int x = 0; x < grid.getWidth(); x++) {
+                int expected = grid.getConnectivity().neighborMask(grid, x, y);
+                if (grid.getNeighborMask(x, y) != expected) {
+                    throw new AssertionError("Stale neighbor mask at (" + x +
+                                             ", " + y + ")");
+                }
+                if (grid.getNode(x, y).getNeighbors().size() !=
+                    Integer.bitCount(expected)) {
+                    throw new AssertionError("Stale neighbor list at (" + x +
+                                             ", " + y + ")");
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the direction bit of a move by one cell
+     *
+     * @param dx The x offset of the move
+     * @param dy The y offset of the move
+     * @return The direction of the move, or -1 if it isn't a move to a
+     * neighbor
+     */
+    private static int direction(int dx, int dy) {
+        for (int d = 0; d < 8; d++) {
+            if (DX[d] == dx && DY[d] == dy) {
+                return d;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Fills a grid with random walls and, optionally, random cell costs
+     *
+     * @param grid         The grid to fill
+     * @param connectivity The moves paths are allowed to make
+     * @param walls        The percent of cells that are not walkable
+     * @param costs        If cells should be given random costs
+     * @param seed         The seed for the random cells
+     * @return The same grid
+     */
+    private static AbstractGridMap createGrid(AbstractGridMap grid,
+                                              Connectivity connectivity,
+                                              int walls, boolean costs,
+                                              long seed) {
+        Random random = new Random(seed);
+        grid.setConnectivity(connectivity);
+        for (int y = 0; y < grid.getHeight(); y++) {
+            for (int x = 0; x < grid.getWidth(); x++) {
+                if (random.nextInt(100) < walls) {
+                    grid.setWalkable(x, y, false);
+                } else if (costs) {
+                    grid.setCost(x, y, 0.5f + random.nextInt(10));
+                }
+            }
+        }
+        return grid;
+    }
+}
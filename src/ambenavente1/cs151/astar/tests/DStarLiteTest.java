@@ -0,0 +1,186 @@
+package ambenavente1.cs151.astar.tests;
+
+import ambenavente1.cs151.astar.AStar;
+import ambenavente1.cs151.astar.AbstractGridMap;
+import ambenavente1.cs151.astar.CompactGrid;
+import ambenavente1.cs151.astar.Connectivity;
+import ambenavente1.cs151.astar.DStarLite;
+
+import java.util.Random;
+
+/**
+ * Test for {@link DStarLite}.  An agent walks towards a fixed goal while
+ * walls open and close and costs change around it, and after every step the
+ * replanned path must cost the same as a new A* search.  The cells expanded
+ * by each replan are compared with the cells a new search expands.
+ * <p></p>
+ * Usage: <code>DStarLiteTest [size]</code>
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public class DStarLiteTest {
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 256;
+
+        for (Connectivity connectivity : Connectivity.values()) {
+            for (boolean terrain : new boolean[] { false, true }) {
+                CompactGrid grid = new CompactGrid(size, size);
+                grid.setConnectivity(connectivity);
+                BenchmarkMaps.randomObstacles(grid, 20, 4);
+                if (terrain) {
+                    Random random = new Random(6);
+                    for (int i = 0; i < size * size / 4; i++) {
+                        grid.setCost(random.nextInt(size), random.nextInt(size),
+                                     1 + random.nextInt(4));
+                    }
+                }
+                walk(grid, connectivity + (terrain ? " terrain" : ""));
+            }
+        }
+    }
+
+    /**
+     * Walks an agent from one corner to the other, editing the map next to
+     * it before every step and checking each replan against A*
+     *
+     * @param grid The grid to walk on
+     * @param name The name printed with the results
+     */
+    private static void walk(AbstractGridMap grid, String name) {
+        int size = grid.getWidth();
+        int goalX = size - 1;
+        int goalY = size - 1;
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                grid.setWalkable(i, j, true);
+                grid.setWalkable(goalX - i, goalY - j, true);
+            }
+        }
+
+        DStarLite planner = new DStarLite(grid, goalX, goalY);
+        AStar aStar = new AStar(grid);
+        Random random = new Random(12);
+
+        int x = 0;
+        int y = 0;
+        int[] path = planner.calculateCellPath(x, y);
+        long firstExpanded = planner.getLastExpanded();
+        if (path.length == 0) {
+            throw new AssertionError(name + ": the goal can't be reached");
+        }
+        long replanExpanded = 0;
+        long searchExpanded = 0;
+        int replans = 0;
+
+        while (path.length > 0) {
+            // Open or close a few cells within sight of the agent, avoiding
+            // its own cell and the goal
+            for (int edit = 0; edit < 3; edit++) {
+                int ex = clamp(x + random.nextInt(21) - 10, size);
+                int ey = clamp(y + random.nextInt(21) - 10, size);
+                if ((ex != x || ey != y) && (ex != goalX || ey != goalY)) {
+                    if (random.nextInt(4) == 0) {
+                        grid.setCost(ex, ey, 1 + random.nextInt(4));
+                    } else {
+                        grid.setWalkable(ex, ey, random.nextBoolean());
+                    }
+                }
+            }
+
+            path = planner.calculateCellPath(x, y);
+            int[] expected = aStar.calculateCellPath(x, y, goalX, goalY);
+            replanExpanded += planner.getLastExpanded();
+            searchExpanded += aStar.getLastStats().getExpanded();
+            replans++;
+
+            if ((path.length == 0) != (expected.length == 0)) {
+                throw new AssertionError(name + ": found " + path.length +
+                                         " steps but A* found " +
+                                         expected.length);
+            }
+            if (path.length == 0) {
+                break;
+            }
+
+            double cost = cost(grid, x, y, path);
+            double expectedCost = cost(grid, x, y, expected);
+            if (Math.abs(cost - expectedCost) > expectedCost * 0.001) {
+                throw new AssertionError(name + ": path costs " + cost +
+                                         " but A*'s costs " + expectedCost);
+            }
+
+            x = path[0] % size;
+            y = path[0] / size;
+            if (path.length == 1) {
+                break;
+            }
+        }
+
+        planner.dispose();
+        System.out.println(String.format(
+                "%-32s first %6d  replans %4d  %6.1f per replan vs %8.1f per search",
+                name, firstExpanded, replans,
+                (double) replanExpanded / Math.max(1, replans),
+                (double) searchExpanded / Math.max(1, replans)));
+    }
+
+    /**
+     * Keeps a coordinate inside of the grid
+     *
+     * @param value The coordinate
+     * @param size  The width and height of the grid
+     * @return The closest coordinate inside of the grid
+     */
+    private static int clamp(int value, int size) {
+        return Math.max(0, Math.min(size - 1, value));
+    }
+
+    /**
+     * Adds up the cost of a path and makes sure every step is an allowed move
+     *
+     * @param grid   The grid that was searched
+     * @param startX The x coordinate of the start
+     * @param startY The y coordinate of the start
+     * @param path   The cells on the path
+     * @return The cost of the path
+     */
+    private static double cost(AbstractGridMap grid, int startX, int startY,
+                               int[] path) {
+        int width = grid.getWidth();
+        int x = startX;
+        int y = startY;
+        double cost = 0;
+
+        for (int cell : path) {
+            int nx = cell % width;
+            int ny = cell / width;
+            int mask = grid.getNeighborMask(x, y);
+            int direction = -1;
+            for (int d = 0; d < 8; d++) {
+                if (DX[d] == nx - x && DY[d] == ny - y) {
+                    direction = d;
+                }
+            }
+            if (direction < 0 || (mask & (1 << direction)) == 0) {
+                throw new AssertionError("Invalid step to (" + nx + ", " + ny + ")");
+            }
+            cost += grid.getCost(nx, ny) * (direction >= 4 ? Math.sqrt(2) : 1);
+            x = nx;
+            y = ny;
+        }
+
+        return cost;
+    }
+
+    /**
+     * The x offset of each move direction, in the order of the neighbor mask
+     */
+    private static final int[] DX = { 0, 0, -1, 1, -1, 1, -1, 1 };
+
+    /**
+     * The y offset of each move direction, in the order of the neighbor mask
+     */
+    private static final int[] DY = { -1, 1, 0, 0, -1, -1, 1, 1 };
+}
@@ -0,0 +1,283 @@
+package ambenavente1.cs151.astar.tests;
+
+import ambenavente1.cs151.astar.AStar;
+import ambenavente1.cs151.astar.AbstractGridMap;
+import ambenavente1.cs151.astar.CompactGrid;
+import ambenavente1.cs151.astar.Connectivity;
+import ambenavente1.cs151.astar.FlowField;
+import ambenavente1.cs151.astar.HeapOpenList;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Test for {@link FlowField}.  The cost of every cell must match Dijkstra's
+ * algorithm run backwards from the goal, every direction must step to a
+ * neighbor the cost was worked out through, and the field worked out in
+ * tiles on several threads must be the same as the one worked out with a
+ * single search.  After random edits the repaired field must be the same as
+ * a new one.  Then the field of a large map is timed against a search for
+ * each agent.
+ * <p></p>
+ * Usage: <code>FlowFieldTest [size] [agents]</code>
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public class FlowFieldTest {
+
+    /**
+     * The x offset of each move direction, in the order of the neighbor mask
+     */
+    private static final int[] DX = { 0, 0, -1, 1, -1, 1, -1, 1 };
+
+    /**
+     * The y offset of each move direction, in the order of the neighbor mask
+     */
+    private static final int[] DY = { -1, 1, 0, 0, -1, -1, 1, 1 };
+
+    public static void main(String[] args) {
+        int size   = args.length > 0 ? Integer.parseInt(args[0]) : 2048;
+        int agents = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        long repairs = 0;
+        long repairExpanded = 0;
+        long fullExpanded = 0;
+        for (Connectivity connectivity : Connectivity.values()) {
+            for (boolean terrain : new boolean[] { false, true }) {
+                CompactGrid grid = new CompactGrid(150, 130);
+                grid.setConnectivity(connectivity);
+                BenchmarkMaps.randomObstacles(grid, 25, 6);
+                if (terrain) {
+                    Random random = new Random(2);
+                    for (int i = 0; i < 5000; i++) {
+                        grid.setCost(random.nextInt(150), random.nextInt(130),
+                                     0.5f + random.nextInt(6));
+                    }
+                }
+                grid.setWalkable(70, 60, true);
+
+                FlowField field = new FlowField(grid, 70, 60, 1);
+                fullExpanded += field.getLastExpanded();
+                check(grid, field);
+
+                FlowField tiled = new FlowField(grid, 70, 60, 4);
+                compare(grid, field, tiled, "Tiled field");
+                tiled.dispose();
+
+                Random random = new Random(4);
+                for (int i = 0; i < 300; i++) {
+                    int x = random.nextInt(150);
+                    int y = random.nextInt(130);
+                    if (random.nextBoolean()) {
+                        grid.setWalkable(x, y, !grid.isWalkable(x, y));
+                    } else {
+                        grid.setCost(x, y, 0.5f + random.nextInt(6));
+                    }
+                    repairs++;
+                    repairExpanded += field.getLastExpanded();
+
+                    FlowField fresh = new FlowField(grid, 70, 60, 1);
+                    fresh.dispose();
+                    compare(grid, fresh, field, "Repaired field");
+                }
+                check(grid, field);
+                field.dispose();
+            }
+        }
+        System.out.println("Fields match Dijkstra, tiles and repairs");
+        System.out.println(String.format("Cells searched: %d per repair, %d for " +
+                                         "a whole field",
+                                         repairExpanded / repairs,
+                                         fullExpanded / 6));
+
+        time(size, agents);
+    }
+
+    /**
+     * Makes sure the costs of a field match Dijkstra's algorithm and every
+     * direction steps through the cheapest neighbor
+     *
+     * @param grid  The map of the field
+     * @param field The field to check
+     */
+    private static void check(AbstractGridMap grid, FlowField field) {
+        int width = grid.getWidth();
+        int goal = field.getGoalY() * width + field.getGoalX();
+        double[] expected = dijkstra(grid, goal);
+
+        for (int cell = 0; cell < expected.length; cell++) {
+            int x = cell % width;
+            int y = cell / width;
+            float distance = field.getDistance(x, y);
+            if (Double.isInfinite(expected[cell]) != Float.isInfinite(distance) ||
+                Math.abs(distance - expected[cell]) > 1e-4 * expected[cell] + 1e-4) {
+                throw new AssertionError("Cell (" + x + ", " + y + ") costs " +
+                                         distance + ", expected " + expected[cell]);
+            }
+
+            int d = field.getDirection(x, y);
+            if (cell == goal || Float.isInfinite(distance)) {
+                if (d != -1) {
+                    throw new AssertionError("Cell (" + x + ", " + y +
+                                             ") shouldn't have a direction");
+                }
+                continue;
+            }
+
+            int nx = x + DX[d];
+            int ny = y + DY[d];
+            float step = (d < 4 ? 1 : (float) Math.sqrt(2)) * grid.getCost(nx, ny);
+            if ((grid.getNeighborMask(x, y) & (1 << d)) == 0 ||
+                field.getNextCell(x, y) != ny * width + nx ||
+                Math.abs(field.getDistance(nx, ny) + step - distance) > 1e-3) {
+                throw new AssertionError("Cell (" + x + ", " + y +
+                                         ") points the wrong way");
+            }
+        }
+    }
+
+    /**
+     * Makes sure two fields of the same goal are exactly the same
+     *
+     * @param grid     The map of the fields
+     * @param expected The field to compare with
+     * @param actual   The field to check
+     * @param name     What the checked field is called in errors
+     */
+    private static void compare(AbstractGridMap grid, FlowField expected,
+                                FlowField actual, String name) {
+        for (int y = 0; y < grid.getHeight(); y++) {
+            for (int x = 0; x < grid.getWidth(); x++) {
+                if (expected.getDistance(x, y) != actual.getDistance(x, y) ||
+                    expected.getDirection(x, y) != actual.getDirection(x, y)) {
+                    throw new AssertionError(name + " differs at (" + x + ", " +
+                                             y + "): " + actual.getDistance(x, y) +
+                                             " instead of " +
+                                             expected.getDistance(x, y));
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the cost from every cell to the goal in double precision
+     *
+     * @param grid The map to search
+     * @param goal The index of the goal cell
+     * @return The cost from each cell, or infinity if it can't reach the goal
+     */
+    private static double[] dijkstra(AbstractGridMap grid, int goal) {
+        int width = grid.getWidth();
+        double[] distances = new double[width * grid.getHeight()];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        boolean[] done = new boolean[distances.length];
+        HeapOpenList open = new HeapOpenList();
+
+        distances[goal] = 0;
+        open.add(goal, 0);
+        while (open.size() > 0) {
+            int cell = open.poll();
+            done[cell] = true;
+            int x = cell % width;
+            int y = cell / width;
+            int mask = grid.getNeighborMask(x, y);
+            for (int d = 0; d < 8; d++) {
+                if ((mask & (1 << d)) == 0) {
+                    continue;
+                }
+                // Stepping from the neighbor into this cell costs this cell's cost
+                int neighbor = (y + DY[d]) * width + x + DX[d];
+                double distance = distances[cell] +
+                                  (d < 4 ? 1 : Math.sqrt(2)) * grid.getCost(x, y);
+                if (!done[neighbor] && distance < distances[neighbor]) {
+                    if (open.contains(neighbor)) {
+                        open.update(neighbor, distance);
+                    } else {
+                        open.add(neighbor, distance);
+                    }
+                    distances[neighbor] = distance;
+                }
+            }
+        }
+        return distances;
+    }
+
+    /**
+     * Times working out the field of a large map on one thread and on
+     * several, and following it, against a search for each agent
+     *
+     * @param size   The width and height of the map
+     * @param agents The number of agents heading to the goal
+     */
+    private static void time(int size, int agents) {
+        CompactGrid grid = new CompactGrid(size, size);
+        grid.setConnectivity(Connectivity.EIGHT);
+        BenchmarkMaps.rooms(grid, 3);
+        int goal = size / 2;
+        while (!grid.isWalkable(goal, goal)) {
+            goal++;
+        }
+
+        long start = System.nanoTime();
+        FlowField field = new FlowField(grid, goal, goal, 1);
+        long single = System.nanoTime() - start;
+        long singleExpanded = field.getLastExpanded();
+
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        start = System.nanoTime();
+        FlowField tiled = new FlowField(grid, goal, goal, threads);
+        long parallel = System.nanoTime() - start;
+        long tiledExpanded = tiled.getLastExpanded();
+        tiled.dispose();
+
+        Random random = new Random(5);
+        int[][] starts = new int[agents][];
+        for (int i = 0; i < agents; i++) {
+            int x;
+            int y;
+            do {
+                x = random.nextInt(size);
+                y = random.nextInt(size);
+            } while (!grid.isConnected(x, y, goal, goal));
+            starts[i] = new int[] { x, y };
+        }
+
+        AStar aStar = new AStar(grid);
+        start = System.nanoTime();
+        for (int[] agent : starts) {
+            aStar.calculateCellPath(agent[0], agent[1], goal, goal);
+        }
+        long searches = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        long steps = 0;
+        for (int[] agent : starts) {
+            steps += field.findPath(agent[0], agent[1]).length();
+        }
+        long following = System.nanoTime() - start;
+
+        // A single edit is repaired instead of working out the whole field
+        int[] agent = starts[0];
+        start = System.nanoTime();
+        grid.setWalkable(agent[0], agent[1], false);
+        long repair = System.nanoTime() - start;
+
+        System.out.println();
+        System.out.println("Map: " + size + "x" + size + " rooms, " + agents +
+                           " agents heading to the middle");
+        System.out.println(String.format("Field, 1 thread:   %8.1f ms, %d cells " +
+                                         "searched", single / 1e6,
+                                         singleExpanded));
+        System.out.println(String.format("Field, %d threads: %8.1f ms, %d cells " +
+                                         "searched", threads, parallel / 1e6,
+                                         tiledExpanded));
+        System.out.println(String.format("Following it:      %8.1f ms, %d steps",
+                                         following / 1e6, steps));
+        System.out.println(String.format("A* per agent:      %8.1f ms",
+                                         searches / 1e6));
+        System.out.println(String.format("Repairing an edit: %8.1f ms, %d cells " +
+                                         "searched", repair / 1e6,
+                                         field.getLastExpanded()));
+    }
+}
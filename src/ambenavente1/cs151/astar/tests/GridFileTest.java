@@ -0,0 +1,230 @@
+package ambenavente1.cs151.astar.tests;
+
+import ambenavente1.cs151.astar.AStar;
+import ambenavente1.cs151.astar.CompactGrid;
+import ambenavente1.cs151.astar.Connectivity;
+import ambenavente1.cs151.astar.GridFile;
+import ambenavente1.cs151.astar.GridMap;
+import ambenavente1.cs151.astar.MappedGrid;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Test for {@link GridFile} and {@link MappedGrid}.  Grids written to a file
+ * must come back with the same cells, costs and allowed moves whether the
+ * file is mapped or read, and searching them must give the same paths.
+ * Then loading a large map is timed cell by cell, by reading the file and
+ * by mapping it.
+ * <p></p>
+ * Usage: <code>GridFileTest [size]</code>
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public class GridFileTest {
+
+    public static void main(String[] args) throws IOException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 4096;
+        File file = File.createTempFile("grid", ".agrd");
+        file.deleteOnExit();
+
+        for (Connectivity connectivity : Connectivity.values()) {
+            for (boolean terrain : new boolean[] { false, true }) {
+                // An odd size so the last long of bits is only partly used
+                CompactGrid grid = new CompactGrid(203, 97);
+                grid.setConnectivity(connectivity);
+                BenchmarkMaps.randomObstacles(grid, 25, 5);
+                if (terrain) {
+                    Random random = new Random(5);
+                    for (int i = 0; i < 2000; i++) {
+                        grid.setCost(random.nextInt(203), random.nextInt(97),
+                                     0.5f + random.nextInt(8));
+                    }
+                }
+
+                GridFile.write(grid, file);
+                compare(grid, GridFile.map(file));
+                compare(grid, GridFile.read(file));
+            }
+        }
+        System.out.println("Mapped and read grids match the written ones");
+
+        checkRejected(file);
+        timeLoading(size, file);
+    }
+
+    /**
+     * Makes sure two maps have the same cells and give the same paths
+     *
+     * @param expected The map that was written
+     * @param actual   The map that was loaded
+     */
+    private static void compare(GridMap expected, GridMap actual) {
+        if (expected.getWidth() != actual.getWidth() ||
+            expected.getHeight() != actual.getHeight() ||
+            expected.getConnectivity() != actual.getConnectivity() ||
+            expected.getMinCost() != actual.getMinCost() ||
+            expected.isUniformCost() != actual.isUniformCost()) {
+            throw new AssertionError("Header doesn't match");
+        }
+
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                if (expected.isWalkable(x, y) != actual.isWalkable(x, y) ||
+                    expected.getCost(x, y) != actual.getCost(x, y) ||
+                    expected.getNeighborMask(x, y) != actual.getNeighborMask(x, y)) {
+                    throw new AssertionError("Cell (" + x + ", " + y +
+                                             ") doesn't match");
+                }
+            }
+        }
+
+        AStar expectedSearch = new AStar(expected);
+        AStar actualSearch = new AStar(actual);
+        Random random = new Random(2);
+        for (int i = 0; i < 50; i++) {
+            int sx = random.nextInt(expected.getWidth());
+            int sy = random.nextInt(expected.getHeight());
+            int ex = random.nextInt(expected.getWidth());
+            int ey = random.nextInt(expected.getHeight());
+            if (!Arrays.equals(expectedSearch.calculateCellPath(sx, sy, ex, ey),
+                               actualSearch.calculateCellPath(sx, sy, ex, ey))) {
+                throw new AssertionError("Paths don't match");
+            }
+        }
+    }
+
+    /**
+     * Makes sure files that aren't grid files, are cut short or have a
+     * header with a bad range of costs are rejected
+     *
+     * @param file A file to overwrite for the test
+     * @throws IOException If the file can't be written
+     */
+    private static void checkRejected(File file) throws IOException {
+        FileOutputStream out = new FileOutputStream(file);
+        out.write("type octile\nheight 4\nwidth 4\nmap\n".getBytes("US-ASCII"));
+        out.close();
+        expectRejected(file);
+
+        GridFile.write(new CompactGrid(100, 100), file);
+        RandomAccessFile truncated = new RandomAccessFile(file, "rw");
+        truncated.setLength(100);
+        truncated.close();
+        expectRejected(file);
+
+        // Costs the search can't scale its estimate by, and ranges other
+        // than the default cost for a file without a cost plane
+        float[][] costRanges = {
+            { 0, 1 }, { -1, 1 }, { Float.NaN, 1 }, { 1, Float.NaN },
+            { 1, Float.POSITIVE_INFINITY }, { 2, 1 }, { 2, 2 }, { 0.5f, 1 },
+            { 1, 3 }
+        };
+        for (float[] range : costRanges) {
+            GridFile.write(new CompactGrid(100, 100), file);
+            RandomAccessFile header = new RandomAccessFile(file, "rw");
+            header.seek(20);
+            header.writeInt(Integer.reverseBytes(Float.floatToRawIntBits(range[0])));
+            header.writeInt(Integer.reverseBytes(Float.floatToRawIntBits(range[1])));
+            header.close();
+            expectRejected(file);
+        }
+
+        System.out.println("Bad files are rejected");
+    }
+
+    /**
+     * Makes sure mapping a file fails
+     *
+     * @param file The file to map
+     */
+    private static void expectRejected(File file) {
+        try {
+            GridFile.map(file);
+        } catch (IOException e) {
+            return;
+        }
+        throw new AssertionError("Mapped a bad file");
+    }
+
+    /**
+     * Prints how long it takes to build a large grid cell by cell and to
+     * load the same grid from a file, and how much heap each one takes
+     *
+     * @param size The width and height of the grid
+     * @param file A file to write the grid to
+     * @throws IOException If the file can't be written or read
+     */
+    private static void timeLoading(int size, File file) throws IOException {
+        Random random = new Random(1);
+        boolean[] cells = new boolean[size * size];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = random.nextInt(100) >= 20;
+        }
+
+        long heap = usedHeap();
+        long start = System.nanoTime();
+        CompactGrid built = new CompactGrid(size, size);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                built.setWalkable(x, y, cells[y * size + x]);
+            }
+        }
+        long buildTime = System.nanoTime() - start;
+        long buildHeap = usedHeap() - heap;
+
+        GridFile.write(built, file);
+        built = null;
+
+        heap = usedHeap();
+        start = System.nanoTime();
+        CompactGrid read = GridFile.read(file);
+        long readTime = System.nanoTime() - start;
+        long readHeap = usedHeap() - heap;
+
+        heap = usedHeap();
+        start = System.nanoTime();
+        MappedGrid mapped = GridFile.map(file);
+        long mapTime = System.nanoTime() - start;
+        long mapHeap = usedHeap() - heap;
+
+        AStar search = new AStar(mapped);
+        start = System.nanoTime();
+        int[] path = search.calculateCellPath(0, 0, size - 1, size - 1);
+        long searchTime = System.nanoTime() - start;
+        if (!Arrays.equals(path, new AStar(read).calculateCellPath(0, 0, size - 1,
+                                                                   size - 1))) {
+            throw new AssertionError("Paths don't match");
+        }
+
+        System.out.println();
+        System.out.println("Grid: " + size + "x" + size + ", file " +
+                           file.length() / 1024 + " KB");
+        System.out.println(String.format("Cell by cell: %6d ms  %7d KB heap",
+                                         buildTime / 1000000, buildHeap / 1024));
+        System.out.println(String.format("Read file:    %6d ms  %7d KB heap",
+                                         readTime / 1000000, readHeap / 1024));
+        System.out.println(String.format("Map file:     %6d ms  %7d KB heap",
+                                         mapTime / 1000000, mapHeap / 1024));
+        System.out.println("First search on the mapped grid: " +
+                           searchTime / 1000000 + " ms");
+    }
+
+    /**
+     * Gets the heap in use after a garbage collection
+     *
+     * @return The used heap in bytes
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,222 @@
+package ambenavente1.cs151.astar.tests;
+
+import ambenavente1.cs151.astar.AStar;
+import ambenavente1.cs151.astar.AbstractGridMap;
+import ambenavente1.cs151.astar.CompactGrid;
+import ambenavente1.cs151.astar.Connectivity;
+import ambenavente1.cs151.astar.HierarchicalPathfinder;
+
+import java.util.Random;
+
+/**
+ * Test for {@link HierarchicalPathfinder}.  Its paths must be valid, must
+ * exist exactly when A* finds one and must cost at most
+ * {@link #WORST_RATIO} times A*'s, both on freshly built maps and after
+ * walls are edited.  Then long queries on a large map are timed against
+ * plain A*.
+ * <p></p>
+ * Usage: <code>HierarchicalTest [size] [queries]</code>
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public class HierarchicalTest {
+
+    /**
+     * The most a path may cost over the cheapest one, which the worst path
+     * on these maps stays under with some room
+     */
+    private static final double WORST_RATIO = 1.10;
+
+    public static void main(String[] args) {
+        int size    = args.length > 0 ? Integer.parseInt(args[0]) : 2048;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        for (Connectivity connectivity : Connectivity.values()) {
+            for (String family : new String[] { "random25", "rooms", "maze" }) {
+                CompactGrid grid = new CompactGrid(200, 200);
+                grid.setConnectivity(connectivity);
+                BenchmarkMaps.generate(grid, family, 3);
+                check(grid, connectivity + " " + family, 150);
+            }
+        }
+
+        benchmark(size, queries);
+    }
+
+    /**
+     * Runs random queries, edits some walls halfway through, and compares
+     * every path with A*
+     *
+     * @param grid    The grid to search
+     * @param name    The name printed with the results
+     * @param queries The number of queries to run
+     */
+    private static void check(AbstractGridMap grid, String name, int queries) {
+        HierarchicalPathfinder hierarchical = new HierarchicalPathfinder(grid, 16);
+        AStar aStar = new AStar(grid);
+        Random random = new Random(10);
+        int size = grid.getWidth();
+        double worst = 1;
+        double total = 0;
+        int found = 0;
+
+        for (int i = 0; i < queries; i++) {
+            if (i >= queries / 2) {
+                for (int edit = 0; edit < 20; edit++) {
+                    grid.setWalkable(random.nextInt(size), random.nextInt(size),
+                                     random.nextBoolean());
+                }
+            }
+
+            int sx = random.nextInt(size);
+            int sy = random.nextInt(size);
+            int ex = random.nextInt(size);
+            int ey = random.nextInt(size);
+            if (!grid.isWalkable(sx, sy) || !grid.isWalkable(ex, ey)) {
+                continue;
+            }
+
+            int[] path = hierarchical.calculateCellPath(sx, sy, ex, ey);
+            int[] expected = aStar.calculateCellPath(sx, sy, ex, ey);
+
+            if ((path.length == 0) != (expected.length == 0)) {
+                throw new AssertionError(name + ": found " + path.length +
+                                         " steps but A* found " +
+                                         expected.length);
+            }
+            if (path.length == 0) {
+                continue;
+            }
+
+            double ratio = cost(grid, sx, sy, path) / cost(grid, sx, sy, expected);
+            if (ratio < 0.999) {
+                throw new AssertionError(name + ": cheaper than A*");
+            }
+            worst = Math.max(worst, ratio);
+            total += ratio;
+            found++;
+        }
+
+        if (worst > WORST_RATIO) {
+            throw new AssertionError(name + ": a path cost " + worst +
+                                     " times the cheapest");
+        }
+
+        System.out.println(String.format("%-36s mean %.3f  worst %.3f", name,
+                                         total / Math.max(1, found), worst));
+        hierarchical.dispose();
+    }
+
+    /**
+     * Times long queries with plain A* and the hierarchical search
+     *
+     * @param size    The width and height of the grid
+     * @param queries The number of queries to run
+     */
+    private static void benchmark(int size, int queries) {
+        CompactGrid grid = new CompactGrid(size, size);
+        BenchmarkMaps.randomObstacles(grid, 25, 5);
+
+        long start = System.nanoTime();
+        HierarchicalPathfinder hierarchical = new HierarchicalPathfinder(grid);
+        long buildTime = System.nanoTime() - start;
+
+        // Rebuilding after one edit only touches the cluster it is in and
+        // the ones whose borders with it changed
+        long rebuildTime = Long.MAX_VALUE;
+        for (int edit = 0; edit < 5; edit++) {
+            int x = size / 2 + edit * (size / 16);
+            grid.setWalkable(x, size / 2, !grid.isWalkable(x, size / 2));
+            start = System.nanoTime();
+            hierarchical.calculateCellPath(0, 0, 0, 0);
+            rebuildTime = Math.min(rebuildTime, System.nanoTime() - start);
+        }
+
+        AStar aStar = new AStar(grid);
+        Random random = new Random(3);
+        long aStarTime = 0;
+        long hierarchicalTime = 0;
+        double totalRatio = 0;
+        double worst = 1;
+        int found = 0;
+
+        // The first queries are left out so both are timed once compiled
+        for (int i = -Math.min(queries, 10); i < queries; i++) {
+            // Walkable ends, so no query waits on a rebuild
+            int sx = random.nextInt(size / 8);
+            int sy = random.nextInt(size);
+            int ex = size - 1 - random.nextInt(size / 8);
+            int ey = random.nextInt(size);
+            if (!grid.isWalkable(sx, sy) || !grid.isWalkable(ex, ey)) {
+                i--;
+                continue;
+            }
+
+            start = System.nanoTime();
+            int[] expected = aStar.calculateCellPath(sx, sy, ex, ey);
+            long middle = System.nanoTime();
+            int[] path = hierarchical.calculateCellPath(sx, sy, ex, ey);
+            long end = System.nanoTime();
+            if (i < 0) {
+                continue;
+            }
+            aStarTime += middle - start;
+            hierarchicalTime += end - middle;
+
+            if (expected.length > 0) {
+                double ratio = cost(grid, sx, sy, path) / cost(grid, sx, sy, expected);
+                totalRatio += ratio;
+                worst = Math.max(worst, ratio);
+                found++;
+            }
+        }
+
+        System.out.println();
+        System.out.println("Grid:         " + size + "x" + size + ", 25% obstacles, " +
+                           hierarchical.getEntranceCount() + " entrances, " +
+                           hierarchical.getStoredStepCount() + " stored steps");
+        System.out.println("Build:        " + buildTime / 1000000 + " ms");
+        System.out.println("Rebuild:      " + rebuildTime / 1000 + " us after one edit");
+        System.out.println("A*:           " + aStarTime / queries / 1000 + " us per query");
+        System.out.println("Hierarchical: " + hierarchicalTime / queries / 1000 +
+                           " us per query");
+        System.out.println(String.format("Speedup:      %.1fx", (double) aStarTime /
+                                                               hierarchicalTime));
+        System.out.println(String.format("Cost ratio:   %.3f mean, %.3f worst",
+                                         totalRatio / found, worst));
+    }
+
+    /**
+     * Adds up the cost of a path and makes sure every step is an allowed move
+     *
+     * @param grid   The grid that was searched
+     * @param startX The x coordinate of the start
+     * @param startY The y coordinate of the start
+     * @param path   The cells on the path
+     * @return The cost of the path
+     */
+    private static double cost(AbstractGridMap grid, int startX, int startY,
+                               int[] path) {
+        int width = grid.getWidth();
+        int x = startX;
+        int y = startY;
+        double cost = 0;
+
+        for (int cell : path) {
+            int nx = cell % width;
+            int ny = cell / width;
+            boolean diagonal = nx != x && ny != y;
+            if (Math.max(Math.abs(nx - x), Math.abs(ny - y)) != 1 ||
+                !grid.isWalkable(nx, ny) ||
+                (diagonal && !grid.getConnectivity().allowsDiagonal())) {
+                throw new AssertionError("Invalid step to (" + nx + ", " + ny + ")");
+            }
+            cost += grid.getCost(nx, ny) * (diagonal ? Math.sqrt(2) : 1);
+            x = nx;
+            y = ny;
+        }
+
+        return cost;
+    }
+}
@@ -0,0 +1,191 @@
+package ambenavente1.cs151.astar.tests;
+
+import ambenavente1.cs151.astar.AStar;
+import ambenavente1.cs151.astar.Algorithm;
+import ambenavente1.cs151.astar.CompactGrid;
+import ambenavente1.cs151.astar.Connectivity;
+
+import java.util.Random;
+
+/**
+ * Benchmark that runs the same queries with plain A* and jump point search,
+ * checks that both find paths of the same cost and prints how many cells
+ * each one expanded and how long it took.  Every query is run a few times
+ * untimed first so both searches are compiled before they are measured,
+ * and the time printed is the fastest of several timed rounds.
+ * <p></p>
+ * Usage: <code>JumpPointBenchmark [size] [queries] [connectivity]</code>.
+ * On a 4-way map jump point search falls back to A*, so both columns
+ * should match.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public class JumpPointBenchmark {
+
+    /**
+     * The number of untimed rounds of every query run first
+     */
+    private static final int WARM_UP_ROUNDS = 5;
+
+    /**
+     * The number of timed rounds of every query, of which the fastest is
+     * printed
+     */
+    private static final int TIMED_ROUNDS = 5;
+
+    public static void main(String[] args) {
+        int size    = args.length > 0 ? Integer.parseInt(args[0]) : 512;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        Connectivity connectivity = args.length > 2 ?
+                Connectivity.valueOf(args[2]) : Connectivity.EIGHT;
+
+        System.out.println("Map             A* expanded     JPS expanded    " +
+                           "A* ms   JPS ms");
+        run("open", createGrid(size, 0, connectivity, 1), queries);
+        run("1% obstacles", createGrid(size, 1, connectivity, 2), queries);
+        run("5% obstacles", createGrid(size, 5, connectivity, 3), queries);
+        run("25% obstacles", createGrid(size, 25, connectivity, 4), queries);
+    }
+
+    /**
+     * Runs random queries on a grid with both algorithms and prints the
+     * totals
+     *
+     * @param name    The name of the kind of map
+     * @param grid    The grid to search
+     * @param queries The number of queries to run
+     */
+    private static void run(String name, CompactGrid grid, int queries) {
+        AStar aStar = new AStar(grid);
+        AStar jps = new AStar(grid);
+        jps.setAlgorithm(Algorithm.JUMP_POINT_SEARCH);
+
+        Random random = new Random(17);
+        int size = grid.getWidth();
+        int[][] ends = new int[queries][];
+        for (int i = 0; i < queries; i++) {
+            ends[i] = new int[] { random.nextInt(size), random.nextInt(size),
+                                  random.nextInt(size), random.nextInt(size) };
+            grid.setWalkable(ends[i][0], ends[i][1], true);
+            grid.setWalkable(ends[i][2], ends[i][3], true);
+        }
+
+        for (int[] query : ends) {
+            int[] expected = aStar.calculateCellPath(query[0], query[1],
+                                                     query[2], query[3]);
+            int[] path = jps.calculateCellPath(query[0], query[1],
+                                               query[2], query[3]);
+            double cost = cost(grid, query[0], query[1], path);
+            double expectedCost = cost(grid, query[0], query[1], expected);
+            if ((path.length == 0) != (expected.length == 0) ||
+                Math.abs(cost - expectedCost) > expectedCost * 1e-5) {
+                throw new AssertionError("JPS found a path that costs " + cost +
+                                         " but A*'s costs " + expectedCost);
+            }
+        }
+
+        for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+            time(aStar, ends);
+            time(jps, ends);
+        }
+
+        long aStarTime = Long.MAX_VALUE;
+        long jpsTime = Long.MAX_VALUE;
+        for (int i = 0; i < TIMED_ROUNDS; i++) {
+            aStarTime = Math.min(aStarTime, time(aStar, ends));
+            jpsTime = Math.min(jpsTime, time(jps, ends));
+        }
+
+        System.out.println(String.format("%-15s %-15d %-15d %-7.2f %.2f", name,
+                expanded(aStar, ends), expanded(jps, ends),
+                aStarTime / 1e6, jpsTime / 1e6));
+    }
+
+    /**
+     * Runs every query once
+     *
+     * @param search The search to run them with
+     * @param ends   The start and goal coordinates of each query
+     * @return How long the queries took in nanoseconds
+     */
+    private static long time(AStar search, int[][] ends) {
+        long start = System.nanoTime();
+        for (int[] query : ends) {
+            search.calculateCellPath(query[0], query[1], query[2], query[3]);
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Runs every query once and adds up the cells expanded
+     *
+     * @param search The search to run them with
+     * @param ends   The start and goal coordinates of each query
+     * @return The number of cells expanded by all of the queries
+     */
+    private static long expanded(AStar search, int[][] ends) {
+        long expanded = 0;
+        for (int[] query : ends) {
+            search.calculateCellPath(query[0], query[1], query[2], query[3]);
+            expanded += search.getNodesExpanded();
+        }
+        return expanded;
+    }
+
+    /**
+     * Adds up the cost of a path and makes sure every step is a move the
+     * grid allows
+     *
+     * @param grid   The grid that was searched
+     * @param startX The x coordinate of the start
+     * @param startY The y coordinate of the start
+     * @param path   The cells on the path
+     * @return The cost of the path
+     */
+    private static double cost(CompactGrid grid, int startX, int startY,
+                               int[] path) {
+        int width = grid.getWidth();
+        int x = startX;
+        int y = startY;
+        double cost = 0;
+
+        for (int cell : path) {
+            int nx = cell % width;
+            int ny = cell / width;
+            boolean diagonal = nx != x && ny != y;
+            if (!grid.isWalkable(nx, ny) ||
+                Math.max(Math.abs(nx - x), Math.abs(ny - y)) != 1 ||
+                (!grid.getConnectivity().allowsDiagonal() && diagonal)) {
+                throw new AssertionError("Invalid step to (" + nx + ", " + ny + ")");
+            }
+            cost += grid.getCost(nx, ny) * (diagonal ? Math.sqrt(2) : 1);
+            x = nx;
+            y = ny;
+        }
+
+        return cost;
+    }
+
+    /**
+     * Creates a grid with randomly placed obstacles
+     *
+     * @param size         The width and height of the grid
+     * @param obstacles    The percent of cells that are not walkable
+     * @param connectivity The moves paths are allowed to make
+     * @param seed         The seed for the random obstacles
+     * @return The new grid
+     */
+    private static CompactGrid createGrid(int size, int obstacles,
+                                          Connectivity connectivity, long seed) {
+        Random random = new Random(seed);
+        CompactGrid grid = new CompactGrid(size, size);
+        grid.setConnectivity(connectivity);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                grid.setWalkable(x, y, random.nextInt(100) >= obstacles);
+            }
+        }
+        return grid;
+    }
+}
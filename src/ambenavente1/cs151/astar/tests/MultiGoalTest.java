@@ -0,0 +1,285 @@
+package ambenavente1.cs151.astar.tests;
+
+import ambenavente1.cs151.astar.AStar;
+import ambenavente1.cs151.astar.AbstractGridMap;
+import ambenavente1.cs151.astar.CompactGrid;
+import ambenavente1.cs151.astar.Connectivity;
+import ambenavente1.cs151.astar.Grid;
+import ambenavente1.cs151.astar.Path;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Test for the one-to-many queries of {@link AStar}.  The path to the
+ * nearest goal and the distance to every goal must match a separate search
+ * to each goal.  Then a single search to the nearest of several goals is
+ * timed against searching to each goal in turn.
+ * <p></p>
+ * Usage: <code>MultiGoalTest [size] [queries]</code>
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public class MultiGoalTest {
+
+    /**
+     * How far apart two costs added up in floats may be and still count as
+     * the same
+     */
+    private static final double EPSILON = 1e-3;
+
+    public static void main(String[] args) {
+        int size    = args.length > 0 ? Integer.parseInt(args[0]) : 1024;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+
+        for (Connectivity connectivity : Connectivity.values()) {
+            for (boolean terrain : new boolean[] { false, true }) {
+                CompactGrid grid = new CompactGrid(96, 96);
+                grid.setConnectivity(connectivity);
+                BenchmarkMaps.randomObstacles(grid, 30, 2);
+                if (terrain) {
+                    Random random = new Random(3);
+                    for (int i = 0; i < 3000; i++) {
+                        grid.setCost(random.nextInt(96), random.nextInt(96),
+                                     0.5f + random.nextInt(5));
+                    }
+                }
+                check(grid, 200);
+            }
+        }
+        check(BenchmarkMaps.rooms(new Grid(80, 80), 4), 100);
+        System.out.println("Nearest goals and distances match separate searches");
+
+        time(size, queries, 4);
+        time(size, queries, 32);
+    }
+
+    /**
+     * Runs random one-to-many queries and compares them with a separate
+     * search to each goal
+     *
+     * @param grid    The map to search
+     * @param queries The number of queries to run
+     */
+    private static void check(AbstractGridMap grid, int queries) {
+        AStar aStar = new AStar(grid);
+        Random random = new Random(7);
+
+        for (int i = 0; i < queries; i++) {
+            Point start = randomCell(grid, random);
+            List<Point> goals = new ArrayList<Point>();
+            int count = 1 + random.nextInt(20);
+            for (int j = 0; j < count; j++) {
+                goals.add(randomCell(grid, random));
+            }
+            if (random.nextInt(10) == 0) {
+                goals.add(new Point(start));
+            }
+            if (random.nextInt(10) == 0) {
+                // A goal on a wall can never be reached
+                goals.add(new Point(random.nextInt(grid.getWidth()),
+                                    random.nextInt(grid.getHeight())));
+            }
+
+            double[] expected = new double[goals.size()];
+            double nearest = Double.POSITIVE_INFINITY;
+            for (int j = 0; j < goals.size(); j++) {
+                Point goal = goals.get(j);
+                int[] path = aStar.calculateCellPath(start.x, start.y,
+                                                     goal.x, goal.y);
+                expected[j] = path.length == 0 && !goal.equals(start) ?
+                              Double.POSITIVE_INFINITY :
+                              cost(grid, start, path);
+                nearest = Math.min(nearest, expected[j]);
+            }
+
+            Path path = aStar.findNearest(start.x, start.y, goals);
+            if (nearest == Double.POSITIVE_INFINITY) {
+                if (path != null) {
+                    throw new AssertionError("Found a path to no reachable goal");
+                }
+            } else if (nearest == 0) {
+                if (path == null || !path.isEmpty()) {
+                    throw new AssertionError("Expected an empty path from a " +
+                                             "start that is a goal");
+                }
+            } else {
+                Point end = new Point(path.getX(path.length() - 1),
+                                      path.getY(path.length() - 1));
+                if (!goals.contains(end)) {
+                    throw new AssertionError("The path doesn't end at a goal");
+                }
+                checkCost(cost(grid, start, path.toCellArray()), nearest);
+            }
+
+            float[] distances = aStar.calculateDistances(start.x, start.y, goals);
+            for (int j = 0; j < goals.size(); j++) {
+                if (Double.isInfinite(expected[j]) != Float.isInfinite(distances[j])) {
+                    throw new AssertionError("Goal " + goals.get(j) +
+                                             " reachable by only one search");
+                }
+                if (!Double.isInfinite(expected[j])) {
+                    checkCost(distances[j], expected[j]);
+                }
+            }
+
+            // Only the closest goal cells get a distance with a limit
+            float[] closest = aStar.calculateDistances(start.x, start.y, goals, 3);
+            Set<Point> found = new HashSet<Point>();
+            Set<Point> reachable = new HashSet<Point>();
+            for (int j = 0; j < goals.size(); j++) {
+                if (!Float.isInfinite(closest[j])) {
+                    if (closest[j] != distances[j]) {
+                        throw new AssertionError("Limited distance differs");
+                    }
+                    found.add(goals.get(j));
+                }
+                if (!Float.isInfinite(distances[j])) {
+                    reachable.add(goals.get(j));
+                }
+            }
+            if (found.size() != Math.min(3, reachable.size())) {
+                throw new AssertionError("Found " + found.size() +
+                                         " goals with a limit of 3");
+            }
+        }
+    }
+
+    /**
+     * Makes sure a cost found by a one-to-many query matches the cost a
+     * separate search found
+     *
+     * @param cost     The cost of the one-to-many query
+     * @param expected The cost of the separate search
+     */
+    private static void checkCost(double cost, double expected) {
+        if (Math.abs(cost - expected) > EPSILON) {
+            throw new AssertionError("Cost " + cost + ", expected " + expected);
+        }
+    }
+
+    /**
+     * Times the nearest of several goals found by one search against
+     * searching to each goal in turn
+     *
+     * @param size    The width and height of the map
+     * @param queries The number of queries to time
+     * @param count   The number of goals of each query
+     */
+    private static void time(int size, int queries, int count) {
+        CompactGrid grid = new CompactGrid(size, size);
+        grid.setConnectivity(Connectivity.EIGHT);
+        BenchmarkMaps.rooms(grid, 8);
+        AStar aStar = new AStar(grid);
+        Random random = new Random(11);
+
+        List<Point> starts = new ArrayList<Point>();
+        List<List<Point>> goalSets = new ArrayList<List<Point>>();
+        for (int i = 0; i < queries; i++) {
+            starts.add(randomCell(grid, random));
+            List<Point> goals = new ArrayList<Point>();
+            for (int j = 0; j < count; j++) {
+                goals.add(randomCell(grid, random));
+            }
+            goalSets.add(goals);
+        }
+
+        long separateExpanded = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            Point from = starts.get(i);
+            for (Point goal : goalSets.get(i)) {
+                aStar.calculateCellPath(from.x, from.y, goal.x, goal.y);
+                separateExpanded += aStar.getNodesExpanded();
+            }
+        }
+        long separate = System.nanoTime() - start;
+
+        long nearestExpanded = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            Point from = starts.get(i);
+            aStar.findNearest(from.x, from.y, goalSets.get(i));
+            nearestExpanded += aStar.getNodesExpanded();
+        }
+        long nearest = System.nanoTime() - start;
+
+        long distancesExpanded = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            Point from = starts.get(i);
+            aStar.calculateDistances(from.x, from.y, goalSets.get(i));
+            distancesExpanded += aStar.getNodesExpanded();
+        }
+        long distances = System.nanoTime() - start;
+
+        System.out.println();
+        System.out.println("Map: " + size + "x" + size + " rooms, " + queries +
+                           " queries with " + count + " goals each");
+        System.out.println(String.format("Search per goal: %8.2f ms per query, " +
+                                         "%8d cells expanded",
+                                         separate / 1e6 / queries,
+                                         separateExpanded / queries));
+        System.out.println(String.format("Nearest goal:    %8.2f ms per query, " +
+                                         "%8d cells expanded",
+                                         nearest / 1e6 / queries,
+                                         nearestExpanded / queries));
+        System.out.println(String.format("All distances:   %8.2f ms per query, " +
+                                         "%8d cells expanded",
+                                         distances / 1e6 / queries,
+                                         distancesExpanded / queries));
+    }
+
+    /**
+     * Picks a random walkable cell
+     *
+     * @param grid   The map to pick from
+     * @param random The source of random cells
+     * @return The point of a walkable cell
+     */
+    private static Point randomCell(AbstractGridMap grid, Random random) {
+        while (true) {
+            int x = random.nextInt(grid.getWidth());
+            int y = random.nextInt(grid.getHeight());
+            if (grid.isWalkable(x, y)) {
+                return new Point(x, y);
+            }
+        }
+    }
+
+    /**
+     * Adds up the cost of a path and makes sure every step is an allowed move
+     *
+     * @param grid  The grid that was searched
+     * @param start The start of the path
+     * @param path  The cells on the path
+     * @return The cost of the path
+     */
+    private static double cost(AbstractGridMap grid, Point start, int[] path) {
+        int width = grid.getWidth();
+        int x = start.x;
+        int y = start.y;
+        double cost = 0;
+
+        for (int cell : path) {
+            int nx = cell % width;
+            int ny = cell / width;
+            boolean diagonal = nx != x && ny != y;
+            if (Math.max(Math.abs(nx - x), Math.abs(ny - y)) != 1 ||
+                !grid.isWalkable(nx, ny) ||
+                (diagonal && !grid.getConnectivity().allowsDiagonal())) {
+                throw new AssertionError("Invalid step to (" + nx + ", " + ny + ")");
+            }
+            cost += grid.getCost(nx, ny) * (diagonal ? Math.sqrt(2) : 1);
+            x = nx;
+            y = ny;
+        }
+
+        return cost;
+    }
+}
@@ -0,0 +1,117 @@
+package ambenavente1.cs151.astar.tests;
+
+import ambenavente1.cs151.astar.AStar;
+import ambenavente1.cs151.astar.Grid;
+import ambenavente1.cs151.astar.HeapOpenList;
+import ambenavente1.cs151.astar.OpenList;
+import ambenavente1.cs151.astar.ScanOpenList;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmark that runs the same queries with the old scan-based open list and
+ * the heap-based open list, checks that they find the same paths and prints
+ * how long each one took.
+ * <p></p>
+ * Usage: <code>OpenListBenchmark [size] [queries] [obstacle%]</code>
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public class OpenListBenchmark {
+
+    public static void main(String[] args) {
+        int size      = args.length > 0 ? Integer.parseInt(args[0]) : 256;
+        int queries   = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int obstacles = args.length > 2 ? Integer.parseInt(args[2]) : 25;
+        long seed = 42;
+
+        List<Point[]> pairs = createQueries(size, queries, obstacles, seed);
+
+        List<List<Point>> scanPaths = new ArrayList<List<Point>>();
+        List<List<Point>> heapPaths = new ArrayList<List<Point>>();
+
+        long scanTime = run(new AStar(createGrid(size, obstacles, seed),
+                                      new ScanOpenList()), pairs, scanPaths);
+        long heapTime = run(new AStar(createGrid(size, obstacles, seed),
+                                      new HeapOpenList()), pairs, heapPaths);
+
+        if (!scanPaths.equals(heapPaths)) {
+            throw new AssertionError("The open lists found different paths");
+        }
+
+        System.out.println("Grid:  " + size + "x" + size + ", " +
+                           obstacles + "% obstacles, " + queries + " queries");
+        System.out.println("Scan:  " + scanTime / 1000000 + " ms");
+        System.out.println("Heap:  " + heapTime / 1000000 + " ms");
+        System.out.println("Paths: identical");
+    }
+
+    /**
+     * Runs every query with the given AStar object
+     *
+     * @param aStar The object to run the queries with
+     * @param pairs The start and end points of each query
+     * @param paths The list the found paths are added to
+     * @return The time it took in nanoseconds
+     */
+    private static long run(AStar aStar, List<Point[]> pairs,
+                            List<List<Point>> paths) {
+        long start = System.nanoTime();
+        for (Point[] pair : pairs) {
+            paths.add(aStar.calculatePath(pair[0], pair[1]));
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Creates a grid with randomly placed obstacles
+     *
+     * @param size      The width and height of the grid
+     * @param obstacles The percent of cells that are not walkable
+     * @param seed      The seed for the random obstacles
+     * @return The new grid
+     */
+    private static Grid createGrid(int size, int obstacles, long seed) {
+        Random random = new Random(seed);
+        Grid grid = new Grid(size, size);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                grid.setWalkable(x, y, random.nextInt(100) >= obstacles);
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Picks random walkable start and end points on the grid that
+     * {@link #createGrid(int, int, long)} makes with the same arguments
+     *
+     * @param size      The width and height of the grid
+     * @param queries   The number of queries to make
+     * @param obstacles The percent of cells that are not walkable
+     * @param seed      The seed for the random obstacles
+     * @return The start and end point of each query
+     */
+    private static List<Point[]> createQueries(int size, int queries,
+                                               int obstacles, long seed) {
+        Grid grid = createGrid(size, obstacles, seed);
+        Random random = new Random(seed + 1);
+        List<Point[]> pairs = new ArrayList<Point[]>();
+
+        while (pairs.size() < queries) {
+            Point start = new Point(random.nextInt(size), random.nextInt(size));
+            Point end   = new Point(random.nextInt(size), random.nextInt(size));
+            if (!start.equals(end) &&
+                grid.isWalkable(start.x, start.y) &&
+                grid.isWalkable(end.x, end.y)) {
+                pairs.add(new Point[] { start, end });
+            }
+        }
+
+        return pairs;
+    }
+}
@@ -0,0 +1,94 @@
+package ambenavente1.cs151.astar.tests;
+
+import ambenavente1.cs151.astar.AStar;
+import ambenavente1.cs151.astar.AbstractGridMap;
+import ambenavente1.cs151.astar.CompactGrid;
+
+import java.awt.Point;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * A quick check of path query speed that needs nothing but the JDK.  Each
+ * family of {@link BenchmarkMaps} is generated at every size from 64x64 up
+ * to the largest size asked for, any Moving AI <code>.map</code> files given
+ * are added to them, and the mean time and cells expanded per query are
+ * printed for each map.
+ * <p></p>
+ * This is only a smoke test.  The numbers to compare changes by come from
+ * the JMH benchmarks in the <code>jmh</code> module, which report the
+ * throughput, latency percentiles and bytes allocated per query of the same
+ * maps along with the cost of building the grids:
+ * <code>gradle :jmh:jmh</code>.
+ * <p></p>
+ * Usage: <code>PathBenchmark [maxSize] [queries] [file.map ...]</code>
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public class PathBenchmark {
+
+    /**
+     * The sizes maps are generated at
+     */
+    private static final int[] SIZES = { 64, 256, 1024, 4096 };
+
+    public static void main(String[] args) throws IOException {
+        int maxSize = args.length > 0 ? Integer.parseInt(args[0]) : 1024;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+
+        System.out.println("Map              Size    us/op     expanded/op");
+        for (String family : BenchmarkMaps.FAMILIES) {
+            for (int size : SIZES) {
+                if (size <= maxSize) {
+                    AbstractGridMap map = BenchmarkMaps.generate(
+                            new CompactGrid(size, size), family, size);
+                    benchmarkQueries(family, map, queries);
+                }
+            }
+        }
+
+        for (int i = 2; i < args.length; i++) {
+            CompactGrid map = BenchmarkMaps.readMovingAiMap(args[i]);
+            String name = args[i].substring(args[i].lastIndexOf('/') + 1);
+            benchmarkQueries(name, map, queries);
+        }
+    }
+
+    /**
+     * Runs random queries between walkable cells of a map, once to warm up
+     * and once timed, and prints the results
+     *
+     * @param name    The name of the map
+     * @param map     The map to search
+     * @param queries The number of queries to run
+     */
+    private static void benchmarkQueries(String name, AbstractGridMap map,
+                                         int queries) {
+        Point[] starts = new Point[queries];
+        Point[] ends   = new Point[queries];
+        Random random = new Random(23);
+        for (int i = 0; i < queries; i++) {
+            starts[i] = BenchmarkMaps.randomWalkable(map, random);
+            ends[i]   = BenchmarkMaps.randomWalkable(map, random);
+        }
+
+        AStar aStar = new AStar(map);
+        for (int i = 0; i < queries; i++) {
+            aStar.calculatePath(starts[i], ends[i]);
+        }
+
+        long expanded = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            aStar.calculatePath(starts[i], ends[i]);
+            expanded += aStar.getNodesExpanded();
+        }
+        long time = System.nanoTime() - start;
+
+        System.out.println(String.format("%-16s %-7d %-9.1f %d", name,
+                                         map.getWidth(),
+                                         time / 1000.0 / queries,
+                                         expanded / queries));
+    }
+}
@@ -0,0 +1,147 @@
+package ambenavente1.cs151.astar.tests;
+
+import ambenavente1.cs151.astar.AStar;
+import ambenavente1.cs151.astar.AbstractGridMap;
+import ambenavente1.cs151.astar.CompactGrid;
+import ambenavente1.cs151.astar.Connectivity;
+import ambenavente1.cs151.astar.PathCache;
+
+import java.util.Random;
+
+/**
+ * Test for {@link PathCache}.  Agents ask for paths between a small set of
+ * places while walls are opened and closed and costs are raised and
+ * lowered.  Every answer from the cache must be a valid path that costs the
+ * same as searching from scratch.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public class PathCacheTest {
+
+    public static void main(String[] args) {
+        for (Connectivity connectivity : Connectivity.values()) {
+            CompactGrid grid = new CompactGrid(96, 96);
+            grid.setConnectivity(connectivity);
+            BenchmarkMaps.randomObstacles(grid, 20, 12);
+            check(grid, 3000);
+        }
+    }
+
+    /**
+     * Runs queries between a few places mixed with random edits and checks
+     * every answer against a fresh search
+     *
+     * @param grid    The grid to search
+     * @param queries The number of queries to run
+     */
+    private static void check(AbstractGridMap grid, int queries) {
+        Random random = new Random(31);
+        int size = grid.getWidth();
+        AStar cached = new AStar(grid);
+        AStar fresh = new AStar(grid);
+        PathCache cache = new PathCache(cached, 100);
+
+        int[][] places = new int[12][];
+        for (int i = 0; i < places.length; i++) {
+            places[i] = new int[] { random.nextInt(size), random.nextInt(size) };
+            grid.setWalkable(places[i][0], places[i][1], true);
+        }
+
+        for (int i = 0; i < queries; i++) {
+            if (i % 25 == 0) {
+                edit(grid, places, random);
+            }
+
+            int[] start = places[random.nextInt(places.length)];
+            int[] end   = places[random.nextInt(places.length)];
+
+            int[] path = cache.calculateCellPath(start[0], start[1],
+                                                 end[0], end[1]);
+            int[] expected = fresh.calculateCellPath(start[0], start[1],
+                                                     end[0], end[1]);
+
+            float cost = cost(grid, start, path);
+            float expectedCost = cost(grid, start, expected);
+            if (path.length == 0 ? expected.length != 0 :
+                Math.abs(cost - expectedCost) > 1e-3 * expectedCost) {
+                throw new AssertionError("Cached path costs " + cost +
+                                         " but a new search costs " +
+                                         expectedCost);
+            }
+        }
+
+        System.out.println(String.format(
+                "%-24s hits %-5d misses %-5d evictions %-5d invalidations %d",
+                grid.getConnectivity(), cache.getHits(), cache.getMisses(),
+                cache.getEvictions(), cache.getInvalidations()));
+        cache.dispose();
+    }
+
+    /**
+     * Makes one random edit: closes or opens a cell, or raises or lowers its
+     * cost.  The places agents travel between are never closed.
+     *
+     * @param grid   The grid to edit
+     * @param places The places agents travel between
+     * @param random The random number generator to use
+     */
+    private static void edit(AbstractGridMap grid, int[][] places, Random random) {
+        int x = random.nextInt(grid.getWidth());
+        int y = random.nextInt(grid.getHeight());
+
+        switch (random.nextInt(4)) {
+            case 0:
+                for (int[] place : places) {
+                    if (place[0] == x && place[1] == y) {
+                        return;
+                    }
+                }
+                grid.setWalkable(x, y, false);
+                break;
+            case 1:
+                grid.setWalkable(x, y, true);
+                break;
+            case 2:
+                grid.setCost(x, y, grid.getCost(x, y) + 2);
+                break;
+            default:
+                grid.setCost(x, y, Math.max(0.5f, grid.getCost(x, y) - 2));
+                break;
+        }
+    }
+
+    /**
+     * Adds up the cost of a path and makes sure every step is an allowed move
+     *
+     * @param grid  The grid that was searched
+     * @param start The start of the path
+     * @param path  The cells on the path
+     * @return The cost of the path
+     */
+    private static float cost(AbstractGridMap grid, int[] start, int[] path) {
+        int width = grid.getWidth();
+        int x = start[0];
+        int y = start[1];
+        float cost = 0;
+
+        for (int cell : path) {
+            int nx = cell % width;
+            int ny = cell / width;
+            boolean diagonal = nx != x && ny != y;
+            if (Math.max(Math.abs(nx - x), Math.abs(ny - y)) != 1 ||
+                !grid.isWalkable(nx, ny) ||
+                (diagonal && !grid.getConnectivity().allowsDiagonal()) ||
+                (diagonal && grid.getConnectivity() ==
+                             Connectivity.EIGHT_NO_CORNER_CUTTING &&
+                 (!grid.isWalkable(nx, y) || !grid.isWalkable(x, ny)))) {
+                throw new AssertionError("Invalid step to (" + nx + ", " + ny + ")");
+            }
+            cost += grid.getCost(nx, ny) * (diagonal ? (float) Math.sqrt(2) : 1);
+            x = nx;
+            y = ny;
+        }
+
+        return cost;
+    }
+}
@@ -0,0 +1,309 @@
+package ambenavente1.cs151.astar.tests;
+
+import ambenavente1.cs151.astar.AStar;
+import ambenavente1.cs151.astar.AbstractGridMap;
+import ambenavente1.cs151.astar.CompactGrid;
+import ambenavente1.cs151.astar.Connectivity;
+import ambenavente1.cs151.astar.LatencyHistogram;
+import ambenavente1.cs151.astar.Path;
+import ambenavente1.cs151.astar.PathSearch;
+
+import java.awt.Point;
+import java.util.Random;
+
+/**
+ * Test for {@link PathSearch}.  A search run a few cells at a time must
+ * find the same path as one run all at once, a search that runs out of
+ * budget must give a partial path of allowed moves, and an anytime search
+ * must find paths within its weight that end up as cheap as A*'s.  Then
+ * the cells expanded before the first path and the length of each run
+ * under a time budget are measured on a large map.
+ * <p></p>
+ * Usage: <code>PathSearchTest [size] [queries]</code>
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public class PathSearchTest {
+
+    /**
+     * How far apart two costs added up in floats may be and still count as
+     * the same
+     */
+    private static final double EPSILON = 1e-3;
+
+    public static void main(String[] args) {
+        int size    = args.length > 0 ? Integer.parseInt(args[0]) : 1024;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+
+        for (Connectivity connectivity : Connectivity.values()) {
+            for (boolean terrain : new boolean[] { false, true }) {
+                CompactGrid grid = new CompactGrid(96, 96);
+                grid.setConnectivity(connectivity);
+                BenchmarkMaps.randomObstacles(grid, 30, 5);
+                if (terrain) {
+                    Random random = new Random(6);
+                    for (int i = 0; i < 3000; i++) {
+                        grid.setCost(random.nextInt(96), random.nextInt(96),
+                                     0.5f + random.nextInt(5));
+                    }
+                }
+                check(grid, 100);
+            }
+        }
+        System.out.println("Resumed, partial and anytime searches match A*");
+
+        time(size, queries);
+    }
+
+    /**
+     * Runs random queries every way a search can be run and compares them
+     * with A*
+     *
+     * @param grid    The map to search
+     * @param queries The number of queries to run
+     */
+    private static void check(AbstractGridMap grid, int queries) {
+        AStar aStar = new AStar(grid);
+        Random random = new Random(12);
+
+        for (int i = 0; i < queries; i++) {
+            Point start = randomCell(grid, random);
+            Point end = randomCell(grid, random);
+            Path expected = aStar.findPath(start.x, start.y, end.x, end.y);
+            boolean reachable = !expected.isEmpty() || start.equals(end);
+            double cheapest = cost(grid, start, expected);
+
+            // A few cells at a time finds exactly the same path
+            PathSearch search = aStar.startSearch(start.x, start.y, end.x, end.y);
+            int runs = 0;
+            while (!search.run(50, Long.MAX_VALUE)) {
+                Path partial = search.getPath();
+                cost(grid, start, partial);
+                if (search.isFound() || reaches(partial, end)) {
+                    throw new AssertionError("A paused search found the goal");
+                }
+                runs++;
+            }
+            if (search.isFound() != reachable ||
+                !search.getPath().equals(expected)) {
+                throw new AssertionError("Resumed search differs from A* after " +
+                                         runs + " runs");
+            }
+            search.dispose();
+
+            // Budgets of any size give allowed moves
+            Path budgeted = aStar.findPath(start.x, start.y, end.x, end.y,
+                                           1 + random.nextInt(200),
+                                           Long.MAX_VALUE);
+            cost(grid, start, budgeted);
+            if (reaches(budgeted, end) && !budgeted.equals(expected)) {
+                throw new AssertionError("Budgeted search found another path");
+            }
+
+            // Each path of an anytime search is within its weight, and the
+            // last one is the cheapest
+            float weight = 1 + random.nextInt(4);
+            search = aStar.startSearch(start.x, start.y, end.x, end.y, weight);
+            float lastWeight = Float.POSITIVE_INFINITY;
+            while (!search.run(1 + random.nextInt(100), Long.MAX_VALUE)) {
+                if (search.isFound()) {
+                    if (search.getWeight() > lastWeight) {
+                        throw new AssertionError("The weight went up");
+                    }
+                    lastWeight = search.getWeight();
+                    double cost = cost(grid, start, search.getPath());
+                    if (!reaches(search.getPath(), end) ||
+                        cost > cheapest * search.getWeight() + EPSILON) {
+                        throw new AssertionError("Path costs " + cost +
+                                                 " with weight " +
+                                                 search.getWeight() +
+                                                 ", cheapest is " + cheapest);
+                    }
+                }
+            }
+            if (search.isFound() != reachable) {
+                throw new AssertionError("Anytime search disagrees on the goal");
+            }
+            if (reachable) {
+                double cost = cost(grid, start, search.getPath());
+                if (search.getWeight() != 1 ||
+                    cost > cheapest + EPSILON) {
+                    throw new AssertionError("Final path costs " + cost +
+                                             ", cheapest is " + cheapest);
+                }
+            }
+
+            // Editing the map while a search is paused starts it over
+            if (i % 10 == 0) {
+                PathSearch paused = aStar.startSearch(start.x, start.y,
+                                                      end.x, end.y);
+                paused.run(30, Long.MAX_VALUE);
+                Point wall = randomCell(grid, random);
+                if (!wall.equals(start) && !wall.equals(end)) {
+                    grid.setWalkable(wall.x, wall.y, false);
+                }
+                paused.runToEnd();
+                Path fresh = aStar.findPath(start.x, start.y, end.x, end.y);
+                if (!paused.getPath().equals(fresh)) {
+                    throw new AssertionError("A search across an edit differs");
+                }
+                paused.dispose();
+            }
+            search.dispose();
+        }
+    }
+
+    /**
+     * Times the first path of anytime searches and the runs of searches
+     * spread over many small budgets
+     *
+     * @param size    The width and height of the map
+     * @param queries The number of queries to time
+     */
+    private static void time(int size, int queries) {
+        CompactGrid grid = new CompactGrid(size, size);
+        grid.setConnectivity(Connectivity.EIGHT);
+        BenchmarkMaps.randomObstacles(grid, 25, 13);
+        AStar aStar = new AStar(grid);
+        Random random = new Random(14);
+
+        Point[] starts = new Point[queries];
+        Point[] ends = new Point[queries];
+        for (int i = 0; i < queries; i++) {
+            do {
+                starts[i] = randomCell(grid, random);
+                ends[i] = randomCell(grid, random);
+            } while (!grid.isConnected(starts[i].x, starts[i].y,
+                                       ends[i].x, ends[i].y) ||
+                     starts[i].distance(ends[i]) < size / 2);
+        }
+
+        long expanded = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            aStar.calculateCellPath(starts[i].x, starts[i].y, ends[i].x, ends[i].y);
+            expanded += aStar.getNodesExpanded();
+        }
+        long search = System.nanoTime() - start;
+
+        System.out.println();
+        System.out.println("Map: " + size + "x" + size + " random 25%, " +
+                           queries + " long queries");
+        System.out.println(String.format("A*:                   %8.2f ms per query, " +
+                                         "%8d cells expanded",
+                                         search / 1e6 / queries,
+                                         expanded / queries));
+
+        for (float weight : new float[] { 1.5f, 3 }) {
+            long firstExpanded = 0;
+            double ratio = 0;
+            start = System.nanoTime();
+            for (int i = 0; i < queries; i++) {
+                PathSearch anytime = aStar.startSearch(starts[i].x, starts[i].y,
+                                                       ends[i].x, ends[i].y,
+                                                       weight);
+                while (!anytime.isFound()) {
+                    anytime.run(1000, Long.MAX_VALUE);
+                }
+                firstExpanded += anytime.getStats().getExpanded();
+                Path first = anytime.getPath();
+                ratio += cost(grid, starts[i], first) /
+                         cost(grid, starts[i],
+                              aStar.findPath(starts[i].x, starts[i].y,
+                                             ends[i].x, ends[i].y));
+                anytime.dispose();
+            }
+            System.out.println(String.format("First path, weight %.1f:        " +
+                                             "%8d cells expanded, %.3f times " +
+                                             "the cheapest cost", weight,
+                                             firstExpanded / queries,
+                                             ratio / queries));
+        }
+
+        // A budget of half a millisecond per tick keeps every tick short.
+        // The first pass warms up the compiler, which would otherwise steal
+        // time from the ticks on a machine with few cores.
+        LatencyHistogram ticks = new LatencyHistogram();
+        for (int pass = 0; pass < 2; pass++) {
+            ticks.reset();
+            for (int i = 0; i < queries; i++) {
+                PathSearch sliced = aStar.startSearch(starts[i].x, starts[i].y,
+                                                      ends[i].x, ends[i].y);
+                boolean done = false;
+                while (!done) {
+                    start = System.nanoTime();
+                    done = sliced.run(Integer.MAX_VALUE, 500000);
+                    ticks.record(System.nanoTime() - start);
+                }
+                sliced.dispose();
+            }
+        }
+        System.out.println(String.format("0.5 ms budget:        %8.2f ticks per " +
+                                         "query, %.2f ms median tick, %.2f ms " +
+                                         "at the 99th percentile",
+                                         (double) ticks.getCount() / queries,
+                                         ticks.getValueAtPercentile(50) / 1e6,
+                                         ticks.getValueAtPercentile(99) / 1e6));
+    }
+
+    /**
+     * Checks if a path ends at a cell
+     *
+     * @param path The path to check
+     * @param end  The cell it should end at
+     * @return If the last cell of the path is the end
+     */
+    private static boolean reaches(Path path, Point end) {
+        return !path.isEmpty() &&
+               path.getX(path.length() - 1) == end.x &&
+               path.getY(path.length() - 1) == end.y;
+    }
+
+    /**
+     * Picks a random walkable cell
+     *
+     * @param grid   The map to pick from
+     * @param random The source of random cells
+     * @return The point of a walkable cell
+     */
+    private static Point randomCell(AbstractGridMap grid, Random random) {
+        while (true) {
+            int x = random.nextInt(grid.getWidth());
+            int y = random.nextInt(grid.getHeight());
+            if (grid.isWalkable(x, y)) {
+                return new Point(x, y);
+            }
+        }
+    }
+
+    /**
+     * Adds up the cost of a path and makes sure every step is an allowed move
+     *
+     * @param grid  The grid that was searched
+     * @param start The start of the path
+     * @param path  The path
+     * @return The cost of the path
+     */
+    private static double cost(AbstractGridMap grid, Point start, Path path) {
+        int x = start.x;
+        int y = start.y;
+        double cost = 0;
+
+        for (int i = 0; i < path.length(); i++) {
+            int nx = path.getX(i);
+            int ny = path.getY(i);
+            boolean diagonal = nx != x && ny != y;
+            if (Math.max(Math.abs(nx - x), Math.abs(ny - y)) != 1 ||
+                !grid.isWalkable(nx, ny) ||
+                (diagonal && !grid.getConnectivity().allowsDiagonal())) {
+                throw new AssertionError("Invalid step to (" + nx + ", " + ny + ")");
+            }
+            cost += grid.getCost(nx, ny) * (diagonal ? Math.sqrt(2) : 1);
+            x = nx;
+            y = ny;
+        }
+
+        return cost;
+    }
+}
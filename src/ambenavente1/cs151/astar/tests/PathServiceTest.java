@@ -0,0 +1,96 @@
+package ambenavente1.cs151.astar.tests;
+
+import ambenavente1.cs151.astar.AStar;
+import ambenavente1.cs151.astar.Grid;
+import ambenavente1.cs151.astar.PathRequest;
+import ambenavente1.cs151.astar.PathService;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Test that runs many queries in parallel against one shared grid, both
+ * through a {@link PathService} and as a batch with
+ * {@link AStar#calculatePaths(List)}, and makes sure they find the same paths
+ * as running them one at a time.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public class PathServiceTest {
+
+    public static void main(String[] args) throws InterruptedException {
+        int size    = args.length > 0 ? Integer.parseInt(args[0]) : 512;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 400;
+
+        Random random = new Random(11);
+        Grid grid = new Grid(size, size);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                grid.setWalkable(x, y, random.nextInt(100) >= 25);
+            }
+        }
+
+        List<Point> starts = new ArrayList<Point>();
+        List<Point> ends   = new ArrayList<Point>();
+        while (starts.size() < queries) {
+            Point start = new Point(random.nextInt(size), random.nextInt(size));
+            Point end   = new Point(random.nextInt(size), random.nextInt(size));
+            if (grid.isWalkable(start.x, start.y) && grid.isWalkable(end.x, end.y)) {
+                starts.add(start);
+                ends.add(end);
+            }
+        }
+
+        AStar aStar = new AStar(grid);
+        List<List<Point>> expected = new ArrayList<List<Point>>();
+        long sequentialStart = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            expected.add(aStar.calculatePath(starts.get(i), ends.get(i)));
+        }
+        long sequentialTime = System.nanoTime() - sequentialStart;
+
+        PathService service = new PathService(grid);
+        long parallelStart = System.nanoTime();
+        List<List<Point>> paths = service.calculatePaths(starts, ends);
+        long parallelTime = System.nanoTime() - parallelStart;
+        service.shutdown();
+
+        List<PathRequest> requests = new ArrayList<PathRequest>();
+        for (int i = 0; i < queries; i++) {
+            requests.add(new PathRequest(starts.get(i), ends.get(i)));
+        }
+
+        AStar batchAStar = new AStar(grid);
+        batchAStar.setParallelism(4);
+        long batchStart = System.nanoTime();
+        List<List<Point>> batchPaths = batchAStar.calculatePaths(requests);
+        long batchTime = System.nanoTime() - batchStart;
+        batchAStar.shutdown();
+
+        // A batch after a shutdown starts a new pool of its own
+        List<List<Point>> restartedPaths = batchAStar.calculatePaths(requests);
+        batchAStar.shutdown();
+
+        if (!paths.equals(expected)) {
+            throw new AssertionError("Parallel queries found different paths");
+        }
+
+        if (!batchPaths.equals(expected)) {
+            throw new AssertionError("Batch queries found different paths");
+        }
+
+        if (!restartedPaths.equals(expected)) {
+            throw new AssertionError("A batch after a shutdown found different " +
+                                     "paths");
+        }
+
+        System.out.println("Queries:    " + queries + " on " + size + "x" + size);
+        System.out.println("Sequential: " + sequentialTime / 1000000 + " ms");
+        System.out.println("Parallel:   " + parallelTime / 1000000 + " ms");
+        System.out.println("Batch:      " + batchTime / 1000000 + " ms");
+        System.out.println("Paths:      identical");
+    }
+}
@@ -0,0 +1,168 @@
+package ambenavente1.cs151.astar.tests;
+
+import ambenavente1.cs151.astar.AStar;
+import ambenavente1.cs151.astar.CompactGrid;
+import ambenavente1.cs151.astar.Connectivity;
+import ambenavente1.cs151.astar.Path;
+
+import java.awt.Point;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Test for {@link Path}.  The point view, the copied point list and the
+ * waypoints of each path must describe the same cells as the cell array,
+ * the lists returned by <code>calculatePath</code> must be free to change,
+ * and the bytes allocated per query with a path are compared with building
+ * a list of points.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public class PathTest {
+
+    public static void main(String[] args) {
+        for (Connectivity connectivity : Connectivity.values()) {
+            CompactGrid grid = new CompactGrid(128, 128);
+            grid.setConnectivity(connectivity);
+            BenchmarkMaps.randomObstacles(grid, 15, 2);
+            check(grid, 300);
+        }
+        System.out.println("Points and waypoints match the cells");
+
+        compareAllocation();
+    }
+
+    /**
+     * Runs random queries and checks every path's views against its cells
+     *
+     * @param grid    The grid to search
+     * @param queries The number of queries to run
+     */
+    private static void check(CompactGrid grid, int queries) {
+        AStar aStar = new AStar(grid);
+        Random random = new Random(8);
+        int width = grid.getWidth();
+
+        for (int i = 0; i < queries; i++) {
+            int sx = random.nextInt(width);
+            int sy = random.nextInt(width);
+            int ex = random.nextInt(width);
+            int ey = random.nextInt(width);
+
+            Path path = aStar.findPath(sx, sy, ex, ey);
+            int[] cells = path.toCellArray();
+            List<Point> points = path.asPoints();
+
+            if (points.size() != cells.length) {
+                throw new AssertionError("Point view has the wrong size");
+            }
+            for (int step = 0; step < cells.length; step++) {
+                Point point = points.get(step);
+                if (point.y * width + point.x != cells[step] ||
+                    path.getX(step) != point.x || path.getY(step) != point.y) {
+                    throw new AssertionError("Point " + step + " doesn't match");
+                }
+            }
+
+            if (!path.toPointList().equals(points)) {
+                throw new AssertionError("Point list doesn't match the view");
+            }
+
+            checkWaypoints(path, cells, width);
+        }
+
+        checkModifiable(aStar.calculatePath(new Point(0, 0),
+                                            new Point(width - 1, width - 1)));
+    }
+
+    /**
+     * Makes sure a list of points can be changed like any other list
+     *
+     * @param points The list to change
+     */
+    private static void checkModifiable(List<Point> points) {
+        int size = points.size();
+        Point first = points.get(0);
+        points.add(new Point(-1, -1));
+        points.set(0, new Point(-2, -2));
+        points.remove(size);
+        points.remove(0);
+        points.add(0, first);
+
+        if (points.size() != size || points.get(0) != first) {
+            throw new AssertionError("The path list can't be changed");
+        }
+    }
+
+    /**
+     * Walks in straight lines from the start through each waypoint and makes
+     * sure every cell of the path is visited in order
+     *
+     * @param path  The path to check
+     * @param cells The cells of the path
+     * @param width The width of the grid
+     */
+    private static void checkWaypoints(Path path, int[] cells, int width) {
+        int x = path.getStart() % width;
+        int y = path.getStart() / width;
+        int step = 0;
+
+        for (int waypoint : path.getWaypoints()) {
+            int dx = Integer.signum(waypoint % width - x);
+            int dy = Integer.signum(waypoint / width - y);
+            while (y * width + x != waypoint) {
+                x += dx;
+                y += dy;
+                if (step >= cells.length || cells[step++] != y * width + x) {
+                    throw new AssertionError("Waypoints leave the path");
+                }
+            }
+        }
+
+        if (step != cells.length) {
+            throw new AssertionError("Waypoints stop before the end");
+        }
+    }
+
+    /**
+     * Prints the bytes allocated per query when paths are kept as
+     * {@link Path}s and when they are turned into lists of points
+     */
+    private static void compareAllocation() {
+        CompactGrid grid = new CompactGrid(512, 512);
+        AStar aStar = new AStar(grid);
+        int queries = 200;
+
+        for (int i = 0; i < queries; i++) {
+            aStar.findPath(0, i, 511, 511 - i);
+        }
+
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+
+        long before = threads.getThreadAllocatedBytes(thread);
+        long steps = 0;
+        for (int i = 0; i < queries; i++) {
+            steps += aStar.findPath(0, i, 511, 511 - i).length();
+        }
+        long pathBytes = threads.getThreadAllocatedBytes(thread) - before;
+
+        before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < queries; i++) {
+            List<Point> points = aStar.calculatePath(new Point(0, i),
+                                                     new Point(511, 511 - i));
+            steps -= points.size();
+        }
+        long listBytes = threads.getThreadAllocatedBytes(thread) - before;
+
+        if (steps != 0) {
+            throw new AssertionError("Paths changed between runs");
+        }
+
+        System.out.println("Path:          " + pathBytes / queries + " bytes per query");
+        System.out.println("List of points: " + listBytes / queries + " bytes per query");
+    }
+}
@@ -0,0 +1,406 @@
+package ambenavente1.cs151.astar.tests;
+
+import ambenavente1.cs151.astar.AStar;
+import ambenavente1.cs151.astar.AbstractGridMap;
+import ambenavente1.cs151.astar.Algorithm;
+import ambenavente1.cs151.astar.CompactGrid;
+import ambenavente1.cs151.astar.GridMap;
+import ambenavente1.cs151.astar.HeapOpenList;
+import ambenavente1.cs151.astar.MovingAi;
+import ambenavente1.cs151.astar.MovingAiScenario;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Runs every scenario of Moving AI <code>.scen</code> files through
+ * {@link AStar} and checks the cost of each path against the optimal length
+ * in the file.  The latency and the number of expanded cells are reported
+ * per bucket.  The maps are looked for next to each scenario file, so a
+ * downloaded benchmark set works as it is unpacked, without a network.
+ * <p></p>
+ * Without any files, a small set of maps and scenarios is generated into a
+ * temporary folder, with optimal lengths worked out by Dijkstra's
+ * algorithm, and run the same way.
+ * <p></p>
+ * Usage: <code>ScenarioRunner [-algorithm NAME] [file.scen...]</code>
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public class ScenarioRunner {
+
+    /**
+     * How far a path's cost may be from the optimal length, which is
+     * rounded to 8 decimals in the files
+     */
+    private static final double EPSILON = 1e-6;
+
+    /**
+     * The x offset of each move direction, in the order of the neighbor mask
+     */
+    private static final int[] DX = { 0, 0, -1, 1, -1, 1, -1, 1 };
+
+    /**
+     * The y offset of each move direction, in the order of the neighbor mask
+     */
+    private static final int[] DY = { -1, 1, 0, 0, -1, -1, 1, 1 };
+
+    public static void main(String[] args) throws IOException {
+        Algorithm algorithm = Algorithm.A_STAR;
+        List<File> files = new ArrayList<File>();
+
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-algorithm") && i + 1 < args.length) {
+                algorithm = Algorithm.valueOf(args[++i]);
+            } else {
+                files.add(new File(args[i]));
+            }
+        }
+
+        if (files.isEmpty()) {
+            files = generateSample();
+        }
+
+        int failures = 0;
+        for (File file : files) {
+            failures += run(file, algorithm);
+        }
+
+        if (failures > 0) {
+            throw new AssertionError(failures + " scenarios didn't find an " +
+                                     "optimal path");
+        }
+    }
+
+    /**
+     * Runs every scenario of one file and prints the results per bucket
+     *
+     * @param file      The scenario file
+     * @param algorithm The algorithm to search with
+     * @return The number of scenarios whose path wasn't optimal
+     * @throws IOException If the scenario file or a map can't be read
+     */
+    private static int run(File file, Algorithm algorithm) throws IOException {
+        List<MovingAiScenario> scenarios = MovingAi.readScenarios(file);
+        Map<String, AStar> searches = new HashMap<String, AStar>();
+        Map<Integer, Bucket> buckets = new TreeMap<Integer, Bucket>();
+        int failures = 0;
+
+        // One untimed pass so the first bucket isn't timed while the JIT
+        // is still compiling
+        for (MovingAiScenario scenario : scenarios.subList(0,
+                Math.min(200, scenarios.size()))) {
+            search(searches, file, scenario, algorithm);
+        }
+
+        for (MovingAiScenario scenario : scenarios) {
+            long start = System.nanoTime();
+            int[] path = search(searches, file, scenario, algorithm);
+            long time = System.nanoTime() - start;
+
+            AStar aStar = searches.get(scenario.getMapName());
+            Bucket bucket = buckets.get(scenario.getBucket());
+            if (bucket == null) {
+                bucket = new Bucket();
+                buckets.put(scenario.getBucket(), bucket);
+            }
+            bucket.add(time, aStar.getNodesExpanded());
+
+            double cost = cost(aStar.getMap(), scenario, path);
+            double optimal = scenario.getOptimalLength();
+            boolean found = path.length > 0 ||
+                            scenario.getStart().equals(scenario.getEnd());
+            if (!found || Math.abs(cost - optimal) > EPSILON) {
+                if (failures < 10) {
+                    System.out.println("  " + scenario + " cost " +
+                                       (found ? cost : "no path"));
+                }
+                bucket.failures++;
+                failures++;
+            }
+        }
+
+        System.out.println(file.getName() + " (" + scenarios.size() +
+                           " scenarios, " + algorithm + ")");
+        System.out.println("Bucket  Count   Mean us   p50 us    p99 us    " +
+                           "Max us    Expanded  Failures");
+        for (Map.Entry<Integer, Bucket> entry : buckets.entrySet()) {
+            entry.getValue().print(entry.getKey());
+        }
+        System.out.println();
+
+        return failures;
+    }
+
+    /**
+     * Runs one scenario, loading its map the first time it is used
+     *
+     * @param searches  The search of each map that was loaded already
+     * @param file      The scenario file
+     * @param scenario  The scenario to run
+     * @param algorithm The algorithm to search with
+     * @return The path found
+     * @throws IOException If the map can't be read or has the wrong size
+     */
+    private static int[] search(Map<String, AStar> searches, File file,
+                                MovingAiScenario scenario, Algorithm algorithm)
+            throws IOException {
+        AStar aStar = searches.get(scenario.getMapName());
+        if (aStar == null) {
+            CompactGrid map = MovingAi.readMap(MovingAi.findMap(file, scenario));
+            if (map.getWidth() != scenario.getMapWidth() ||
+                map.getHeight() != scenario.getMapHeight()) {
+                throw new IOException(scenario.getMapName() + " is " +
+                                      map.getWidth() + "x" + map.getHeight() +
+                                      " but the scenarios expect " +
+                                      scenario.getMapWidth() + "x" +
+                                      scenario.getMapHeight());
+            }
+            aStar = new AStar(map, new HeapOpenList());
+            aStar.setAlgorithm(algorithm);
+            searches.put(scenario.getMapName(), aStar);
+        }
+
+        return aStar.calculateCellPath(scenario.getStartX(), scenario.getStartY(),
+                                       scenario.getEndX(), scenario.getEndY());
+    }
+
+    /**
+     * Adds up the length of a path, with straight steps costing 1 and
+     * diagonal steps the square root of 2
+     *
+     * @param map      The map that was searched
+     * @param scenario The scenario the path is for
+     * @param path     The cells on the path
+     * @return The length of the path
+     */
+    private static double cost(GridMap map, MovingAiScenario scenario,
+                               int[] path) {
+        int width = map.getWidth();
+        int x = scenario.getStartX();
+        int y = scenario.getStartY();
+        double cost = 0;
+
+        for (int cell : path) {
+            int nx = cell % width;
+            int ny = cell / width;
+            if (Math.max(Math.abs(nx - x), Math.abs(ny - y)) != 1 ||
+                !map.isWalkable(nx, ny)) {
+                throw new AssertionError("Invalid step to (" + nx + ", " + ny + ")");
+            }
+            cost += map.getCost(nx, ny) * (nx != x && ny != y ? Math.sqrt(2) : 1);
+            x = nx;
+            y = ny;
+        }
+
+        return cost;
+    }
+
+    /**
+     * Writes two generated maps and a scenario file for each into a
+     * temporary folder
+     *
+     * @return The scenario files
+     * @throws IOException If the files can't be written
+     */
+    private static List<File> generateSample() throws IOException {
+        File folder = File.createTempFile("scenarios", "");
+        folder.delete();
+        folder.mkdir();
+        folder.deleteOnExit();
+
+        List<File> files = new ArrayList<File>();
+        for (String family : new String[] { "rooms", "random25" }) {
+            CompactGrid grid = new CompactGrid(256, 256);
+            BenchmarkMaps.generate(grid, family, 7);
+
+            File map = new File(folder, family + ".map");
+            File scenarios = new File(folder, family + ".map.scen");
+            map.deleteOnExit();
+            scenarios.deleteOnExit();
+
+            BenchmarkMaps.writeMovingAiMap(grid, map);
+            // Read it back so the sample goes through the same reader
+            writeScenarios(MovingAi.readMap(map), map.getName(), scenarios, 500);
+            files.add(scenarios);
+        }
+
+        System.out.println("No scenario files given, generated " + files.size() +
+                           " in " + folder);
+        System.out.println();
+        return files;
+    }
+
+    /**
+     * Writes random scenarios between connected cells of a map, with the
+     * optimal lengths worked out by Dijkstra's algorithm in double
+     * precision and bucketed by a fourth of their length like the Moving
+     * AI sets
+     *
+     * @param grid    The map, read back from its file
+     * @param mapName The name of the map file
+     * @param file    The scenario file to write
+     * @param count   The number of scenarios to write
+     * @throws IOException If the file can't be written
+     */
+    private static void writeScenarios(CompactGrid grid, String mapName,
+                                       File file, int count)
+            throws IOException {
+        int width = grid.getWidth();
+        int height = grid.getHeight();
+        Random random = new Random(3);
+        List<String> lines = new ArrayList<String>();
+
+        while (lines.size() < count) {
+            int sx = random.nextInt(width);
+            int sy = random.nextInt(height);
+            if (!grid.isWalkable(sx, sy)) {
+                continue;
+            }
+
+            double[] distances = dijkstra(grid, sy * width + sx);
+            for (int i = 0; i < 25 && lines.size() < count; i++) {
+                int ex = random.nextInt(width);
+                int ey = random.nextInt(height);
+                double distance = distances[ey * width + ex];
+                if (distance == Double.POSITIVE_INFINITY ||
+                    !grid.isWalkable(ex, ey)) {
+                    continue;
+                }
+                lines.add(String.format("%d\t%s\t%d\t%d\t%d\t%d\t%d\t%d\t%.8f",
+                                        (int) (distance / 4), mapName,
+                                        width, height, sx, sy, ex, ey,
+                                        distance));
+            }
+        }
+
+        PrintWriter out = new PrintWriter(file, "US-ASCII");
+        try {
+            out.println("version 1");
+            for (String line : lines) {
+                out.println(line);
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Finds the length of the cheapest path from one cell to every other
+     *
+     * @param grid  The map to search
+     * @param start The index of the cell to start from
+     * @return The length to each cell, or infinity for cells that can't be
+     * reached
+     */
+    private static double[] dijkstra(CompactGrid grid, int start) {
+        int width = grid.getWidth();
+        double[] distances = new double[width * grid.getHeight()];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        boolean[] done = new boolean[distances.length];
+        HeapOpenList open = new HeapOpenList();
+
+        distances[start] = 0;
+        open.add(start, 0);
+
+        while (open.size() > 0) {
+            int cell = open.poll();
+            if (done[cell]) {
+                continue;
+            }
+            done[cell] = true;
+
+            int x = cell % width;
+            int y = cell / width;
+            int mask = grid.getNeighborMask(x, y);
+            for (int d = 0; d < 8; d++) {
+                if ((mask & (1 << d)) == 0) {
+                    continue;
+                }
+                int neighbor = (y + DY[d]) * width + x + DX[d];
+                double distance = distances[cell] + (d >= 4 ? Math.sqrt(2) : 1);
+                if (distance < distances[neighbor]) {
+                    boolean queued = distances[neighbor] != Double.POSITIVE_INFINITY;
+                    distances[neighbor] = distance;
+                    if (queued && open.contains(neighbor)) {
+                        open.update(neighbor, distance);
+                    } else {
+                        open.add(neighbor, distance);
+                    }
+                }
+            }
+        }
+
+        return distances;
+    }
+
+    /**
+     * The latencies and expansions of the scenarios in one bucket
+     */
+    private static class Bucket {
+
+        /**
+         * The latency of each scenario in nanoseconds
+         */
+        private long[] times = new long[16];
+
+        /**
+         * The number of scenarios run
+         */
+        private int count;
+
+        /**
+         * The total number of cells expanded
+         */
+        private long expanded;
+
+        /**
+         * The number of scenarios whose path wasn't optimal
+         */
+        private int failures;
+
+        /**
+         * Records one scenario
+         *
+         * @param time     How long the search took in nanoseconds
+         * @param expanded The number of cells it expanded
+         */
+        void add(long time, long expanded) {
+            if (count == times.length) {
+                times = Arrays.copyOf(times, count * 2);
+            }
+            times[count++] = time;
+            this.expanded += expanded;
+        }
+
+        /**
+         * Prints a line with the results of the bucket
+         *
+         * @param number The bucket number
+         */
+        void print(int number) {
+            long[] sorted = Arrays.copyOf(times, count);
+            Arrays.sort(sorted);
+            long total = 0;
+            for (long time : sorted) {
+                total += time;
+            }
+
+            System.out.println(String.format("%-7d %-7d %-9d %-9d %-9d %-9d %-9d %d",
+                    number, count, total / count / 1000,
+                    sorted[count / 2] / 1000,
+                    sorted[Math.min(count - 1, count * 99 / 100)] / 1000,
+                    sorted[count - 1] / 1000,
+                    expanded / count, failures));
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package ambenavente1.cs151.astar.tests;
+
+import ambenavente1.cs151.astar.AStar;
+import ambenavente1.cs151.astar.Algorithm;
+import ambenavente1.cs151.astar.CompactGrid;
+import ambenavente1.cs151.astar.LatencyHistogram;
+import ambenavente1.cs151.astar.PathRequest;
+import ambenavente1.cs151.astar.PathSearch;
+import ambenavente1.cs151.astar.SearchMetrics;
+import ambenavente1.cs151.astar.SearchStats;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Test for {@link SearchStats} and {@link SearchMetrics}.  The totals of the
+ * metrics must add up to the statistics of each search, batches must record
+ * every query, only anytime searches may reopen closed cells, the two
+ * sides of a bidirectional search must report their own open list peaks,
+ * the latency
+ * histogram must be close to the exact percentiles, and searches without
+ * metrics must skip every count but the cells expanded.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public class SearchMetricsTest {
+
+    public static void main(String[] args) {
+        CompactGrid grid = new CompactGrid(256, 256);
+        BenchmarkMaps.randomObstacles(grid, 25, 8);
+
+        List<PathRequest> requests = new ArrayList<PathRequest>();
+        Random random = new Random(4);
+        while (requests.size() < 300) {
+            int sx = random.nextInt(256);
+            int sy = random.nextInt(256);
+            int ex = random.nextInt(256);
+            int ey = random.nextInt(256);
+            if (grid.isWalkable(sx, sy) && grid.isWalkable(ex, ey)) {
+                requests.add(new PathRequest(sx, sy, ex, ey));
+            }
+        }
+
+        checkTotals(grid, requests);
+        checkBatch(grid, requests);
+        checkReopened(grid, requests);
+        checkBidirectional(grid, requests);
+        checkHistogram();
+        compareOverhead(grid, requests);
+    }
+
+    /**
+     * Makes sure the metrics add up the statistics of every search
+     *
+     * @param grid     The grid to search
+     * @param requests The queries to run
+     */
+    private static void checkTotals(CompactGrid grid, List<PathRequest> requests) {
+        AStar aStar = new AStar(grid);
+        SearchMetrics metrics = new SearchMetrics();
+        aStar.setMetrics(metrics);
+
+        long expanded = 0;
+        long generated = 0;
+        long improved = 0;
+        long pathLength = 0;
+        int failed = 0;
+
+        for (PathRequest request : requests) {
+            int[] path = aStar.calculateCellPath(request.getStartX(),
+                    request.getStartY(), request.getEndX(), request.getEndY());
+            SearchStats stats = aStar.getLastStats();
+
+            if (stats.getPathLength() != path.length ||
+                stats.getExpanded() != aStar.getNodesExpanded() ||
+                stats.getPeakOpenSize() > stats.getGenerated() ||
+                stats.getReversePeakOpenSize() != 0 ||
+                stats.getExpanded() > stats.getGenerated() ||
+                stats.getReopened() != 0 ||
+                stats.getWallTime() <= 0) {
+                throw new AssertionError("Inconsistent statistics: " + stats);
+            }
+
+            expanded += stats.getExpanded();
+            generated += stats.getGenerated();
+            improved += stats.getImproved();
+            pathLength += stats.getPathLength();
+            if (path.length == 0) {
+                failed++;
+            }
+        }
+
+        if (metrics.getQueries() != requests.size() ||
+            metrics.getExpanded() != expanded ||
+            metrics.getGenerated() != generated ||
+            metrics.getImproved() != improved ||
+            metrics.getReopened() != 0 ||
+            metrics.getPathLength() != pathLength ||
+            metrics.getFailed() != failed ||
+            metrics.getLatency().getCount() != requests.size()) {
+            throw new AssertionError("Metrics don't add up: " + metrics);
+        }
+
+        System.out.println(metrics);
+    }
+
+    /**
+     * Makes sure a bidirectional search reports the peak of each side's
+     * open list on its own instead of their sum
+     *
+     * @param grid     The grid to search
+     * @param requests The queries to run
+     */
+    private static void checkBidirectional(CompactGrid grid,
+                                           List<PathRequest> requests) {
+        AStar aStar = new AStar(grid);
+        aStar.setMetrics(new SearchMetrics());
+
+        for (PathRequest request : requests) {
+            int[] path = aStar.calculateCellPath(request.getStartX(),
+                    request.getStartY(), request.getEndX(), request.getEndY(),
+                    Algorithm.BIDIRECTIONAL_A_STAR);
+            SearchStats stats = aStar.getLastStats();
+
+            if (stats.getPathLength() != path.length ||
+                (path.length > 0 && stats.getReversePeakOpenSize() <= 0) ||
+                stats.getPeakOpenSize() + stats.getReversePeakOpenSize() >
+                        stats.getGenerated()) {
+                throw new AssertionError("Inconsistent bidirectional " +
+                                         "statistics: " + stats);
+            }
+        }
+    }
+
+    /**
+     * Makes sure every query of a parallel batch is recorded
+     *
+     * @param grid     The grid to search
+     * @param requests The queries to run
+     */
+    private static void checkBatch(CompactGrid grid, List<PathRequest> requests) {
+        AStar aStar = new AStar(grid);
+        aStar.setParallelism(4);
+        SearchMetrics metrics = new SearchMetrics();
+        aStar.setMetrics(metrics);
+
+        aStar.calculateCellPaths(requests);
+        aStar.shutdown();
+
+        if (metrics.getQueries() != requests.size()) {
+            throw new AssertionError("Batch recorded " + metrics.getQueries() +
+                                     " of " + requests.size() + " queries");
+        }
+    }
+
+    /**
+     * Makes sure the weighted passes of anytime searches count the closed
+     * cells they visit again, apart from the cells improved in the open list
+     *
+     * @param grid     The grid to search
+     * @param requests The queries to run
+     */
+    private static void checkReopened(CompactGrid grid,
+                                      List<PathRequest> requests) {
+        AStar aStar = new AStar(grid);
+        aStar.setMetrics(new SearchMetrics());
+        long reopened = 0;
+        for (PathRequest request : requests.subList(0, 50)) {
+            PathSearch search = aStar.startSearch(request.getStartX(),
+                    request.getStartY(), request.getEndX(), request.getEndY(), 3);
+            search.runToEnd();
+            SearchStats stats = search.getStats();
+            search.dispose();
+            if (stats.getReopened() > stats.getGenerated()) {
+                throw new AssertionError("Inconsistent statistics: " + stats);
+            }
+            reopened += stats.getReopened();
+        }
+
+        if (reopened == 0) {
+            throw new AssertionError("Anytime searches reopened no cells");
+        }
+    }
+
+    /**
+     * Records random values and compares the percentiles read back with the
+     * exact ones
+     */
+    private static void checkHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Random random = new Random(6);
+        long[] values = new long[10000];
+
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) Math.exp(random.nextDouble() * 25);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double percent : new double[] { 1, 50, 90, 99, 99.9, 100 }) {
+            long exact = values[(int) Math.ceil(percent / 100 * values.length) - 1];
+            long read = histogram.getValueAtPercentile(percent);
+            if (read < exact || read > exact + exact / 8 + 1) {
+                throw new AssertionError("p" + percent + " read as " + read +
+                                         " but is " + exact);
+            }
+        }
+
+        if (histogram.getMax() != values[values.length - 1]) {
+            throw new AssertionError("Wrong maximum");
+        }
+
+        histogram.reset();
+        if (histogram.getCount() != 0 || histogram.getValueAtPercentile(50) != 0) {
+            throw new AssertionError("Reset histogram isn't empty");
+        }
+
+        System.out.println("Histogram percentiles within 12.5%");
+    }
+
+    /**
+     * Makes sure searches without metrics only count the cells they expand,
+     * and times the same queries with and without metrics
+     *
+     * @param grid     The grid to search
+     * @param requests The queries to run
+     */
+    private static void compareOverhead(CompactGrid grid,
+                                        List<PathRequest> requests) {
+        AStar plain = new AStar(grid);
+        AStar measured = new AStar(grid);
+        measured.setMetrics(new SearchMetrics());
+
+        PathRequest first = requests.get(0);
+        plain.calculateCellPath(first.getStartX(), first.getStartY(),
+                                first.getEndX(), first.getEndY());
+        SearchStats stats = plain.getLastStats();
+        if (stats.getExpanded() == 0 || stats.getGenerated() != 0 ||
+            stats.getImproved() != 0 || stats.getPeakOpenSize() != 0) {
+            throw new AssertionError("Counted without metrics: " + stats);
+        }
+
+        long plainTime = Long.MAX_VALUE;
+        long measuredTime = Long.MAX_VALUE;
+        for (int round = 0; round < 5; round++) {
+            plainTime = Math.min(plainTime, time(plain, requests));
+            measuredTime = Math.min(measuredTime, time(measured, requests));
+        }
+
+        System.out.println("Without metrics: " + plainTime / 1000000 + " ms");
+        System.out.println("With metrics:    " + measuredTime / 1000000 + " ms");
+    }
+
+    /**
+     * Runs every query once
+     *
+     * @param aStar    The object to search with
+     * @param requests The queries to run
+     * @return How long the queries took in nanoseconds
+     */
+    private static long time(AStar aStar, List<PathRequest> requests) {
+        long start = System.nanoTime();
+        for (PathRequest request : requests) {
+            aStar.calculateCellPath(request.getStartX(), request.getStartY(),
+                                    request.getEndX(), request.getEndY());
+        }
+        return System.nanoTime() - start;
+    }
+}
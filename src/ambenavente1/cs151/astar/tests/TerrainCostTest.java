@@ -0,0 +1,266 @@
+package ambenavente1.cs151.astar.tests;
+
+import ambenavente1.cs151.astar.AStar;
+import ambenavente1.cs151.astar.AbstractGridMap;
+import ambenavente1.cs151.astar.CompactGrid;
+import ambenavente1.cs151.astar.Connectivity;
+import ambenavente1.cs151.astar.Grid;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Test for cell costs.  Random mud and road cells are placed on a grid and
+ * the cost of every path found is checked against Dijkstra's algorithm,
+ * worked out in doubles.  The 8-way maps have costs spread over a range so
+ * that float sums round differently along different paths, which is where
+ * the open list's tie tolerance could cost optimality; paths there may cost
+ * no more than {@link #MAX_RATIO} times the cheapest.
+ *
+ * @author Anthony Benavente
+ * @version 10/18/26
+ */
+public class TerrainCostTest {
+
+    /**
+     * The most a path may cost compared to the cheapest one
+     */
+    private static final double MAX_RATIO = 1 + 1e-5;
+
+    /**
+     * The x offset of each direction of a neighbor mask
+     */
+    private static final int[] DX = { 0, 0, -1, 1, -1, 1, -1, 1 };
+
+    /**
+     * The y offset of each direction of a neighbor mask
+     */
+    private static final int[] DY = { -1, 1, 0, 0, -1, -1, 1, 1 };
+
+    public static void main(String[] args) {
+        check(createTerrain(new Grid(48, 48), 1), 300);
+        check(createTerrain(new CompactGrid(48, 48), 2), 300);
+
+        for (Connectivity connectivity : new Connectivity[] {
+                Connectivity.EIGHT, Connectivity.EIGHT_NO_CORNER_CUTTING }) {
+            AbstractGridMap grid = createRoughTerrain(new CompactGrid(128, 128), 3);
+            grid.setConnectivity(connectivity);
+            check(grid, 200);
+        }
+        System.out.println("Path costs match Dijkstra");
+
+        checkCostRange();
+        System.out.println("Cost range follows edits");
+    }
+
+    /**
+     * Makes sure the lowest cost and whether every cell costs the same are
+     * kept right as the cells with the lowest and highest cost are changed
+     */
+    private static void checkCostRange() {
+        CompactGrid grid = new CompactGrid(8, 8);
+        grid.setCost(1, 1, 0.5f);
+        grid.setCost(2, 2, 0.5f);
+        grid.setCost(3, 3, 4);
+        expectRange(grid, 0.5f, false);
+
+        grid.setCost(1, 1, 2);
+        expectRange(grid, 0.5f, false);
+        grid.setCost(2, 2, 3);
+        expectRange(grid, 1, false);
+        grid.setCost(3, 3, 1);
+        grid.setCost(1, 1, 1);
+        grid.setCost(2, 2, 1);
+        expectRange(grid, 1, true);
+
+        for (int y = 0; y < 8; y++) {
+            for (int x = 0; x < 8; x++) {
+                grid.setCost(x, y, 2);
+            }
+        }
+        expectRange(grid, 2, true);
+        grid.setCost(4, 4, 0.25f);
+        expectRange(grid, 0.25f, false);
+    }
+
+    /**
+     * Makes sure a grid reports the cost range it should
+     *
+     * @param grid    The grid to check
+     * @param minCost The lowest cost any cell has
+     * @param uniform If every cell has the same cost
+     */
+    private static void expectRange(AbstractGridMap grid, float minCost,
+                                    boolean uniform) {
+        if (grid.getMinCost() != minCost || grid.isUniformCost() != uniform) {
+            throw new AssertionError("Expected lowest cost " + minCost +
+                                     (uniform ? " on every cell" : "") +
+                                     " but got " + grid.getMinCost() +
+                                     ", uniform " + grid.isUniformCost());
+        }
+    }
+
+    /**
+     * Runs random queries and compares the cost of each path found with the
+     * cheapest cost Dijkstra's algorithm finds
+     *
+     * @param grid    The grid to search
+     * @param queries The number of queries to run
+     */
+    private static void check(AbstractGridMap grid, int queries) {
+        AStar aStar = new AStar(grid);
+        Random random = new Random(9);
+        int width = grid.getWidth();
+        double worst = 1;
+
+        for (int i = 0; i < queries; i++) {
+            int start = random.nextInt(width * grid.getHeight());
+            int end   = random.nextInt(width * grid.getHeight());
+            if (!grid.isWalkable(start % width, start / width) ||
+                !grid.isWalkable(end % width, end / width) || start == end) {
+                continue;
+            }
+
+            int[] path = aStar.calculateCellPath(start % width, start / width,
+                                                 end % width, end / width);
+            double expected = dijkstra(grid, start)[end];
+
+            if (Double.isInfinite(expected)) {
+                if (path.length != 0) {
+                    throw new AssertionError("Found a path to an unreachable cell");
+                }
+                continue;
+            }
+
+            double cost = 0;
+            int previous = start;
+            for (int cell : path) {
+                cost += stepCost(grid, previous, cell);
+                previous = cell;
+            }
+
+            if (cost > expected * MAX_RATIO + 1e-9 || cost < expected - 1e-3) {
+                throw new AssertionError("Path cost " + cost + " but the " +
+                                         "cheapest is " + expected);
+            }
+            worst = Math.max(worst, cost / expected);
+        }
+
+        System.out.println(String.format("%-8s %-24s worst ratio %.9f",
+                                         grid.getWidth() + "x" + grid.getHeight(),
+                                         grid.getConnectivity(), worst));
+    }
+
+    /**
+     * Gets the cost of moving between two neighboring cells
+     *
+     * @param grid The grid the cells are on
+     * @param from The index of the cell moved out of
+     * @param to   The index of the cell moved into
+     * @return The cost of the cell moved into, times the square root of 2
+     * for a diagonal move
+     */
+    private static double stepCost(AbstractGridMap grid, int from, int to) {
+        int width = grid.getWidth();
+        boolean diagonal = from % width != to % width && from / width != to / width;
+        return (diagonal ? Math.sqrt(2) : 1) * grid.getCost(to % width, to / width);
+    }
+
+    /**
+     * Finds the cheapest cost from one cell to every other cell
+     *
+     * @param grid  The grid to search
+     * @param start The index of the cell to start from
+     * @return The cheapest cost to each cell, or infinity if it can't be
+     * reached
+     */
+    private static double[] dijkstra(AbstractGridMap grid, int start) {
+        final int width = grid.getWidth();
+        int height = grid.getHeight();
+        final double[] cost = new double[width * height];
+        Arrays.fill(cost, Double.POSITIVE_INFINITY);
+        cost[start] = 0;
+
+        PriorityQueue<double[]> queue = new PriorityQueue<double[]>(11,
+                new java.util.Comparator<double[]>() {
+                    @Override
+                    public int compare(double[] a, double[] b) {
+                        return Double.compare(a[0], b[0]);
+                    }
+                });
+        queue.add(new double[] { 0, start });
+
+        while (!queue.isEmpty()) {
+            double[] entry = queue.poll();
+            int cell = (int) entry[1];
+            if (entry[0] > cost[cell]) {
+                continue;
+            }
+
+            int mask = grid.getNeighborMask(cell % width, cell / width);
+            for (int d = 0; d < 8; d++) {
+                if ((mask & (1 << d)) == 0) {
+                    continue;
+                }
+                int next = (cell / width + DY[d]) * width + cell % width + DX[d];
+                double total = cost[cell] + stepCost(grid, cell, next);
+                if (total < cost[next]) {
+                    cost[next] = total;
+                    queue.add(new double[] { total, next });
+                }
+            }
+        }
+
+        return cost;
+    }
+
+    /**
+     * Fills a grid with walls, mud that costs 5 and roads that cost 0.5
+     *
+     * @param grid The grid to fill
+     * @param seed The seed for the random terrain
+     * @return The same grid
+     */
+    private static AbstractGridMap createTerrain(AbstractGridMap grid, long seed) {
+        Random random = new Random(seed);
+        for (int y = 0; y < grid.getHeight(); y++) {
+            for (int x = 0; x < grid.getWidth(); x++) {
+                int roll = random.nextInt(100);
+                if (roll < 15) {
+                    grid.setWalkable(x, y, false);
+                } else if (roll < 40) {
+                    grid.setCost(x, y, 5);
+                } else if (roll < 55) {
+                    grid.setCost(x, y, 0.5f);
+                }
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Fills a grid with walls and cells whose costs are spread evenly from
+     * 0.5 to 5, with a few open stretches at the default cost where many
+     * paths tie
+     *
+     * @param grid The grid to fill
+     * @param seed The seed for the random terrain
+     * @return The same grid
+     */
+    private static AbstractGridMap createRoughTerrain(AbstractGridMap grid,
+                                                      long seed) {
+        Random random = new Random(seed);
+        for (int y = 0; y < grid.getHeight(); y++) {
+            for (int x = 0; x < grid.getWidth(); x++) {
+                int roll = random.nextInt(100);
+                if (roll < 10) {
+                    grid.setWalkable(x, y, false);
+                } else if (roll < 60 && (x / 16 + y / 16) % 3 != 0) {
+                    grid.setCost(x, y, 0.5f + 4.5f * random.nextFloat());
+                }
+            }
+        }
+        return grid;
+    }
+}